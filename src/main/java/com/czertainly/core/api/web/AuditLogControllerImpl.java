@@ -3,18 +3,19 @@ package com.czertainly.core.api.web;
 import com.czertainly.api.interfaces.core.web.AuditLogController;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
-import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.czertainly.api.model.core.audit.ObjectType;
 import com.czertainly.api.model.core.audit.OperationStatusEnum;
 import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.model.ExportFile;
 import com.czertainly.core.service.AuditLogService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Arrays;
 import java.util.List;
@@ -33,13 +34,16 @@ public class AuditLogControllerImpl implements AuditLogController {
 
     @Override
     public ResponseEntity<org.springframework.core.io.Resource> exportAuditLogs(AuditLogFilter filter, Pageable pageable) {
-        ExportResultDto export = auditLogService.exportAuditLogs(filter, pageable.getSort());
+        ExportFile export = auditLogService.exportAuditLogs(filter, pageable.getSort());
 
+        // file is streamed to the client and deleted afterwards, also when the download is aborted or the body is not read
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                "exportFile-" + export.getFile(), export::delete, RequestAttributes.SCOPE_REQUEST);
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .contentLength(export.getFileContent().length)
+                .contentLength(export.getSize())
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + export.getFileName())
-                .body(new ByteArrayResource(export.getFileContent()));
+                .body(export.toResource());
     }
 
     @Override
@@ -22,6 +22,7 @@ import com.czertainly.core.service.CertValidationService;
 import com.czertainly.core.service.CertificateEventHistoryService;
 import com.czertainly.core.service.CertificateService;
 import com.czertainly.core.service.v2.ClientOperationService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -42,6 +43,14 @@ import java.util.UUID;
 @RestController
 public class CertificateControllerImpl implements CertificateController {
 
+	/**
+	 * Request header switching the certificate listing to keyset pagination. Empty value requests the first page,
+	 * the following pages are requested with the next cursor returned with the previous page.
+	 */
+	public static final String PAGE_CURSOR_HEADER = "X-Page-Cursor";
+
+	private HttpServletRequest httpServletRequest;
+
 	private CertificateService certificateService;
 
 	private CertValidationService certValidationService;
@@ -54,6 +63,10 @@ public class CertificateControllerImpl implements CertificateController {
 
 	@Override
 	public CertificateResponseDto listCertificates(SearchRequestDto request) throws ValidationException {
+		String cursor = httpServletRequest.getHeader(PAGE_CURSOR_HEADER);
+		if (cursor != null) {
+			return certificateService.listCertificates(SecurityFilter.create(), request, cursor);
+		}
 		return certificateService.listCertificates(SecurityFilter.create(), request);
 	}
 
@@ -166,6 +179,11 @@ public class CertificateControllerImpl implements CertificateController {
 
 	// SETTERs
 
+	@Autowired
+	public void setHttpServletRequest(HttpServletRequest httpServletRequest) {
+		this.httpServletRequest = httpServletRequest;
+	}
+
 	@Autowired
 	public void setCertificateService(CertificateService certificateService) {
 		this.certificateService = certificateService;
@@ -4,10 +4,12 @@ import com.czertainly.api.clients.*;
 import com.czertainly.api.clients.cryptography.CryptographicOperationsApiClient;
 import com.czertainly.api.clients.cryptography.KeyManagementApiClient;
 import com.czertainly.api.clients.cryptography.TokenInstanceApiClient;
+import com.czertainly.core.provider.PooledCryptographicOperationsApiClient;
 import com.czertainly.core.security.authn.client.ResourceApiClient;
 import com.czertainly.core.security.authn.client.RoleManagementApiClient;
 import com.czertainly.core.security.authn.client.UserManagementApiClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -15,8 +17,10 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import javax.net.ssl.TrustManager;
+import java.time.Duration;
 
 @Configuration
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
@@ -131,9 +135,29 @@ public class ApplicationConfig {
         return new KeyManagementApiClient(webClient, defaultTrustManagers);
     }
 
-    @Bean
-    public CryptographicOperationsApiClient cryptographicOperationsApiClient(WebClient webClient, TrustManager[] defaultTrustManagers) {
-        return new CryptographicOperationsApiClient(webClient, defaultTrustManagers);
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider cryptographicOperationsConnectionProvider(@Value("${cryptographic-operations.client.max-connections:50}") int maxConnections,
+                                                                        @Value("${cryptographic-operations.client.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+                                                                        @Value("${cryptographic-operations.client.max-idle-time:60s}") Duration maxIdleTime) {
+        return ConnectionProvider.builder("cryptographic-operations")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .build();
+    }
+
+    @Bean
+    public CryptographicOperationsApiClient cryptographicOperationsApiClient(ConnectionProvider cryptographicOperationsConnectionProvider,
+                                                                             TrustManager[] defaultTrustManagers,
+                                                                             @Value("${cryptographic-operations.client.connect-timeout:5s}") Duration connectTimeout,
+                                                                             @Value("${cryptographic-operations.client.response-timeout:30s}") Duration responseTimeout,
+                                                                             @Value("${cryptographic-operations.client.http2:true}") boolean http2,
+                                                                             @Value("${cryptographic-operations.client.max-concurrent-requests:100}") int maxConcurrentRequests,
+                                                                             @Value("${cryptographic-operations.client.bulkhead-timeout:10s}") Duration bulkheadTimeout,
+                                                                             @Value("${cryptographic-operations.sign.batch-size:1}") int signBatchSize,
+                                                                             @Value("${cryptographic-operations.sign.batch-delay:2ms}") Duration signBatchDelay) {
+        WebClient webClient = PooledCryptographicOperationsApiClient.createWebClient(cryptographicOperationsConnectionProvider, connectTimeout, responseTimeout, http2);
+        return new PooledCryptographicOperationsApiClient(webClient, defaultTrustManagers, maxConcurrentRequests, bulkheadTimeout, signBatchSize, signBatchDelay);
     }
 
     @Bean
@@ -0,0 +1,22 @@
+package com.czertainly.core.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers query functions rendered as PostgreSQL jsonb operators. Function calls such as jsonb_contains() cannot use
+ * GIN indexes of jsonb columns, only the operators can.
+ */
+public class JsonbFunctionContributor implements FunctionContributor {
+
+    public static final String JSONB_CONTAINS = "jsonb_contains";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                JSONB_CONTAINS,
+                "(?1 @> cast(?2 as jsonb))",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
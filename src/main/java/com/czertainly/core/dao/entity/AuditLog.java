@@ -13,7 +13,9 @@ import java.io.Serializable;
 import java.util.UUID;
 
 @Entity
-@Table(name = "audit_log")
+@Table(name = "audit_log", indexes = {
+        @Index(name = "audit_log_i_cre_index", columnList = "i_cre")
+})
 public class AuditLog extends Audited implements Serializable, DtoMapper<AuditLogDto> {
 
     @Id
@@ -44,7 +46,7 @@ public class AuditLog extends Audited implements Serializable, DtoMapper<AuditLo
     @Enumerated(EnumType.STRING)
     private OperationStatusEnum operationStatus;
 
-    @Column(name = "additional_data")
+    @Column(name = "additional_data", columnDefinition = "text")
     @Lob
     private String additionalData;
 
@@ -12,6 +12,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,7 +26,16 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Entity
-@Table(name = "certificate")
+// indexes on upper-cased serial number, hashes of distinguished names and status validation timestamp with nulls first
+// cannot be expressed by annotations and are defined only in the database migration
+@Table(name = "certificate", indexes = {
+        @Index(name = "certificate_fingerprint_index", columnList = "fingerprint"),
+        @Index(name = "certificate_status_index", columnList = "status"),
+        @Index(name = "certificate_not_after_index", columnList = "not_after"),
+        @Index(name = "certificate_public_key_fingerprint_index", columnList = "public_key_fingerprint"),
+        @Index(name = "certificate_key_uuid_index", columnList = "key_uuid")
+})
+@EntityListeners(IssuerGraphIndex.CertificateListener.class)
 public class Certificate extends UniquelyIdentifiedAndAudited implements Serializable, DtoMapper<CertificateDetailDto> {
 
     private static final long serialVersionUID = -3048734620156664554L;
@@ -128,10 +139,12 @@ public class Certificate extends UniquelyIdentifiedAndAudited implements Seriali
     @Column(name = "issuer_serial_number")
     private String issuerSerialNumber;
 
-    @Column(name = "certificate_validation_result", length = 100000)
+    @Column(name = "certificate_validation_result", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String certificateValidationResult;
 
-    @Column(name = "compliance_result")
+    @Column(name = "compliance_result", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String complianceResult;
 
     @Column(name = "compliance_status")
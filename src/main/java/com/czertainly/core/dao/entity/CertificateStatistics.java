@@ -0,0 +1,49 @@
+package com.czertainly.core.dao.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * Number of certificates by the value of the statistics dimension. The table is maintained incrementally
+ * by database triggers on certificate insert, update and delete, application only reads it.
+ */
+@Entity
+@Immutable
+@Table(name = "certificate_statistics")
+public class CertificateStatistics implements Serializable {
+
+    @EmbeddedId
+    private CertificateStatisticsId id;
+
+    @Column(name = "count")
+    private long count;
+
+    public CertificateStatisticsId getId() {
+        return id;
+    }
+
+    public void setId(CertificateStatisticsId id) {
+        this.id = id;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "CertificateStatistics{" +
+                "id=" + id +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.czertainly.core.dao.entity;
+
+import com.czertainly.core.enums.CertificateStatisticsDimensionEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ Embedded class for a composite primary key
+ */
+@Embeddable
+public class CertificateStatisticsId implements Serializable {
+
+    @Column(name = "dimension")
+    @Enumerated(EnumType.STRING)
+    private CertificateStatisticsDimensionEnum dimension;
+
+    @Column(name = "value")
+    private String value;
+
+    public CertificateStatisticsId() {}
+
+    public CertificateStatisticsId(CertificateStatisticsDimensionEnum dimension, String value) {
+        this.dimension = dimension;
+        this.value = value;
+    }
+
+    public CertificateStatisticsDimensionEnum getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(CertificateStatisticsDimensionEnum dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        CertificateStatisticsId that = (CertificateStatisticsId) o;
+        return dimension == that.dimension &&
+                Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dimension, value);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("dimension", dimension)
+                .append("value", value)
+                .toString();
+    }
+}
@@ -252,14 +252,14 @@ public class ScepProfile extends UniquelyIdentifiedAndAudited implements Seriali
 
     public String getChallengePassword() {
         if (challengePassword != null) {
-            return SecretsUtil.decodeAndDecryptSecretString(challengePassword, SecretEncodingVersion.V1);
+            return SecretsUtil.decodeAndDecryptSecretString(challengePassword);
         }
         return null;
     }
 
     public void setChallengePassword(String challengePassword) {
         if (challengePassword != null) {
-            this.challengePassword = SecretsUtil.encryptAndEncodeSecretString(challengePassword, SecretEncodingVersion.V1);
+            this.challengePassword = SecretsUtil.encryptAndEncodeSecretString(challengePassword, SecretEncodingVersion.V2);
         } else {
             this.challengePassword = null;
         }
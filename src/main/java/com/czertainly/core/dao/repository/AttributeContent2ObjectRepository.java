@@ -6,6 +6,7 @@ import com.czertainly.core.dao.entity.AttributeContent2Object;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,6 +22,8 @@ public interface AttributeContent2ObjectRepository extends SecurityFilterReposit
 
     List<AttributeContent2Object> findByObjectUuidAndObjectTypeAndSourceObjectUuidAndSourceObjectType(UUID uuid, Resource resource, UUID sourceObjectUUid, Resource sourceObjectType);
 
+    List<AttributeContent2Object> findByObjectUuidInAndObjectTypeAndSourceObjectUuidAndSourceObjectType(Collection<UUID> uuids, Resource resource, UUID sourceObjectUUid, Resource sourceObjectType);
+
     List<AttributeContent2Object> findByAttributeContent(AttributeContent attributeContent);
 
      long countByAttributeContent(AttributeContent attributeContent);
@@ -5,22 +5,29 @@ import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.Group;
 import com.czertainly.core.dao.entity.RaProfile;
-import com.czertainly.core.dao.repository.custom.CustomCertificateRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 @Transactional
-public interface CertificateRepository extends SecurityFilterRepository<Certificate, Long>, CustomCertificateRepository {
+public interface CertificateRepository extends SecurityFilterRepository<Certificate, Long> {
+
+    // lock timeout hint value of Hibernate (LockOptions.SKIP_LOCKED) for skipping of already locked rows
+    String SKIP_LOCKED = "-2";
 
     Optional<Certificate> findByUuid(UUID uuid);
 
@@ -32,6 +39,13 @@ public interface CertificateRepository extends SecurityFilterRepository<Certific
 
     boolean existsByFingerprint(String fingerprint);
 
+    List<Certificate> findByFingerprintIn(Collection<String> fingerprints);
+
+    List<Certificate> findByUuidIn(Collection<UUID> uuids);
+
+    @Query("SELECT c.uuid, cc.content FROM Certificate c JOIN c.certificateContent cc WHERE c.uuid > :uuid ORDER BY c.uuid")
+    List<Object[]> findUuidAndContentAfter(@Param("uuid") UUID uuid, Pageable pageable);
+
     List<Certificate> findBySubjectDn(String subjectDn);
 
     List<Certificate> findByCommonName(String commonName);
@@ -42,6 +56,10 @@ public interface CertificateRepository extends SecurityFilterRepository<Certific
 
     List<Certificate> findByRaProfile(RaProfile raProfile);
 
+    List<Certificate> findByRaProfileOrderByUuid(RaProfile raProfile, Pageable pageable);
+
+    List<Certificate> findByRaProfileAndUuidGreaterThanOrderByUuid(RaProfile raProfile, UUID uuid, Pageable pageable);
+
     List<Certificate> findByGroup(Group group);
 
     List<Certificate> findByKeyUuid(UUID keyUuid);
@@ -75,16 +93,51 @@ public interface CertificateRepository extends SecurityFilterRepository<Certific
     @Query("SELECT COUNT(*) FROM Certificate c WHERE c.status NOT IN :skipStatuses")
     long countCertificatesToCheckStatus(@Param("skipStatuses") List<CertificateStatus> skipStatuses);
 
-    @Query("SELECT c, cc.content FROM Certificate c " +
-            "JOIN CertificateContent cc ON cc.id = c.certificateContentId " +
+    /**
+     * Claim certificates to check status by locking them with FOR UPDATE SKIP LOCKED. Certificates locked by another
+     * transaction, possibly of other instance of the application, are skipped until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED)})
+    @Query("SELECT c FROM Certificate c " +
             "WHERE c.status NOT IN :skipStatuses " +
             "AND (c.statusValidationTimestamp IS NULL OR c.statusValidationTimestamp <= :statusValidityEndTimestamp) " +
             "ORDER BY c.statusValidationTimestamp ASC NULLS FIRST")
-    List<Certificate> findCertificatesToCheckStatus(@Param("statusValidityEndTimestamp") LocalDateTime statusValidityEndTimestamp,
-                                                    @Param("skipStatuses") List<CertificateStatus> skipStatuses,
-                                                    Pageable pageable);
-
-    List<Certificate> findByComplianceResultContaining(String ruleUuid);
+    List<Certificate> claimCertificatesToCheckStatus(@Param("statusValidityEndTimestamp") LocalDateTime statusValidityEndTimestamp,
+                                                     @Param("skipStatuses") List<CertificateStatus> skipStatuses,
+                                                     Pageable pageable);
+
+    /**
+     * Claim single certificate to check status by locking it with FOR UPDATE SKIP LOCKED, the same way and with the
+     * same eligibility as {@link #claimCertificatesToCheckStatus(LocalDateTime, List, Pageable)}. Empty result when
+     * the certificate is locked by another transaction or its status was validated meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED)})
+    @Query("SELECT c FROM Certificate c " +
+            "WHERE c.uuid = :uuid " +
+            "AND c.status NOT IN :skipStatuses " +
+            "AND (c.statusValidationTimestamp IS NULL OR c.statusValidationTimestamp <= :statusValidityEndTimestamp)")
+    Optional<Certificate> claimCertificateToCheckStatus(@Param("uuid") UUID uuid,
+                                                        @Param("statusValidityEndTimestamp") LocalDateTime statusValidityEndTimestamp,
+                                                        @Param("skipStatuses") List<CertificateStatus> skipStatuses);
+
+    /**
+     * Find certificates with the compliance rule in any list of the compliance result. Lists are matched with jsonb
+     * containment, so that the GIN index of the compliance result column can be used.
+     */
+    default List<Certificate> findByComplianceResultContaining(String ruleUuid) {
+        String rule = "[\"" + ruleUuid + "\"]";
+        return findByComplianceResultContainingAny("{\"ok\":" + rule + "}", "{\"nok\":" + rule + "}", "{\"na\":" + rule + "}");
+    }
+
+    @Query("SELECT c FROM Certificate c " +
+            "WHERE jsonb_contains(c.complianceResult, :okResult) = true " +
+            "OR jsonb_contains(c.complianceResult, :nokResult) = true " +
+            "OR jsonb_contains(c.complianceResult, :naResult) = true")
+    List<Certificate> findByComplianceResultContainingAny(@Param("okResult") String okResult,
+                                                          @Param("nokResult") String nokResult,
+                                                          @Param("naResult") String naResult);
 
     List<Certificate> findByRaProfileAndComplianceStatusIsNotNull(RaProfile raProfile);
 
@@ -0,0 +1,13 @@
+package com.czertainly.core.dao.repository;
+
+import com.czertainly.core.dao.entity.CertificateStatistics;
+import com.czertainly.core.dao.entity.CertificateStatisticsId;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CertificateStatisticsRepository extends SecurityFilterRepository<CertificateStatistics, CertificateStatisticsId> {
+
+    List<CertificateStatistics> findByCountGreaterThan(long count);
+}
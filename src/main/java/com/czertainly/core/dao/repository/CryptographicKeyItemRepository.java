@@ -5,6 +5,7 @@ import com.czertainly.core.dao.entity.CryptographicKeyItem;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +18,8 @@ public interface CryptographicKeyItemRepository extends SecurityFilterRepository
 
     Optional<CryptographicKeyItem> findByFingerprint(String fingerprint);
 
+    List<CryptographicKeyItem> findByFingerprintIn(Collection<String> fingerprints);
+
     Optional<CryptographicKeyItem> findByUuidAndCryptographicKey(UUID uuid, CryptographicKey cryptographicKey);
 
     List<CryptographicKeyItem> findByCryptographicKey(CryptographicKey cryptographicKey);
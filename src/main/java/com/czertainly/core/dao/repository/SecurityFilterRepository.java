@@ -1,6 +1,7 @@
 package com.czertainly.core.dao.repository;
 
 import com.czertainly.api.model.common.attribute.v2.AttributeType;
+import com.czertainly.core.model.KeysetCursor;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
 import jakarta.persistence.criteria.*;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
 
@@ -27,11 +29,55 @@ public interface SecurityFilterRepository<T, ID> extends JpaRepository<T, ID> {
 
     List<T> findUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause);
 
+    List<T> findUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause);
+
+    List<T> findUsingSecurityFilter(SecurityFilter filter, Pageable p, BiFunction<Root<T>, CriteriaBuilder, Order> order);
+
     List<T> findUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, Pageable p, BiFunction<Root<T>, CriteriaBuilder, Order> order);
 
+    List<T> findUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause, Pageable p, BiFunction<Root<T>, CriteriaBuilder, Order> order);
+
+    /**
+     * Find page of objects ordered by creation time and UUID, both descending, using keyset pagination.
+     * Page is located by the cursor instead of offset, so the deep pages are as cheap as the first one.
+     * Can be used only for entities with created and uuid attributes.
+     * @param filter security filter
+     * @param additionalWhereClause additional where clause
+     * @param cursor cursor of the last object of the previous page, or null for the first page
+     * @param limit maximum number of the objects returned
+     * @return list of objects following the cursor
+     */
+    List<T> findUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause, KeysetCursor cursor, int limit);
+
+    /**
+     * Bulk update of objects matching the security filter and where clause
+     * @param filter security filter
+     * @param additionalWhereClause additional where clause
+     * @param values new values of the attributes mapped by attribute name
+     * @return number of updated objects
+     */
+    int updateUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause, Map<String, Object> values);
+
     Long countUsingSecurityFilter(SecurityFilter filter);
 
     Long countUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause);
 
+    Long countUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause);
+
+    /**
+     * Count objects grouped by the values of the attributes, the aggregation is done by the database
+     * @param filter security filter
+     * @param additionalWhereClause additional where clause
+     * @param attributes names of the attributes to group by
+     * @return rows with the values of the attributes in the requested order followed by the number of objects
+     */
+    List<Object[]> countGroupedUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, List<String> attributes);
+
+    /**
+     * Estimate number of rows of the entity table from the planner statistics without scanning the table
+     * @return estimated number of rows, or null when the table statistics are not available
+     */
+    Long estimateCount();
+
     List<T> findUsingSecurityFilterByCustomCriteriaQuery(SecurityFilter filter, Root<T> root, CriteriaQuery<T> criteriaQuery, Predicate customPredicates);
 }
@@ -3,18 +3,23 @@ package com.czertainly.core.dao.repository;
 import com.czertainly.api.exception.ValidationError;
 import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.common.attribute.v2.AttributeType;
+import com.czertainly.core.model.KeysetCursor;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.Table;
 import jakarta.persistence.criteria.*;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.BiFunction;
 
 public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements SecurityFilterRepository<T, ID> {
@@ -55,7 +60,7 @@ public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T,
 
     @Override
     public List<T> findUsingSecurityFilter(SecurityFilter filter) {
-        return this.findUsingSecurityFilter(filter, null);
+        return this.findUsingSecurityFilter(filter, (SubqueryWhereClause<T>) null);
     }
 
     @Override
@@ -70,13 +75,18 @@ public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T,
 
     @Override
     public List<T> findUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause) {
+        return findUsingSecurityFilter(filter, SubqueryWhereClause.of(additionalWhereClause));
+    }
+
+    @Override
+    public List<T> findUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause) {
         final CriteriaQuery<T> cr = createCriteriaBuilder(filter, additionalWhereClause, null);
         return entityManager.createQuery(cr).getResultList();
     }
 
     @Override
     public List<T> findUsingSecurityFilterByCustomCriteriaQuery(SecurityFilter filter, Root<T> root, CriteriaQuery<T> criteriaQuery, Predicate customPredicates) {
-        final List<Predicate> predicates = getPredicates(filter, null, root, null);
+        final List<Predicate> predicates = getPredicates(filter, null, root, null, criteriaQuery);
         predicates.add(customPredicates);
 
         if (predicates != null && !predicates.isEmpty()) {
@@ -85,8 +95,18 @@ public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T,
         return entityManager.createQuery(criteriaQuery).getResultList();
     }
 
+    @Override
+    public List<T> findUsingSecurityFilter(final SecurityFilter filter, final Pageable p, final BiFunction<Root<T>, CriteriaBuilder, Order> order) {
+        return findUsingSecurityFilter(filter, (SubqueryWhereClause<T>) null, p, order);
+    }
+
     @Override
     public List<T> findUsingSecurityFilter(final SecurityFilter filter, final BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, final Pageable p, final BiFunction<Root<T>, CriteriaBuilder, Order> order) {
+        return findUsingSecurityFilter(filter, SubqueryWhereClause.of(additionalWhereClause), p, order);
+    }
+
+    @Override
+    public List<T> findUsingSecurityFilter(final SecurityFilter filter, final SubqueryWhereClause<T> additionalWhereClause, final Pageable p, final BiFunction<Root<T>, CriteriaBuilder, Order> order) {
         final CriteriaQuery<T> cr = createCriteriaBuilder(filter, additionalWhereClause, order);
         if (p != null) {
             return entityManager.createQuery(cr).setFirstResult((int) p.getOffset()).setMaxResults(p.getPageSize()).getResultList();
@@ -95,19 +115,112 @@ public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T,
         }
     }
 
+    @Override
+    public List<T> findUsingSecurityFilter(final SecurityFilter filter, final SubqueryWhereClause<T> additionalWhereClause, final KeysetCursor cursor, final int limit) {
+        final Class<T> entity = this.entityInformation.getJavaType();
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> cr = cb.createQuery(entity);
+        final Root<T> root = cr.from(entity);
+        final Path<LocalDateTime> created = root.get("created");
+        final Path<UUID> uuid = root.get("uuid");
+
+        cr.select(root);
+        cr.orderBy(cb.desc(created), cb.desc(uuid));
+
+        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, root, cb, cr);
+        if (cursor != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(created, cursor.getCreated()),
+                    cb.and(cb.equal(created, cursor.getCreated()), cb.lessThan(uuid, cursor.getUuid()))));
+        }
+        if (!predicates.isEmpty()) {
+            cr.where(predicates.toArray(new Predicate[]{}));
+        }
+        return entityManager.createQuery(cr).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int updateUsingSecurityFilter(final SecurityFilter filter, final SubqueryWhereClause<T> additionalWhereClause, final Map<String, Object> values) {
+        final Class<T> entity = this.entityInformation.getJavaType();
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaUpdate<T> cu = cb.createCriteriaUpdate(entity);
+        final Root<T> root = cu.from(entity);
+
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            cu.set(value.getKey(), value.getValue());
+        }
+
+        // search predicates can join the associations, which cannot be expressed in bulk update, so the updated
+        // objects are selected by the subquery of their UUIDs
+        final Subquery<UUID> matching = cu.subquery(UUID.class);
+        final Root<T> matchingRoot = matching.from(entity);
+        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, matchingRoot, cb, matching);
+        if (!predicates.isEmpty()) {
+            matching.select(matchingRoot.get("uuid")).where(predicates.toArray(new Predicate[]{}));
+            cu.where(root.get("uuid").in(matching));
+        }
+        return entityManager.createQuery(cu).executeUpdate();
+    }
+
     @Override
     public Long countUsingSecurityFilter(SecurityFilter filter) {
-        return countUsingSecurityFilter(filter, null);
+        return countUsingSecurityFilter(filter, (SubqueryWhereClause<T>) null);
     }
 
     @Override
     public Long countUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause) {
+        return countUsingSecurityFilter(filter, SubqueryWhereClause.of(additionalWhereClause));
+    }
+
+    @Override
+    public Long countUsingSecurityFilter(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause) {
         CriteriaQuery<Long> cr = createCountCriteriaBuilder(filter, additionalWhereClause);
         List<Long> crlist = entityManager.createQuery(cr).getResultList();
         return crlist.get(0);
     }
 
-    private CriteriaQuery<T> createCriteriaBuilder(final SecurityFilter filter, final BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, final BiFunction<Root<T>, CriteriaBuilder, Order> order) {
+    @Override
+    public List<Object[]> countGroupedUsingSecurityFilter(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, List<String> attributes) {
+        final Class<T> entity = this.entityInformation.getJavaType();
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> cr = cb.createQuery(Object[].class);
+        final Root<T> root = cr.from(entity);
+
+        final List<Expression<?>> groupBy = new ArrayList<>();
+        for (String attribute : attributes) {
+            groupBy.add(root.get(attribute));
+        }
+        final List<Selection<?>> selections = new ArrayList<>(groupBy);
+        selections.add(cb.count(root));
+        cr.multiselect(selections).groupBy(groupBy);
+
+        final List<Predicate> predicates = getPredicates(filter, SubqueryWhereClause.of(additionalWhereClause), root, cb, cr);
+        if (!predicates.isEmpty()) {
+            cr.where(predicates.toArray(new Predicate[]{}));
+        }
+        return entityManager.createQuery(cr).getResultList();
+    }
+
+    @Override
+    public Long estimateCount() {
+        final Table table = this.entityInformation.getJavaType().getAnnotation(Table.class);
+        if (table == null) {
+            return null;
+        }
+        final Object schema = entityManager.getEntityManagerFactory().getProperties().get("hibernate.default_schema");
+        final String tableName = schema == null || schema.toString().isBlank() ? table.name() : schema + "." + table.name();
+        final List<?> result = entityManager.createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass(:tableName)")
+                .setParameter("tableName", tableName)
+                .getResultList();
+        if (result.isEmpty() || result.get(0) == null) {
+            return null;
+        }
+        // reltuples is -1 for tables that were not yet analyzed
+        final long estimate = ((Number) result.get(0)).longValue();
+        return estimate < 0 ? null : estimate;
+    }
+
+    private CriteriaQuery<T> createCriteriaBuilder(final SecurityFilter filter, final SubqueryWhereClause<T> additionalWhereClause, final BiFunction<Root<T>, CriteriaBuilder, Order> order) {
         final Class<T> entity = this.entityInformation.getJavaType();
         final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         final CriteriaQuery<T> cr = cb.createQuery(entity);
@@ -118,24 +231,24 @@ public class SecurityFilterRepositoryImpl<T, ID> extends SimpleJpaRepository<T,
             cr.orderBy(order.apply(root, cb));
         }
 
-        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, root, cb);
+        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, root, cb, cr);
         return predicates.isEmpty() ? cr : cr.where(predicates.toArray(new Predicate[]{}));
     }
 
-    private CriteriaQuery<Long> createCountCriteriaBuilder(final SecurityFilter filter, final BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause) {
+    private CriteriaQuery<Long> createCountCriteriaBuilder(final SecurityFilter filter, final SubqueryWhereClause<T> additionalWhereClause) {
         final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         final Class<T> entity = this.entityInformation.getJavaType();
         final CriteriaQuery<Long> cr = cb.createQuery(Long.class);
         final Root<T> root = cr.from(entity);
         cr.select(cb.count(root));
-        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, root, cb);
+        final List<Predicate> predicates = getPredicates(filter, additionalWhereClause, root, cb, cr);
         return predicates.isEmpty() ? cr : cr.where(predicates.toArray(new Predicate[]{}));
     }
 
-    private List<Predicate> getPredicates(SecurityFilter filter, BiFunction<Root<T>, CriteriaBuilder, Predicate> additionalWhereClause, Root<T> root, CriteriaBuilder cb) {
+    private List<Predicate> getPredicates(SecurityFilter filter, SubqueryWhereClause<T> additionalWhereClause, Root<T> root, CriteriaBuilder cb, CommonAbstractCriteria query) {
         List<Predicate> predicates = new ArrayList<>();
         if (additionalWhereClause != null) {
-            predicates.add(additionalWhereClause.apply(root, cb));
+            predicates.add(additionalWhereClause.apply(root, cb, query));
         }
 
         if (filter.getResourceFilter() != null) {
@@ -0,0 +1,31 @@
+package com.czertainly.core.dao.repository;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.function.BiFunction;
+
+/**
+ * Additional where clause of security filter repository queries that needs the criteria query itself to create
+ * correlated subqueries, e.g. to search objects by their attributes with EXISTS subqueries. Repositories pass the
+ * query (or bulk update) they build. The clause is not a {@link BiFunction}, so it can be passed only to the
+ * repository methods that provide the query.
+ *
+ * @param <T> type of the queried entity
+ */
+@FunctionalInterface
+public interface SubqueryWhereClause<T> {
+
+    Predicate apply(Root<T> root, CriteriaBuilder cb, CommonAbstractCriteria query);
+
+    /**
+     * Create where clause from the where clause that does not need the query
+     * @param whereClause where clause, can be null
+     * @return where clause ignoring the query, or null when the where clause is null
+     */
+    static <T> SubqueryWhereClause<T> of(BiFunction<Root<T>, CriteriaBuilder, Predicate> whereClause) {
+        return whereClause == null ? null : (root, cb, query) -> whereClause.apply(root, cb);
+    }
+}
@@ -2,6 +2,9 @@ package com.czertainly.core.dao.repository.acme;
 
 import com.czertainly.core.dao.entity.acme.AcmeNonce;
 import com.czertainly.core.dao.repository.SecurityFilterRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.transaction.Transactional;
@@ -15,4 +18,12 @@ public interface AcmeNonceRepository extends SecurityFilterRepository<AcmeNonce,
     Optional<AcmeNonce> findByNonce(String nonce);
 
     List<AcmeNonce> findAllByExpiresBefore(Date expires);
+
+    @Modifying
+    @Query("DELETE FROM acme_nonce n WHERE n.nonce = :nonce AND n.expires > :now")
+    int deleteByNonceAndExpiresAfter(@Param("nonce") String nonce, @Param("now") Date now);
+
+    @Modifying
+    @Query("DELETE FROM acme_nonce n WHERE n.expires < :expires")
+    int deleteByExpiresBefore(@Param("expires") Date expires);
 }
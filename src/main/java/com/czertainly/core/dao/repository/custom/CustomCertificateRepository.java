@@ -1,6 +0,0 @@
-package com.czertainly.core.dao.repository.custom;
-
-public interface CustomCertificateRepository {
-
-    void bulkUpdateQuery(String query);
-}
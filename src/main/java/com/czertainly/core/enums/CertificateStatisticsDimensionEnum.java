@@ -0,0 +1,8 @@
+package com.czertainly.core.enums;
+
+/**
+ * Dimensions of the certificate statistics maintained in the certificate_statistics table
+ */
+public enum CertificateStatisticsDimensionEnum {
+    GROUP, RA_PROFILE, STATUS, KEY_SIZE, COMPLIANCE_STATUS, TYPE, BASIC_CONSTRAINTS
+}
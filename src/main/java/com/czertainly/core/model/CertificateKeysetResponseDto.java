@@ -0,0 +1,18 @@
+package com.czertainly.core.model;
+
+import com.czertainly.api.model.client.certificate.CertificateResponseDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class CertificateKeysetResponseDto extends CertificateResponseDto {
+
+    @Schema(description = "Cursor of the next page, null if there are no more certificates")
+    private String nextCursor;
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,69 @@
+package com.czertainly.core.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exported data written to a temporary file. The file is deleted when its content is read through the resource,
+ * so the export is never held in memory as a whole. Files that are not read, e.g. because the download was aborted,
+ * have to be deleted by {@link #delete()}.
+ */
+public class ExportFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportFile.class);
+
+    private final String fileName;
+
+    private final Path file;
+
+    private final long size;
+
+    public ExportFile(String fileName, Path file, long size) {
+        this.fileName = fileName;
+        this.file = file;
+        this.size = size;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Delete the file if it was not deleted yet
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Unable to delete export file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @return resource streaming the content of the file, the file is deleted when the stream is closed
+     */
+    public Resource toResource() {
+        return new FileSystemResource(file) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return Files.newInputStream(file, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.czertainly.core.model;
+
+import com.czertainly.api.exception.ValidationError;
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.core.dao.entity.UniquelyIdentifiedAndAudited;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the list of objects ordered by creation time and UUID, both descending. The cursor points
+ * to the last object of the page and the next page starts with the object right after it. Cursor is
+ * passed to the clients as opaque URL safe string.
+ */
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime created;
+
+    private final UUID uuid;
+
+    public KeysetCursor(LocalDateTime created, UUID uuid) {
+        this.created = created;
+        this.uuid = uuid;
+    }
+
+    public static KeysetCursor of(UniquelyIdentifiedAndAudited object) {
+        return new KeysetCursor(object.getCreated(), object.getUuid());
+    }
+
+    /**
+     * Decode cursor previously returned to the client
+     * @param token encoded cursor
+     * @return decoded cursor, or null when the token is empty and the first page is requested
+     * @throws ValidationException when the token is not valid cursor
+     */
+    public static KeysetCursor decode(String token) throws ValidationException {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new ValidationException(ValidationError.create("Invalid page cursor {}", token));
+            }
+            return new KeysetCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)), UUID.fromString(decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException(ValidationError.create("Invalid page cursor {}", token));
+        }
+    }
+
+    public String encode() {
+        String value = created.toString() + SEPARATOR + uuid.toString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+}
@@ -15,14 +15,29 @@ public class CzertainlyProvider extends Provider {
     public static final String PROVIDER_NAME = "CzertainlyProvider";
     private static final Logger logger = LoggerFactory.getLogger(CzertainlyProvider.class);
 
-    private CzertainlyProvider(String name, CryptographicOperationsApiClient apiClient) {
+    private final boolean hashThenSign;
+
+    private CzertainlyProvider(String name, CryptographicOperationsApiClient apiClient, boolean hashThenSign) {
         super(name, "1.0", "CZERTAINLY Provider");
+        this.hashThenSign = hashThenSign;
         this.init(apiClient);
     }
 
     public static CzertainlyProvider getInstance(String name, boolean registerProvider, CryptographicOperationsApiClient apiClient) {
+        return getInstance(name, registerProvider, apiClient, false);
+    }
+
+    /**
+     * @param name name of the provider instance
+     * @param registerProvider register the provider in the security providers
+     * @param apiClient client of the cryptographic provider connector
+     * @param hashThenSign sign the locally computed digest by raw signature on the connector instead of sending
+     *                     the whole signed data, the token has to support raw RSA PKCS#1 v1.5 and ECDSA signatures
+     * @return provider instance
+     */
+    public static CzertainlyProvider getInstance(String name, boolean registerProvider, CryptographicOperationsApiClient apiClient, boolean hashThenSign) {
         String instanceName = String.format("%s-%s", PROVIDER_NAME, name);
-        CzertainlyProvider provider = new CzertainlyProvider(instanceName, apiClient);
+        CzertainlyProvider provider = new CzertainlyProvider(instanceName, apiClient, hashThenSign);
 
         if (registerProvider) {
             if (Security.getProvider(provider.getName()) != null) {
@@ -47,26 +62,26 @@ public class CzertainlyProvider extends Provider {
         putService(new CzertainlyCipherProviderService(this, "Cipher", new CzertainlyCipherService(apiClient, "RSA/NONE/PKCS1Padding")));
 
         // Register Signature algorithms for signing and verification
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "MD5withRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withRSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withRSA")));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "MD5withRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withRSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withRSA", hashThenSign)));
 
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithRSA/PSS")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withRSA/PSS")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withRSA/PSS")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withRSA/PSS")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withRSA/PSS")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withRSA/PSS")));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithRSA/PSS", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withRSA/PSS", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withRSA/PSS", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withRSA/PSS", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withRSA/PSS", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withRSA/PSS", hashThenSign)));
 
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithECDSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withECDSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withECDSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withECDSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withECDSA")));
-        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withECDSA")));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "NONEwithECDSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA1withECDSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA224withECDSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA256withECDSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA384withECDSA", hashThenSign)));
+        putService(new CzertainlySignatureProviderService(this, "Signature", new CzertainlySignatureService(apiClient, "SHA512withECDSA", hashThenSign)));
     }
 }
\ No newline at end of file
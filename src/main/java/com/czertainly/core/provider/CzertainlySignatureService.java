@@ -14,24 +14,68 @@ import com.czertainly.core.attribute.EcdsaSignatureAttributes;
 import com.czertainly.core.attribute.RsaSignatureAttributes;
 import com.czertainly.core.provider.key.CzertainlyPrivateKey;
 import com.czertainly.core.provider.key.CzertainlyPublicKey;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.DigestInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SignatureException;
 import java.util.List;
+import java.util.Map;
 
 public class CzertainlySignatureService {
 
     private static final Logger log = LoggerFactory.getLogger(CzertainlySignatureService.class);
 
+    /**
+     * Signature algorithms that can be computed by signing the locally computed digest with raw signature algorithm,
+     * RSA PKCS#1 v1.5 signs DER encoded DigestInfo, ECDSA signs the digest itself
+     */
+    private static final Map<String, PreHashedSignature> PRE_HASHED_SIGNATURES = Map.ofEntries(
+            Map.entry("MD5withRSA", new PreHashedSignature("MD5", PKCSObjectIdentifiers.md5, "NONEwithRSA")),
+            Map.entry("SHA1withRSA", new PreHashedSignature("SHA-1", OIWObjectIdentifiers.idSHA1, "NONEwithRSA")),
+            Map.entry("SHA224withRSA", new PreHashedSignature("SHA-224", NISTObjectIdentifiers.id_sha224, "NONEwithRSA")),
+            Map.entry("SHA256withRSA", new PreHashedSignature("SHA-256", NISTObjectIdentifiers.id_sha256, "NONEwithRSA")),
+            Map.entry("SHA384withRSA", new PreHashedSignature("SHA-384", NISTObjectIdentifiers.id_sha384, "NONEwithRSA")),
+            Map.entry("SHA512withRSA", new PreHashedSignature("SHA-512", NISTObjectIdentifiers.id_sha512, "NONEwithRSA")),
+            Map.entry("SHA1withECDSA", new PreHashedSignature("SHA-1", null, "NONEwithECDSA")),
+            Map.entry("SHA224withECDSA", new PreHashedSignature("SHA-224", null, "NONEwithECDSA")),
+            Map.entry("SHA256withECDSA", new PreHashedSignature("SHA-256", null, "NONEwithECDSA")),
+            Map.entry("SHA384withECDSA", new PreHashedSignature("SHA-384", null, "NONEwithECDSA")),
+            Map.entry("SHA512withECDSA", new PreHashedSignature("SHA-512", null, "NONEwithECDSA"))
+    );
+
     private final CryptographicOperationsApiClient apiClient;
     private final List<RequestAttributeDto> signatureAttributes;
     private final String algorithm;
+    private final PreHashedSignature preHashedSignature;
+    private final List<RequestAttributeDto> rawSignatureAttributes;
 
     public CzertainlySignatureService(CryptographicOperationsApiClient apiClient, String algorithm) {
+        this(apiClient, algorithm, false);
+    }
+
+    /**
+     * @param apiClient client of the cryptographic provider connector
+     * @param algorithm signature algorithm
+     * @param hashThenSign data are digested locally and only the digest is sent to the connector for signing, used for
+     *                     the algorithms with raw variant supported by the token
+     */
+    public CzertainlySignatureService(CryptographicOperationsApiClient apiClient, String algorithm, boolean hashThenSign) {
         this.apiClient = apiClient;
         this.signatureAttributes = mapSignatureAttributesFromSignatureAlgorithm(algorithm);
         this.algorithm = algorithm;
+        this.preHashedSignature = hashThenSign ? PRE_HASHED_SIGNATURES.get(algorithm) : null;
+        this.rawSignatureAttributes = preHashedSignature != null ? mapSignatureAttributesFromSignatureAlgorithm(preHashedSignature.rawAlgorithm()) : null;
     }
 
     public List<RequestAttributeDto> mapSignatureAttributesFromSignatureAlgorithm(String algorithm) {
@@ -148,7 +192,47 @@ public class CzertainlySignatureService {
         return algorithm;
     }
 
+    /**
+     * @return digest for the data to be signed if the signature is computed from the locally computed digest,
+     * otherwise null and the data are sent to the connector
+     */
+    public MessageDigest createDigest() {
+        if (preHashedSignature == null) {
+            return null;
+        }
+        try {
+            return MessageDigest.getInstance(preHashedSignature.digestAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm " + preHashedSignature.digestAlgorithm() + " not available", e);
+        }
+    }
+
+    /**
+     * Sign the digest of the data by the raw signature algorithm on the connector
+     * @param privateKey private key
+     * @param digest digest computed by the digest from {@link #createDigest()}
+     * @return signature of the data
+     */
+    public byte[] signDigest(CzertainlyPrivateKey privateKey, byte[] digest) throws SignatureException {
+        if (preHashedSignature == null) {
+            throw new SignatureException("Signing of digest is not supported for algorithm " + algorithm);
+        }
+        byte[] dataToSign = digest;
+        if (preHashedSignature.digestOid() != null) {
+            try {
+                dataToSign = new DigestInfo(new AlgorithmIdentifier(preHashedSignature.digestOid(), DERNull.INSTANCE), digest).getEncoded(ASN1Encoding.DER);
+            } catch (IOException e) {
+                throw new SignatureException("Failed to encode digest info", e);
+            }
+        }
+        return sign(privateKey, dataToSign, rawSignatureAttributes);
+    }
+
     public byte[] sign(CzertainlyPrivateKey privateKey, byte[] dataToSign) throws SignatureException {
+        return sign(privateKey, dataToSign, signatureAttributes);
+    }
+
+    private byte[] sign(CzertainlyPrivateKey privateKey, byte[] dataToSign, List<RequestAttributeDto> signatureAttributes) throws SignatureException {
         SignDataRequestDto requestDto = new SignDataRequestDto();
         requestDto.setSignatureAttributes(signatureAttributes);
         SignatureRequestData signatureRequestData = new SignatureRequestData();
@@ -203,4 +287,6 @@ public class CzertainlySignatureService {
         }
     }
 
+    private record PreHashedSignature(String digestAlgorithm, ASN1ObjectIdentifier digestOid, String rawAlgorithm) {
+    }
 }
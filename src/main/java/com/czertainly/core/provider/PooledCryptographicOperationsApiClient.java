@@ -0,0 +1,117 @@
+package com.czertainly.core.provider;
+
+import com.czertainly.api.clients.BaseApiClient;
+import com.czertainly.api.clients.cryptography.CryptographicOperationsApiClient;
+import com.czertainly.api.exception.ConnectorCommunicationException;
+import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.model.connector.cryptography.operations.CipherDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.DecryptDataResponseDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataResponseDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.net.ssl.TrustManager;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of the cryptographic operations of the connectors used by {@link CzertainlyProvider}. The client uses its own
+ * connection pool and limits the number of concurrent operations, so that slow tokens do not exhaust the connections
+ * shared by the other connector clients. Concurrent sign requests for the same key can be coalesced into a single
+ * connector call.
+ */
+public class PooledCryptographicOperationsApiClient extends CryptographicOperationsApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledCryptographicOperationsApiClient.class);
+
+    private final int maxConcurrentRequests;
+    private final Semaphore bulkhead;
+    private final long bulkheadTimeoutMillis;
+    private final SignRequestCoalescer signRequestCoalescer;
+
+    /**
+     * @param webClient             web client with the connection pool of the cryptographic operations
+     * @param defaultTrustManagers  trust managers for the connectors
+     * @param maxConcurrentRequests maximum number of concurrent operations on the connectors
+     * @param bulkheadTimeout       maximum time to wait for the operation to be started
+     * @param batchSize             maximum number of sign requests coalesced to single connector call, coalescing is disabled when lower than 2
+     * @param batchDelay            maximum time the sign request waits for other requests to be coalesced with
+     */
+    public PooledCryptographicOperationsApiClient(WebClient webClient, TrustManager[] defaultTrustManagers, int maxConcurrentRequests,
+                                                  Duration bulkheadTimeout, int batchSize, Duration batchDelay) {
+        super(webClient, defaultTrustManagers);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.bulkhead = new Semaphore(maxConcurrentRequests, true);
+        this.bulkheadTimeoutMillis = bulkheadTimeout.toMillis();
+        this.signRequestCoalescer = batchSize > 1 ? new SignRequestCoalescer(this::signDataOnConnector, batchSize, batchDelay) : null;
+    }
+
+    /**
+     * Create web client for the cryptographic operations with its own connection pool
+     *
+     * @param connectionProvider connection pool of the client
+     * @param connectTimeout     timeout for establishing the connection
+     * @param responseTimeout    timeout for receiving the response
+     * @param http2              negotiate HTTP/2 with the connectors over TLS
+     * @return web client
+     */
+    public static WebClient createWebClient(ConnectionProvider connectionProvider, Duration connectTimeout, Duration responseTimeout, boolean http2) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.HTTP11, HttpProtocol.H2);
+        }
+        return BaseApiClient.prepareWebClient().mutate()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Override
+    public SignDataResponseDto signData(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, SignDataRequestDto request) throws ConnectorException {
+        if (signRequestCoalescer != null && request.getData() != null && request.getData().size() == 1) {
+            return signRequestCoalescer.signData(connector, tokenInstanceUuid, keyUuid, request);
+        }
+        return signDataOnConnector(connector, tokenInstanceUuid, keyUuid, request);
+    }
+
+    @Override
+    public DecryptDataResponseDto decryptData(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, CipherDataRequestDto request) throws ConnectorException {
+        acquire(connector);
+        try {
+            return super.decryptData(connector, tokenInstanceUuid, keyUuid, request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private SignDataResponseDto signDataOnConnector(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, SignDataRequestDto request) throws ConnectorException {
+        acquire(connector);
+        try {
+            return super.signData(connector, tokenInstanceUuid, keyUuid, request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquire(ConnectorDto connector) throws ConnectorException {
+        try {
+            if (!bulkhead.tryAcquire(bulkheadTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Cryptographic operation rejected, all {} concurrent operations are in progress", maxConcurrentRequests);
+                throw new ConnectorCommunicationException("Too many concurrent cryptographic operations, try again later", connector);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorCommunicationException("Interrupted while waiting for cryptographic operation", connector);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.czertainly.core.provider;
+
+import com.czertainly.api.exception.ConnectorCommunicationException;
+import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.model.client.attribute.RequestAttributeDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataResponseDto;
+import com.czertainly.api.model.connector.cryptography.operations.data.SignatureRequestData;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent sign requests for the same key and signature attributes into a single connector call carrying
+ * multiple data entries. The first request of a batch waits up to the configured delay for other requests to join,
+ * sends the batch and distributes the signatures to the waiting requests by position. Signature attributes are
+ * compared by their serialized form, attribute DTOs do not implement equality.
+ */
+class SignRequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignRequestCoalescer.class);
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    @FunctionalInterface
+    interface RemoteSigner {
+        SignDataResponseDto signData(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, SignDataRequestDto request) throws ConnectorException;
+    }
+
+    private final RemoteSigner remoteSigner;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final Map<BatchKey, Batch> openBatches = new ConcurrentHashMap<>();
+
+    SignRequestCoalescer(RemoteSigner remoteSigner, int maxBatchSize, Duration maxDelay) {
+        this.remoteSigner = remoteSigner;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * Sign the single data entry of the request together with concurrent requests for the same key
+     *
+     * @return response with the signature of the request data
+     */
+    SignDataResponseDto signData(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, SignDataRequestDto request) throws ConnectorException {
+        String signatureAttributes = serializeSignatureAttributes(request.getSignatureAttributes());
+        if (signatureAttributes == null) {
+            return remoteSigner.signData(connector, tokenInstanceUuid, keyUuid, request);
+        }
+        BatchKey batchKey = new BatchKey(connector.getUrl(), tokenInstanceUuid, keyUuid, signatureAttributes);
+        SignatureRequestData data = request.getData().get(0);
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(batchKey, key -> new Batch());
+            int position = batch.add(data);
+            if (position < 0) {
+                // batch was already closed by its leader, join the next one
+                openBatches.remove(batchKey, batch);
+                continue;
+            }
+            if (position == 0) {
+                batch.awaitFilled(maxDelayNanos);
+                openBatches.remove(batchKey, batch);
+                batch.send(connector, tokenInstanceUuid, keyUuid, request.getSignatureAttributes());
+            }
+            return batch.getResponse(position, connector);
+        }
+    }
+
+    /**
+     * Serialize signature attributes to canonical form independent of the order of the attributes
+     *
+     * @return serialized attributes, null when the attributes cannot be serialized and the request is not coalesced
+     */
+    private static String serializeSignatureAttributes(List<RequestAttributeDto> signatureAttributes) {
+        if (signatureAttributes == null) {
+            return "";
+        }
+        List<String> serialized = new ArrayList<>(signatureAttributes.size());
+        try {
+            for (RequestAttributeDto attribute : signatureAttributes) {
+                serialized.add(MAPPER.writeValueAsString(attribute));
+            }
+        } catch (JsonProcessingException e) {
+            logger.debug("Unable to serialize signature attributes, sign request is not coalesced: {}", e.getMessage());
+            return null;
+        }
+        Collections.sort(serialized);
+        return String.join(",", serialized);
+    }
+
+    private record BatchKey(String connectorUrl, String tokenInstanceUuid, String keyUuid, String signatureAttributes) {
+    }
+
+    private final class Batch {
+
+        private final List<SignatureRequestData> data = new ArrayList<>();
+        private final CompletableFuture<SignDataResponseDto> response = new CompletableFuture<>();
+        private boolean closed;
+
+        private synchronized int add(SignatureRequestData requestData) {
+            if (closed) {
+                return -1;
+            }
+            data.add(requestData);
+            if (data.size() >= maxBatchSize) {
+                closed = true;
+                notifyAll();
+            }
+            return data.size() - 1;
+        }
+
+        private synchronized void awaitFilled(long delayNanos) {
+            long deadline = System.nanoTime() + delayNanos;
+            long remaining = delayNanos;
+            try {
+                while (!closed && remaining > 0) {
+                    wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    remaining = deadline - System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+        }
+
+        private void send(ConnectorDto connector, String tokenInstanceUuid, String keyUuid, List<RequestAttributeDto> signatureAttributes) {
+            SignDataRequestDto batchRequest = new SignDataRequestDto();
+            batchRequest.setSignatureAttributes(signatureAttributes);
+            batchRequest.setData(data);
+            logger.debug("Signing {} coalesced data entries with key {}", data.size(), keyUuid);
+            try {
+                SignDataResponseDto batchResponse = remoteSigner.signData(connector, tokenInstanceUuid, keyUuid, batchRequest);
+                if (batchResponse.getSignatures() == null || batchResponse.getSignatures().size() != data.size()) {
+                    throw new ConnectorCommunicationException(String.format("Connector returned %d signatures for %d data entries",
+                            batchResponse.getSignatures() == null ? 0 : batchResponse.getSignatures().size(), data.size()), connector);
+                }
+                response.complete(batchResponse);
+            } catch (ConnectorException | RuntimeException e) {
+                response.completeExceptionally(e);
+            }
+        }
+
+        private SignDataResponseDto getResponse(int position, ConnectorDto connector) throws ConnectorException {
+            SignDataResponseDto batchResponse;
+            try {
+                batchResponse = response.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectorCommunicationException("Interrupted while waiting for the signature", connector);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ConnectorException connectorException) {
+                    throw connectorException;
+                }
+                throw (RuntimeException) e.getCause();
+            }
+            if (data.size() == 1) {
+                return batchResponse;
+            }
+            SignDataResponseDto signature = new SignDataResponseDto();
+            signature.setSignatures(List.of(batchResponse.getSignatures().get(position)));
+            return signature;
+        }
+    }
+}
@@ -23,6 +23,9 @@ public class CzertainlySignatureSpi extends SignatureSpi {
 
     private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
+    // digest of the signed data when only the digest is sent to the connector
+    private MessageDigest digest;
+
     public CzertainlySignatureSpi(CzertainlySignatureService signatureService) {
         this.signatureService = signatureService;
     }
@@ -37,17 +40,28 @@ public class CzertainlySignatureSpi extends SignatureSpi {
         }
         this.privateKey = (CzertainlyPrivateKey) privateKey;
         this.isSign = true;
+        this.isVerify = false;
+        this.buffer = new ByteArrayOutputStream();
+        this.digest = signatureService.createDigest();
         log.debug("Initializing signature with private key: {}", this.privateKey.getKeyUuid());
     }
 
     @Override
     protected void engineUpdate(byte b) throws SignatureException {
-        buffer.write(b);
+        if (digest != null) {
+            digest.update(b);
+        } else {
+            buffer.write(b);
+        }
     }
 
     @Override
     protected void engineUpdate(byte[] bytes, int offset, int len) throws SignatureException {
-        buffer.write(bytes, offset, len);
+        if (digest != null) {
+            digest.update(bytes, offset, len);
+        } else {
+            buffer.write(bytes, offset, len);
+        }
     }
 
     @Override
@@ -55,6 +69,11 @@ public class CzertainlySignatureSpi extends SignatureSpi {
         if (!isSign)
             throw new SignatureException("The signature service is not set up for signing");
 
+        if (digest != null) {
+            // digest is reset and ready for the next signature
+            return signatureService.signDigest(privateKey, digest.digest());
+        }
+
         byte[] dataToSign;
         dataToSign = buffer.toByteArray();
         buffer = new ByteArrayOutputStream();
@@ -72,6 +91,9 @@ public class CzertainlySignatureSpi extends SignatureSpi {
         }
         this.publicKey = (CzertainlyPublicKey) publicKey;
         this.isVerify = true;
+        this.isSign = false;
+        this.buffer = new ByteArrayOutputStream();
+        this.digest = null;
         log.debug("Initializing signature verification with public key: {}", this.publicKey.getKeyUuid());
     }
 
@@ -0,0 +1,105 @@
+package com.czertainly.core.security.authn;
+
+import com.czertainly.core.security.authn.client.AuthenticationInfo;
+import com.czertainly.core.util.AuthHelper;
+import com.czertainly.core.util.ExpiringCache;
+import jakarta.xml.bind.DatatypeConverter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Short-lived cache of authentication results received from the authentication service. Results are cached
+ * by the SHA-256 hash of the headers used to authenticate the user (client certificate, authentication token,
+ * system username and user UUID), so the credentials themselves are never kept as cache keys.
+ */
+@Component
+public class AuthenticationCache {
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+
+    private static final String HEADER_SEPARATOR = "\n";
+
+    private final ExpiringCache<String, AuthenticationInfo> authentications;
+
+    private final String certificateHeaderName;
+
+    private final String authTokenHeaderName;
+
+    public AuthenticationCache(@Value("${server.ssl.certificate-header-name}") String certificateHeaderName,
+                               @Value("${auth.token.header-name}") String authTokenHeaderName,
+                               @Value("${auth.cache.max-size:1000}") int maxSize,
+                               @Value("${auth.cache.ttl:30s}") Duration ttl) {
+        this.certificateHeaderName = certificateHeaderName;
+        this.authTokenHeaderName = authTokenHeaderName;
+        this.authentications = new ExpiringCache<>(maxSize, ttl);
+    }
+
+    /**
+     * Get the key identifying the authentication request
+     *
+     * @param headers headers of the request
+     * @return hash of the headers relevant for authentication or null when caching is disabled
+     */
+    public String getKey(HttpHeaders headers) {
+        if (!authentications.isEnabled()) return null;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String headerName : List.of(certificateHeaderName, authTokenHeaderName, AuthHelper.SYSTEM_USER_HEADER_NAME, AuthHelper.USER_UUID_HEADER_NAME)) {
+                String headerValue = headers.getFirst(headerName);
+                digest.update((headerValue == null ? "" : headerValue).getBytes(StandardCharsets.UTF_8));
+                digest.update(HEADER_SEPARATOR.getBytes(StandardCharsets.UTF_8));
+            }
+            return DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+        } catch (NoSuchAlgorithmException e) {
+            logger.warn("Unable to compute key of authentication request, authentication result will not be cached.", e);
+            return null;
+        }
+    }
+
+    public AuthenticationInfo get(String key) {
+        if (key == null) return null;
+        return authentications.get(key);
+    }
+
+    public void put(String key, AuthenticationInfo authenticationInfo) {
+        if (key == null) return;
+        authentications.put(key, authenticationInfo);
+    }
+
+    /**
+     * Invalidate cached authentication results of the user. Needs to be called when the user or its roles are changed.
+     *
+     * @param userUuid UUID of the user
+     */
+    public void invalidateUser(String userUuid) {
+        logger.debug(String.format("Invalidating cached authentication of user '%s'.", userUuid));
+        authentications.invalidateIf((key, info) -> userUuid != null && userUuid.equals(info.getUserUuid()));
+    }
+
+    /**
+     * Invalidate all cached authentication results. Needs to be called when roles are changed, since they
+     * can be assigned to any number of users.
+     */
+    public void invalidateAll() {
+        logger.debug("Invalidating all cached authentications.");
+        authentications.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return authentications.getHitCount();
+    }
+
+    public long getMissCount() {
+        return authentications.getMissCount();
+    }
+}
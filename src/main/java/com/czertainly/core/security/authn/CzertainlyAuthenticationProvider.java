@@ -21,15 +21,25 @@ public class CzertainlyAuthenticationProvider implements AuthenticationProvider
 
     private final CzertainlyAuthenticationClient authClient;
 
-    public CzertainlyAuthenticationProvider(@Autowired CzertainlyAuthenticationClient authClient) {
+    private final AuthenticationCache authenticationCache;
+
+    public CzertainlyAuthenticationProvider(@Autowired CzertainlyAuthenticationClient authClient, @Autowired AuthenticationCache authenticationCache) {
         this.authClient = authClient;
+        this.authenticationCache = authenticationCache;
     }
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
         CzertainlyAuthenticationRequest authRequest = (CzertainlyAuthenticationRequest) authentication;
-        logger.debug("Going to authenticate users against the Czertainly Authentication Service.");
-        AuthenticationInfo authInfo = authClient.authenticate(authRequest.getHeaders());
+        String cacheKey = authenticationCache.getKey(authRequest.getHeaders());
+        AuthenticationInfo authInfo = authenticationCache.get(cacheKey);
+        if (authInfo == null) {
+            logger.debug("Going to authenticate users against the Czertainly Authentication Service.");
+            authInfo = authClient.authenticate(authRequest.getHeaders());
+            authenticationCache.put(cacheKey, authInfo);
+        } else {
+            logger.debug("Using cached authentication result.");
+        }
 
         if(authInfo.isAnonymous()) {
             logger.debug(String.format("User not identified, using anonymous."));
@@ -33,4 +33,12 @@ public class SecurityFilter {
     public void setParentRefProperty(String parentRefProperty) {
         this.parentRefProperty = parentRefProperty;
     }
+
+    /**
+     * @return true when the filter does not restrict access to any object or parent object
+     */
+    public boolean isUnrestricted() {
+        return (resourceFilter == null || resourceFilter.isUnrestricted())
+                && (parentResourceFilter == null || parentResourceFilter.isUnrestricted());
+    }
 }
@@ -71,4 +71,11 @@ public class SecurityResourceFilter {
     public void setAreOnlySpecificObjectsAllowed(boolean areOnlySpecificObjectsAllowed) {
         this.areOnlySpecificObjectsAllowed = areOnlySpecificObjectsAllowed;
     }
+
+    /**
+     * @return true when the user can access all objects of the resource
+     */
+    public boolean isUnrestricted() {
+        return !areOnlySpecificObjectsAllowed && forbiddenObjects.isEmpty();
+    }
 }
@@ -26,11 +26,18 @@ public class OpaClient {
 
     private final String opaBaseUrl;
 
+    private OpaDecisionCache decisionCache;
+
     public OpaClient(@Autowired ObjectMapper om, @Value("${opa.base-url}") String opaBaseUrl) {
         this.om = om;
         this.opaBaseUrl = opaBaseUrl;
     }
 
+    @Autowired(required = false)
+    public void setDecisionCache(OpaDecisionCache decisionCache) {
+        this.decisionCache = decisionCache;
+    }
+
     public OpaResourceAccessResult checkResourceAccess(String policyName, OpaRequestedResource resource, String principal, OpaRequestDetails details) throws AccessDeniedException {
         return sendRequest(policyName, resource, principal, details, OpaReturnType.fromInner(OpaResourceAccessResult.class));
     }
@@ -53,6 +60,14 @@ public class OpaClient {
             ParameterizedTypeReference<OpaResultWrapper<T>> typeReference = ParameterizedTypeReference.forType(type);
             String body = om.writeValueAsString(new OpaRequestWrapper<>(new OpaInput(resource, principal, details)));
 
+            if (decisionCache != null) {
+                T cachedDecision = decisionCache.get(policyName, type.getActualTypeArguments()[0], body);
+                if (cachedDecision != null) {
+                    logger.trace(String.format("Using cached decision of OPA policy '%s'.", policyName));
+                    return cachedDecision;
+                }
+            }
+
             OpaResultWrapper<T> wrapper = getClient()
                     .post()
                     .uri("/v1/data/" + policyName)
@@ -64,6 +79,7 @@ public class OpaClient {
                     .block();
 
             if (wrapper == null) throw new RuntimeException("Empty response received from OPA.");
+            if (decisionCache != null) decisionCache.put(policyName, type.getActualTypeArguments()[0], body, wrapper.getResult());
             return wrapper.getResult();
         } catch (Exception e) {
             throw new AccessDeniedException("An error occurred when calling OPA.", e);
@@ -0,0 +1,59 @@
+package com.czertainly.core.security.authz.opa;
+
+import com.czertainly.core.util.ExpiringCache;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+
+/**
+ * Local cache of authorization decisions received from OPA. Decisions are cached by the policy name,
+ * expected result type and canonical serialized OPA request, so the same principal asking for the same
+ * resource, action and parent resource does not result in another request to OPA until the cached
+ * decision expires.
+ */
+@Component
+public class OpaDecisionCache {
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+
+    private final ExpiringCache<String, Object> decisions;
+
+    public OpaDecisionCache(@Value("${opa.cache.max-size:10000}") int maxSize, @Value("${opa.cache.ttl:30s}") Duration ttl) {
+        this.decisions = new ExpiringCache<>(maxSize, ttl);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String policyName, Type resultType, String requestBody) {
+        if (!decisions.isEnabled()) return null;
+        return (T) decisions.get(getKey(policyName, resultType, requestBody));
+    }
+
+    public void put(String policyName, Type resultType, String requestBody, Object decision) {
+        decisions.put(getKey(policyName, resultType, requestBody), decision);
+    }
+
+    /**
+     * Invalidate all cached decisions. Needs to be called whenever roles, permissions or role assignments
+     * are changed, since those are evaluated by OPA and are not part of the cache key.
+     */
+    public void invalidateAll() {
+        logger.debug("Invalidating all cached OPA decisions.");
+        decisions.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return decisions.getHitCount();
+    }
+
+    public long getMissCount() {
+        return decisions.getMissCount();
+    }
+
+    private String getKey(String policyName, Type resultType, String requestBody) {
+        return policyName + "|" + resultType.getTypeName() + "|" + requestBody;
+    }
+}
@@ -2,10 +2,10 @@ package com.czertainly.core.service;
 
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
-import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.czertainly.api.model.core.audit.ObjectType;
 import com.czertainly.api.model.core.audit.OperationStatusEnum;
 import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.model.ExportFile;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
@@ -55,9 +55,9 @@ public interface AuditLogService {
      * @param filter {@link AuditLogFilter}
      * @param sort {@link Sort}
      *
-     * @return {@link ExportResultDto}
+     * @return {@link ExportFile}
      */
-    ExportResultDto exportAuditLogs(AuditLogFilter filter, Sort sort);
+    ExportFile exportAuditLogs(AuditLogFilter filter, Sort sort);
 
     /**
      * Removes the audit logs from the database
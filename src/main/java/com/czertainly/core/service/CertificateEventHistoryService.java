@@ -1,13 +1,13 @@
 package com.czertainly.core.service;
 
 import com.czertainly.api.exception.NotFoundException;
-import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
 import com.czertainly.api.model.core.certificate.CertificateEvent;
 import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
 import com.czertainly.api.model.core.certificate.CertificateEventStatus;
-import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.repository.SubqueryWhereClause;
+import com.czertainly.core.security.authz.SecurityFilter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -19,7 +19,7 @@ public interface CertificateEventHistoryService {
     void addEventHistory(CertificateEvent event, CertificateEventStatus status, String message, String additionalInformation, Certificate certificate);
     CertificateEventHistory getEventHistory(CertificateEvent event, CertificateEventStatus status, String message, String additionalInformation, Certificate certificate);
     void asyncSaveAllInBatch(List<CertificateEventHistory> certificateEventHistories);
-    void addEventHistoryForRequest(List<SearchFilterRequestDto> filters, String entity, List<SearchFieldDataDto> originalJson, CertificateEvent event, CertificateEventStatus status, String message);
+    void addEventHistoryForRequest(SecurityFilter filter, SubqueryWhereClause<Certificate> searchWhereClause, CertificateEvent event, CertificateEventStatus status, String message);
 
     /**
      * Method to add event into the Certificate history.
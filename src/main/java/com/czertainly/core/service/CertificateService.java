@@ -14,6 +14,7 @@ import com.czertainly.api.model.core.location.LocationDto;
 import com.czertainly.api.model.core.search.SearchFieldDataByGroupDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.model.CertificateKeysetResponseDto;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
 
@@ -21,6 +22,7 @@ import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.List;
@@ -31,6 +33,17 @@ public interface CertificateService extends ResourceExtensionService  {
 
     CertificateResponseDto listCertificates(SecurityFilter filter, SearchRequestDto request) throws ValidationException;
 
+    /**
+     * List certificates using keyset pagination. Certificates are ordered from the newest and the page
+     * is located by the cursor returned with the previous page instead of the page number.
+     * @param filter security filter
+     * @param request search request, page number is ignored
+     * @param cursor cursor of the previous page, null or empty for the first page
+     * @return page of certificates with cursor of the next page
+     * @throws ValidationException when the search request or cursor is not valid
+     */
+    CertificateKeysetResponseDto listCertificates(SecurityFilter filter, SearchRequestDto request, String cursor) throws ValidationException;
+
     CertificateDetailDto getCertificate(SecuredUUID uuid) throws NotFoundException, CertificateException, IOException;
 
     Certificate getCertificateEntity(SecuredUUID uuid) throws NotFoundException;
@@ -53,6 +66,16 @@ public interface CertificateService extends ResourceExtensionService  {
 
     Certificate createCertificateEntity(X509Certificate certificate);
 
+    /**
+     * Function to create entities of multiple certificates at once. Existing certificates, certificate contents and keys
+     * are looked up in batches and missing certificate contents are saved together. Same as for the single certificate,
+     * the new certificate entities are not saved.
+     *
+     * @param certificates X.509 certificates to create the entities for
+     * @return Certificate entities by fingerprint, existing certificates are returned as they are in the inventory
+     */
+    Map<String, Certificate> createCertificateEntities(List<X509Certificate> certificates) throws CertificateEncodingException, NoSuchAlgorithmException;
+
     void updateCertificateIssuer(Certificate certificate) throws NotFoundException;
 
     /**
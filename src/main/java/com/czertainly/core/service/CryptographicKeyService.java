@@ -19,7 +19,9 @@ import com.czertainly.core.dao.entity.CryptographicKeyItem;
 import com.czertainly.core.security.authz.SecuredParentUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -304,6 +306,14 @@ public interface CryptographicKeyService extends ResourceExtensionService  {
      */
     UUID findKeyByFingerprint(String fingerprint);
 
+    /**
+     * Function to get the keys based on the sha 256 key fingerprints in one lookup
+     *
+     * @param fingerprints SHA 256 fingerprints of the keys
+     * @return Cryptographic Key UUIDs by fingerprint, fingerprints without key are not present
+     */
+    Map<String, UUID> findKeysByFingerprints(Collection<String> fingerprints);
+
     /**
      * Get the key item of specified type based on the cryptographic key
      * @param key Cryptographic Key wrapper object
@@ -1,32 +1,32 @@
 package com.czertainly.core.service;
 
-import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
-import com.czertainly.api.model.client.certificate.SearchRequestDto;
-import com.czertainly.api.model.core.search.DynamicSearchInternalResponse;
+import com.czertainly.api.model.core.auth.Resource;
 import com.czertainly.api.model.core.search.SearchCondition;
 import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.api.model.core.search.SearchableFieldType;
 import com.czertainly.api.model.core.search.SearchableFields;
+import com.czertainly.core.dao.repository.SubqueryWhereClause;
 import com.czertainly.core.security.authz.SecurityFilter;
 
-import java.util.List;  
+import java.util.List;
 
 public interface SearchService {
     SearchFieldDataDto getSearchField(SearchableFields field, String label, Boolean multiValue, List<Object> values,
                                       SearchableFieldType fieldType, List<SearchCondition> conditions);
-    Object completeSearchQueryExecutor(List<SearchFilterRequestDto> filters, String entity, List<SearchFieldDataDto> originalJson);
-    DynamicSearchInternalResponse dynamicSearchQueryExecutor(SearchRequestDto searchRequestDto, String entity, List<SearchFieldDataDto> originalJson, String additionalWhereClause);
 
-    Object customQueryExecutor(String sqlQuery);
+    /**
+     * Compile search filters to the where clause of the criteria query. Filter values are bound as query parameters,
+     * so the same combination of filtered fields and conditions always produces the same SQL statement.
+     * Filters of the custom and metadata attributes are EXISTS subqueries of the query into attribute contents.
+     * @param filter security filter of the request
+     * @param filters search filters
+     * @param resource resource of the searched objects, used to search in its attributes
+     * @return where clause to be used with security filter repository queries
+     */
+    <T> SubqueryWhereClause<T> getSearchWhereClause(SecurityFilter filter, List<SearchFilterRequestDto> filters, Resource resource);
 
     Object nativeQueryExecutor(String sqlQuery);
 
     Object asyncNativeQueryExecutor(String sqlQuery);
-
-    String getCompleteSearchQuery(List<SearchFilterRequestDto> filters, String entity, String joinQuery, List<SearchFieldDataDto> originalJson, Boolean conditionOnly, Boolean nativeCode);
-
-    String getQueryDynamicBasedOnFilter(List<SearchFilterRequestDto> conditions, String entity, List<SearchFieldDataDto> originalJson, String joinQuery, Boolean conditionOnly, Boolean nativeCode, String additionalWhereClause) throws ValidationException;
-
-    String createCriteriaBuilderString(SecurityFilter filter, Boolean addFinisher);
 }
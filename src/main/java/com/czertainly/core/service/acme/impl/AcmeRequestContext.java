@@ -0,0 +1,125 @@
+package com.czertainly.core.service.acme.impl;
+
+import com.czertainly.api.exception.AcmeProblemDocumentException;
+import com.czertainly.api.model.common.JwsBody;
+import com.czertainly.api.model.core.acme.Problem;
+import com.czertainly.core.util.AcmeJsonProcessor;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.util.Base64URL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * JWS of a single ACME request together with the public key it was verified with. The context is created for each
+ * request and passed explicitly, so that concurrent requests never share the parsed JWS or the key.
+ */
+public final class AcmeRequestContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(AcmeRequestContext.class);
+
+    private final String rawJwsBody;
+    private final JwsBody acmeJwsBody;
+    private final JWSObject jwsObject;
+    private final PublicKey publicKey;
+    private final Boolean validSignature;
+
+    private AcmeRequestContext(String rawJwsBody, JwsBody acmeJwsBody, JWSObject jwsObject, PublicKey publicKey, Boolean validSignature) {
+        this.rawJwsBody = rawJwsBody;
+        this.acmeJwsBody = acmeJwsBody;
+        this.jwsObject = jwsObject;
+        this.publicKey = publicKey;
+        this.validSignature = validSignature;
+    }
+
+    /**
+     * Parse the JWS of the request
+     *
+     * @param rawJwsBody JWS in the flattened JSON serialization
+     * @return context of the request without public key
+     * @throws AcmeProblemDocumentException when the JWS is malformed
+     */
+    public static AcmeRequestContext parse(String rawJwsBody) throws AcmeProblemDocumentException {
+        try {
+            JwsBody acmeJwsBody = AcmeJsonProcessor.generalBodyJsonParser(rawJwsBody, JwsBody.class);
+            JWSObject jwsObject = new JWSObject(new Base64URL(acmeJwsBody.getProtected()), new Base64URL(acmeJwsBody.getPayload()),
+                    new Base64URL(acmeJwsBody.getSignature()));
+            return new AcmeRequestContext(rawJwsBody, acmeJwsBody, jwsObject, null, null);
+        } catch (Exception e) {
+            logger.error("Error while parsing JWS, {}", e.getMessage());
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.MALFORMED);
+        }
+    }
+
+    /**
+     * @param publicKey public key of the ACME Account
+     * @return copy of the context with the given public key and the result of the signature verification
+     */
+    public AcmeRequestContext withPublicKey(PublicKey publicKey) throws JOSEException, AcmeProblemDocumentException {
+        return new AcmeRequestContext(rawJwsBody, acmeJwsBody, jwsObject, publicKey, verifySignature(publicKey));
+    }
+
+    /**
+     * @return copy of the context with the public key from the jwk header and the result of the signature verification
+     */
+    public AcmeRequestContext withJwkPublicKey() throws JOSEException, AcmeProblemDocumentException {
+        String keyType = jwsObject.getHeader().getJWK().getKeyType().toString();
+        logger.info("Public key type: {}", keyType);
+        if (keyType.equals(ExtendedAcmeHelperService.RSA_KEY_TYPE_NOTATION)) {
+            return withPublicKey(jwsObject.getHeader().getJWK().toRSAKey().toPublicKey());
+        } else if (keyType.equals(ExtendedAcmeHelperService.EC_KEY_TYPE_NOTATION)) {
+            return withPublicKey(jwsObject.getHeader().getJWK().toECKey().toPublicKey());
+        }
+        throw unsupportedKeyType();
+    }
+
+    /**
+     * Verify the signature of the JWS
+     *
+     * @param publicKey public key to verify the signature with
+     * @return true when the JWS is signed by the private key of the given public key
+     */
+    public boolean verifySignature(PublicKey publicKey) throws JOSEException, AcmeProblemDocumentException {
+        String keyType = publicKey.getAlgorithm();
+        logger.info("Key type for the request: {}", keyType);
+        if (keyType.equals(ExtendedAcmeHelperService.RSA_KEY_TYPE_NOTATION)) {
+            return jwsObject.verify(new RSASSAVerifier((RSAPublicKey) publicKey));
+        } else if (keyType.equals(ExtendedAcmeHelperService.EC_KEY_TYPE_NOTATION)) {
+            return jwsObject.verify(new ECDSAVerifier((ECPublicKey) publicKey));
+        }
+        throw unsupportedKeyType();
+    }
+
+    public String getRawJwsBody() {
+        return rawJwsBody;
+    }
+
+    public JwsBody getAcmeJwsBody() {
+        return acmeJwsBody;
+    }
+
+    public JWSObject getJwsObject() {
+        return jwsObject;
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public Boolean getValidSignature() {
+        return validSignature;
+    }
+
+    private static AcmeProblemDocumentException unsupportedKeyType() {
+        String message = "Account key is generated using unsupported key type by the server. Supported key types are " + String.join(", ", ExtendedAcmeHelperService.ACME_SUPPORTED_ALGORITHMS);
+        logger.error(message);
+        return new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY, message);
+    }
+}
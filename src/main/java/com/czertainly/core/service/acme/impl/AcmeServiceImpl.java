@@ -64,14 +64,14 @@ public class AcmeServiceImpl implements AcmeService {
 
     @Override
     public ResponseEntity<Account> updateAccount(String acmeProfileName, String accountId, String requestJson) throws AcmeProblemDocumentException, NotFoundException {
-        extendedAcmeHelperService.initialize(requestJson);
-        return extendedAcmeHelperService.updateAccount(accountId);
+        AcmeRequestContext context = extendedAcmeHelperService.initialize(requestJson);
+        return extendedAcmeHelperService.updateAccount(context, accountId);
     }
 
     @Override
     public ResponseEntity<?> keyRollover(String acmeProfileName, String jwsBody) throws AcmeProblemDocumentException {
-        extendedAcmeHelperService.initialize(jwsBody);
-        return extendedAcmeHelperService.keyRollover();
+        AcmeRequestContext context = extendedAcmeHelperService.initialize(jwsBody);
+        return extendedAcmeHelperService.keyRollover(context);
 
     }
 
@@ -89,8 +89,8 @@ public class AcmeServiceImpl implements AcmeService {
 
     @Override
     public ResponseEntity<Authorization> getAuthorization(String acmeProfileName, String authorizationId, String jwsBody) throws NotFoundException, AcmeProblemDocumentException {
-        extendedAcmeHelperService.initialize(jwsBody);
-        Authorization authorization = extendedAcmeHelperService.checkDeactivateAuthorization(authorizationId);
+        AcmeRequestContext context = extendedAcmeHelperService.initialize(jwsBody);
+        Authorization authorization = extendedAcmeHelperService.checkDeactivateAuthorization(context, authorizationId);
         logger.debug("Authorization: {}", authorization.toString());
         return ResponseEntity
                 .ok()
@@ -113,10 +113,10 @@ public class AcmeServiceImpl implements AcmeService {
 
     @Override
     public ResponseEntity<Order> finalizeOrder(String acmeProfileName, String orderId, String jwsBody) throws AcmeProblemDocumentException {
-        extendedAcmeHelperService.initialize(jwsBody);
+        AcmeRequestContext context = extendedAcmeHelperService.initialize(jwsBody);
         AcmeOrder order = extendedAcmeHelperService.checkOrderForFinalize(orderId);
         logger.debug("Finalizing Order with ID: {}", orderId);
-        extendedAcmeHelperService.finalizeOrder(order);
+        extendedAcmeHelperService.finalizeOrder(context, order);
         order.setStatus(OrderStatus.PROCESSING);
         return ResponseEntity
                 .ok()
@@ -158,7 +158,7 @@ public class AcmeServiceImpl implements AcmeService {
 
     @Override
     public ResponseEntity<?> revokeCertificate(String acmeProfileName, String jwsBody) throws AcmeProblemDocumentException, ConnectorException, CertificateException {
-        extendedAcmeHelperService.initialize(jwsBody);
-        return extendedAcmeHelperService.revokeCertificate();
+        AcmeRequestContext context = extendedAcmeHelperService.initialize(jwsBody);
+        return extendedAcmeHelperService.revokeCertificate(context);
     }
 }
@@ -4,7 +4,6 @@ import com.czertainly.api.exception.AcmeProblemDocumentException;
 import com.czertainly.api.exception.ConnectorException;
 import com.czertainly.api.exception.NotFoundException;
 import com.czertainly.api.model.client.attribute.RequestAttributeDto;
-import com.czertainly.api.model.common.JwsBody;
 import com.czertainly.api.model.common.attribute.v2.DataAttribute;
 import com.czertainly.api.model.core.acme.*;
 import com.czertainly.api.model.core.authority.RevocationReason;
@@ -17,7 +16,6 @@ import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.entity.acme.AcmeAccount;
 import com.czertainly.core.dao.entity.acme.AcmeAuthorization;
 import com.czertainly.core.dao.entity.acme.AcmeChallenge;
-import com.czertainly.core.dao.entity.acme.AcmeNonce;
 import com.czertainly.core.dao.entity.acme.AcmeOrder;
 import com.czertainly.core.dao.entity.acme.AcmeProfile;
 import com.czertainly.core.dao.repository.AcmeProfileRepository;
@@ -25,18 +23,16 @@ import com.czertainly.core.dao.repository.RaProfileRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAccountRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAuthorizationRepository;
 import com.czertainly.core.dao.repository.acme.AcmeChallengeRepository;
-import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
 import com.czertainly.core.dao.repository.acme.AcmeOrderRepository;
 import com.czertainly.core.security.authz.SecuredParentUUID;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.service.CertValidationService;
 import com.czertainly.core.service.CertificateService;
+import com.czertainly.core.service.acme.nonce.NonceStore;
 import com.czertainly.core.service.v2.ClientOperationService;
 import com.czertainly.core.util.*;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.crypto.ECDSAVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.util.Base64URL;
 import org.bouncycastle.asn1.pkcs.Attribute;
@@ -77,10 +73,7 @@ import java.security.PublicKey;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.security.interfaces.ECPublicKey;
-import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
-import java.text.ParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -96,7 +89,6 @@ public class ExtendedAcmeHelperService {
     private static final Logger logger = LoggerFactory.getLogger(ExtendedAcmeHelperService.class);
     private static final String NONCE_HEADER_NAME = "Replay-Nonce";
     private static final String RETRY_HEADER_NAME = "Retry-After";
-    private static final Integer NONCE_VALIDITY = 60 * 60; //1 Hour
     private static final Integer MAX_REDIRECT_COUNT = 15;
     private static final String CERTIFICATE_TYPE = "X.509";
     private static final String MESSAGE_DIGEST_ALGORITHM = "SHA-256";
@@ -108,11 +100,6 @@ public class ExtendedAcmeHelperService {
     private static final String HTTP_CHALLENGE_REQUEST_METHOD = "GET";
     private static final String LOCATION_HEADER_NAME = "Location";
     private static final String HTTP_CHALLENGE_BASE_URL = "http://%s/.well-known/acme-challenge/%s";
-    private JwsBody acmeJwsBody;
-    private String rawJwsBody;
-    private JWSObject jwsObject;
-    private Boolean isValidSignature;
-    private PublicKey publicKey;
     @Autowired
     private AcmeAccountRepository acmeAccountRepository;
     @Autowired
@@ -132,96 +119,20 @@ public class ExtendedAcmeHelperService {
     @Autowired
     private AcmeProfileRepository acmeProfileRepository;
     @Autowired
-    private AcmeNonceRepository acmeNonceRepository;
+    private NonceStore nonceStore;
 
     public ExtendedAcmeHelperService() {
     }
 
-    public JwsBody getAcmeJwsBody() {
-        return acmeJwsBody;
-    }
-
-    public String getRawJwsBody() {
-        return rawJwsBody;
-    }
-
-    public JWSObject getJwsObject() {
-        return jwsObject;
-    }
-
-    public Boolean getValidSignature() {
-        return isValidSignature;
-    }
-
-    public PublicKey getPublicKey() {
-        return publicKey;
-    }
-
-    protected void setPublicKey(PublicKey publicKey) throws JOSEException {
-        this.publicKey = publicKey;
-    }
-
-    private void setPublicKey() throws JOSEException, AcmeProblemDocumentException {
-        String keyType = jwsObject.getHeader().getJWK().getKeyType().toString();
-        logger.info("Public key type: {}", keyType);
-        if (keyType.equals(RSA_KEY_TYPE_NOTATION)) {
-            this.publicKey = jwsObject.getHeader().getJWK().toRSAKey().toPublicKey();
-        } else if (keyType.equals(EC_KEY_TYPE_NOTATION)) {
-            this.publicKey = jwsObject.getHeader().getJWK().toECKey().toPublicKey();
-        } else {
-            String message = "Account key is generated using unsupported key type by the server. Supported key types are " + String.join(", ", ACME_SUPPORTED_ALGORITHMS);
-            logger.error(message);
-            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY, message);
-        }
-    }
-
-    private void setJwsObject() throws ParseException {
-        JWSObject jwsObject = new JWSObject(new Base64URL(acmeJwsBody.getProtected()), new Base64URL(acmeJwsBody.getPayload()),
-                new Base64URL(acmeJwsBody.getSignature()));
-        this.jwsObject = jwsObject;
-    }
-
-    private Boolean checkSignature(PublicKey publicKey) throws JOSEException, AcmeProblemDocumentException {
-        String keyType = publicKey.getAlgorithm();
-        logger.info("Key type for the request: {}", keyType);
-        if (keyType.equals(RSA_KEY_TYPE_NOTATION)) {
-            return jwsObject.verify(new RSASSAVerifier((RSAPublicKey) publicKey));
-        } else if (keyType.equals(EC_KEY_TYPE_NOTATION)) {
-            return jwsObject.verify(new ECDSAVerifier((ECPublicKey) publicKey));
-        } else {
-            String message = "Account key is generated using unsupported key type by the server. Supported key types are " + String.join(", ", ACME_SUPPORTED_ALGORITHMS);
-            logger.error(message);
-            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY, message);
-        }
-    }
-
-    private void setIsValidSignature() throws JOSEException, AcmeProblemDocumentException {
-        this.isValidSignature = checkSignature(publicKey);
-    }
-
-    protected Boolean IsValidSignature() throws JOSEException, AcmeProblemDocumentException {
-        return checkSignature(publicKey);
-    }
-
-    protected void newAccountProcess() throws AcmeProblemDocumentException {
-        try {
-            this.setPublicKey();
-            this.setIsValidSignature();
-        } catch (Exception e) {
-            logger.error("Error while parsing the JWS. JWS may be malformed: {}", e.getMessage());
-            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.MALFORMED);
-        }
-    }
-
-    public void initialize(String rawJwsBody) throws AcmeProblemDocumentException {
-        this.rawJwsBody = rawJwsBody;
-        try {
-            this.acmeJwsBody = AcmeJsonProcessor.generalBodyJsonParser(rawJwsBody, JwsBody.class);
-            this.setJwsObject();
-        } catch (Exception e) {
-            logger.error("Error while parsing JWS, {}", e.getMessage());
-            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.MALFORMED);
-        }
+    /**
+     * Parse the JWS of the request
+     *
+     * @param rawJwsBody JWS in the flattened JSON serialization
+     * @return context of the request
+     * @throws AcmeProblemDocumentException when the JWS is malformed
+     */
+    public AcmeRequestContext initialize(String rawJwsBody) throws AcmeProblemDocumentException {
+        return AcmeRequestContext.parse(rawJwsBody);
     }
 
     public Directory frameDirectory(String profileName) throws AcmeProblemDocumentException {
@@ -276,11 +187,11 @@ public class ExtendedAcmeHelperService {
     }
 
     protected ResponseEntity<Account> processNewAccount(String profileName, String requestJson) throws AcmeProblemDocumentException {
-        newAccountValidator(profileName, requestJson);
-        NewAccountRequest accountRequest = AcmeJsonProcessor.getPayloadAsRequestObject(getJwsObject(), NewAccountRequest.class);
+        AcmeRequestContext context = newAccountValidator(profileName, requestJson);
+        NewAccountRequest accountRequest = AcmeJsonProcessor.getPayloadAsRequestObject(context.getJwsObject(), NewAccountRequest.class);
         logger.debug("New Account requested: {}", accountRequest.toString());
         AcmeAccount account;
-        account = addNewAccount(profileName, AcmePublicKeyProcessor.publicKeyPemStringFromObject(getPublicKey()), accountRequest);
+        account = addNewAccount(profileName, AcmePublicKeyProcessor.publicKeyPemStringFromObject(context.getPublicKey()), accountRequest);
         Account accountDto = account.mapToDto();
         String baseUri = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString() + ACME_URI_HEADER;
         if (ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUriString().contains("/raProfile/")) {
@@ -317,14 +228,19 @@ public class ExtendedAcmeHelperService {
 
     }
 
-    private void newAccountValidator(String profileName, String requestJson) throws AcmeProblemDocumentException {
+    private AcmeRequestContext newAccountValidator(String profileName, String requestJson) throws AcmeProblemDocumentException {
         logger.info("Initiating the new Account validation for profile: {}", profileName);
         if (requestJson.isEmpty()) {
             logger.error("New Account is empty. JWS is malformed for profile: {}", profileName);
             throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.MALFORMED);
         }
-        initialize(requestJson);
-        newAccountProcess();
+        AcmeRequestContext context = initialize(requestJson);
+        try {
+            return context.withJwkPublicKey();
+        } catch (Exception e) {
+            logger.error("Error while parsing the JWS. JWS may be malformed: {}", e.getMessage());
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.MALFORMED);
+        }
     }
 
     private AcmeAccount addNewAccount(String profileName, String publicKey, NewAccountRequest accountRequest) throws AcmeProblemDocumentException {
@@ -397,8 +313,8 @@ public class ExtendedAcmeHelperService {
 
     protected ResponseEntity<Order> processNewOrder(String profileName, String requestJson) throws AcmeProblemDocumentException {
         logger.info("Request to process new Order for profile: {}", profileName);
-        initialize(requestJson);
-        String[] acmeAccountKeyIdSegment = getJwsObject().getHeader().getKeyID().split("/");
+        AcmeRequestContext context = initialize(requestJson);
+        String[] acmeAccountKeyIdSegment = context.getJwsObject().getHeader().getKeyID().split("/");
         String acmeAccountId = acmeAccountKeyIdSegment[acmeAccountKeyIdSegment.length - 1];
         logger.info("ACME Account ID: {}", acmeAccountId);
         AcmeAccount acmeAccount;
@@ -424,9 +340,18 @@ public class ExtendedAcmeHelperService {
         }
 
         try {
-            setPublicKey(AcmePublicKeyProcessor.publicKeyObjectFromString(acmeAccount.getPublicKey()));
-            IsValidSignature();
-            AcmeOrder order = generateOrder(baseUrl, acmeAccount);
+            context = context.withPublicKey(AcmePublicKeyProcessor.publicKeyObjectFromString(acmeAccount.getPublicKey()));
+        } catch (Exception e) {
+            logger.error("Unable to verify the signature with the key of the Account {}: {}", acmeAccountId, e.getMessage());
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY);
+        }
+        if (!context.getValidSignature()) {
+            logger.error("New Order is not signed by the key of the Account {}", acmeAccountId);
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY);
+        }
+
+        try {
+            AcmeOrder order = generateOrder(context, baseUrl, acmeAccount);
             logger.debug("Order created: {}", order.toString());
             return ResponseEntity
                     .created(URI.create(order.getUrl()))
@@ -467,9 +392,9 @@ public class ExtendedAcmeHelperService {
         return new ByteArrayResource(chainString.getBytes(StandardCharsets.UTF_8));
     }
 
-    public AcmeOrder generateOrder(String baseUrl, AcmeAccount acmeAccount) {
+    public AcmeOrder generateOrder(AcmeRequestContext context, String baseUrl, AcmeAccount acmeAccount) {
         logger.info("Generating new Order for Account: {}", acmeAccount.toString());
-        Order orderRequest = AcmeJsonProcessor.getPayloadAsRequestObject(getJwsObject(), Order.class);
+        Order orderRequest = AcmeJsonProcessor.getPayloadAsRequestObject(context.getJwsObject(), Order.class);
         logger.debug("Order requested: {}", orderRequest.toString());
         AcmeOrder order = new AcmeOrder();
         order.setAcmeAccount(acmeAccount);
@@ -485,7 +410,7 @@ public class ExtendedAcmeHelperService {
         }
         acmeOrderRepository.save(order);
         logger.debug("Order created: {}", order);
-        Set<AcmeAuthorization> authorizations = generateValidations(baseUrl, order, orderRequest.getIdentifiers());
+        Set<AcmeAuthorization> authorizations = generateValidations(baseUrl, order, orderRequest.getIdentifiers(), context.getPublicKey());
         order.setAuthorizations(authorizations);
         logger.debug("Challenges created for Order: {}", order);
         return order;
@@ -546,8 +471,8 @@ public class ExtendedAcmeHelperService {
     }
 
     @Async("threadPoolTaskExecutor")
-    public void finalizeOrder(AcmeOrder order) throws AcmeProblemDocumentException {
-        CertificateFinalizeRequest request = AcmeJsonProcessor.getPayloadAsRequestObject(getJwsObject(), CertificateFinalizeRequest.class);
+    public void finalizeOrder(AcmeRequestContext context, AcmeOrder order) throws AcmeProblemDocumentException {
+        CertificateFinalizeRequest request = AcmeJsonProcessor.getPayloadAsRequestObject(context.getJwsObject(), CertificateFinalizeRequest.class);
         logger.debug("Finalize Order: {}", request.toString());
         JcaPKCS10CertificationRequest p10Object;
         String decodedCsr = "";
@@ -612,10 +537,10 @@ public class ExtendedAcmeHelperService {
                 .body(orders);
     }
 
-    public Authorization checkDeactivateAuthorization(String authorizationId) throws NotFoundException {
+    public Authorization checkDeactivateAuthorization(AcmeRequestContext context, String authorizationId) throws NotFoundException {
         boolean isDeactivateRequest = false;
-        if (getJwsObject().getPayload().toJSONObject() != null) {
-            isDeactivateRequest = getJwsObject().getPayload().toJSONObject().getOrDefault("status", "") == "deactivated";
+        if (context.getJwsObject().getPayload().toJSONObject() != null) {
+            isDeactivateRequest = context.getJwsObject().getPayload().toJSONObject().getOrDefault("status", "") == "deactivated";
         }
         AcmeAuthorization authorization = acmeAuthorizationRepository.findByAuthorizationId(authorizationId).orElseThrow(() -> new NotFoundException(Authorization.class, authorizationId));
         if (authorization.getExpires() != null && authorization.getExpires().before(new Date())) {
@@ -629,11 +554,11 @@ public class ExtendedAcmeHelperService {
         return authorization.mapToDto();
     }
 
-    public ResponseEntity<Account> updateAccount(String accountId) throws NotFoundException, AcmeProblemDocumentException {
+    public ResponseEntity<Account> updateAccount(AcmeRequestContext context, String accountId) throws NotFoundException, AcmeProblemDocumentException {
         logger.info("Request to update the ACME Account with ID: {}", accountId);
         AcmeAccount account = getAcmeAccountEntity(accountId);
         validateAccount(account);
-        Account request = AcmeJsonProcessor.getPayloadAsRequestObject(getJwsObject(), Account.class);
+        Account request = AcmeJsonProcessor.getPayloadAsRequestObject(context.getJwsObject(), Account.class);
         logger.debug("Account Update request: {}", request.toString());
         if (request.getContact() != null) {
             account.setContact(SerializationUtil.serialize(request.getContact()));
@@ -654,8 +579,8 @@ public class ExtendedAcmeHelperService {
                 .body(account.mapToDto());
     }
 
-    public ResponseEntity<?> revokeCertificate() throws ConnectorException, CertificateException, AcmeProblemDocumentException {
-        CertificateRevocationRequest request = AcmeJsonProcessor.getPayloadAsRequestObject(getJwsObject(), CertificateRevocationRequest.class);
+    public ResponseEntity<?> revokeCertificate(AcmeRequestContext context) throws ConnectorException, CertificateException, AcmeProblemDocumentException {
+        CertificateRevocationRequest request = AcmeJsonProcessor.getPayloadAsRequestObject(context.getJwsObject(), CertificateRevocationRequest.class);
         logger.debug("Certificate revocation is triggered with the payload: {}", request.toString());
         X509Certificate x509Certificate = (X509Certificate) CertificateFactory.getInstance(CERTIFICATE_TYPE)
                 .generateCertificate(new ByteArrayInputStream(Base64.getUrlDecoder().decode(request.getCertificate())));
@@ -668,15 +593,21 @@ public class ExtendedAcmeHelperService {
             throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.ALREADY_REVOKED);
         }
         String pemPubKeyJws = "";
-        if (getJwsObject().getHeader().toJSONObject().containsKey("jwk")) {
-            pemPubKeyJws = AcmePublicKeyProcessor.publicKeyPemStringFromObject(publicKey);
+        PublicKey jwkPublicKey = null;
+        if (context.getJwsObject().getHeader().toJSONObject().containsKey("jwk")) {
+            try {
+                jwkPublicKey = context.withJwkPublicKey().getPublicKey();
+            } catch (JOSEException e) {
+                throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY);
+            }
+            pemPubKeyJws = AcmePublicKeyProcessor.publicKeyPemStringFromObject(jwkPublicKey);
         }
         PublicKey accountPublicKey;
         PublicKey certPublicKey;
         AcmeAccount account = null;
-        String accountKid = getJwsObject().getHeader().toJSONObject().get("kid").toString();
+        String accountKid = context.getJwsObject().getHeader().toJSONObject().get("kid").toString();
         logger.info("kid of the Account for revocation: {}", accountKid);
-        if (getJwsObject().getHeader().toJSONObject().containsKey("kid")) {
+        if (context.getJwsObject().getHeader().toJSONObject().containsKey("kid")) {
             String accountId = accountKid.split("/")[accountKid.split("/").length - 1];
             account = getAcmeAccountEntity(accountId);
             validateAccount(account);
@@ -687,11 +618,11 @@ public class ExtendedAcmeHelperService {
             }
             certPublicKey = x509Certificate.getPublicKey();
         } else {
-            accountPublicKey = publicKey;
+            accountPublicKey = jwkPublicKey;
             certPublicKey = x509Certificate.getPublicKey();
 
         }
-        if (getJwsObject().getHeader().toJSONObject().containsKey("jwk")) {
+        if (context.getJwsObject().getHeader().toJSONObject().containsKey("jwk")) {
             String pemPubKeyCert = AcmePublicKeyProcessor.publicKeyPemStringFromObject(certPublicKey);
             String pemPubKeyAcc = AcmePublicKeyProcessor.publicKeyPemStringFromObject(accountPublicKey);
             if (!pemPubKeyCert.equals(pemPubKeyJws) || pemPubKeyAcc.equals(pemPubKeyJws)) {
@@ -699,9 +630,9 @@ public class ExtendedAcmeHelperService {
             }
         }
         try {
-            if ((accountPublicKey != null && checkSignature(accountPublicKey))) {
+            if ((accountPublicKey != null && context.verifySignature(accountPublicKey))) {
                 logger.info("ACME Revocation request is signed by Account key: {}", request);
-            } else if ((certPublicKey != null && checkSignature(certPublicKey))) {
+            } else if ((certPublicKey != null && context.verifySignature(certPublicKey))) {
                 logger.info("ACME Revocation request is signed by private key associated to the Certificate: {}", request);
             } else {
                 throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_PUBLIC_KEY);
@@ -733,8 +664,8 @@ public class ExtendedAcmeHelperService {
         }
     }
 
-    public ResponseEntity<?> keyRollover() throws AcmeProblemDocumentException {
-        JWSObject innerJws = getJwsObject().getPayload().toJWSObject();
+    public ResponseEntity<?> keyRollover(AcmeRequestContext context) throws AcmeProblemDocumentException {
+        JWSObject innerJws = context.getJwsObject().getPayload().toJWSObject();
         PublicKey newKey;
         PublicKey oldKey;
         try {
@@ -756,17 +687,17 @@ public class ExtendedAcmeHelperService {
         if (oldAccount != null) {
             return ResponseEntity.status(HttpStatus.CONFLICT).header(LOCATION_HEADER_NAME, oldAccount.getAccountId()).body(new ProblemDocument("keyExists", "New Key already exists", "New key already tagged to a different account"));
         }
-        validateKey(innerJws);
+        validateKey(context, innerJws);
         acmeAccount.setPublicKey(AcmePublicKeyProcessor.publicKeyPemStringFromObject(newKey));
         acmeAccountRepository.save(acmeAccount);
         return ResponseEntity.ok().build();
     }
 
-    private void validateKey(JWSObject innerJws) throws AcmeProblemDocumentException {
+    private void validateKey(AcmeRequestContext context, JWSObject innerJws) throws AcmeProblemDocumentException {
         if (!innerJws.getHeader().toJSONObject().containsKey("jwk")) {
             throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, new ProblemDocument("malformed", "Inner JWS Malformed", "Inner JWS does not contain jwk"));
         }
-        if (!innerJws.getHeader().toJSONObject().getOrDefault("url", "innerUrl").equals(getJwsObject().getHeader().toJSONObject().getOrDefault("url", "outerUrl"))) {
+        if (!innerJws.getHeader().toJSONObject().getOrDefault("url", "innerUrl").equals(context.getJwsObject().getHeader().toJSONObject().getOrDefault("url", "outerUrl"))) {
             throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, new ProblemDocument("malformed", "Inner JWS Malformed", "URL in inner and outer JWS are different"));
         }
         if (innerJws.getHeader().toJSONObject().containsKey("nonce")) {
@@ -798,15 +729,15 @@ public class ExtendedAcmeHelperService {
         }
     }
 
-    private Set<AcmeAuthorization> generateValidations(String baseUrl, AcmeOrder acmeOrder, List<Identifier> identifiers) {
+    private Set<AcmeAuthorization> generateValidations(String baseUrl, AcmeOrder acmeOrder, List<Identifier> identifiers, PublicKey publicKey) {
         Set<AcmeAuthorization> authorizations = new HashSet<>();
         for (Identifier identifier : identifiers) {
-            authorizations.add(authorization(baseUrl, acmeOrder, identifier));
+            authorizations.add(authorization(baseUrl, acmeOrder, identifier, publicKey));
         }
         return authorizations;
     }
 
-    private AcmeAuthorization authorization(String baseUrl, AcmeOrder acmeOrder, Identifier identifier) {
+    private AcmeAuthorization authorization(String baseUrl, AcmeOrder acmeOrder, Identifier identifier, PublicKey publicKey) {
         AcmeAuthorization authorization = new AcmeAuthorization();
         authorization.setAuthorizationId(AcmeRandomGeneratorAndValidator.generateRandomId());
         authorization.setStatus(AuthorizationStatus.PENDING);
@@ -819,13 +750,13 @@ public class ExtendedAcmeHelperService {
         authorization.setWildcard(checkWildcard(identifier));
         authorization.setIdentifier(SerializationUtil.serialize(identifier));
         acmeAuthorizationRepository.save(authorization);
-        AcmeChallenge dnsChallenge = generateChallenge(ChallengeType.DNS01, baseUrl, authorization);
-        AcmeChallenge httpChallenge = generateChallenge(ChallengeType.HTTP01, baseUrl, authorization);
+        AcmeChallenge dnsChallenge = generateChallenge(ChallengeType.DNS01, baseUrl, authorization, publicKey);
+        AcmeChallenge httpChallenge = generateChallenge(ChallengeType.HTTP01, baseUrl, authorization, publicKey);
         authorization.setChallenges(Set.of(dnsChallenge, httpChallenge));
         return authorization;
     }
 
-    private AcmeChallenge generateChallenge(ChallengeType challengeType, String baseUrl, AcmeAuthorization authorization) {
+    private AcmeChallenge generateChallenge(ChallengeType challengeType, String baseUrl, AcmeAuthorization authorization, PublicKey publicKey) {
         logger.info("Generating new Challenge for Authorization: {}", authorization.toString());
         AcmeChallenge challenge = new AcmeChallenge();
         challenge.setChallengeId(AcmeRandomGeneratorAndValidator.generateRandomId());
@@ -976,28 +907,11 @@ public class ExtendedAcmeHelperService {
     }
 
     public String generateNonce() {
-        String nonceString = AcmeRandomGeneratorAndValidator.generateNonce();
-        Date expires = AcmeCommonHelper.addSeconds(new Date(), NONCE_VALIDITY);
-        AcmeNonce acmeNonce = new AcmeNonce();
-        acmeNonce.setCreated(new Date());
-        acmeNonce.setNonce(nonceString);
-        acmeNonce.setExpires(expires);
-        acmeNonceRepository.save(acmeNonce);
-        return nonceString;
-    }
-
-    private void acmeNonceCleanup() {
-        try {
-            acmeNonceRepository.deleteAll(acmeNonceRepository.findAllByExpiresBefore(new Date()));
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-        }
+        return nonceStore.generateNonce();
     }
 
     public void isNonceValid(String nonce) throws AcmeProblemDocumentException {
-        acmeNonceCleanup();
-        AcmeNonce acmeNonce = acmeNonceRepository.findByNonce(nonce).orElseThrow(() -> new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE));
-        if (acmeNonce.getExpires().after(AcmeCommonHelper.addSeconds(new Date(), NONCE_VALIDITY))) {
+        if (!nonceStore.consumeNonce(nonce)) {
             throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
         }
     }
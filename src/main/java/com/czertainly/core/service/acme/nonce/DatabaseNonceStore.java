@@ -0,0 +1,61 @@
+package com.czertainly.core.service.acme.nonce;
+
+import com.czertainly.core.dao.entity.acme.AcmeNonce;
+import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
+import com.czertainly.core.util.AcmeRandomGeneratorAndValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Nonces stored in the database, shared by all instances. Expired nonces are deleted on schedule.
+ */
+@Component
+@ConditionalOnProperty(value = "acme.nonce.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseNonceStore implements NonceStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseNonceStore.class);
+
+    @Value("${acme.nonce.validity:1h}")
+    private Duration validity;
+
+    private AcmeNonceRepository acmeNonceRepository;
+
+    @Autowired
+    public void setAcmeNonceRepository(AcmeNonceRepository acmeNonceRepository) {
+        this.acmeNonceRepository = acmeNonceRepository;
+    }
+
+    @Override
+    public String generateNonce() {
+        Date created = new Date();
+        AcmeNonce acmeNonce = new AcmeNonce();
+        acmeNonce.setNonce(AcmeRandomGeneratorAndValidator.generateNonce());
+        acmeNonce.setCreated(created);
+        acmeNonce.setExpires(new Date(created.getTime() + validity.toMillis()));
+        acmeNonceRepository.save(acmeNonce);
+        return acmeNonce.getNonce();
+    }
+
+    @Override
+    public boolean consumeNonce(String nonce) {
+        return acmeNonceRepository.deleteByNonceAndExpiresAfter(nonce, new Date()) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${acme.nonce.cleanup-interval:PT1M}")
+    public void deleteExpiredNonces() {
+        try {
+            int deleted = acmeNonceRepository.deleteByExpiresBefore(new Date());
+            logger.debug("Deleted {} expired ACME nonces", deleted);
+        } catch (Exception e) {
+            logger.error("Unable to delete expired ACME nonces: {}", e.getMessage());
+        }
+    }
+}
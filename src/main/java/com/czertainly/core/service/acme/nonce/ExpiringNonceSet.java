@@ -0,0 +1,92 @@
+package com.czertainly.core.service.acme.nonce;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Set of nonces with expiration. Nonces are kept in a concurrent map and in the buckets of a time wheel by their
+ * expiration. Expired nonces are removed lazily by the calling thread when the wheel passes their bucket, so there is
+ * no background thread and no scan of all nonces.
+ */
+class ExpiringNonceSet {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final ConcurrentHashMap<String, Long> nonces = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final long tickMillis;
+    private final AtomicLong sweptTick;
+
+    @SuppressWarnings("unchecked")
+    ExpiringNonceSet(Duration validity) {
+        // nonce never expires more than a full turn of the wheel ahead
+        this.tickMillis = validity.toMillis() / (WHEEL_SIZE - 2) + 1;
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.sweptTick = new AtomicLong(System.currentTimeMillis() / tickMillis);
+    }
+
+    /**
+     * @return false if the nonce is already in the set
+     */
+    boolean add(String nonce, long expiresAt) {
+        expire(System.currentTimeMillis());
+        if (nonces.putIfAbsent(nonce, expiresAt) != null) {
+            return false;
+        }
+        bucket(expiresAt).add(nonce);
+        return true;
+    }
+
+    /**
+     * @return true if the nonce was in the set and has not expired
+     */
+    boolean remove(String nonce) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        Long expiresAt = nonces.remove(nonce);
+        return expiresAt != null && expiresAt > now;
+    }
+
+    int size() {
+        return nonces.size();
+    }
+
+    private Queue<String> bucket(long expiresAt) {
+        return wheel[(int) ((expiresAt / tickMillis) % WHEEL_SIZE)];
+    }
+
+    private void expire(long now) {
+        long currentTick = now / tickMillis;
+        long swept = sweptTick.get();
+        // only buckets of the ticks that already ended are swept, by the single thread that moved the wheel
+        if (currentTick - 1 <= swept || !sweptTick.compareAndSet(swept, currentTick - 1)) {
+            return;
+        }
+        for (long tick = Math.max(swept + 1, currentTick - WHEEL_SIZE); tick < currentTick; tick++) {
+            Queue<String> bucket = wheel[(int) (tick % WHEEL_SIZE)];
+            List<String> notExpired = new ArrayList<>();
+            String nonce;
+            while ((nonce = bucket.poll()) != null) {
+                Long expiresAt = nonces.computeIfPresent(nonce, (key, value) -> value <= now ? null : value);
+                if (expiresAt != null) {
+                    notExpired.add(nonce);
+                }
+            }
+            // nonces of the next turn of the wheel that were added to the same bucket
+            for (String remaining : notExpired) {
+                Long expiresAt = nonces.get(remaining);
+                if (expiresAt != null) {
+                    bucket(expiresAt).add(remaining);
+                }
+            }
+        }
+    }
+}
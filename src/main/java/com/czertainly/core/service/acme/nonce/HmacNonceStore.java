@@ -0,0 +1,110 @@
+package com.czertainly.core.service.acme.nonce;
+
+import com.nimbusds.jose.util.Base64URL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Stateless nonces that can be validated by any instance sharing the same secret. Nonce contains its expiration and
+ * random part authenticated by HMAC, so the store does not have to remember issued nonces. Used nonces are remembered
+ * until they expire only by the instance that received them, replay to another instance within the validity is not
+ * detected, so the validity should be kept short.
+ */
+@Component
+@ConditionalOnProperty(value = "acme.nonce.store", havingValue = "hmac")
+public class HmacNonceStore implements NonceStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(HmacNonceStore.class);
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int RANDOM_SIZE = 16;
+    private static final int MAC_SIZE = 16;
+    private static final int NONCE_SIZE = Long.BYTES + RANDOM_SIZE + MAC_SIZE;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final Duration validity;
+
+    private final SecretKeySpec secretKey;
+
+    private final ThreadLocal<Mac> mac;
+
+    private final ExpiringNonceSet usedNonces;
+
+    public HmacNonceStore(@Value("${acme.nonce.validity:1h}") Duration validity, @Value("${acme.nonce.hmac-secret:}") String secret) {
+        this.validity = validity;
+        byte[] key;
+        if (secret.isBlank()) {
+            logger.warn("Secret for ACME nonces is not configured, nonces will be valid only for this instance");
+            key = new byte[32];
+            secureRandom.nextBytes(key);
+        } else {
+            key = Base64.getDecoder().decode(secret);
+        }
+        this.secretKey = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::createMac);
+        this.usedNonces = new ExpiringNonceSet(validity);
+    }
+
+    @Override
+    public String generateNonce() {
+        ByteBuffer nonce = ByteBuffer.allocate(NONCE_SIZE);
+        byte[] random = new byte[RANDOM_SIZE];
+        secureRandom.nextBytes(random);
+        nonce.putLong(System.currentTimeMillis() + validity.toMillis());
+        nonce.put(random);
+        nonce.put(computeMac(nonce.array()));
+        return Base64URL.encode(nonce.array()).toString();
+    }
+
+    @Override
+    public boolean consumeNonce(String nonce) {
+        byte[] decoded;
+        try {
+            decoded = new Base64URL(nonce).decode();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (decoded.length != NONCE_SIZE) {
+            return false;
+        }
+        byte[] expectedMac = computeMac(decoded);
+        if (!MessageDigest.isEqual(expectedMac, Arrays.copyOfRange(decoded, NONCE_SIZE - MAC_SIZE, NONCE_SIZE))) {
+            return false;
+        }
+        long expiresAt = ByteBuffer.wrap(decoded).getLong();
+        if (expiresAt <= System.currentTimeMillis()) {
+            return false;
+        }
+        return usedNonces.add(nonce, expiresAt);
+    }
+
+    private byte[] computeMac(byte[] nonce) {
+        Mac instance = mac.get();
+        instance.update(nonce, 0, NONCE_SIZE - MAC_SIZE);
+        return Arrays.copyOf(instance.doFinal(), MAC_SIZE);
+    }
+
+    private Mac createMac() {
+        try {
+            Mac instance = Mac.getInstance(MAC_ALGORITHM);
+            instance.init(secretKey);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + MAC_ALGORITHM + " for ACME nonces", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.czertainly.core.service.acme.nonce;
+
+import com.czertainly.core.util.AcmeRandomGeneratorAndValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Nonces kept in the memory of the instance. Suitable for a single instance or when ACME clients are routed to the
+ * same instance for the whole session.
+ */
+@Component
+@ConditionalOnProperty(value = "acme.nonce.store", havingValue = "memory")
+public class InMemoryNonceStore implements NonceStore {
+
+    private final Duration validity;
+
+    private final ExpiringNonceSet nonces;
+
+    public InMemoryNonceStore(@Value("${acme.nonce.validity:1h}") Duration validity) {
+        this.validity = validity;
+        this.nonces = new ExpiringNonceSet(validity);
+    }
+
+    @Override
+    public String generateNonce() {
+        String nonce = AcmeRandomGeneratorAndValidator.generateNonce();
+        nonces.add(nonce, System.currentTimeMillis() + validity.toMillis());
+        return nonce;
+    }
+
+    @Override
+    public boolean consumeNonce(String nonce) {
+        return nonces.remove(nonce);
+    }
+
+    int size() {
+        return nonces.size();
+    }
+}
@@ -0,0 +1,23 @@
+package com.czertainly.core.service.acme.nonce;
+
+/**
+ * Store of the ACME replay nonces. Nonce is returned in the Replay-Nonce header of each ACME response and has to be
+ * used by the client in the next request. Each nonce can be used only once.
+ */
+public interface NonceStore {
+
+    /**
+     * Generate new nonce
+     *
+     * @return nonce to be returned to the client
+     */
+    String generateNonce();
+
+    /**
+     * Use the nonce received from the client, the nonce is no longer valid after that
+     *
+     * @param nonce nonce from the protected header of the JWS
+     * @return true if the nonce was issued by the store, has not expired and was not used before
+     */
+    boolean consumeNonce(String nonce);
+}
@@ -6,6 +6,7 @@ import com.czertainly.core.aop.AuditLogged;
 import com.czertainly.core.dao.entity.AuditLog;
 import com.czertainly.core.dao.entity.QAuditLog;
 import com.czertainly.core.dao.repository.AuditLogRepository;
+import com.czertainly.core.model.ExportFile;
 import com.czertainly.core.model.auth.ResourceAction;
 import com.czertainly.core.security.authz.ExternalAuthorization;
 import com.czertainly.core.service.AuditLogService;
@@ -15,25 +16,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -46,19 +58,38 @@ public class AuditLogServiceImpl implements AuditLogService {
     static {
         MAPPER.findAndRegisterModules();
         MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
     }
 
     @Value("${export.auditLog.fileName.prefix:audit-logs}")
     private String fileNamePrefix;
 
+    @Value("${export.auditLog.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${auditlog.purge.chunk-size:10000}")
+    private int purgeChunkSize;
+
+    @Value("${auditlog.list.estimated-count-threshold:100000}")
+    private long estimatedCountThreshold;
+
     @Value("${auditLog.enabled:false}")
     private boolean auditLogEnabled;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private AuditLogRepository auditLogRepository;
     @Autowired
+    private AuditLogWriter auditLogWriter;
+    @Autowired
+    private AuditorAware<String> auditorAware;
+    @Autowired
     private ExportProcessor exportProcessor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Override
     public void log(ObjectType origination,
@@ -70,7 +101,6 @@ public class AuditLogServiceImpl implements AuditLogService {
     ) {
         String additionalDataJson = null;
         try {
-            MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
             additionalDataJson = additionalData != null ? MAPPER.writeValueAsString(additionalData) : null;
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException(e);
@@ -83,8 +113,12 @@ public class AuditLogServiceImpl implements AuditLogService {
         auditLog.setOperation(operation);
         auditLog.setOperationStatus(operationStatus);
         auditLog.setAdditionalData(additionalDataJson);
+        // audit logs are inserted by the writer in the background, outside the entity auditing
+        auditLog.setAuthor(auditorAware.getCurrentAuditor().orElse(null));
+        auditLog.setCreated(LocalDateTime.now());
+        auditLog.setUpdated(auditLog.getCreated());
 
-        auditLog = auditLogRepository.save(auditLog);
+        auditLogWriter.write(auditLog);
 
         try {
             logger.info(MAPPER.writeValueAsString(auditLog.mapToDto()));
@@ -118,26 +152,21 @@ public class AuditLogServiceImpl implements AuditLogService {
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.REQUEST)
     @ExternalAuthorization(resource = Resource.AUDIT_LOG, action = ResourceAction.LIST)
     public AuditLogResponseDto listAuditLogs(AuditLogFilter filter, Pageable pageable) {
+        auditLogWriter.flush();
 
         AuditLogResponseDto response = new AuditLogResponseDto();
         response.setItems(new ArrayList<>());
 
-        if (auditLogRepository.count() <= 0) {
-            return response;
-        }
-
         Predicate predicate = createPredicate(filter);
-        Page<AuditLog> result = auditLogRepository.findAll(predicate, pageable);
-        long count = auditLogRepository.count(predicate);
+        JPAQuery<AuditLog> query = new JPAQuery<AuditLog>(entityManager).select(QAuditLog.auditLog).from(QAuditLog.auditLog).where(predicate);
+        List<AuditLog> result = getQuerydsl().applyPagination(pageable, query).fetch();
+        long count = countAuditLogs(filter, predicate, pageable, result.size());
 
         response.setItemsPerPage(pageable.getPageSize());
         response.setPageNumber(pageable.getPageNumber());
         response.setTotalItems(count);
         response.setTotalPages((int) Math.ceil((double) count / pageable.getPageSize()));
-
-        if (result.getSize() > 0) {
-            response.setItems(result.get().map(AuditLog::mapToDto).collect(Collectors.toList()));
-        }
+        response.setItems(result.stream().map(AuditLog::mapToDto).collect(Collectors.toList()));
 
         return response;
     }
@@ -145,21 +174,91 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.REQUEST)
     @ExternalAuthorization(resource = Resource.AUDIT_LOG, action = ResourceAction.EXPORT)
-    public ExportResultDto exportAuditLogs(AuditLogFilter filter, Sort sort) {
+    public ExportFile exportAuditLogs(AuditLogFilter filter, Sort sort) {
+        auditLogWriter.flush();
         Predicate predicate = createPredicate(filter);
-        List<AuditLog> entities = auditLogRepository.findAll(predicate, sort);
-        List<AuditLogDto> dtos = entities.stream().map(AuditLog::mapToDto).collect(Collectors.toList());
 
-        return exportProcessor.generateExport(fileNamePrefix, dtos);
+        JPAQuery<AuditLog> query = new JPAQuery<AuditLog>(entityManager).select(QAuditLog.auditLog).from(QAuditLog.auditLog).where(predicate);
+        getQuerydsl().applySorting(sort, query);
+
+        // audit logs are read by forward-only cursor and detached once written, so that they are not kept in memory
+        try (Stream<AuditLog> entities = query.createQuery()
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Stream<AuditLogDto> dtos = entities.map(auditLog -> {
+                entityManager.detach(auditLog);
+                return auditLog.mapToDto();
+            });
+            return exportProcessor.generateExport(fileNamePrefix, AuditLogDto.class, dtos);
+        }
     }
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.DELETE)
     @ExternalAuthorization(resource = Resource.AUDIT_LOG, action = ResourceAction.DELETE)
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void purgeAuditLogs(AuditLogFilter filter, Sort sort) {
+        auditLogWriter.flush();
         Predicate predicate = createPredicate(filter);
-        List<AuditLog> entities = auditLogRepository.findAll(predicate, sort);
-        auditLogRepository.deleteAll(entities);
+        QAuditLog auditLog = QAuditLog.auditLog;
+
+        // audit logs are deleted by bulk deletes of chunks of consecutive ids, each chunk in its own transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long deleted = 0;
+        Long lastId = null;
+        do {
+            BooleanBuilder chunkPredicate = new BooleanBuilder(predicate);
+            if (lastId != null) {
+                chunkPredicate.and(auditLog.id.gt(lastId));
+            }
+            ChunkResult chunk = transactionTemplate.execute(status -> {
+                Long upperId = new JPAQuery<Long>(entityManager).select(auditLog.id).from(auditLog)
+                        .where(chunkPredicate).orderBy(auditLog.id.asc()).offset(purgeChunkSize - 1L).fetchFirst();
+                if (upperId != null) {
+                    chunkPredicate.and(auditLog.id.loe(upperId));
+                }
+                return new ChunkResult(upperId, new JPADeleteClause(entityManager, auditLog).where(chunkPredicate).execute());
+            });
+            deleted += chunk.deleted();
+            lastId = chunk.upperId();
+        } while (lastId != null);
+
+        logger.debug("Purged {} audit logs", deleted);
+    }
+
+    private record ChunkResult(Long upperId, long deleted) {
+    }
+
+    private long countAuditLogs(AuditLogFilter filter, Predicate predicate, Pageable pageable, int pageItems) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        if (pageable.isUnpaged() || (pageItems < pageable.getPageSize() && (pageItems > 0 || offset == 0))) {
+            // last page, count is known without query
+            return offset + pageItems;
+        }
+        if (isFilterEmpty(filter)) {
+            // statistics of the table are precise enough for the total of all audit logs, small tables are counted
+            Long estimate = auditLogRepository.estimateCount();
+            if (estimate != null && estimate >= estimatedCountThreshold) {
+                return Math.max(estimate, offset + pageItems);
+            }
+        }
+        return auditLogRepository.count(predicate);
+    }
+
+    private static boolean isFilterEmpty(AuditLogFilter filter) {
+        return StringUtils.isBlank(filter.getAuthor())
+                && filter.getCreatedFrom() == null
+                && filter.getCreatedTo() == null
+                && filter.getOperation() == null
+                && filter.getOperationStatus() == null
+                && filter.getAffected() == null
+                && filter.getOrigination() == null
+                && StringUtils.isBlank(filter.getObjectIdentifier());
+    }
+
+    private Querydsl getQuerydsl() {
+        return new Querydsl(entityManager, new PathBuilder<>(AuditLog.class, QAuditLog.auditLog.getMetadata()));
     }
 
     private Predicate createPredicate(AuditLogFilter filter) {
@@ -0,0 +1,307 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.core.dao.entity.AuditLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes audit logs to the database in the background. Audit logs are collected in a bounded buffer and inserted
+ * by JDBC batches when the batch is full or the flush interval elapsed. When the buffer is full, the caller is
+ * blocked until there is free space, or the audit log is spilled to a local file, which is loaded to the database
+ * on the next start. Batches that cannot be inserted are spilled regardless of the overflow policy and loaded again
+ * after the next successful insert. Buffered audit logs are written when the application is stopped, audit logs
+ * written after that are inserted directly.
+ */
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static {
+        MAPPER.findAndRegisterModules();
+        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public enum OverflowPolicy {
+        BLOCK,
+        SPILL
+    }
+
+    @Value("${auditlog.writer.buffer-size:10000}")
+    private int bufferSize;
+
+    @Value("${auditlog.writer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${auditlog.writer.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${auditlog.writer.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${auditlog.writer.spill-file:${java.io.tmpdir}/czertainly-audit-log.spill}")
+    private Path spillFile;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BlockingQueue<AuditLog> buffer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object spillLock = new Object();
+    private volatile boolean running;
+    private volatile boolean failedBatchesSpilled;
+    private volatile Thread writerThread;
+
+    @Autowired
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add audit log to the buffer, it is inserted directly if the writer is not running
+     *
+     * @param auditLog audit log
+     */
+    public void write(AuditLog auditLog) {
+        if (!running) {
+            insert(List.of(auditLog));
+            return;
+        }
+
+        if (!buffer.offer(auditLog)) {
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(List.of(auditLog));
+            } else {
+                try {
+                    buffer.put(auditLog);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    insert(List.of(auditLog));
+                    return;
+                }
+            }
+        }
+        if (!running) {
+            // writer was stopped concurrently, the final flush might have missed the audit log
+            flush();
+        } else if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Write all buffered audit logs to the database
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            boolean inserted = false;
+            while (buffer != null && buffer.drainTo(batch, batchSize) > 0) {
+                try {
+                    insert(batch);
+                    inserted = true;
+                } catch (RuntimeException e) {
+                    // audit logs are not dropped, they are written again when the database is available
+                    logger.error("Unable to write {} audit logs, spilling them to {}: {}", batch.size(), spillFile, e.getMessage());
+                    spill(batch);
+                    failedBatchesSpilled = true;
+                }
+                batch.clear();
+            }
+            if (inserted && failedBatchesSpilled) {
+                failedBatchesSpilled = false;
+                if (!loadSpilled()) {
+                    failedBatchesSpilled = true;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        failedBatchesSpilled = !loadSpilled();
+
+        running = true;
+        writerThread = new Thread(this::run, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // audit logs added while the writer thread was finishing
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stopped after the web server, so that audit logs of the finished requests are written
+        return 0;
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = System.nanoTime() + flushInterval.toNanos();
+            long remaining;
+            while (running && buffer.size() < batchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            flush();
+        }
+        flush();
+    }
+
+    private void insert(List<AuditLog> auditLogs) {
+        String table = schema.isBlank() ? "audit_log" : schema + ".audit_log";
+        String sequence = schema.isBlank() ? "audit_log_id_seq" : schema + ".audit_log_id_seq";
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (id, uuid, i_author, i_cre, i_upd, origination, affected, object_identifier, operation, operation_status, additional_data) " +
+                "VALUES (nextval('" + sequence + "'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AuditLog auditLog = auditLogs.get(i);
+                ps.setString(1, auditLog.getUuid());
+                ps.setString(2, auditLog.getAuthor());
+                ps.setObject(3, auditLog.getCreated());
+                ps.setObject(4, auditLog.getUpdated());
+                ps.setString(5, auditLog.getOrigination() != null ? auditLog.getOrigination().name() : null);
+                ps.setString(6, auditLog.getAffected() != null ? auditLog.getAffected().name() : null);
+                ps.setString(7, auditLog.getObjectIdentifier());
+                ps.setString(8, auditLog.getOperation() != null ? auditLog.getOperation().name() : null);
+                ps.setString(9, auditLog.getOperationStatus() != null ? auditLog.getOperationStatus().name() : null);
+                ps.setString(10, auditLog.getAdditionalData());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return auditLogs.size();
+            }
+        });
+    }
+
+    private void spill(List<AuditLog> auditLogs) {
+        synchronized (spillLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AuditLog auditLog : auditLogs) {
+                    writer.write(MAPPER.writeValueAsString(auditLog.mapToDto()));
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                logger.error("Unable to spill {} audit logs to {}: {}", auditLogs.size(), spillFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Insert spilled audit logs and delete the spill file. When the insert fails, audit logs that were not inserted
+     * are kept in the spill file.
+     *
+     * @return true when all spilled audit logs were inserted
+     */
+    private boolean loadSpilled() {
+        synchronized (spillLock) {
+            if (!Files.exists(spillFile)) {
+                return true;
+            }
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.error("Unable to load spilled audit logs from {}: {}", spillFile, e.getMessage());
+                return false;
+            }
+            int loaded = 0;
+            try {
+                List<AuditLog> batch = new ArrayList<>(batchSize);
+                for (int i = 0; i < lines.size(); i++) {
+                    if (!lines.get(i).isBlank()) {
+                        batch.add(fromDto(MAPPER.readValue(lines.get(i), AuditLogDto.class)));
+                    }
+                    if (batch.size() >= batchSize || (i == lines.size() - 1 && !batch.isEmpty())) {
+                        insert(batch);
+                        batch.clear();
+                        loaded = i + 1;
+                    }
+                }
+                Files.delete(spillFile);
+                logger.info("Spilled audit logs loaded from {}", spillFile);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Unable to load spilled audit logs from {}: {}", spillFile, e.getMessage());
+                keepSpilled(lines.subList(loaded, lines.size()));
+                return false;
+            }
+        }
+    }
+
+    private void keepSpilled(List<String> lines) {
+        try {
+            Files.write(spillFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Unable to keep spilled audit logs in {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+    private static AuditLog fromDto(AuditLogDto dto) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setUuid(dto.getUuid());
+        auditLog.setAuthor(dto.getAuthor());
+        auditLog.setCreated(dto.getCreated());
+        auditLog.setUpdated(dto.getCreated());
+        auditLog.setOrigination(dto.getOrigination());
+        auditLog.setAffected(dto.getAffected());
+        auditLog.setObjectIdentifier(dto.getObjectIdentifier());
+        auditLog.setOperation(dto.getOperation());
+        auditLog.setOperationStatus(dto.getOperationStatus());
+        auditLog.setAdditionalData(dto.getAdditionalData());
+        return auditLog;
+    }
+}
@@ -30,6 +30,7 @@ import com.czertainly.core.security.authz.SecuredParentUUID;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.service.*;
 import com.czertainly.core.util.AttributeDefinitionUtils;
+import com.czertainly.core.util.ConnectorAttributeDefinitionCache;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -71,6 +72,8 @@ public class CallbackServiceImpl implements CallbackService {
     private TokenInstanceService tokenInstanceService;
     @Autowired
     private TokenProfileService tokenProfileService;
+    @Autowired
+    private ConnectorAttributeDefinitionCache connectorAttributeDefinitionCache;
 
 
     @Override
@@ -78,7 +81,8 @@ public class CallbackServiceImpl implements CallbackService {
     public Object callback(String uuid, FunctionGroupCode functionGroup, String kind, RequestAttributeCallback callback) throws ConnectorException, ValidationException {
         Connector connector = connectorService.getConnectorEntity(SecuredUUID.fromString(uuid));
         List<BaseAttribute> definitions;
-        definitions = attributeApiClient.listAttributeDefinitions(connector.mapToDto(), functionGroup, kind);
+        definitions = connectorAttributeDefinitionCache.getAttributeDefinitions(connector.getUuid(), functionGroup, kind,
+                () -> attributeApiClient.listAttributeDefinitions(connector.mapToDto(), functionGroup, kind));
         AttributeCallback attributeCallback = getAttributeByName(callback.getName(), definitions);
         AttributeDefinitionUtils.validateCallback(attributeCallback, callback);
 
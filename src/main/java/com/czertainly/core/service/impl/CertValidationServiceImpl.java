@@ -8,12 +8,17 @@ import com.czertainly.api.model.core.certificate.CertificateValidationDto;
 import com.czertainly.api.model.core.certificate.CertificateValidationStatus;
 import com.czertainly.core.aop.AuditLogged;
 import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.service.CertValidationService;
 import com.czertainly.core.util.CertificateUtil;
+import com.czertainly.core.util.CrlCache;
 import com.czertainly.core.util.CrlUtil;
+import com.czertainly.core.util.IssuerGraphIndex;
 import com.czertainly.core.util.MetaDefinitions;
+import com.czertainly.core.util.OcspCache;
 import com.czertainly.core.util.OcspUtil;
+import com.czertainly.core.util.ParsedCertificateCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,12 +27,12 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 @Service
 public class CertValidationServiceImpl implements CertValidationService {
@@ -38,6 +43,18 @@ public class CertValidationServiceImpl implements CertValidationService {
     @Autowired
     private CertificateRepository certificateRepository;
 
+    @Autowired
+    private CrlCache crlCache;
+
+    @Autowired
+    private OcspCache ocspCache;
+
+    @Autowired
+    private IssuerGraphIndex issuerGraphIndex;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
     @Override
     @Async("threadPoolTaskExecutor")
     public void validateAllCertificates() {
@@ -100,7 +117,7 @@ public class CertValidationServiceImpl implements CertValidationService {
         Map<String, CertificateValidationDto> validationOutput = getValidationInitialOutput();
         X509Certificate x509;
         try {
-            x509 = getX509(certificate.getCertificateContent().getContent());
+            x509 = getX509(certificate.getCertificateContent());
         } catch (CertificateException e) {
             return;
         }
@@ -168,6 +185,9 @@ public class CertValidationServiceImpl implements CertValidationService {
     // TODO: this method should not be here, but in the CertificateService
     @Override
     public List<Certificate> getCertificateChain(Certificate certificate) {
+        if (issuerGraphIndex.isReady()) {
+            return getCertificateChainFromIndex(certificate);
+        }
         List<Certificate> chainCerts = new ArrayList<>();
         chainCerts.add(certificate);
         int previousLength = 1;
@@ -182,6 +202,42 @@ public class CertValidationServiceImpl implements CertValidationService {
         return chainCerts;
     }
 
+    private List<Certificate> getCertificateChainFromIndex(Certificate certificate) {
+        List<Certificate> chainCerts = new ArrayList<>();
+        Set<UUID> chainUuids = new HashSet<>();
+        Certificate toCheckCertificate = certificate;
+        while (toCheckCertificate != null && chainUuids.add(toCheckCertificate.getUuid())) {
+            chainCerts.add(toCheckCertificate);
+            List<Certificate> issuers = issuerGraphIndex.findIssuerCertificates(toCheckCertificate).stream()
+                    .filter(e -> !chainUuids.contains(e.getUuid()))
+                    .toList();
+            toCheckCertificate = selectIssuer(toCheckCertificate, issuers);
+        }
+        return chainCerts;
+    }
+
+    private Certificate selectIssuer(Certificate certificate, List<Certificate> issuers) {
+        if (issuers.isEmpty()) {
+            return null;
+        }
+        // candidates only share the name or key identifier, e.g. renewed or cross-signed CA, only the one that signed
+        // the certificate is its issuer
+        try {
+            X509Certificate x509 = getX509(certificate.getCertificateContent());
+            for (Certificate issuer : issuers) {
+                try {
+                    x509.verify(getX509(issuer.getCertificateContent()).getPublicKey());
+                    return issuer;
+                } catch (GeneralSecurityException e) {
+                    logger.debug("Certificate {} is not signed by {}", certificate.getCommonName(), issuer.getCommonName());
+                }
+            }
+        } catch (CertificateException e) {
+            logger.debug("Unable to select the issuer of {}: {}", certificate.getCommonName(), e.getMessage());
+        }
+        return null;
+    }
+
     private List<Certificate> checkAddCertificateToChain(List<Certificate> chainCertificates) {
         Certificate toCheckCertificate = chainCertificates.get(chainCertificates.size() - 1);
         if (toCheckCertificate.getIssuerSerialNumber() != null
@@ -204,8 +260,8 @@ public class CertValidationServiceImpl implements CertValidationService {
             throws IOException, CertificateException {
         CertificateStatus status = CertificateStatus.UNKNOWN;
 
-        X509Certificate certX509 = getX509(subjectCertificate.getCertificateContent().getContent());
-        X509Certificate x509Issuer = getX509(issuerCertificate.getCertificateContent().getContent());
+        X509Certificate certX509 = getX509(subjectCertificate.getCertificateContent());
+        X509Certificate x509Issuer = getX509(issuerCertificate.getCertificateContent());
         List<String> crlUrls = CrlUtil.getCDPFromCertificate(certX509);
         List<String> ocspUrls = OcspUtil.getOcspUrlFromCertificate(certX509);
 
@@ -265,7 +321,7 @@ public class CertValidationServiceImpl implements CertValidationService {
                 String ocspOutput = "";
                 String ocspMessage = "";
                 for (String ocspUrl : ocspUrls) {
-                    String ocspStatus = OcspUtil.checkOcsp(certX509, x509Issuer,
+                    String ocspStatus = ocspCache.checkOcsp(certX509, x509Issuer,
                             ocspUrl);
                     if (ocspStatus.equals("Success")) {
                         ocspOutput = "Success";
@@ -316,12 +372,12 @@ public class CertValidationServiceImpl implements CertValidationService {
             for (String crlUrl : crlUrls) {
                 logger.info("Checking for the CRL of the certificate " + crlUrl);
                 try {
-                    crlOutput = CrlUtil.checkCertificateRevocationList(certX509, crlUrl);
+                    crlOutput = crlCache.checkCertificateRevocationList(certX509, crlUrl);
                     if (!crlOutput.equals("")) {
                         isRevoked = true;
                         break;
                     }
-                } catch (TimeoutException | SocketTimeoutException e) {
+                } catch (SocketTimeoutException e) {
                     logger.error(e.getMessage());
                     isCRLFailed = true;
                     validationOutput.put(
@@ -388,10 +444,10 @@ public class CertValidationServiceImpl implements CertValidationService {
             throws IOException, CertificateException {
         CertificateStatus status = CertificateStatus.UNKNOWN;
 
-        X509Certificate certX509 = getX509(subjectCertificate.getCertificateContent().getContent());
+        X509Certificate certX509 = getX509(subjectCertificate.getCertificateContent());
         X509Certificate x509Issuer = null;
         if (issuerCertificate != null) {
-            x509Issuer = getX509(issuerCertificate.getCertificateContent().getContent());
+            x509Issuer = getX509(issuerCertificate.getCertificateContent());
         }
         List<String> crlUrls = CrlUtil.getCDPFromCertificate(certX509);
         List<String> ocspUrls = OcspUtil.getOcspUrlFromCertificate(certX509);
@@ -458,7 +514,7 @@ public class CertValidationServiceImpl implements CertValidationService {
                 String ocspOutput = "";
                 String ocspMessage = "";
                 for (String ocspUrl : ocspUrls) {
-                    String ocspStatus = OcspUtil.checkOcsp(certX509, x509Issuer,
+                    String ocspStatus = ocspCache.checkOcsp(certX509, x509Issuer,
                             ocspUrl);
                     if (ocspStatus.equals("Success")) {
                         ocspOutput = "Success";
@@ -510,12 +566,12 @@ public class CertValidationServiceImpl implements CertValidationService {
             for (String crlUrl : crlUrls) {
                 logger.info("Checking for the CRL of the certificate " + crlUrl);
                 try {
-                    crlOutput = CrlUtil.checkCertificateRevocationList(certX509, crlUrl);
+                    crlOutput = crlCache.checkCertificateRevocationList(certX509, crlUrl);
                     if (!crlOutput.equals("")) {
                         isRevoked = true;
                         break;
                     }
-                } catch (TimeoutException | SocketTimeoutException e) {
+                } catch (SocketTimeoutException e) {
                     logger.error(e.getMessage());
                     isCRLFailed = true;
                     validationOutput.put("CRL Verification", new CertificateValidationDto(CertificateValidationStatus.WARNING, "Unable to connect to CRL. Connection timed out"));
@@ -576,9 +632,8 @@ public class CertValidationServiceImpl implements CertValidationService {
         return validationOutput;
     }
 
-    private X509Certificate getX509(String certificate) throws CertificateException {
-        return CertificateUtil.getX509Certificate(certificate.replace("-----BEGIN CERTIFICATE-----", "")
-                .replace("\r", "").replace("\n", "").replace("-----END CERTIFICATE-----", ""));
+    private X509Certificate getX509(CertificateContent certificateContent) throws CertificateException {
+        return parsedCertificateCache.getX509Certificate(certificateContent);
     }
 
     private boolean validateNotBefore(Date today, Date notBefore) {
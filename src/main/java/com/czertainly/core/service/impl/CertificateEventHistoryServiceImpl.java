@@ -1,17 +1,16 @@
 package com.czertainly.core.service.impl;
 
 import com.czertainly.api.exception.NotFoundException;
-import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
 import com.czertainly.api.model.core.certificate.CertificateEvent;
 import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
 import com.czertainly.api.model.core.certificate.CertificateEventStatus;
-import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateEventHistory;
 import com.czertainly.core.dao.repository.CertificateEventHistoryRepository;
 import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.SubqueryWhereClause;
 import com.czertainly.core.service.CertificateEventHistoryService;
-import com.czertainly.core.service.SearchService;
+import com.czertainly.core.security.authz.SecurityFilter;
 import com.czertainly.core.util.MetaDefinitions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,8 +35,6 @@ public class CertificateEventHistoryServiceImpl implements CertificateEventHisto
     private CertificateRepository certificateRepository;
     @Autowired
     private CertificateEventHistoryRepository certificateEventHistoryRepository;
-    @Autowired
-    private SearchService searchService;
 
     @Override
     public void addEventHistory(CertificateEvent event, CertificateEventStatus status, String message, HashMap<String, Object> additionalInformation, Certificate certificate) {
@@ -81,9 +78,9 @@ public class CertificateEventHistoryServiceImpl implements CertificateEventHisto
 
     @Override
     @Async("threadPoolTaskExecutor")
-    public void addEventHistoryForRequest(List<SearchFilterRequestDto> filters, String entity, List<SearchFieldDataDto> originalJson, CertificateEvent event, CertificateEventStatus status, String message) {
+    public void addEventHistoryForRequest(SecurityFilter filter, SubqueryWhereClause<Certificate> searchWhereClause, CertificateEvent event, CertificateEventStatus status, String message) {
         List<CertificateEventHistory> batchHistoryOperationList = new ArrayList<>();
-        for (Certificate certificate : (List<Certificate>) searchService.completeSearchQueryExecutor(filters, "Certificate", originalJson)) {
+        for (Certificate certificate : certificateRepository.findUsingSecurityFilter(filter, searchWhereClause)) {
             batchHistoryOperationList.add(getEventHistory(event, status, message, "", certificate));
         }
         asyncSaveAllInBatch(batchHistoryOperationList);
@@ -20,7 +20,6 @@ import com.czertainly.api.model.core.compliance.ComplianceRuleStatus;
 import com.czertainly.api.model.core.compliance.ComplianceStatus;
 import com.czertainly.api.model.core.enums.CertificateRequestFormat;
 import com.czertainly.api.model.core.location.LocationDto;
-import com.czertainly.api.model.core.search.DynamicSearchInternalResponse;
 import com.czertainly.api.model.core.search.SearchFieldDataByGroupDto;
 import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.api.model.core.search.SearchGroup;
@@ -33,6 +32,8 @@ import com.czertainly.core.enums.SearchFieldNameEnum;
 import com.czertainly.core.messaging.model.NotificationRecipient;
 import com.czertainly.core.messaging.producers.EventProducer;
 import com.czertainly.core.messaging.producers.NotificationProducer;
+import com.czertainly.core.model.CertificateKeysetResponseDto;
+import com.czertainly.core.model.KeysetCursor;
 import com.czertainly.core.model.SearchFieldObject;
 import com.czertainly.core.model.auth.ResourceAction;
 import com.czertainly.core.security.authn.client.UserManagementApiClient;
@@ -43,9 +44,6 @@ import com.czertainly.core.security.exception.AuthenticationServiceException;
 import com.czertainly.core.service.*;
 import com.czertainly.core.service.v2.ExtendedAttributeService;
 import com.czertainly.core.util.*;
-import com.czertainly.core.util.converter.Sql2PredicateConverter;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
@@ -55,13 +53,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.*;
 import java.net.URL;
@@ -80,7 +83,12 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -96,8 +104,30 @@ public class CertificateServiceImpl implements CertificateService {
     public static final Integer DELETE_BATCH_SIZE = 1000;
     private static final Logger logger = LoggerFactory.getLogger(CertificateServiceImpl.class);
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    private static final List<String> VALIDATION_RESULT_ORDER = List.of("Signature Verification", "Certificate Validity",
+            "OCSP Verification", "CRL Verification", "Certificate Chain", "Certificate Expiry");
+
+    private static final String STATISTICS_UNKNOWN = "Unknown";
+    private static final Map<String, String> COMPLIANCE_STATISTICS_NAMES = Map.of("NA", "Not Checked", "OK", "Compliant", "NOK", "Non Compliant");
+    private static final int[] EXPIRY_STATISTICS_DAYS = {10, 20, 30, 60, 90};
+
+    @Value("${statistics.certificate.materialized:false}")
+    private boolean materializedStatisticsEnabled;
+
+    @Value("${certificate.status-update.parallelism:4}")
+    private int statusUpdateParallelism;
+
+    @Value("${certificate.status-update.batch-size:100}")
+    private int statusUpdateBatchSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IssuerGraphIndex issuerGraphIndex;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
 
     @Autowired
     private CertificateRepository certificateRepository;
@@ -114,6 +144,9 @@ public class CertificateServiceImpl implements CertificateService {
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private CertificateStatisticsRepository certificateStatisticsRepository;
+
     @Autowired
     private CertificateContentRepository certificateContentRepository;
 
@@ -123,9 +156,6 @@ public class CertificateServiceImpl implements CertificateService {
     @Autowired
     private AttributeContentRepository attributeContentRepository;
 
-    @Autowired
-    private AttributeContent2ObjectRepository attributeContent2ObjectRepository;
-
     @Autowired
     private ComplianceService complianceService;
 
@@ -175,17 +205,7 @@ public class CertificateServiceImpl implements CertificateService {
         RequestValidatorHelper.revalidateSearchRequestDto(request);
         final Pageable p = PageRequest.of(request.getPageNumber() - 1, request.getItemsPerPage());
 
-        final List<UUID> objectUUIDs = new ArrayList<>();
-        if (!request.getFilters().isEmpty()) {
-            final List<SearchFieldObject> searchFieldObjects = new ArrayList<>();
-            searchFieldObjects.addAll(getSearchFieldObjectForMetadata());
-            searchFieldObjects.addAll(getSearchFieldObjectForCustomAttributes());
-
-            final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(searchFieldObjects, request.getFilters(), entityManager.getCriteriaBuilder(), Resource.CERTIFICATE);
-            objectUUIDs.addAll(certificateRepository.findUsingSecurityFilterByCustomCriteriaQuery(filter, criteriaQueryDataObject.getRoot(), criteriaQueryDataObject.getCriteriaQuery(), criteriaQueryDataObject.getPredicate()));
-        }
-
-        final BiFunction<Root<Certificate>, CriteriaBuilder, Predicate> additionalWhereClause = (root, cb) -> Sql2PredicateConverter.mapSearchFilter2Predicates(request.getFilters(), cb, root, objectUUIDs);
+        final SubqueryWhereClause<Certificate> additionalWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
         final List<CertificateDto> listedKeyDTOs = certificateRepository.findUsingSecurityFilter(filter, additionalWhereClause, p, (root, cb) -> cb.desc(root.get("created")))
                 .stream()
                 .map(Certificate::mapToListDto)
@@ -201,6 +221,37 @@ public class CertificateServiceImpl implements CertificateService {
         return responseDto;
     }
 
+    @Override
+    @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CERTIFICATE, operation = OperationType.REQUEST)
+    @ExternalAuthorization(resource = Resource.CERTIFICATE, action = ResourceAction.LIST, parentResource = Resource.RA_PROFILE, parentAction = ResourceAction.LIST)
+    public CertificateKeysetResponseDto listCertificates(SecurityFilter filter, SearchRequestDto request, String cursor) throws ValidationException {
+        filter.setParentRefProperty("raProfileUuid");
+        RequestValidatorHelper.revalidateSearchRequestDto(request);
+        final KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+
+        final SubqueryWhereClause<Certificate> additionalWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
+        // one more certificate is loaded to find out if there is next page
+        final List<Certificate> certificates = certificateRepository.findUsingSecurityFilter(filter, additionalWhereClause, keysetCursor, request.getItemsPerPage() + 1);
+        final boolean hasNextPage = certificates.size() > request.getItemsPerPage();
+        final List<Certificate> page = hasNextPage ? certificates.subList(0, request.getItemsPerPage()) : certificates;
+
+        final CertificateKeysetResponseDto responseDto = new CertificateKeysetResponseDto();
+        responseDto.setCertificates(page.stream().map(Certificate::mapToListDto).collect(Collectors.toList()));
+        responseDto.setItemsPerPage(request.getItemsPerPage());
+        responseDto.setPageNumber(request.getPageNumber());
+        responseDto.setNextCursor(hasNextPage ? KeysetCursor.of(page.get(page.size() - 1)).encode() : null);
+
+        // exact count would need full scan, so only estimate from table statistics is provided and only for unfiltered listing
+        if (request.getFilters().isEmpty() && filter.isUnrestricted()) {
+            final Long estimatedItems = certificateRepository.estimateCount();
+            if (estimatedItems != null) {
+                responseDto.setTotalItems(estimatedItems);
+                responseDto.setTotalPages((int) Math.ceil((double) estimatedItems / request.getItemsPerPage()));
+            }
+        }
+        return responseDto;
+    }
+
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CERTIFICATE, operation = OperationType.REQUEST)
     @ExternalAuthorization(resource = Resource.CERTIFICATE, action = ResourceAction.DETAIL)
@@ -365,20 +416,8 @@ public class CertificateServiceImpl implements CertificateService {
                 }
             }
         } else {
-//            List<Certificate> certList = (List<Certificate>) searchService.completeSearchQueryExecutor(request.getFilters(), "Certificate", getSearchableFieldInformation());
-//            totalItems = certList.size();
-
-            String joins = "WHERE c.userUuid IS NULL";
-            String data = searchService.createCriteriaBuilderString(filter, true);
-            if (!data.equals("")) {
-                joins = joins + " AND " + data;
-            }
-
-            String customQuery = searchService.getQueryDynamicBasedOnFilter(request.getFilters(), "Certificate", getSearchableFieldInformation(), joins, false, false, "");
-
-            List<Certificate> certListDyn = (List<Certificate>) searchService.customQueryExecutor(customQuery);
-
-//            bulkOperationResponse.setFailedItem(Long.valueOf(totalItems - certListDyn.size()));
+            final SubqueryWhereClause<Certificate> searchWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
+            List<Certificate> certListDyn = certificateRepository.findUsingSecurityFilter(filter, (root, cb, query) -> cb.and(cb.isNull(root.get("userUuid")), searchWhereClause.apply(root, cb, query)));
 
             for (List<Certificate> certificates : partitionList(certListDyn)) {
                 certificateRepository.deleteAll(certificates);
@@ -390,11 +429,6 @@ public class CertificateServiceImpl implements CertificateService {
         certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
     }
 
-    @Deprecated
-    public List<SearchFieldDataDto> getSearchableFieldInformation() {
-        return getSearchableFieldsMap();
-    }
-
     @Override
     public List<SearchFieldDataByGroupDto> getSearchableFieldInformationByGroup() {
 
@@ -459,12 +493,19 @@ public class CertificateServiceImpl implements CertificateService {
     //Auth is not required for methods. It is only internally used by other services to update the issuers of the certificate
     public void updateCertificateIssuer(Certificate certificate) throws NotFoundException {
         if (!certificate.getIssuerDn().equals(certificate.getSubjectDn())) {
-            for (Certificate issuer : certificateRepository.findBySubjectDn(certificate.getIssuerDn())) {
-                X509Certificate subCert;
+            X509Certificate subCert;
+            try {
+                subCert = parsedCertificateCache.getX509Certificate(certificate.getCertificateContent());
+            } catch (Exception e) {
+                return;
+            }
+            List<Certificate> issuers = issuerGraphIndex.isReady()
+                    ? issuerGraphIndex.findIssuerCertificates(certificate)
+                    : certificateRepository.findBySubjectDn(certificate.getIssuerDn());
+            for (Certificate issuer : issuers) {
                 X509Certificate issCert;
                 try {
-                    subCert = getX509(certificate.getCertificateContent().getContent());
-                    issCert = getX509(issuer.getCertificateContent().getContent());
+                    issCert = parsedCertificateCache.getX509Certificate(issuer.getCertificateContent());
                 } catch (Exception e) {
                     continue;
                 }
@@ -474,23 +515,9 @@ public class CertificateServiceImpl implements CertificateService {
                 }
 
                 if (verifySignature(subCert, issCert)) {
-                    try {
-                        X509Certificate issuerCert = CertificateUtil
-                                .parseCertificate(issuer.getCertificateContent().getContent());
-                        X509Certificate subjectCert = CertificateUtil
-                                .parseCertificate(certificate.getCertificateContent().getContent());
-
-                        try {
-                            subjectCert.verify(issuerCert.getPublicKey());
-                            certificate.setIssuerSerialNumber(issuer.getSerialNumber());
-                            certificateRepository.save(certificate);
-                        } catch (Exception e) {
-                            logger.debug("Error when getting the issuer");
-                        }
-
-                    } catch (CertificateException e) {
-                        logger.warn("Unable to parse the issuer with subject {}", certificate.getIssuerDn());
-                    }
+                    certificate.setIssuerSerialNumber(issuer.getSerialNumber());
+                    certificateRepository.save(certificate);
+                    return;
                 }
             }
         }
@@ -610,6 +637,61 @@ public class CertificateServiceImpl implements CertificateService {
         return certificateContent;
     }
 
+    @Override
+    public Map<String, Certificate> createCertificateEntities(List<X509Certificate> certificates) throws CertificateEncodingException, NoSuchAlgorithmException {
+        Map<String, X509Certificate> certificatesByFingerprint = new LinkedHashMap<>();
+        for (X509Certificate certificate : certificates) {
+            certificatesByFingerprint.putIfAbsent(CertificateUtil.getThumbprint(certificate.getEncoded()), certificate);
+        }
+
+        Map<String, Certificate> entities = new LinkedHashMap<>();
+        if (certificatesByFingerprint.isEmpty()) {
+            return entities;
+        }
+        for (Certificate certificate : certificateRepository.findByFingerprintIn(certificatesByFingerprint.keySet())) {
+            entities.put(certificate.getFingerprint(), certificate);
+        }
+
+        List<String> newFingerprints = certificatesByFingerprint.keySet().stream().filter(e -> !entities.containsKey(e)).toList();
+        if (newFingerprints.isEmpty()) {
+            return entities;
+        }
+
+        Map<String, CertificateContent> contents = new HashMap<>();
+        for (CertificateContent certificateContent : certificateContentRepository.findByFingerprintIn(newFingerprints)) {
+            contents.put(certificateContent.getFingerprint(), certificateContent);
+        }
+        List<CertificateContent> newContents = new ArrayList<>();
+        List<Certificate> newCertificates = new ArrayList<>();
+        for (String fingerprint : newFingerprints) {
+            X509Certificate certificate = certificatesByFingerprint.get(fingerprint);
+            CertificateContent certificateContent = contents.get(fingerprint);
+            if (certificateContent == null) {
+                certificateContent = new CertificateContent();
+                certificateContent.setContent(CertificateUtil.normalizeCertificateContent(X509ObjectToString.toPem(certificate)));
+                certificateContent.setFingerprint(fingerprint);
+                newContents.add(certificateContent);
+            }
+
+            Certificate modal = new Certificate();
+            CertificateUtil.prepareCertificate(modal, certificate);
+            modal.setFingerprint(fingerprint);
+            modal.setCertificateContent(certificateContent);
+            newCertificates.add(modal);
+            entities.put(fingerprint, modal);
+        }
+        certificateContentRepository.saveAll(newContents);
+
+        Map<String, UUID> keys = cryptographicKeyService.findKeysByFingerprints(newCertificates.stream().map(Certificate::getPublicKeyFingerprint).filter(Objects::nonNull).collect(Collectors.toSet()));
+        for (Certificate modal : newCertificates) {
+            modal.setCertificateContentId(modal.getCertificateContent().getId());
+            if (modal.getKey() == null && keys.containsKey(modal.getPublicKeyFingerprint())) {
+                modal.setKeyUuid(keys.get(modal.getPublicKeyFingerprint()));
+            }
+        }
+        return entities;
+    }
+
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CERTIFICATE, operation = OperationType.CREATE)
     public CertificateDetailDto upload(UploadCertificateRequestDto request)
@@ -762,7 +844,16 @@ public class CertificateServiceImpl implements CertificateService {
     public Map<String, CertificateValidationDto> getCertificateValidationResult(SecuredUUID uuid) throws NotFoundException {
         String validationResult = getCertificateEntity(uuid).getCertificateValidationResult();
         try {
-            return MetaDefinitions.deserializeValidation(validationResult);
+            // jsonb does not keep the order of the keys, restore the order in which validations are performed
+            Map<String, CertificateValidationDto> validationOutput = MetaDefinitions.deserializeValidation(validationResult);
+            Map<String, CertificateValidationDto> orderedOutput = new LinkedHashMap<>();
+            for (String validation : VALIDATION_RESULT_ORDER) {
+                if (validationOutput.containsKey(validation)) {
+                    orderedOutput.put(validation, validationOutput.get(validation));
+                }
+            }
+            orderedOutput.putAll(validationOutput);
+            return orderedOutput;
         } catch (IllegalStateException e) {
             logger.error(e.getMessage());
         }
@@ -770,6 +861,7 @@ public class CertificateServiceImpl implements CertificateService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int updateCertificatesStatusScheduled() {
         List<CertificateStatus> skipStatuses = List.of(CertificateStatus.NEW, CertificateStatus.REVOKED, CertificateStatus.EXPIRED);
         long totalCertificates = certificateRepository.countCertificatesToCheckStatus(skipStatuses);
@@ -777,37 +869,121 @@ public class CertificateServiceImpl implements CertificateService {
 
         LocalDateTime before = LocalDateTime.now().minusDays(1);
 
-        // process 1/24 of eligible certificates for status update
-        final List<Certificate> certificates = certificateRepository.findCertificatesToCheckStatus(
-                before,
-                skipStatuses,
-                PageRequest.of(0, maxCertsToValidate));
+        // process 1/24 of eligible certificates for status update, workers claim batches of certificates in separate transactions
+        // and certificates claimed by one worker are skipped by other workers and other instances until the batch is committed
+        int parallelism = Math.max(1, statusUpdateParallelism);
+        StatusUpdateProgress progress = new StatusUpdateProgress(maxCertsToValidate);
+        logger.info(MarkerFactory.getMarker("scheduleInfo"), "Scheduled certificate status update. Batch size {}/{} certificates, {} workers", maxCertsToValidate, totalCertificates, parallelism);
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(parallelism));
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(executor.submit(() -> updateCertificatesStatusBatches(before, skipStatuses, progress)));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    logger.error(MarkerFactory.getMarker("scheduleInfo"), "Worker of scheduled certificate status update failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn(MarkerFactory.getMarker("scheduleInfo"), "Scheduled certificate status update was interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info(MarkerFactory.getMarker("scheduleInfo"), "Certificates status updated for {}/{} certificates", progress.updated.get(), progress.checked.get());
+        return progress.updated.get();
+    }
+
+    private void updateCertificatesStatusBatches(LocalDateTime before, List<CertificateStatus> skipStatuses, StatusUpdateProgress progress) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int batchSize;
+        do {
+            batchSize = progress.claim(Math.max(1, statusUpdateBatchSize));
+            if (batchSize == 0) {
+                return;
+            }
+            final int limit = batchSize;
+            List<UUID> claimedUuids = new ArrayList<>();
+            StatusUpdateBatch batch;
+            try {
+                batch = transactionTemplate.execute(status -> {
+                    List<Certificate> certificates = certificateRepository.claimCertificatesToCheckStatus(before, skipStatuses, PageRequest.of(0, limit));
+                    certificates.forEach(e -> claimedUuids.add(e.getUuid()));
+                    return updateCertificatesStatusBatch(certificates);
+                });
+            } catch (RuntimeException e) {
+                // validation of one certificate can mark the whole batch for rollback or fail it, certificates of the
+                // batch are then processed one by one so that a single failing certificate does not block the others
+                logger.warn(MarkerFactory.getMarker("scheduleInfo"), "Unable to commit status update of {} certificates, updating them one by one: {}", claimedUuids.size(), e.getMessage());
+                batch = new StatusUpdateBatch();
+                for (UUID uuid : claimedUuids) {
+                    batch.add(updateCertificateStatusScheduled(transactionTemplate, uuid, before, skipStatuses));
+                }
+            }
+            progress.add(batch);
+            sendCertificateStatusNotifications(batch);
+            if (batch.checked < limit) {
+                // no more certificates to check or the rest is claimed by other workers
+                return;
+            }
+        } while (!Thread.currentThread().isInterrupted());
+    }
 
-        int certificatesUpdated = 0;
-        logger.info(MarkerFactory.getMarker("scheduleInfo"), "Scheduled certificate status update. Batch size {}/{} certificates", certificates.size(), totalCertificates);
-        for (final Certificate certificate : certificates) {
+    private StatusUpdateBatch updateCertificateStatusScheduled(TransactionTemplate transactionTemplate, UUID uuid, LocalDateTime before, List<CertificateStatus> skipStatuses) {
+        try {
+            // certificate is claimed again, it can be claimed and validated by other worker after the batch transaction ended
+            return transactionTemplate.execute(status -> updateCertificatesStatusBatch(certificateRepository.claimCertificateToCheckStatus(uuid, before, skipStatuses).stream().toList()));
+        } catch (RuntimeException e) {
+            logger.warn(MarkerFactory.getMarker("scheduleInfo"), "Scheduled task was unable to update status of the certificate {}: {}", uuid, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> certificateRepository.claimCertificateToCheckStatus(uuid, before, skipStatuses).ifPresent(certificate -> {
+                certificate.setStatusValidationTimestamp(LocalDateTime.now());
+                certificateRepository.save(certificate);
+            }));
+            StatusUpdateBatch batch = new StatusUpdateBatch();
+            batch.checked = 1;
+            return batch;
+        }
+    }
+
+    private StatusUpdateBatch updateCertificatesStatusBatch(List<Certificate> certificates) {
+        // certificates of the same issuer are validated one after another to share the issuer chain and cached CRL and OCSP responses
+        List<Certificate> sortedCertificates = new ArrayList<>(certificates);
+        sortedCertificates.sort(Comparator.comparing(Certificate::getIssuerDn, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        StatusUpdateBatch batch = new StatusUpdateBatch();
+        for (final Certificate certificate : sortedCertificates) {
+            ++batch.checked;
             String oldStatus = certificate.getStatus().getLabel();
             if (updateCertificateStatusScheduled(certificate)) {
                 if (CertificateStatus.REVOKED.equals(certificate.getStatus())
                         || CertificateStatus.EXPIRING.equals(certificate.getStatus())) {
-
-                    List<NotificationRecipient> recipient = certificate.getOwnerUuid() != null ? NotificationRecipient.buildUserNotificationRecipient(
-                            certificate.getOwnerUuid()) : (certificate.getGroupUuid() != null ? NotificationRecipient.buildGroupNotificationRecipient(
-                            certificate.getGroupUuid()) : null);
-                    notificationProducer.produceNotificationStatusChange(Resource.CERTIFICATE,
-                            certificate.getUuid(),
-                            recipient,
-                            oldStatus,
-                            certificate.getStatus().getLabel());
-
-                    eventProducer.produceEventCertificateMessage(certificate.getUuid(), certificate.getStatus().getCode());
-                    logger.info("Certificate {} event was sent with status {}", certificate.getUuid(), certificate.getStatus().getCode());
+                    batch.statusChanges.put(certificate, oldStatus);
                 }
-                ++certificatesUpdated;
+                ++batch.updated;
             }
         }
-        logger.info(MarkerFactory.getMarker("scheduleInfo"), "Certificates status updated for {}/{} certificates", certificatesUpdated, certificates.size());
-        return certificatesUpdated;
+        return batch;
+    }
+
+    private void sendCertificateStatusNotifications(StatusUpdateBatch batch) {
+        for (Map.Entry<Certificate, String> statusChange : batch.statusChanges.entrySet()) {
+            Certificate certificate = statusChange.getKey();
+            List<NotificationRecipient> recipient = certificate.getOwnerUuid() != null ? NotificationRecipient.buildUserNotificationRecipient(
+                    certificate.getOwnerUuid()) : (certificate.getGroupUuid() != null ? NotificationRecipient.buildGroupNotificationRecipient(
+                    certificate.getGroupUuid()) : null);
+            notificationProducer.produceNotificationStatusChange(Resource.CERTIFICATE,
+                    certificate.getUuid(),
+                    recipient,
+                    statusChange.getValue(),
+                    certificate.getStatus().getLabel());
+
+            eventProducer.produceEventCertificateMessage(certificate.getUuid(), certificate.getStatus().getCode());
+            logger.info("Certificate {} event was sent with status {}", certificate.getUuid(), certificate.getStatus().getCode());
+        }
     }
 
     private boolean updateCertificateStatusScheduled(Certificate certificate) {
@@ -862,41 +1038,58 @@ public class CertificateServiceImpl implements CertificateService {
     @ExternalAuthorization(resource = Resource.CERTIFICATE, action = ResourceAction.LIST, parentResource = Resource.RA_PROFILE, parentAction = ResourceAction.LIST)
     public StatisticsDto addCertificateStatistics(SecurityFilter filter, StatisticsDto dto) {
         filter.setParentRefProperty("raProfileUuid");
-        List<Certificate> certificates = certificateRepository.findUsingSecurityFilter(filter);
-
-        //Compliance Mapping
-        Map<String, String> complianceMap = new HashMap<>();
-        complianceMap.put("NA", "Not Checked");
-        complianceMap.put("OK", "Compliant");
-        complianceMap.put("NOK", "Non Compliant");
-        //
+
+        final Map<UUID, String> groupNames = new HashMap<>();
+        groupRepository.findAll().forEach(group -> groupNames.put(group.getUuid(), group.getName()));
+        final Map<UUID, String> raProfileNames = new HashMap<>();
+        raProfileRepository.findAll().forEach(raProfile -> raProfileNames.put(raProfile.getUuid(), raProfile.getName()));
+
         Map<String, Long> groupStat = new HashMap<>();
         Map<String, Long> raProfileStat = new HashMap<>();
         Map<String, Long> typeStat = new HashMap<>();
         Map<String, Long> keySizeStat = new HashMap<>();
         Map<String, Long> bcStat = new HashMap<>();
-        Map<String, Long> expiryStat = new HashMap<>();
         Map<String, Long> statusStat = new HashMap<>();
         Map<String, Long> complianceStat = new HashMap<>();
-        Date currentTime = new Date();
-        for (Certificate certificate : certificates) {
-            groupStat.merge(certificate.getGroup() != null ? certificate.getGroup().getName() : "Unknown", 1L, Long::sum);
-            raProfileStat.merge(certificate.getRaProfile() != null ? certificate.getRaProfile().getName() : "Unknown", 1L, Long::sum);
-            if (!certificate.getStatus().equals(CertificateStatus.NEW)) {
-                typeStat.merge(certificate.getCertificateType().getCode(), 1L, Long::sum);
-                expiryStat.merge(getExpiryTime(currentTime, certificate.getNotAfter()), 1L, Long::sum);
-                bcStat.merge(certificate.getBasicConstraints(), 1L, Long::sum);
+
+        // materialized statistics can be used only when the user can see all certificates
+        if (materializedStatisticsEnabled && filter.isUnrestricted()) {
+            for (CertificateStatistics statistics : certificateStatisticsRepository.findByCountGreaterThan(0)) {
+                final String value = statistics.getId().getValue().isEmpty() ? null : statistics.getId().getValue();
+                final long count = statistics.getCount();
+                switch (statistics.getId().getDimension()) {
+                    case GROUP -> groupStat.merge(getStatisticsName(groupNames, value == null ? null : UUID.fromString(value)), count, Long::sum);
+                    case RA_PROFILE -> raProfileStat.merge(getStatisticsName(raProfileNames, value == null ? null : UUID.fromString(value)), count, Long::sum);
+                    case TYPE -> typeStat.merge(value == null ? STATISTICS_UNKNOWN : CertificateType.valueOf(value).getCode(), count, Long::sum);
+                    case KEY_SIZE -> keySizeStat.merge(value == null ? STATISTICS_UNKNOWN : value, count, Long::sum);
+                    case BASIC_CONSTRAINTS -> bcStat.merge(value, count, Long::sum);
+                    case STATUS -> statusStat.merge(value == null ? STATISTICS_UNKNOWN : CertificateStatus.valueOf(value).getCode(), count, Long::sum);
+                    case COMPLIANCE_STATUS -> complianceStat.merge(getComplianceStatisticsName(value == null ? null : ComplianceStatus.valueOf(value)), count, Long::sum);
+                }
+            }
+        } else {
+            final List<Object[]> rows = certificateRepository.countGroupedUsingSecurityFilter(filter, null, List.of("groupUuid", "raProfileUuid", "status", "certificateType", "keySize", "basicConstraints", "complianceStatus"));
+            for (Object[] row : rows) {
+                final CertificateStatus status = (CertificateStatus) row[2];
+                final long count = (Long) row[7];
+                groupStat.merge(getStatisticsName(groupNames, (UUID) row[0]), count, Long::sum);
+                raProfileStat.merge(getStatisticsName(raProfileNames, (UUID) row[1]), count, Long::sum);
+                if (status != CertificateStatus.NEW) {
+                    typeStat.merge(row[3] == null ? STATISTICS_UNKNOWN : ((CertificateType) row[3]).getCode(), count, Long::sum);
+                    bcStat.merge((String) row[5], count, Long::sum);
+                }
+                keySizeStat.merge(row[4] == null ? STATISTICS_UNKNOWN : row[4].toString(), count, Long::sum);
+                statusStat.merge(status == null ? STATISTICS_UNKNOWN : status.getCode(), count, Long::sum);
+                complianceStat.merge(getComplianceStatisticsName((ComplianceStatus) row[6]), count, Long::sum);
             }
-            keySizeStat.merge(certificate.getKeySize().toString(), 1L, Long::sum);
-            statusStat.merge(certificate.getStatus().getCode(), 1L, Long::sum);
-            complianceStat.merge(certificate.getComplianceStatus() != null ? complianceMap.get(certificate.getComplianceStatus().getCode().toUpperCase()) : "Not Checked", 1L, Long::sum);
         }
+
         dto.setGroupStatByCertificateCount(groupStat);
         dto.setRaProfileStatByCertificateCount(raProfileStat);
         dto.setCertificateStatByType(typeStat);
         dto.setCertificateStatByKeySize(keySizeStat);
         dto.setCertificateStatByBasicConstraints(bcStat);
-        dto.setCertificateStatByExpiry(expiryStat);
+        dto.setCertificateStatByExpiry(getExpiryStatistics(filter));
         dto.setCertificateStatByStatus(statusStat);
         dto.setCertificateStatByComplianceStatus(complianceStat);
         return dto;
@@ -1029,56 +1222,39 @@ public class CertificateServiceImpl implements CertificateService {
                 .collect(Collectors.toList());
     }
 
-    private String getExpiryTime(Date now, Date expiry) {
-        long diffInMillies = expiry.getTime() - now.getTime();
-        long difference = TimeUnit.DAYS.convert(diffInMillies, TimeUnit.MILLISECONDS);
-        if (diffInMillies <= 0) {
-            return "expired";
-        } else if (difference < 10) {
-            return "10";
-        } else if (difference < 20) {
-            return "20";
-        } else if (difference < 30) {
-            return "30";
-        } else if (difference < 60) {
-            return "60";
-        } else if (difference < 90) {
-            return "90";
+    /**
+     * Count certificates by the number of days to expiry. Certificates are counted by the database using
+     * cumulative counts of certificates expiring before the bucket boundaries, new certificates are not counted.
+     */
+    private Map<String, Long> getExpiryStatistics(SecurityFilter filter) {
+        final Map<String, Long> expiryStat = new HashMap<>();
+        final Date now = new Date();
+        final BiFunction<Root<Certificate>, CriteriaBuilder, Predicate> notNew = (root, cb) -> cb.notEqual(root.get("status"), CertificateStatus.NEW);
+
+        long previousCount = certificateRepository.countUsingSecurityFilter(filter, (root, cb) -> cb.and(notNew.apply(root, cb), cb.lessThanOrEqualTo(root.get("notAfter"), now)));
+        addStatisticsCount(expiryStat, "expired", previousCount);
+        for (int days : EXPIRY_STATISTICS_DAYS) {
+            final Date boundary = new Date(now.getTime() + TimeUnit.DAYS.toMillis(days));
+            final long count = certificateRepository.countUsingSecurityFilter(filter, (root, cb) -> cb.and(notNew.apply(root, cb), cb.lessThan(root.get("notAfter"), boundary)));
+            addStatisticsCount(expiryStat, String.valueOf(days), count - previousCount);
+            previousCount = count;
         }
-        return "More";
+        addStatisticsCount(expiryStat, "More", certificateRepository.countUsingSecurityFilter(filter, notNew) - previousCount);
+        return expiryStat;
     }
 
+    private void addStatisticsCount(Map<String, Long> statistics, String key, long count) {
+        if (count > 0) {
+            statistics.put(key, count);
+        }
+    }
 
-    @Deprecated
-    private List<SearchFieldDataDto> getSearchableFieldsMap() {
-
-        final List<SearchFieldDataDto> fields = List.of(
-                SearchHelper.prepareSearch(SearchFieldNameEnum.COMMON_NAME),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.SERIAL_NUMBER_LABEL),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.ISSUER_SERIAL_NUMBER),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.RA_PROFILE, raProfileRepository.findAll().stream().map(RaProfile::getName).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.GROUP, groupRepository.findAll().stream().map(Group::getName).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.OWNER),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.STATUS, Arrays.stream(CertificateStatus.values()).map(CertificateStatus::getCode).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.COMPLIANCE_STATUS, Arrays.stream(ComplianceStatus.values()).map(ComplianceStatus::getCode).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.ISSUER_COMMON_NAME),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.FINGERPRINT),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.SIGNATURE_ALGORITHM, new ArrayList<>(certificateRepository.findDistinctSignatureAlgorithm())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.EXPIRES),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.NOT_BEFORE),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.SUBJECT_DN),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.ISSUER_DN),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.SUBJECT_ALTERNATIVE),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.OCSP_VALIDATION, Arrays.stream((CertificateValidationStatus.values())).map(CertificateValidationStatus::getCode).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.CRL_VALIDATION, Arrays.stream((CertificateValidationStatus.values())).map(CertificateValidationStatus::getCode).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.SIGNATURE_VALIDATION, Arrays.stream((CertificateValidationStatus.values())).map(CertificateValidationStatus::getCode).collect(Collectors.toList())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.PUBLIC_KEY_ALGORITHM, new ArrayList<>(certificateRepository.findDistinctPublicKeyAlgorithm())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.KEY_SIZE, new ArrayList<>(certificateRepository.findDistinctKeySize())),
-                SearchHelper.prepareSearch(SearchFieldNameEnum.KEY_USAGE, serializedListOfStringToListOfObject(certificateRepository.findDistinctKeyUsage()))
-        );
+    private String getStatisticsName(Map<UUID, String> names, UUID uuid) {
+        return uuid != null && names.containsKey(uuid) ? names.get(uuid) : STATISTICS_UNKNOWN;
+    }
 
-        logger.debug("Searchable Fields: {}", fields);
-        return fields;
+    private String getComplianceStatisticsName(ComplianceStatus complianceStatus) {
+        return complianceStatus != null ? COMPLIANCE_STATISTICS_NAMES.get(complianceStatus.getCode().toUpperCase()) : "Not Checked";
     }
 
     private List<Object> serializedListOfStringToListOfObject(List<String> serializedData) {
@@ -1089,42 +1265,6 @@ public class CertificateServiceImpl implements CertificateService {
         return new ArrayList<>(serSet);
     }
 
-    @Deprecated
-    private CertificateResponseDto getCertificatesWithFilter(SearchRequestDto request, SecurityFilter filter) {
-        logger.debug("Certificate search request: {}", request.toString());
-        CertificateResponseDto certificateResponseDto = new CertificateResponseDto();
-        if (request.getItemsPerPage() == null) {
-            request.setItemsPerPage(DEFAULT_PAGE_SIZE);
-        }
-        if (request.getPageNumber() == null) {
-            request.setPageNumber(1);
-        }
-        if (request.getFilters() == null || request.getFilters().isEmpty()) {
-            Pageable p = PageRequest.of(request.getPageNumber() - 1, request.getItemsPerPage());
-            Long maxSize = certificateRepository.countUsingSecurityFilter(filter);
-            certificateResponseDto.setTotalPages((int) Math.ceil((double) maxSize / request.getItemsPerPage()));
-            certificateResponseDto.setTotalItems(maxSize);
-            certificateResponseDto.setCertificates(certificateRepository.findUsingSecurityFilter(
-                            filter, null,
-                            p, (root, cb) -> cb.desc(root.get("created")))
-                    .stream()
-                    .map(Certificate::mapToListDto)
-                    .collect(Collectors.toList()
-                    )
-            );
-            certificateResponseDto.setItemsPerPage(request.getItemsPerPage());
-            certificateResponseDto.setPageNumber(request.getPageNumber());
-        } else {
-            DynamicSearchInternalResponse dynamicSearchInternalResponse = searchService.dynamicSearchQueryExecutor(request, "Certificate", getSearchableFieldInformation(), searchService.createCriteriaBuilderString(filter, true));
-            certificateResponseDto.setItemsPerPage(request.getItemsPerPage());
-            certificateResponseDto.setTotalItems(dynamicSearchInternalResponse.getTotalItems());
-            certificateResponseDto.setTotalPages(dynamicSearchInternalResponse.getTotalPages());
-            certificateResponseDto.setPageNumber(request.getPageNumber());
-            certificateResponseDto.setCertificates(((List<Certificate>) dynamicSearchInternalResponse.getResult()).stream().map(Certificate::mapToListDto).collect(Collectors.toList()));
-        }
-        return certificateResponseDto;
-    }
-
     private List<CertificateComplianceResultDto> frameComplianceResult(CertificateComplianceStorageDto storageDto) {
         logger.debug("Framing Compliance Result from stored data: {}", storageDto);
         List<CertificateComplianceResultDto> result = new ArrayList<>();
@@ -1162,9 +1302,8 @@ public class CertificateServiceImpl implements CertificateService {
     }
 
     @Async
-    // TODO - move to search service
-    private void bulkUpdateRaProfileComplianceCheck(List<SearchFilterRequestDto> searchFilter) {
-        List<Certificate> certificates = (List<Certificate>) searchService.completeSearchQueryExecutor(searchFilter, "Certificate", getSearchableFieldInformation());
+    private void bulkUpdateRaProfileComplianceCheck(SecurityFilter filter, SubqueryWhereClause<Certificate> searchWhereClause) {
+        List<Certificate> certificates = certificateRepository.findUsingSecurityFilter(filter, searchWhereClause);
         CertificateComplianceCheckDto dto = new CertificateComplianceCheckDto();
         dto.setCertificateUuids(certificates.stream().map(Certificate::getUuid).map(UUID::toString).collect(Collectors.toList()));
         checkCompliance(dto);
@@ -1238,7 +1377,7 @@ public class CertificateServiceImpl implements CertificateService {
         String oldChainUrl = "";
         String chainUrl;
         try {
-            X509Certificate certX509 = getX509(certificate.getCertificateContent().getContent());
+            X509Certificate certX509 = parsedCertificateCache.getX509Certificate(certificate.getCertificateContent());
             while (true) {
                 chainUrl = OcspUtil.getChainFromAia(certX509);
                 if (oldChainUrl.equals(chainUrl)) {
@@ -1361,14 +1500,10 @@ public class CertificateServiceImpl implements CertificateService {
             certificateRepository.saveAll(batchOperationList);
             certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
         } else {
-            String data = searchService.createCriteriaBuilderString(filter, false);
-            if (!data.equals("")) {
-                data = "WHERE " + data;
-            }
-            String profileUpdateQuery = "UPDATE Certificate c SET c.raProfile = " + raProfile.getUuid() + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", data, getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
-            certificateRepository.bulkUpdateQuery(profileUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_RA_PROFILE, CertificateEventStatus.SUCCESS, "RA Profile Name: " + raProfile.getName());
-            bulkUpdateRaProfileComplianceCheck(request.getFilters());
+            final SubqueryWhereClause<Certificate> searchWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
+            certificateRepository.updateUsingSecurityFilter(filter, searchWhereClause, Map.of("raProfileUuid", raProfile.getUuid()));
+            certificateEventHistoryService.addEventHistoryForRequest(filter, searchWhereClause, CertificateEvent.UPDATE_RA_PROFILE, CertificateEventStatus.SUCCESS, "RA Profile Name: " + raProfile.getName());
+            bulkUpdateRaProfileComplianceCheck(filter, searchWhereClause);
         }
     }
 
@@ -1389,13 +1524,9 @@ public class CertificateServiceImpl implements CertificateService {
             certificateRepository.saveAll(batchOperationList);
             certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
         } else {
-            String data = searchService.createCriteriaBuilderString(filter, false);
-            if (!data.equals("")) {
-                data = "WHERE " + data;
-            }
-            String groupUpdateQuery = "UPDATE Certificate c SET c.group = " + group.getUuid() + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", data, getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
-            certificateRepository.bulkUpdateQuery(groupUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_GROUP, CertificateEventStatus.SUCCESS, "Group Name: " + group.getName());
+            final SubqueryWhereClause<Certificate> searchWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
+            certificateRepository.updateUsingSecurityFilter(filter, searchWhereClause, Map.of("groupUuid", group.getUuid()));
+            certificateEventHistoryService.addEventHistoryForRequest(filter, searchWhereClause, CertificateEvent.UPDATE_GROUP, CertificateEventStatus.SUCCESS, "Group Name: " + group.getName());
         }
     }
 
@@ -1415,13 +1546,9 @@ public class CertificateServiceImpl implements CertificateService {
             certificateRepository.saveAll(batchOperationList);
             certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
         } else {
-            String data = searchService.createCriteriaBuilderString(filter, false);
-            if (!data.equals("")) {
-                data = "WHERE " + data;
-            }
-            String ownerUpdateQuery = "UPDATE Certificate c SET c.owner = '" + userDetail.getUsername() + "',c.owner_uuid = '" + UUID.fromString(userDetail.getUuid()) + "' " + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", data, getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
-            certificateRepository.bulkUpdateQuery(ownerUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "Owner: " + userDetail.getUsername());
+            final SubqueryWhereClause<Certificate> searchWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.CERTIFICATE);
+            certificateRepository.updateUsingSecurityFilter(filter, searchWhereClause, Map.of("owner", userDetail.getUsername(), "ownerUuid", UUID.fromString(userDetail.getUuid())));
+            certificateEventHistoryService.addEventHistoryForRequest(filter, searchWhereClause, CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "Owner: " + userDetail.getUsername());
         }
     }
 
@@ -1442,4 +1569,41 @@ public class CertificateServiceImpl implements CertificateService {
         }
         return certificates;
     }
+
+    /**
+     * Progress of the scheduled status update shared by its workers
+     */
+    private static class StatusUpdateProgress {
+        private final AtomicInteger remaining;
+        private final AtomicInteger checked = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+
+        private StatusUpdateProgress(int maxCertificates) {
+            this.remaining = new AtomicInteger(maxCertificates);
+        }
+
+        private int claim(int batchSize) {
+            return Math.min(batchSize, remaining.getAndUpdate(e -> e - Math.min(batchSize, e)));
+        }
+
+        private void add(StatusUpdateBatch batch) {
+            checked.addAndGet(batch.checked);
+            updated.addAndGet(batch.updated);
+        }
+    }
+
+    /**
+     * Result of the status update of one batch of certificates, status changes are notified after the batch is committed
+     */
+    private static class StatusUpdateBatch {
+        private int checked;
+        private int updated;
+        private final Map<Certificate, String> statusChanges = new LinkedHashMap<>();
+
+        private void add(StatusUpdateBatch batch) {
+            checked += batch.checked;
+            updated += batch.updated;
+            statusChanges.putAll(batch.statusChanges);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.czertainly.core.service.impl;
 
 import com.czertainly.api.clients.ComplianceApiClient;
+import com.czertainly.api.exception.ConnectorCommunicationException;
 import com.czertainly.api.exception.ConnectorException;
 import com.czertainly.api.exception.NotFoundException;
 import com.czertainly.api.exception.ValidationError;
@@ -17,6 +18,7 @@ import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.compliance.ComplianceConnectorAndRulesDto;
 import com.czertainly.api.model.core.compliance.ComplianceRulesDto;
 import com.czertainly.api.model.core.compliance.ComplianceStatus;
+import com.czertainly.api.model.core.connector.ConnectorDto;
 import com.czertainly.api.model.core.connector.FunctionGroupCode;
 import com.czertainly.api.model.core.connector.FunctionGroupDto;
 import com.czertainly.core.dao.entity.*;
@@ -26,14 +28,22 @@ import com.czertainly.core.security.authz.ExternalAuthorization;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.service.ComplianceService;
 import com.czertainly.core.util.AttributeDefinitionUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -66,6 +76,15 @@ public class ComplianceServiceImpl implements ComplianceService {
     @Autowired
     private ComplianceProfileRuleRepository complianceProfileRuleRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${compliance.check.batch-size:500}")
+    private int complianceCheckBatchSize;
+
+    @Value("${compliance.check.parallelism:8}")
+    private int complianceCheckParallelism;
+
     @Override
     //Connector Communication only
     public void addFetchGroupsAndRules(Connector connector) throws ConnectorException {
@@ -114,70 +133,17 @@ public class ComplianceServiceImpl implements ComplianceService {
         }
         logger.debug("Checking the Compliance of the Certificate: {}", certificate);
         RaProfile raProfile = certificate.getRaProfile();
-        CertificateComplianceStorageDto complianceResults = new CertificateComplianceStorageDto();
         if (raProfile == null) {
             logger.warn("Certificate with uuid: {} does not have any RA Profile association", certificate.getUuid());
             return;
         }
-        Set<ComplianceProfile> complianceProfiles = raProfile.getComplianceProfiles();
-        if (complianceProfiles == null || complianceProfiles.isEmpty()) {
+        List<ComplianceCheckGroup> checkGroups = getComplianceCheckGroups(raProfile);
+        if (checkGroups.isEmpty()) {
             logger.warn("Certificate with uuid: {} does not have any Compliance Profile association", certificate.getUuid());
             return;
         }
-        for (ComplianceProfile complianceProfile : complianceProfiles) {
-            logger.debug("Applying profile: {}", complianceProfile);
-            Set<ComplianceGroup> applicableGroups = complianceProfile.getGroups();
-            Map<String, List<ComplianceRulesDto>> groupRuleMap = new HashMap<>();
-            for (ComplianceGroup grp : applicableGroups) {
-                groupRuleMap.computeIfAbsent(grp.getConnector().getUuid().toString(), k -> new ArrayList<>()).addAll(grp.getRules().stream().map(ComplianceRule::mapToDto).collect(Collectors.toList()));
-            }
-
-            for (ComplianceConnectorAndRulesDto connector : complianceProfile.mapToDto().getRules()) {
-                logger.debug("Checking for Connector: {}", connector);
-                ComplianceRequestDto complianceRequestDto = new ComplianceRequestDto();
-                complianceRequestDto.setCertificate(certificate.getCertificateContent().getContent());
-                List<ComplianceRulesDto> applicableRules = connector.getRules();
-                if (groupRuleMap.containsKey(connector.getConnectorUuid())) {
-                    applicableRules.addAll(groupRuleMap.get(connector.getConnectorUuid()));
-                }
-                if (applicableRules.isEmpty()) {
-                    logger.debug("Compliance Profile {} does not have any rule for Connector:{}", complianceProfile.getName(), connector.getConnectorName());
-                    setComplianceForCertificate(certificate.getUuid().toString(), ComplianceStatus.NA, complianceResults);
-                    return;
-                }
-                complianceRequestDto.setRules(getComplianceRequestRules(applicableRules));
-                ComplianceResponseDto responseDto = complianceApiClient.checkCompliance(
-                        getConnectorEntity(connector.getConnectorUuid()).mapToDto(),
-                        connector.getKind(),
-                        complianceRequestDto
-                );
-                logger.debug("Certificate Compliance Response from Connector: {}", responseDto);
-
-                for (ComplianceResponseRulesDto rule : responseDto.getRules()) {
-                    ComplianceRule complianceRule = getComplianceRuleEntity(SecuredUUID.fromString(rule.getUuid()),
-                            getConnectorEntity(connector.getConnectorUuid()), connector.getKind());
-                    String complianceProfileRuleUuid = null;
-                    try {
-                        complianceProfileRuleUuid = complianceProfileRuleRepository.findByComplianceProfileAndComplianceRule(complianceProfile, complianceRule)
-                                .orElseThrow(() -> new NotFoundException("Unable to find compliance profile rule for the result")).getUuid().toString();
-                    } catch (NotFoundException e) {
-                        complianceProfileRuleUuid = complianceRule.getUuid().toString();
-                    }
-                    switch (rule.getStatus()) {
-                        case OK:
-                            complianceResults.getOk().add(complianceProfileRuleUuid);
-                            break;
-                        case NOK:
-                            complianceResults.getNok().add(complianceProfileRuleUuid);
-                            break;
-                        case NA:
-                            complianceResults.getNa().add(complianceProfileRuleUuid);
-                    }
-                }
-                logger.debug("Status from the Connector: {}", responseDto.getStatus());
-            }
-        }
-        ComplianceStatus overallStatus = computeOverallComplianceStatus(complianceResults);
+        CertificateComplianceStorageDto complianceResults = checkComplianceOfCertificates(List.of(certificate), checkGroups, null).get(0);
+        ComplianceStatus overallStatus = getComplianceStatus(checkGroups, complianceResults);
         logger.debug("Overall Status: {}", overallStatus);
         setComplianceForCertificate(certificate.getUuid().toString(), overallStatus, complianceResults);
     }
@@ -200,8 +166,11 @@ public class ComplianceServiceImpl implements ComplianceService {
         ComplianceProfile complianceProfile = complianceProfileRepository.findByUuid(uuid).orElseThrow(
                 () -> new NotFoundException(ComplianceProfile.class, uuid));
         logger.debug("Checking the compliance for all the Certificates with profile: {}", complianceProfile);
-        Set<RaProfile> raProfiles = complianceProfile.getRaProfiles();
-        for (RaProfile raProfile : raProfiles) {
+        // RA Profiles are loaded again for every check, because entities are detached after each checked batch of certificates
+        List<UUID> raProfileUuids = complianceProfile.getRaProfiles().stream().map(RaProfile::getUuid).toList();
+        for (UUID raProfileUuid : raProfileUuids) {
+            RaProfile raProfile = raProfileRepository.findByUuid(raProfileUuid)
+                    .orElseThrow(() -> new NotFoundException(RaProfile.class, raProfileUuid));
             complianceCheckForRaProfile(raProfile);
         }
     }
@@ -285,11 +254,189 @@ public class ComplianceServiceImpl implements ComplianceService {
         return complianceRuleRepository.findByUuidAndConnectorAndKind(uuid.getValue(), connector, kind).orElseThrow(() -> new NotFoundException(ComplianceRule.class, uuid));
     }
 
+    /**
+     * Check compliance of all certificates of the RA Profile. Certificates are loaded and checked in batches, compliance
+     * profile rules are resolved once for the RA Profile, requests of the batch are sent to the connectors concurrently
+     * and results of the batch are written with a single batched update.
+     */
     private void complianceCheckForRaProfile(RaProfile raProfile) throws ConnectorException {
-        List<Certificate> certificates = certificateRepository.findByRaProfile(raProfile);
+        List<ComplianceCheckGroup> checkGroups = getComplianceCheckGroups(raProfile);
+        if (checkGroups.isEmpty()) {
+            logger.warn("RA Profile {} does not have any Compliance Profile association", raProfile.getName());
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(complianceCheckParallelism, 1));
+        try {
+            int checked = 0;
+            List<Certificate> certificates = certificateRepository.findByRaProfileOrderByUuid(raProfile, PageRequest.of(0, complianceCheckBatchSize));
+            while (!certificates.isEmpty()) {
+                UUID lastUuid = certificates.get(certificates.size() - 1).getUuid();
+                List<Certificate> checkedCertificates = certificates.stream()
+                        .filter(certificate -> !certificate.getStatus().equals(CertificateStatus.NEW))
+                        .toList();
+
+                List<CertificateComplianceStorageDto> complianceResults = checkComplianceOfCertificates(checkedCertificates, checkGroups, executor);
+                for (int i = 0; i < checkedCertificates.size(); i++) {
+                    checkedCertificates.get(i).setComplianceStatus(getComplianceStatus(checkGroups, complianceResults.get(i)));
+                    checkedCertificates.get(i).setComplianceResult(complianceResults.get(i));
+                }
+                certificateRepository.saveAll(checkedCertificates);
+                entityManager.flush();
+                entityManager.clear();
+
+                checked += checkedCertificates.size();
+                logger.debug("Compliance of {} Certificates of RA Profile {} checked", checked, raProfile.getName());
+                certificates = certificateRepository.findByRaProfileAndUuidGreaterThanOrderByUuid(raProfile, lastUuid, PageRequest.of(0, complianceCheckBatchSize));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get rules of the compliance profiles of the RA Profile grouped by the compliance profile, connector and kind.
+     * When a compliance profile does not have any rule for the connector, the group is the last one and certificates
+     * checked against it are not applicable.
+     */
+    private List<ComplianceCheckGroup> getComplianceCheckGroups(RaProfile raProfile) throws ConnectorException {
+        List<ComplianceCheckGroup> checkGroups = new ArrayList<>();
+        Set<ComplianceProfile> complianceProfiles = raProfile.getComplianceProfiles();
+        if (complianceProfiles == null) {
+            return checkGroups;
+        }
+        for (ComplianceProfile complianceProfile : complianceProfiles) {
+            logger.debug("Applying profile: {}", complianceProfile);
+            Set<ComplianceGroup> applicableGroups = complianceProfile.getGroups();
+            Map<String, List<ComplianceRulesDto>> groupRuleMap = new HashMap<>();
+            for (ComplianceGroup grp : applicableGroups) {
+                groupRuleMap.computeIfAbsent(grp.getConnector().getUuid().toString(), k -> new ArrayList<>()).addAll(grp.getRules().stream().map(ComplianceRule::mapToDto).collect(Collectors.toList()));
+            }
+
+            for (ComplianceConnectorAndRulesDto connector : complianceProfile.mapToDto().getRules()) {
+                List<ComplianceRulesDto> applicableRules = connector.getRules();
+                if (groupRuleMap.containsKey(connector.getConnectorUuid())) {
+                    applicableRules.addAll(groupRuleMap.get(connector.getConnectorUuid()));
+                }
+                if (applicableRules.isEmpty()) {
+                    logger.debug("Compliance Profile {} does not have any rule for Connector:{}", complianceProfile.getName(), connector.getConnectorName());
+                    checkGroups.add(new ComplianceCheckGroup(complianceProfile, null, null, connector.getKind(), List.of(), new HashMap<>()));
+                    return checkGroups;
+                }
+                Connector connectorEntity = getConnectorEntity(connector.getConnectorUuid());
+                checkGroups.add(new ComplianceCheckGroup(complianceProfile, connectorEntity, connectorEntity.mapToDto(), connector.getKind(),
+                        getComplianceRequestRules(applicableRules), new HashMap<>()));
+            }
+        }
+        return checkGroups;
+    }
+
+    /**
+     * Check compliance of the certificates against the groups of rules
+     * @param certificates certificates to be checked
+     * @param checkGroups groups of rules of the compliance profiles
+     * @param executor executor sending the requests of the certificates concurrently, requests are sent sequentially when null
+     * @return compliance results in the order of the certificates
+     */
+    private List<CertificateComplianceStorageDto> checkComplianceOfCertificates(List<Certificate> certificates, List<ComplianceCheckGroup> checkGroups, ExecutorService executor) throws ConnectorException {
+        List<CertificateComplianceStorageDto> complianceResults = new ArrayList<>(certificates.size());
+        for (int i = 0; i < certificates.size(); i++) {
+            complianceResults.add(new CertificateComplianceStorageDto());
+        }
+        for (ComplianceCheckGroup checkGroup : checkGroups) {
+            if (checkGroup.requestRules().isEmpty()) {
+                break;
+            }
+            logger.debug("Checking {} Certificates for Connector: {}, Kind: {}", certificates.size(), checkGroup.connectorDto().getName(), checkGroup.kind());
+            List<ComplianceResponseDto> responses = checkCompliance(checkGroup, certificates, executor);
+            for (int i = 0; i < certificates.size(); i++) {
+                addComplianceResults(checkGroup, responses.get(i), complianceResults.get(i));
+            }
+        }
+        return complianceResults;
+    }
+
+    private List<ComplianceResponseDto> checkCompliance(ComplianceCheckGroup checkGroup, List<Certificate> certificates, ExecutorService executor) throws ConnectorException {
+        List<ComplianceRequestDto> requests = new ArrayList<>(certificates.size());
         for (Certificate certificate : certificates) {
-            checkComplianceOfCertificate(certificate);
+            ComplianceRequestDto complianceRequestDto = new ComplianceRequestDto();
+            complianceRequestDto.setCertificate(certificate.getCertificateContent().getContent());
+            complianceRequestDto.setRules(checkGroup.requestRules());
+            requests.add(complianceRequestDto);
+        }
+
+        List<ComplianceResponseDto> responses = new ArrayList<>(requests.size());
+        if (executor == null) {
+            for (ComplianceRequestDto request : requests) {
+                responses.add(complianceApiClient.checkCompliance(checkGroup.connectorDto(), checkGroup.kind(), request));
+            }
+            return responses;
+        }
+
+        List<Future<ComplianceResponseDto>> futures = new ArrayList<>(requests.size());
+        for (ComplianceRequestDto request : requests) {
+            futures.add(executor.submit(() -> complianceApiClient.checkCompliance(checkGroup.connectorDto(), checkGroup.kind(), request)));
+        }
+        try {
+            for (Future<ComplianceResponseDto> future : futures) {
+                responses.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorCommunicationException("Interrupted while checking compliance of certificates", checkGroup.connectorDto());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConnectorException connectorException) {
+                throw connectorException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
         }
+        return responses;
+    }
+
+    private void addComplianceResults(ComplianceCheckGroup checkGroup, ComplianceResponseDto responseDto, CertificateComplianceStorageDto complianceResults) throws NotFoundException {
+        logger.debug("Certificate Compliance Response from Connector: {}", responseDto);
+        for (ComplianceResponseRulesDto rule : responseDto.getRules()) {
+            String complianceProfileRuleUuid = getComplianceProfileRuleUuid(checkGroup, rule.getUuid());
+            switch (rule.getStatus()) {
+                case OK:
+                    complianceResults.getOk().add(complianceProfileRuleUuid);
+                    break;
+                case NOK:
+                    complianceResults.getNok().add(complianceProfileRuleUuid);
+                    break;
+                case NA:
+                    complianceResults.getNa().add(complianceProfileRuleUuid);
+            }
+        }
+        logger.debug("Status from the Connector: {}", responseDto.getStatus());
+    }
+
+    /**
+     * Get UUID of the compliance profile rule under which the result of the connector rule is stored, the UUID is resolved
+     * once for every rule of the group
+     */
+    private String getComplianceProfileRuleUuid(ComplianceCheckGroup checkGroup, String ruleUuid) throws NotFoundException {
+        String complianceProfileRuleUuid = checkGroup.complianceProfileRuleUuids().get(ruleUuid);
+        if (complianceProfileRuleUuid == null) {
+            ComplianceRule complianceRule = getComplianceRuleEntity(SecuredUUID.fromString(ruleUuid), checkGroup.connector(), checkGroup.kind());
+            complianceProfileRuleUuid = complianceProfileRuleRepository.findByComplianceProfileAndComplianceRule(checkGroup.complianceProfile(), complianceRule)
+                    .map(complianceProfileRule -> complianceProfileRule.getUuid().toString())
+                    .orElse(complianceRule.getUuid().toString());
+            checkGroup.complianceProfileRuleUuids().put(ruleUuid, complianceProfileRuleUuid);
+        }
+        return complianceProfileRuleUuid;
+    }
+
+    private ComplianceStatus getComplianceStatus(List<ComplianceCheckGroup> checkGroups, CertificateComplianceStorageDto complianceResults) {
+        if (checkGroups.get(checkGroups.size() - 1).requestRules().isEmpty()) {
+            return ComplianceStatus.NA;
+        }
+        return computeOverallComplianceStatus(complianceResults);
     }
 
     private void setComplianceForCertificate(String uuid, ComplianceStatus status,
@@ -471,6 +618,10 @@ public class ComplianceServiceImpl implements ComplianceService {
         }
     }
 
+    private record ComplianceCheckGroup(ComplianceProfile complianceProfile, Connector connector, ConnectorDto connectorDto, String kind,
+                                        List<ComplianceRequestRulesDto> requestRules, Map<String, String> complianceProfileRuleUuids) {
+    }
+
     private Connector getConnectorEntity(String uuid) throws NotFoundException {
         return connectorRepository.findByUuid(UUID.fromString(uuid))
                 .orElseThrow(() -> new NotFoundException(Connector.class, uuid));
@@ -42,6 +42,7 @@ import com.czertainly.core.service.ComplianceService;
 import com.czertainly.core.service.ConnectorAuthService;
 import com.czertainly.core.service.ConnectorService;
 import com.czertainly.core.util.AttributeDefinitionUtils;
+import com.czertainly.core.util.ConnectorAttributeDefinitionCache;
 import com.czertainly.core.util.MetaDefinitions;
 import jakarta.transaction.Transactional;
 import org.apache.commons.lang3.StringUtils;
@@ -92,6 +93,8 @@ public class ConnectorServiceImpl implements ConnectorService {
     private AttributeDefinitionRepository attributeDefinitionRepository;
     @Autowired
     private AttributeContent2ObjectRepository attributeContent2ObjectRepository;
+    @Autowired
+    private ConnectorAttributeDefinitionCache connectorAttributeDefinitionCache;
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CONNECTOR, operation = OperationType.REQUEST)
@@ -260,6 +263,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         }
 
         connectorRepository.save(connector);
+        connectorAttributeDefinitionCache.invalidateAfterCommit(connector.getUuid());
 
         List<ConnectDto> connectResponse = validateConnector(connector.mapToDto());
         List<FunctionGroupDto> functionGroupDtos = new ArrayList<>();
@@ -395,6 +399,7 @@ public class ConnectorServiceImpl implements ConnectorService {
                 Connector connector = connectorRepository.findByUuid(uuid)
                         .orElseThrow(() -> new NotFoundException(Connector.class, uuid));
 
+                connectorAttributeDefinitionCache.invalidateAfterCommit(connector.getUuid());
                 List<ConnectDto> result = reValidateConnector(connector.mapToDto());
 
                 List<FunctionGroupDto> functionGroups = result.stream()
@@ -418,6 +423,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         Connector connector = connectorRepository.findByUuid(uuid)
                 .orElseThrow(() -> new NotFoundException(Connector.class, uuid));
 
+        connectorAttributeDefinitionCache.invalidateAfterCommit(connector.getUuid());
         List<ConnectDto> result = reValidateConnector(connector.mapToDto());
 
         List<FunctionGroupDto> functionGroups = result.stream()
@@ -537,7 +543,7 @@ public class ConnectorServiceImpl implements ConnectorService {
 
         validateFunctionGroup(connector, functionGroup);
 
-        return attributeApiClient.listAttributeDefinitions(connector.mapToDto(), functionGroup, functionGroupType);
+        return listAttributeDefinitions(connector, functionGroup, functionGroupType);
     }
 
     @Override
@@ -562,7 +568,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         Connector connector = connectorRepository.findByUuid(uuid)
                 .orElseThrow(() -> new NotFoundException(Connector.class, uuid));
 
-        List<BaseAttribute> definitions = attributeApiClient.listAttributeDefinitions(connector.mapToDto(), functionGroup, functionGroupType);
+        List<BaseAttribute> definitions = listAttributeDefinitions(connector, functionGroup, functionGroupType);
         List<String> existingAttributesFromConnector = definitions.stream().map(BaseAttribute::getName).collect(Collectors.toList());
         for (RequestAttributeDto requestAttributeDto : attributes) {
             if (!existingAttributesFromConnector.contains(requestAttributeDto.getName())) {
@@ -590,13 +596,18 @@ public class ConnectorServiceImpl implements ConnectorService {
         for (FunctionGroupDto fg : connector.mapToDto().getFunctionGroups()) {
             Map<String, List<BaseAttribute>> kindsAttribute = new HashMap<>();
             for (String kind : fg.getKinds()) {
-                kindsAttribute.put(kind, attributeApiClient.listAttributeDefinitions(connector.mapToDto(), fg.getFunctionGroupCode(), kind));
+                kindsAttribute.put(kind, listAttributeDefinitions(connector, fg.getFunctionGroupCode(), kind));
             }
             attributes.put(fg.getFunctionGroupCode(), kindsAttribute);
         }
         return attributes;
     }
 
+    private List<BaseAttribute> listAttributeDefinitions(Connector connector, FunctionGroupCode functionGroup, String kind) throws ConnectorException {
+        return connectorAttributeDefinitionCache.getAttributeDefinitions(connector.getUuid(), functionGroup, kind,
+                () -> attributeApiClient.listAttributeDefinitions(connector.mapToDto(), functionGroup, kind));
+    }
+
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CONNECTOR, operation = OperationType.DELETE)
     @ExternalAuthorization(resource = Resource.CONNECTOR, action = ResourceAction.DELETE)
@@ -752,6 +763,7 @@ public class ConnectorServiceImpl implements ConnectorService {
         connector2FunctionGroupRepository.deleteAll(connector2FunctionGroups);
         attributeService.deleteAttributeContent(connector.getUuid(), Resource.CONNECTOR);
         connectorRepository.delete(connector);
+        connectorAttributeDefinitionCache.invalidateAfterCommit(connector.getUuid());
     }
 
     private void complianceRuleGroupUpdate(Connector connector, Boolean update) {
@@ -42,8 +42,6 @@ import com.czertainly.core.util.CertificateUtil;
 import com.czertainly.core.util.RequestValidatorHelper;
 import com.czertainly.core.util.SearchHelper;
 import com.czertainly.core.util.converter.Sql2PredicateConverter;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -80,8 +78,6 @@ public class CryptographicKeyServiceImpl implements CryptographicKeyService {
         return result.stream().toList();
     }
 
-    @PersistenceContext
-    private EntityManager entityManager;
     // --------------------------------------------------------------------------------
     // Services & API Clients
     // --------------------------------------------------------------------------------
@@ -179,23 +175,20 @@ public class CryptographicKeyServiceImpl implements CryptographicKeyService {
         filter.setParentRefProperty("tokenInstanceReferenceUuid");
         RequestValidatorHelper.revalidateSearchRequestDto(request);
 
-        final List<UUID> objectUUIDs = new ArrayList<>();
+        final List<SearchFieldObject> searchFieldObjects = new ArrayList<>();
         if (!request.getFilters().isEmpty()) {
-            final List<SearchFieldObject> searchFieldObjects = new ArrayList<>();
             searchFieldObjects.addAll(getSearchFieldObjectForMetadata());
             searchFieldObjects.addAll(getSearchFieldObjectForCustomAttributes());
-
-            final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(searchFieldObjects, request.getFilters(), entityManager.getCriteriaBuilder(), Resource.CRYPTOGRAPHIC_KEY);
-            objectUUIDs.addAll(cryptographicKeyRepository.findUsingSecurityFilterByCustomCriteriaQuery(filter, criteriaQueryDataObject.getRoot(), criteriaQueryDataObject.getCriteriaQuery(), criteriaQueryDataObject.getPredicate()));
         }
+        final SubqueryWhereClause<CryptographicKeyItem> searchWhereClause = (root, cb, query) -> Sql2PredicateConverter.mapSearchFilter2Predicates(request.getFilters(), cb, root, query, searchFieldObjects, Resource.CRYPTOGRAPHIC_KEY);
 
         final Pageable p = PageRequest.of(request.getPageNumber() - 1, request.getItemsPerPage());
-        final List<KeyItemDto> listedKeyDtos = cryptographicKeyItemRepository.findUsingSecurityFilter(filter, (root, cb) -> Sql2PredicateConverter.mapSearchFilter2Predicates(request.getFilters(), cb, root, objectUUIDs), p, (root, cb) -> cb.desc(root.get("cryptographicKey").get("created")))
+        final List<KeyItemDto> listedKeyDtos = cryptographicKeyItemRepository.findUsingSecurityFilter(filter, searchWhereClause, p, (root, cb) -> cb.desc(root.get("cryptographicKey").get("created")))
                 .stream()
                 .map(CryptographicKeyItem::mapToSummaryDto)
                 .toList();
 
-        final Long maxItems = cryptographicKeyItemRepository.countUsingSecurityFilter(filter, (root, cb) -> Sql2PredicateConverter.mapSearchFilter2Predicates(request.getFilters(), cb, root));
+        final Long maxItems = cryptographicKeyItemRepository.countUsingSecurityFilter(filter, searchWhereClause);
         final CryptographicKeyResponseDto responseDto = new CryptographicKeyResponseDto();
         responseDto.setCryptographicKeys(listedKeyDtos);
         responseDto.setItemsPerPage(request.getItemsPerPage());
@@ -217,7 +210,7 @@ public class CryptographicKeyServiceImpl implements CryptographicKeyService {
     public List<KeyDto> listKeyPairs(Optional<String> tokenProfileUuid, SecurityFilter filter) {
         logger.info("Requesting key list for Token profile with UUID {}", tokenProfileUuid);
         filter.setParentRefProperty("tokenInstanceReferenceUuid");
-        List<KeyDto> response = cryptographicKeyRepository.findUsingSecurityFilter(filter, null, null, (root, cb) -> cb.desc(root.get("created")))
+        List<KeyDto> response = cryptographicKeyRepository.findUsingSecurityFilter(filter, null, (root, cb) -> cb.desc(root.get("created")))
                 .stream()
                 .map(CryptographicKey::mapToDto)
                 .collect(Collectors.toList()
@@ -799,6 +792,18 @@ public class CryptographicKeyServiceImpl implements CryptographicKeyService {
         return null;
     }
 
+    @Override
+    public Map<String, UUID> findKeysByFingerprints(Collection<String> fingerprints) {
+        Map<String, UUID> keys = new HashMap<>();
+        if (fingerprints.isEmpty()) {
+            return keys;
+        }
+        for (CryptographicKeyItem item : cryptographicKeyItemRepository.findByFingerprintIn(fingerprints)) {
+            keys.put(item.getFingerprint(), item.getCryptographicKey().getUuid());
+        }
+        return keys;
+    }
+
     @Override
     public CryptographicKeyItem getKeyItemFromKey(CryptographicKey key, KeyType keyType) {
         for (CryptographicKeyItem item : key.getItems()) {
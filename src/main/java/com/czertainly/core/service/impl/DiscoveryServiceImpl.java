@@ -38,12 +38,6 @@ import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
 import com.czertainly.core.service.*;
 import com.czertainly.core.util.*;
-import com.czertainly.core.util.converter.Sql2PredicateConverter;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,12 +45,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.*;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -80,6 +77,8 @@ public class DiscoveryServiceImpl implements DiscoveryService {
     @Autowired
     private CertificateEventHistoryService certificateEventHistoryService;
     @Autowired
+    private CertificateEventHistoryRepository certificateEventHistoryRepository;
+    @Autowired
     private CredentialService credentialService;
     @Autowired
     private DiscoveryCertificateRepository discoveryCertificateRepository;
@@ -93,9 +92,10 @@ public class DiscoveryServiceImpl implements DiscoveryService {
     private AttributeService attributeService;
     @Autowired
     private AttributeContentRepository attributeContentRepository;
-
-    @PersistenceContext
-    private EntityManager entityManager;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.DISCOVERY, operation = OperationType.REQUEST)
@@ -105,17 +105,7 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         RequestValidatorHelper.revalidateSearchRequestDto(request);
         final Pageable p = PageRequest.of(request.getPageNumber() - 1, request.getItemsPerPage());
 
-        final List<UUID> objectUUIDs = new ArrayList<>();
-        if (!request.getFilters().isEmpty()) {
-            final List<SearchFieldObject> searchFieldObjects = new ArrayList<>();
-            searchFieldObjects.addAll(getSearchFieldObjectForMetadata());
-            searchFieldObjects.addAll(getSearchFieldObjectForCustomAttributes());
-
-            final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(searchFieldObjects, request.getFilters(), entityManager.getCriteriaBuilder(), Resource.DISCOVERY);
-            objectUUIDs.addAll(certificateRepository.findUsingSecurityFilterByCustomCriteriaQuery(filter, criteriaQueryDataObject.getRoot(), criteriaQueryDataObject.getCriteriaQuery(), criteriaQueryDataObject.getPredicate()));
-        }
-
-        final BiFunction<Root<DiscoveryHistory>, CriteriaBuilder, Predicate> additionalWhereClause = (root, cb) -> Sql2PredicateConverter.mapSearchFilter2Predicates(request.getFilters(), cb, root, objectUUIDs);
+        final SubqueryWhereClause<DiscoveryHistory> additionalWhereClause = searchService.getSearchWhereClause(filter, request.getFilters(), Resource.DISCOVERY);
         final List<DiscoveryHistoryDto> listedDiscoveriesDTOs = discoveryRepository.findUsingSecurityFilter(filter, additionalWhereClause, p, (root, cb) -> cb.desc(root.get("created")))
                 .stream()
                 .map(DiscoveryHistory::mapToListDto)
@@ -293,7 +283,7 @@ public class DiscoveryServiceImpl implements DiscoveryService {
 
             Integer currentPage = 1;
             Integer currentTotal = 0;
-            Set<DiscoveryProviderCertificateDataDto> certificatesDiscovered = new HashSet<>();
+            Set<UUID> certificatesDiscovered = new LinkedHashSet<>();
             while (currentTotal < response.getTotalCertificatesDiscovered()) {
                 getRequest.setPageNumber(currentPage);
                 getRequest.setItemsPerPage(MAXIMUM_CERTIFICATES_PER_PAGE);
@@ -305,15 +295,22 @@ public class DiscoveryServiceImpl implements DiscoveryService {
                     throw new InterruptedException(
                             "Too many content in response to process. Maximum processable is " + MAXIMUM_CERTIFICATES_PER_PAGE);
                 }
-                certificatesDiscovered.addAll(response.getCertificateData());
+                updateCertificates(response.getCertificateData(), modal, certificatesDiscovered);
 
                 ++currentPage;
                 currentTotal += response.getCertificateData().size();
             }
 
             updateDiscovery(modal, response);
-            List<Certificate> certificates = updateCertificates(certificatesDiscovered, modal);
-            certValidationService.validateCertificates(certificates);
+            if (certificatesDiscovered.isEmpty()) {
+                logger.warn("No certificates were given by the provider for the discovery");
+            }
+            // validated only after all pages are stored, issuers of the certificates can be discovered on later pages
+            List<UUID> certificateUuids = new ArrayList<>(certificatesDiscovered);
+            for (int i = 0; i < certificateUuids.size(); i += MAXIMUM_CERTIFICATES_PER_PAGE) {
+                List<UUID> batch = certificateUuids.subList(i, Math.min(i + MAXIMUM_CERTIFICATES_PER_PAGE, certificateUuids.size()));
+                certValidationService.validateCertificates(certificateRepository.findByUuidIn(batch));
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             modal.setStatus(DiscoveryStatus.FAILED);
@@ -382,41 +379,108 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         return response.getStatus() == DiscoveryStatus.IN_PROGRESS;
     }
 
-    private List<Certificate> updateCertificates(Set<DiscoveryProviderCertificateDataDto> certificatesDiscovered,
-                                                 DiscoveryHistory modal) {
-        List<Certificate> allCerts = new ArrayList<>();
-        if (certificatesDiscovered.isEmpty()) {
-            logger.warn("No certificates were given by the provider for the discovery");
-            return allCerts;
-        }
-
+    /**
+     * Store one page of the certificates discovered by the provider. Existing certificates are looked up for the whole
+     * page at once and new certificates, discovery certificates, metadata and event history are saved in batches in
+     * single transaction. When the page cannot be stored, the certificates are stored one by one, so that one invalid
+     * certificate does not drop the whole page.
+     *
+     * @param certificatesDiscovered certificates of the page
+     * @param modal discovery the certificates are discovered by
+     * @param discoveredCertificateUuids UUIDs of certificates already processed by the discovery, new UUIDs are added
+     */
+    private void updateCertificates(List<DiscoveryProviderCertificateDataDto> certificatesDiscovered,
+                                    DiscoveryHistory modal, Set<UUID> discoveredCertificateUuids) {
+        Map<String, DiscoveryProviderCertificateDataDto> certificatesByFingerprint = new LinkedHashMap<>();
+        Map<String, X509Certificate> x509Certificates = new LinkedHashMap<>();
         for (DiscoveryProviderCertificateDataDto certificate : certificatesDiscovered) {
             try {
                 X509Certificate x509Cert = CertificateUtil.parseCertificate(certificate.getBase64Content());
-                boolean existingCertificate = certificateRepository.existsByFingerprint(CertificateUtil.getThumbprint(x509Cert.getEncoded()));
-                Certificate entry = certificateService.createCertificateEntity(x509Cert);
-                allCerts.add(entry);
-                createDiscoveryCertificate(entry, modal, !existingCertificate);
-                certificateService.updateCertificateEntity(entry);
-                updateMeta(entry, certificate, modal);
-                Map<String, Object> additionalInfo = new HashMap<>();
-                additionalInfo.put("Discovery Name", modal.getName());
-                additionalInfo.put("Discovery UUID", modal.getUuid());
-                additionalInfo.put("Discovery Connector Name", modal.getConnectorName());
-                additionalInfo.put("Discovery Kind", modal.getKind());
-                certificateEventHistoryService.addEventHistory(
-                        CertificateEvent.DISCOVERY,
-                        CertificateEventStatus.SUCCESS,
-                        "Discovered from Connector: " + modal.getConnectorName() + " via discovery: " + modal.getName(),
-                        MetaDefinitions.serialize(additionalInfo),
-                        entry
-                );
+                String fingerprint = CertificateUtil.getThumbprint(x509Cert.getEncoded());
+                if (certificatesByFingerprint.putIfAbsent(fingerprint, certificate) == null) {
+                    x509Certificates.put(fingerprint, x509Cert);
+                }
             } catch (Exception e) {
                 logger.error(e.getMessage());
                 logger.error("Unable to create certificate for " + modal.toString());
             }
         }
-        return allCerts;
+        if (x509Certificates.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            discoveredCertificateUuids.addAll(transactionTemplate.execute(status -> storeCertificates(certificatesByFingerprint, x509Certificates, modal, discoveredCertificateUuids)));
+            return;
+        } catch (Exception e) {
+            logger.warn("Unable to create certificates of the page for {}, certificates are created one by one: {}", modal, e.getMessage());
+        }
+
+        for (Map.Entry<String, X509Certificate> x509Certificate : x509Certificates.entrySet()) {
+            String fingerprint = x509Certificate.getKey();
+            try {
+                discoveredCertificateUuids.addAll(transactionTemplate.execute(status -> storeCertificates(
+                        Map.of(fingerprint, certificatesByFingerprint.get(fingerprint)), Map.of(fingerprint, x509Certificate.getValue()), modal, discoveredCertificateUuids)));
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                logger.error("Unable to create certificate with fingerprint " + fingerprint + " for " + modal.toString());
+            }
+        }
+    }
+
+    /**
+     * Store the certificates with their discovery certificates, metadata and event history
+     *
+     * @param certificatesByFingerprint certificates data from the provider by fingerprint
+     * @param x509Certificates parsed certificates by fingerprint
+     * @param modal discovery the certificates are discovered by
+     * @param discoveredCertificateUuids UUIDs of certificates already processed by the discovery, these are skipped
+     * @return UUIDs of the processed certificates
+     */
+    private Set<UUID> storeCertificates(Map<String, DiscoveryProviderCertificateDataDto> certificatesByFingerprint, Map<String, X509Certificate> x509Certificates,
+                                        DiscoveryHistory modal, Set<UUID> discoveredCertificateUuids) {
+        Map<String, Certificate> entries;
+        try {
+            entries = certificateService.createCertificateEntities(new ArrayList<>(x509Certificates.values()));
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        List<Certificate> newCertificates = entries.values().stream().filter(e -> e.getUuid() == null).toList();
+        Set<Certificate> newlyDiscovered = Collections.newSetFromMap(new IdentityHashMap<>());
+        newlyDiscovered.addAll(newCertificates);
+        certificateRepository.saveAll(newCertificates);
+
+        Map<String, Object> additionalInfo = new HashMap<>();
+        additionalInfo.put("Discovery Name", modal.getName());
+        additionalInfo.put("Discovery UUID", modal.getUuid());
+        additionalInfo.put("Discovery Connector Name", modal.getConnectorName());
+        additionalInfo.put("Discovery Kind", modal.getKind());
+        String additionalInformation = MetaDefinitions.serialize(additionalInfo);
+        String message = "Discovered from Connector: " + modal.getConnectorName() + " via discovery: " + modal.getName();
+
+        Set<UUID> processedUuids = new HashSet<>();
+        List<DiscoveryCertificate> discoveryCertificates = new ArrayList<>();
+        List<CertificateEventHistory> eventHistories = new ArrayList<>();
+        Map<UUID, List<MetadataAttribute>> metadata = new HashMap<>();
+        Map<String, MetadataAttribute> metadataDefinitions = new LinkedHashMap<>();
+        for (Map.Entry<String, DiscoveryProviderCertificateDataDto> certificate : certificatesByFingerprint.entrySet()) {
+            Certificate entry = entries.get(certificate.getKey());
+            if (discoveredCertificateUuids.contains(entry.getUuid()) || !processedUuids.add(entry.getUuid())) {
+                continue;
+            }
+            discoveryCertificates.add(getDiscoveryCertificate(entry, modal, newlyDiscovered.contains(entry)));
+            eventHistories.add(certificateEventHistoryService.getEventHistory(CertificateEvent.DISCOVERY, CertificateEventStatus.SUCCESS, message, additionalInformation, entry));
+            if (certificate.getValue().getMeta() != null) {
+                metadata.put(entry.getUuid(), certificate.getValue().getMeta());
+                certificate.getValue().getMeta().forEach(e -> metadataDefinitions.putIfAbsent(e.getUuid(), e));
+            }
+        }
+        discoveryCertificateRepository.saveAll(discoveryCertificates);
+        metadataService.createMetadataDefinitions(modal.getConnectorUuid(), new ArrayList<>(metadataDefinitions.values()));
+        metadataService.createMetadata(modal.getConnectorUuid(), metadata, modal.getUuid(), modal.getName(), Resource.CERTIFICATE, Resource.DISCOVERY);
+        certificateEventHistoryRepository.saveAll(eventHistories);
+        return processedUuids;
     }
 
     private void updateCertificateIssuers(List<Certificate> certificates) {
@@ -429,7 +493,7 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         }
     }
 
-    private void createDiscoveryCertificate(Certificate entry, DiscoveryHistory modal, boolean newlyDiscovered) {
+    private DiscoveryCertificate getDiscoveryCertificate(Certificate entry, DiscoveryHistory modal, boolean newlyDiscovered) {
         DiscoveryCertificate discoveryCertificate = new DiscoveryCertificate();
         discoveryCertificate.setCommonName(entry.getCommonName());
         discoveryCertificate.setSerialNumber(entry.getSerialNumber());
@@ -439,12 +503,7 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         discoveryCertificate.setCertificateContent(entry.getCertificateContent());
         discoveryCertificate.setDiscovery(modal);
         discoveryCertificate.setNewlyDiscovered(newlyDiscovered);
-        discoveryCertificateRepository.save(discoveryCertificate);
-    }
-
-    private void updateMeta(Certificate modal, DiscoveryProviderCertificateDataDto certificate, DiscoveryHistory history) {
-        metadataService.createMetadataDefinitions(history.getConnectorUuid(), certificate.getMeta());
-        metadataService.createMetadata(history.getConnectorUuid(), modal.getUuid(), history.getUuid(), history.getName(), certificate.getMeta(), Resource.CERTIFICATE, Resource.DISCOVERY);
+        return discoveryCertificate;
     }
 
     @Override
@@ -1,20 +1,26 @@
 package com.czertainly.core.service.impl;
 
-import com.czertainly.api.model.core.audit.ExportResultDto;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.czertainly.core.model.ExportFile;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -22,6 +28,8 @@ import java.util.zip.ZipOutputStream;
 @Component
 public class ExportProcessor {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExportProcessor.class);
+
     private static final DateTimeFormatter EXPORT_DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss");
     private static final CsvMapper CSV_MAPPER = new CsvMapper();
 
@@ -46,51 +54,66 @@ public class ExportProcessor {
     @Value("${export.zip:true}")
     private Boolean isZipped;
 
-    public <T> ExportResultDto generateExport(String fileNamePrefix, List<T> data) {
-        ExportResultDto result = new ExportResultDto();
-
+    /**
+     * Write the data to CSV file, zipped if configured. Data are written to temporary file one by one as they are
+     * read from the stream, so the export size is not limited by the available memory.
+     *
+     * @param fileNamePrefix prefix of the name of the exported file
+     * @param type type of the exported objects, defines the CSV columns
+     * @param data exported objects
+     * @return exported file
+     */
+    public <T> ExportFile generateExport(String fileNamePrefix, Class<T> type, Stream<T> data) {
         String fileNameDateTime = LocalDateTime.now().format(EXPORT_DATE_TIME_FORMAT);
         String fileName = String.format("%s_%s.csv", fileNamePrefix, fileNameDateTime);
 
-        if (data == null || data.isEmpty()) {
-            result.setFileContent(new byte[0]);
-            return result;
-        }
-
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream();
-             OutputStreamWriter osWriter = new OutputStreamWriter(os, encoding)) {
-
-            CsvSchema schema = CSV_MAPPER.schemaFor(data.get(0).getClass())
-                    .withColumnSeparator(separator)
-                    .withLineSeparator(lineEnding)
-                    .withUseHeader(isHeaderIncluded)
-                    .withQuoteChar('"')
-                    .withEscapeChar('\\');
-
-            ObjectWriter writer = CSV_MAPPER.writer()
-                    .with(schema);
-
-            writer.writeValue(osWriter, data);
-
-            if (isZipped) {
-                try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                     ZipOutputStream zos = new ZipOutputStream(bos)) {
+        CsvSchema schema = CSV_MAPPER.schemaFor(type)
+                .withColumnSeparator(separator)
+                .withLineSeparator(lineEnding)
+                .withUseHeader(isHeaderIncluded)
+                .withQuoteChar('"')
+                .withEscapeChar('\\');
+
+        Path file = null;
+        long size;
+        try {
+            file = Files.createTempFile(fileNamePrefix, isZipped ? ".zip" : ".csv");
+            try (OutputStream fos = new BufferedOutputStream(Files.newOutputStream(file))) {
+                OutputStream os = fos;
+                if (isZipped) {
+                    ZipOutputStream zos = new ZipOutputStream(fos);
                     zos.putNextEntry(new ZipEntry(fileName));
-                    zos.write(os.toByteArray());
-                    zos.closeEntry();
-                    zos.finish();
-                    zos.flush();
+                    os = zos;
+                }
 
-                    result.setFileName(String.format("%s_%s.zip", fileNamePrefix, fileNameDateTime));
-                    result.setFileContent(bos.toByteArray());
+                // closing the writer finishes the zip
+                try (SequenceWriter writer = CSV_MAPPER.writer(schema).writeValues(new OutputStreamWriter(os, encoding))) {
+                    Iterator<T> iterator = data.iterator();
+                    while (iterator.hasNext()) {
+                        writer.write(iterator.next());
+                    }
                 }
-            } else {
-                result.setFileName(fileName);
-                result.setFileContent(os.toByteArray());
             }
+            size = Files.size(file);
         } catch (IOException e) {
+            deleteFile(file);
             throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            deleteFile(file);
+            throw e;
+        }
+
+        return new ExportFile(isZipped ? String.format("%s_%s.zip", fileNamePrefix, fileNameDateTime) : fileName, file, size);
+    }
+
+    private static void deleteFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Unable to delete export file {}: {}", file, e.getMessage());
         }
-        return result;
     }
 }
@@ -18,6 +18,8 @@ import com.czertainly.core.dao.repository.AttributeContentRepository;
 import com.czertainly.core.dao.repository.AttributeDefinitionRepository;
 import com.czertainly.core.dao.repository.ConnectorRepository;
 import com.czertainly.core.service.MetadataService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class MetadataServiceImpl implements MetadataService {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private AttributeDefinitionRepository metadataDefinitionRepository;
     private AttributeContentRepository metadataContentRepository;
     private AttributeContent2ObjectRepository metadata2ObjectRepository;
@@ -81,9 +85,58 @@ public class MetadataServiceImpl implements MetadataService {
         if (metadata == null) {
             return;
         }
-        for (MetadataAttribute metadataAttribute : metadata) {
-            createMetadataContent(metadataAttribute.getName(), metadataAttribute.getContentType(), connectorUuid, objectUuid, UUID.fromString(metadataAttribute.getUuid()), sourceObjectUuid, sourceObjectName, metadataAttribute.getContent(), resource, sourceObjectResource, metadataAttribute.getProperties());
+        createMetadata(connectorUuid, Map.of(objectUuid, metadata), sourceObjectUuid, sourceObjectName, resource, sourceObjectResource);
+    }
+
+    @Override
+    public void createMetadata(UUID connectorUuid, Map<UUID, List<MetadataAttribute>> metadata, UUID sourceObjectUuid, String sourceObjectName, Resource resource, Resource sourceObjectResource) {
+        if (metadata.isEmpty()) {
+            return;
+        }
+        Set<String> existingLinks = new HashSet<>();
+        for (AttributeContent2Object object : metadata2ObjectRepository.findByObjectUuidInAndObjectTypeAndSourceObjectUuidAndSourceObjectType(metadata.keySet(), resource, sourceObjectUuid, sourceObjectResource)) {
+            existingLinks.add(getMetadataLinkKey(object.getConnectorUuid(), object.getAttributeContentUuid(), object.getObjectUuid()));
         }
+        Connector connector = connectorRepository.findByUuid(connectorUuid).orElse(null);
+
+        Map<String, AttributeDefinition> definitions = new HashMap<>();
+        Map<String, AttributeContent> contents = new HashMap<>();
+        List<AttributeContent2Object> metadata2Objects = new ArrayList<>();
+        for (Map.Entry<UUID, List<MetadataAttribute>> entry : metadata.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            for (MetadataAttribute metadataAttribute : entry.getValue()) {
+                AttributeDefinition definition = definitions.computeIfAbsent(
+                        (isGlobal(metadataAttribute.getProperties()) ? "global:" : "") + metadataAttribute.getUuid(),
+                        k -> getMetadataDefinition(metadataAttribute.getName(), metadataAttribute.getContentType(), connectorUuid, UUID.fromString(metadataAttribute.getUuid()), metadataAttribute.getProperties()));
+
+                String contentKey = getMetadataContentKey(definition, metadataAttribute.getContent());
+                AttributeContent content = contentKey != null ? contents.get(contentKey) : null;
+                if (content == null) {
+                    content = getOrCreateMetadataContent(definition, metadataAttribute.getContent());
+                    if (contentKey != null) {
+                        contents.put(contentKey, content);
+                    }
+                }
+
+                if (!existingLinks.add(getMetadataLinkKey(connectorUuid, content.getUuid(), entry.getKey()))) {
+                    continue;
+                }
+                AttributeContent2Object metadata2Object = new AttributeContent2Object();
+                metadata2Object.setObjectUuid(entry.getKey());
+                metadata2Object.setObjectType(resource);
+                metadata2Object.setSourceObjectUuid(sourceObjectUuid);
+                metadata2Object.setSourceObjectName(sourceObjectName);
+                metadata2Object.setSourceObjectType(sourceObjectResource);
+                if (connector != null) {
+                    metadata2Object.setConnector(connector);
+                }
+                metadata2Object.setAttributeContent(content);
+                metadata2Objects.add(metadata2Object);
+            }
+        }
+        metadata2ObjectRepository.saveAll(metadata2Objects);
     }
 
     @Override
@@ -224,49 +277,48 @@ public class MetadataServiceImpl implements MetadataService {
         metadataDefinitionRepository.save(definition);
     }
 
-    private void createMetadataContent(final String attributeName, final AttributeContentType contentType, final UUID connectorUuid, final UUID objectUuid, final UUID attributeUuid, final UUID sourceObjectUuid, final String sourceObjectName, final List<BaseAttributeContent> metadata, final Resource resource, final Resource sourceObjectResource, final MetadataAttributeProperties properties) {
+    private AttributeDefinition getMetadataDefinition(final String attributeName, final AttributeContentType contentType, final UUID connectorUuid, final UUID attributeUuid, final MetadataAttributeProperties properties) {
         AttributeDefinition definition = null;
-        if (properties != null && properties.isGlobal()) {
+        if (isGlobal(properties)) {
             definition = metadataDefinitionRepository.findByTypeAndAttributeNameAndGlobalAndContentType(AttributeType.META, attributeName, true, contentType).orElse(null);
         }
         if (definition == null) {
             definition = metadataDefinitionRepository.findByConnectorUuidAndAttributeUuid(connectorUuid, attributeUuid).orElse(null);
         }
+        return definition;
+    }
 
-        AttributeContent existingContent = null;
+    private AttributeContent getOrCreateMetadataContent(final AttributeDefinition definition, final List<BaseAttributeContent> metadata) {
         final List<AttributeContent> attributeContentList = metadataContentRepository.findByBaseAttributeContentAndAttributeDefinition(metadata, definition);
         for (final AttributeContent ac : attributeContentList) {
             if (ac.getAttributeContentItems().size() == metadata.size()) {
-                existingContent = ac;
+                return ac;
             }
         }
 
-        if(existingContent != null) {
-            var content2Objects = metadata2ObjectRepository.findByConnectorUuidAndAttributeContentUuidAndObjectUuidAndObjectTypeAndSourceObjectUuidAndSourceObjectType(connectorUuid, existingContent.getUuid(), objectUuid, resource, sourceObjectUuid, sourceObjectResource);
-            if (content2Objects.size() != 0) return;
-        }
+        final AttributeContent content = new AttributeContent();
+        content.addAttributeContent(metadata);
+        content.setAttributeDefinition(definition);
+        return metadataContentRepository.save(content);
+    }
 
-        AttributeContent2Object metadata2Object = new AttributeContent2Object();
-        metadata2Object.setObjectUuid(objectUuid);
-        metadata2Object.setObjectType(resource);
-        metadata2Object.setSourceObjectUuid(sourceObjectUuid);
-        metadata2Object.setSourceObjectName(sourceObjectName);
-        metadata2Object.setSourceObjectType(sourceObjectResource);
+    private static boolean isGlobal(MetadataAttributeProperties properties) {
+        return properties != null && properties.isGlobal();
+    }
 
-        Optional<Connector> connectorOptional = connectorRepository.findByUuid(connectorUuid);
-        if (connectorOptional.isPresent()) {
-            metadata2Object.setConnector(connectorOptional.get());
+    private static String getMetadataContentKey(AttributeDefinition definition, List<BaseAttributeContent> metadata) {
+        if (definition == null) {
+            return null;
         }
-
-        if (existingContent != null) {
-            metadata2Object.setAttributeContent(existingContent);
-        } else {
-            final AttributeContent content = new AttributeContent();
-            content.addAttributeContent(metadata);
-            content.setAttributeDefinition(definition);
-            metadataContentRepository.save(content);
-            metadata2Object.setAttributeContent(content);
+        try {
+            return definition.getUuid() + ":" + OBJECT_MAPPER.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            // content that cannot be serialized is not shared within the batch and is looked up every time
+            return null;
         }
-        metadata2ObjectRepository.save(metadata2Object);
+    }
+
+    private static String getMetadataLinkKey(UUID connectorUuid, UUID attributeContentUuid, UUID objectUuid) {
+        return connectorUuid + ":" + attributeContentUuid + ":" + objectUuid;
     }
 }
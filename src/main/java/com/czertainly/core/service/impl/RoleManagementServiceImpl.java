@@ -5,10 +5,12 @@ import com.czertainly.api.model.client.auth.RoleRequestDto;
 import com.czertainly.api.model.common.NameAndUuidDto;
 import com.czertainly.api.model.core.auth.*;
 import com.czertainly.core.model.auth.ResourceAction;
+import com.czertainly.core.security.authn.AuthenticationCache;
 import com.czertainly.core.security.authn.client.RoleManagementApiClient;
 import com.czertainly.core.security.authz.ExternalAuthorization;
 import com.czertainly.core.security.authz.SecuredUUID;
 import com.czertainly.core.security.authz.SecurityFilter;
+import com.czertainly.core.security.authz.opa.OpaDecisionCache;
 import com.czertainly.core.service.AttributeService;
 import com.czertainly.core.service.RoleManagementService;
 import org.slf4j.Logger;
@@ -31,6 +33,12 @@ public class RoleManagementServiceImpl implements RoleManagementService {
     @Autowired
     private AttributeService attributeService;
 
+    @Autowired
+    private OpaDecisionCache opaDecisionCache;
+
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @Override
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.LIST)
     public List<RoleDto> listRoles() {
@@ -70,6 +78,7 @@ public class RoleManagementServiceImpl implements RoleManagementService {
         requestDto.setEmail(request.getEmail());
         requestDto.setSystemRole(false);
         RoleDetailDto dto = roleManagementApiClient.updateRole(roleUuid, requestDto);
+        authenticationCache.invalidateAll();
         attributeService.updateAttributeContent(UUID.fromString(dto.getUuid()), request.getCustomAttributes(), Resource.ROLE);
         dto.setCustomAttributes(attributeService.getCustomAttributesWithValues(UUID.fromString(dto.getUuid()), Resource.ROLE));
         return dto;
@@ -79,6 +88,8 @@ public class RoleManagementServiceImpl implements RoleManagementService {
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.DELETE)
     public void deleteRole(String roleUuid) {
         roleManagementApiClient.deleteRole(roleUuid);
+        opaDecisionCache.invalidateAll();
+        authenticationCache.invalidateAll();
         attributeService.deleteAttributeContent(UUID.fromString(roleUuid), Resource.ROLE);
     }
 
@@ -91,7 +102,9 @@ public class RoleManagementServiceImpl implements RoleManagementService {
     @Override
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.UPDATE)
     public SubjectPermissionsDto addPermissions(String roleUuid, RolePermissionsRequestDto request) {
-        return roleManagementApiClient.savePermissions(roleUuid, request);
+        SubjectPermissionsDto permissions = roleManagementApiClient.savePermissions(roleUuid, request);
+        opaDecisionCache.invalidateAll();
+        return permissions;
     }
 
     @Override
@@ -110,18 +123,21 @@ public class RoleManagementServiceImpl implements RoleManagementService {
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.UPDATE)
     public void addResourcePermissionObjects(String roleUuid, String resourceUuid, List<ObjectPermissionsRequestDto> request) {
         roleManagementApiClient.addResourcePermissionObjects(roleUuid, resourceUuid, request);
+        opaDecisionCache.invalidateAll();
     }
 
     @Override
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.UPDATE)
     public void updateResourcePermissionObjects(String roleUuid, String resourceUuid, String objectUuid, ObjectPermissionsRequestDto request) {
         roleManagementApiClient.updateResourcePermissionObjects(roleUuid, resourceUuid, objectUuid, request);
+        opaDecisionCache.invalidateAll();
     }
 
     @Override
     @ExternalAuthorization(resource = Resource.ROLE, action = ResourceAction.UPDATE)
     public void removeResourcePermissionObjects(String roleUuid, String resourceUuid, String objectUuid) {
         roleManagementApiClient.removeResourcePermissionObjects(roleUuid, resourceUuid, objectUuid);
+        opaDecisionCache.invalidateAll();
     }
 
     @Override
@@ -131,7 +147,10 @@ public class RoleManagementServiceImpl implements RoleManagementService {
 
     @Override
     public RoleDetailDto updateUsers(String roleUuid, List<String> userUuids) {
-        return roleManagementApiClient.updateUsers(roleUuid, userUuids);
+        RoleDetailDto dto = roleManagementApiClient.updateUsers(roleUuid, userUuids);
+        opaDecisionCache.invalidateAll();
+        authenticationCache.invalidateAll();
+        return dto;
     }
 
     @Override
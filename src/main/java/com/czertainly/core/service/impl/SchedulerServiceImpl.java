@@ -55,9 +55,9 @@ public class SchedulerServiceImpl implements SchedulerService {
     public ScheduledJobsResponseDto listScheduledJobs(final SecurityFilter filter, final PaginationRequestDto paginationRequestDto) {
         RequestValidatorHelper.revalidatePaginationRequestDto(paginationRequestDto);
         final Pageable pageable = PageRequest.of(paginationRequestDto.getPageNumber() - 1, paginationRequestDto.getItemsPerPage());
-        final List<ScheduledJob> scheduledJobList = scheduledJobsRepository.findUsingSecurityFilter(filter, null, pageable, null);
+        final List<ScheduledJob> scheduledJobList = scheduledJobsRepository.findUsingSecurityFilter(filter, pageable, null);
 
-        final Long maxItems = scheduledJobsRepository.countUsingSecurityFilter(filter, null);
+        final Long maxItems = scheduledJobsRepository.countUsingSecurityFilter(filter);
         final ScheduledJobsResponseDto responseDto = new ScheduledJobsResponseDto();
         responseDto.setScheduledJobs(scheduledJobList.stream()
                 .map(job -> job.mapToDto(scheduledJobHistoryRepository.findTopByScheduledJobUuidOrderByJobExecutionDesc(job.getUuid())))
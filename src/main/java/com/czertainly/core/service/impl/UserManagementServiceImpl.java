@@ -12,6 +12,7 @@ import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.certificate.group.GroupDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.model.auth.ResourceAction;
+import com.czertainly.core.security.authn.AuthenticationCache;
 import com.czertainly.core.security.authn.client.UserManagementApiClient;
 import com.czertainly.core.security.authz.ExternalAuthorization;
 import com.czertainly.core.security.authz.SecuredUUID;
@@ -51,6 +52,8 @@ public class UserManagementServiceImpl implements UserManagementService {
     private GroupService groupService;
     @Autowired
     private AttributeService attributeService;
+    @Autowired
+    private AuthenticationCache authenticationCache;
 
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.LIST)
@@ -109,13 +112,16 @@ public class UserManagementServiceImpl implements UserManagementService {
         attributeService.validateCustomAttributes(request.getCustomAttributes(), Resource.USER);
         UserDetailDto dto = getUserUpdateRequestPayload(userUuid, request, "", "");
         attributeService.updateAttributeContent(UUID.fromString(userUuid), request.getCustomAttributes(), Resource.USER);
+        authenticationCache.invalidateUser(userUuid);
         return dto;
     }
 
     @Override
     //Internal Use Only -- For Auth Profile Update API
     public UserDetailDto updateUserInternal(String userUuid, UpdateUserRequestDto request, String certificateUuid, String certificateFingerprint) throws NotFoundException, CertificateException {
-        return getUserUpdateRequestPayload(userUuid, request, certificateUuid, certificateFingerprint);
+        UserDetailDto dto = getUserUpdateRequestPayload(userUuid, request, certificateUuid, certificateFingerprint);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
@@ -124,18 +130,23 @@ public class UserManagementServiceImpl implements UserManagementService {
         userManagementApiClient.removeUser(userUuid);
         certificateService.removeCertificateUser(UUID.fromString(userUuid));
         attributeService.deleteAttributeContent(UUID.fromString(userUuid), Resource.USER);
+        authenticationCache.invalidateUser(userUuid);
     }
 
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.UPDATE)
     public UserDetailDto updateRoles(String userUuid, List<String> roleUuids) {
-        return userManagementApiClient.updateRoles(userUuid, roleUuids);
+        UserDetailDto dto = userManagementApiClient.updateRoles(userUuid, roleUuids);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.UPDATE)
     public UserDetailDto updateRole(String userUuid, String roleUuid) {
-        return userManagementApiClient.updateRole(userUuid, roleUuid);
+        UserDetailDto dto = userManagementApiClient.updateRole(userUuid, roleUuid);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
@@ -147,13 +158,17 @@ public class UserManagementServiceImpl implements UserManagementService {
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.ENABLE)
     public UserDetailDto enableUser(String userUuid) {
-        return userManagementApiClient.enableUser(userUuid);
+        UserDetailDto dto = userManagementApiClient.enableUser(userUuid);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.ENABLE)
     public UserDetailDto disableUser(String userUuid) {
-        return userManagementApiClient.disableUser(userUuid);
+        UserDetailDto dto = userManagementApiClient.disableUser(userUuid);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
@@ -165,7 +180,9 @@ public class UserManagementServiceImpl implements UserManagementService {
     @Override
     @ExternalAuthorization(resource = Resource.USER, action = ResourceAction.UPDATE)
     public UserDetailDto removeRole(String userUuid, String roleUuid) {
-        return userManagementApiClient.removeRole(userUuid, roleUuid);
+        UserDetailDto dto = userManagementApiClient.removeRole(userUuid, roleUuid);
+        authenticationCache.invalidateUser(userUuid);
+        return dto;
     }
 
     @Override
@@ -0,0 +1,56 @@
+package com.czertainly.core.service.scep.impl;
+
+import com.czertainly.core.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cache of resolved CA certificate chains, keys and providers of SCEP Profiles. The entry is used only while the
+ * SCEP Profile is associated with the same CA certificate, status changes of the chain are reflected after max-age.
+ */
+@Component
+public class ScepCaCache {
+
+    private final ExpiringCache<UUID, ScepCaContext> caContexts;
+
+    public ScepCaCache(@Value("${scep.ca.cache.max-size:1000}") int maxSize,
+                       @Value("${scep.ca.cache.max-age:5m}") Duration maxAge) {
+        this.caContexts = new ExpiringCache<>(maxSize, maxAge);
+    }
+
+    /**
+     * @param scepProfileUuid   UUID of the SCEP Profile
+     * @param caCertificateUuid UUID of the CA certificate currently associated with the SCEP Profile
+     * @return cached CA context or null when there is no valid entry for the CA certificate
+     */
+    public ScepCaContext get(UUID scepProfileUuid, UUID caCertificateUuid) {
+        ScepCaContext caContext = caContexts.get(scepProfileUuid);
+        if (caContext == null) {
+            return null;
+        }
+        if (!caContext.getCaCertificateUuid().equals(caCertificateUuid)) {
+            caContexts.invalidate(scepProfileUuid);
+            return null;
+        }
+        return caContext;
+    }
+
+    public void put(UUID scepProfileUuid, ScepCaContext caContext) {
+        caContexts.put(scepProfileUuid, caContext);
+    }
+
+    public void invalidate(UUID scepProfileUuid) {
+        caContexts.invalidate(scepProfileUuid);
+    }
+
+    public long getHitCount() {
+        return caContexts.getHitCount();
+    }
+
+    public long getMissCount() {
+        return caContexts.getMissCount();
+    }
+}
@@ -0,0 +1,64 @@
+package com.czertainly.core.service.scep.impl;
+
+import com.czertainly.api.model.common.enums.cryptography.KeyAlgorithm;
+import com.czertainly.core.provider.CzertainlyProvider;
+import com.czertainly.core.provider.key.CzertainlyPrivateKey;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CA certificate chain and key of the SCEP Profile resolved for decrypting requests and signing responses.
+ * It does not reference any entity, so it can be shared by concurrent requests of the same SCEP Profile.
+ */
+public final class ScepCaContext {
+
+    private final UUID caCertificateUuid;
+    private final List<X509Certificate> caCertificateChain;
+    private final X509Certificate recipient;
+    private final CzertainlyPrivateKey privateKey;
+    private final KeyAlgorithm keyAlgorithm;
+    private final CzertainlyProvider decryptionProvider;
+    private final CzertainlyProvider signingProvider;
+
+    public ScepCaContext(UUID caCertificateUuid, List<X509Certificate> caCertificateChain, X509Certificate recipient,
+                         CzertainlyPrivateKey privateKey, KeyAlgorithm keyAlgorithm,
+                         CzertainlyProvider decryptionProvider, CzertainlyProvider signingProvider) {
+        this.caCertificateUuid = caCertificateUuid;
+        this.caCertificateChain = List.copyOf(caCertificateChain);
+        this.recipient = recipient;
+        this.privateKey = privateKey;
+        this.keyAlgorithm = keyAlgorithm;
+        this.decryptionProvider = decryptionProvider;
+        this.signingProvider = signingProvider;
+    }
+
+    public UUID getCaCertificateUuid() {
+        return caCertificateUuid;
+    }
+
+    public List<X509Certificate> getCaCertificateChain() {
+        return caCertificateChain;
+    }
+
+    public X509Certificate getRecipient() {
+        return recipient;
+    }
+
+    public CzertainlyPrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    public KeyAlgorithm getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public CzertainlyProvider getDecryptionProvider() {
+        return decryptionProvider;
+    }
+
+    public CzertainlyProvider getSigningProvider() {
+        return signingProvider;
+    }
+}
@@ -0,0 +1,60 @@
+package com.czertainly.core.service.scep.impl;
+
+import com.czertainly.api.model.client.attribute.RequestAttributeDto;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.entity.scep.ScepProfile;
+
+import java.util.List;
+
+/**
+ * Profiles and CA resolved for a single SCEP request. The context is created for each request and passed explicitly,
+ * so that concurrent requests of different profiles never share the state.
+ */
+public final class ScepRequestContext {
+
+    private final boolean raProfileBased;
+    private final RaProfile raProfile;
+    private final ScepProfile scepProfile;
+    private final List<RequestAttributeDto> issueAttributes;
+    private final ScepCaContext ca;
+
+    public ScepRequestContext(boolean raProfileBased, RaProfile raProfile, ScepProfile scepProfile, List<RequestAttributeDto> issueAttributes) {
+        this(raProfileBased, raProfile, scepProfile, issueAttributes, null);
+    }
+
+    private ScepRequestContext(boolean raProfileBased, RaProfile raProfile, ScepProfile scepProfile, List<RequestAttributeDto> issueAttributes, ScepCaContext ca) {
+        this.raProfileBased = raProfileBased;
+        this.raProfile = raProfile;
+        this.scepProfile = scepProfile;
+        this.issueAttributes = issueAttributes;
+        this.ca = ca;
+    }
+
+    /**
+     * @param ca resolved CA of the SCEP Profile
+     * @return copy of the context with the CA
+     */
+    public ScepRequestContext withCa(ScepCaContext ca) {
+        return new ScepRequestContext(raProfileBased, raProfile, scepProfile, issueAttributes, ca);
+    }
+
+    public boolean isRaProfileBased() {
+        return raProfileBased;
+    }
+
+    public RaProfile getRaProfile() {
+        return raProfile;
+    }
+
+    public ScepProfile getScepProfile() {
+        return scepProfile;
+    }
+
+    public List<RequestAttributeDto> getIssueAttributes() {
+        return issueAttributes;
+    }
+
+    public ScepCaContext getCa() {
+        return ca;
+    }
+}
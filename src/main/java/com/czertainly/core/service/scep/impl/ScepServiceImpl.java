@@ -40,6 +40,7 @@ import com.czertainly.core.service.v2.ClientOperationService;
 import com.czertainly.core.util.AttributeDefinitionUtils;
 import com.czertainly.core.util.CertificateUtil;
 import com.czertainly.core.util.CsrUtil;
+import com.czertainly.core.util.ParsedCertificateCache;
 import com.czertainly.core.util.RandomUtil;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.cert.jcajce.JcaCertStore;
@@ -90,12 +91,9 @@ public class ScepServiceImpl implements ScepService {
     @Value("${app.version}")
     private String appVersion;
 
-    private List<X509Certificate> caCertificateChain = new ArrayList<>();
-    private X509Certificate recipient;
-    private boolean raProfileBased;
-    private RaProfile raProfile;
-    private List<RequestAttributeDto> issueAttributes;
-    private ScepProfile scepProfile;
+    @Value("${scep.signature.hash-then-sign:false}")
+    private boolean hashThenSign;
+
     private RaProfileRepository raProfileRepository;
     private ScepProfileRepository scepProfileRepository;
     private ScepTransactionRepository scepTransactionRepository;
@@ -104,6 +102,8 @@ public class ScepServiceImpl implements ScepService {
     private CertificateService certificateService;
     private CryptographicKeyService cryptographicKeyService;
     private CryptographicOperationsApiClient cryptographicOperationsApiClient;
+    private ParsedCertificateCache parsedCertificateCache;
+    private ScepCaCache scepCaCache;
 
     @Autowired
     public void setRaProfileRepository(RaProfileRepository raProfileRepository) {
@@ -145,13 +145,14 @@ public class ScepServiceImpl implements ScepService {
         this.cryptographicOperationsApiClient = cryptographicOperationsApiClient;
     }
 
-    public void setRecipient(String certificateContent) {
-        try {
-            this.recipient = CertificateUtil.parseCertificate(certificateContent);
-        } catch (CertificateException e) {
-            // This should not occur
-            throw new IllegalArgumentException("Error converting the certificate to x509 object");
-        }
+    @Autowired
+    public void setParsedCertificateCache(ParsedCertificateCache parsedCertificateCache) {
+        this.parsedCertificateCache = parsedCertificateCache;
+    }
+
+    @Autowired
+    public void setScepCaCache(ScepCaCache scepCaCache) {
+        this.scepCaCache = scepCaCache;
     }
 
     @Override
@@ -171,55 +172,92 @@ public class ScepServiceImpl implements ScepService {
     }
 
     private ResponseEntity<Object> service(String profileName, String operation, byte[] message) throws ScepException {
-        init(profileName);
-        validateProfile();
+        ScepRequestContext context = init(profileName);
+        validateProfile(context);
+        context = context.withCa(getCaContext(context.getScepProfile()));
         logger.info("SCEP request received for profile: {}, operation: {}", profileName, operation);
         return switch (operation) {
-            case "GetCACert" -> getCaCerts();
+            case "GetCACert" -> getCaCerts(context);
             case "GetCACaps" -> getCaCaps();
-            case "PKIOperation" -> pkiOperation(message);
+            case "PKIOperation" -> pkiOperation(context, message);
             default ->
-                    buildResponse(null, buildFailedResponse(new ScepException("Unsupported Operation", FailInfo.BAD_REQUEST), null));
+                    buildResponse(context, null, buildFailedResponse(context, new ScepException("Unsupported Operation", FailInfo.BAD_REQUEST), null));
         };
     }
 
-    private void init(String profileName) throws ScepException {
+    private ScepRequestContext init(String profileName) {
+        RaProfile raProfile;
+        ScepProfile scepProfile;
         String attributes;
-        this.raProfileBased = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUriString().contains("/raProfile/");
+        boolean raProfileBased = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUriString().contains("/raProfile/");
         if (raProfileBased) {
             raProfile = raProfileRepository.findByName(profileName).orElse(null);
             if (raProfile == null) {
-                return;
+                return new ScepRequestContext(true, null, null, null);
             }
             scepProfile = raProfile.getScepProfile();
             attributes = raProfile.getProtocolAttribute() != null ? raProfile.getProtocolAttribute().getScepIssueCertificateAttributes() : null;
         } else {
             scepProfile = scepProfileRepository.findByName(profileName).orElse(null);
             if (scepProfile == null) {
-                return;
+                return new ScepRequestContext(false, null, null, null);
             }
             raProfile = scepProfile.getRaProfile();
             attributes = scepProfile.getIssueCertificateAttributes();
         }
-        issueAttributes = AttributeDefinitionUtils.getClientAttributes(AttributeDefinitionUtils.deserialize(attributes, DataAttribute.class));
+        List<RequestAttributeDto> issueAttributes = AttributeDefinitionUtils.getClientAttributes(AttributeDefinitionUtils.deserialize(attributes, DataAttribute.class));
+
+        logger.debug("SCEP service initialized: isRaProfileBased: {}, raProfile: {}, scepProfile: {}", raProfileBased, raProfile, scepProfile);
+        return new ScepRequestContext(raProfileBased, raProfile, scepProfile, issueAttributes);
+    }
 
+    private ScepCaContext getCaContext(ScepProfile scepProfile) throws ScepException {
         Certificate scepCaCertificate = scepProfile.getCaCertificate();
-        if (scepCaCertificate == null) {
-            throw new ScepException("SCEP Profile does not have any associated CA certificate", FailInfo.BAD_REQUEST);
+        ScepCaContext caContext = scepCaCache.get(scepProfile.getUuid(), scepCaCertificate.getUuid());
+        if (caContext != null) {
+            return caContext;
         }
 
-        setRecipient(scepCaCertificate.getCertificateContent().getContent());
-        this.caCertificateChain = loadCertificateChain(scepCaCertificate);
+        X509Certificate recipient;
+        try {
+            recipient = parsedCertificateCache.getX509Certificate(scepCaCertificate.getCertificateContent());
+        } catch (CertificateException e) {
+            // This should not occur
+            throw new IllegalArgumentException("Error converting the certificate to x509 object");
+        }
+        List<X509Certificate> caCertificateChain = loadCertificateChain(scepCaCertificate);
 
-        logger.debug("SCEP service initialized: isRaProfileBased: {}, raProfile: {}, scepProfile: {}", raProfileBased, raProfile, scepProfile);
+        CryptographicKey key = scepCaCertificate.getKey();
+        CryptographicKeyItem item = cryptographicKeyService.getKeyItemFromKey(key, KeyType.PRIVATE_KEY);
+        // Get the private key from the configuration of SCEP Profile
+        CzertainlyPrivateKey czertainlyPrivateKey = new CzertainlyPrivateKey(
+                key.getTokenInstanceReference().getTokenInstanceUuid(),
+                item.getKeyReferenceUuid().toString(),
+                key.getTokenInstanceReference().getConnector().mapToDto(),
+                item.getKeyAlgorithm().getLabel()
+        );
+
+        caContext = new ScepCaContext(
+                scepCaCertificate.getUuid(),
+                caCertificateChain,
+                recipient,
+                czertainlyPrivateKey,
+                item.getKeyAlgorithm(),
+                CzertainlyProvider.getInstance(scepProfile.getName(), true, cryptographicOperationsApiClient),
+                CzertainlyProvider.getInstance(scepProfile.getName(), true, cryptographicOperationsApiClient, hashThenSign)
+        );
+        scepCaCache.put(scepProfile.getUuid(), caContext);
+        logger.debug("SCEP CA resolved: scepProfile: {}, caCertificate: {}", scepProfile.getName(), scepCaCertificate.getUuid());
+        return caContext;
     }
 
-    private void validateProfile() throws ScepException {
-        validateScepProfile();
-        validateRaProfile();
+    private void validateProfile(ScepRequestContext context) throws ScepException {
+        validateScepProfile(context);
+        validateRaProfile(context);
     }
 
-    private void validateScepProfile() throws ScepException {
+    private void validateScepProfile(ScepRequestContext context) throws ScepException {
+        ScepProfile scepProfile = context.getScepProfile();
         if (scepProfile == null) {
             throw new ScepException("Requested SCEP Profile not found", FailInfo.BAD_REQUEST);
         }
@@ -232,24 +270,26 @@ public class ScepServiceImpl implements ScepService {
         if (!CertificateUtil.isCertificateScepCaCertAcceptable(scepProfile.getCaCertificate(), scepProfile.isIntuneEnabled())) {
             throw new ScepException("SCEP Profile does not have associated acceptable CA certificate", FailInfo.BAD_REQUEST);
         }
-        if (!raProfileBased && scepProfile.getRaProfile() == null) {
+        if (!context.isRaProfileBased() && scepProfile.getRaProfile() == null) {
             throw new ScepException("SCEP Profile does not contain associated RA Profile", FailInfo.BAD_REQUEST);
         }
     }
 
-    private void validateRaProfile() throws ScepException {
+    private void validateRaProfile(ScepRequestContext context) throws ScepException {
+        RaProfile raProfile = context.getRaProfile();
         if (raProfile == null) {
             throw new ScepException("Requested RA Profile not found", FailInfo.BAD_REQUEST);
         }
         if (!raProfile.getEnabled()) {
             throw new ScepException("RA Profile is not enabled", FailInfo.BAD_REQUEST);
         }
-        if (raProfileBased && raProfile.getScepProfile() == null) {
+        if (context.isRaProfileBased() && raProfile.getScepProfile() == null) {
             throw new ScepException("RA Profile does not contain associated SCEP Profile", FailInfo.BAD_REQUEST);
         }
     }
 
-    private ResponseEntity<Object> getCaCerts() {
+    private ResponseEntity<Object> getCaCerts(ScepRequestContext context) {
+        List<X509Certificate> caCertificateChain = context.getCa().getCaCertificateChain();
         byte[] encoded;
         try {
             if (caCertificateChain.size() > 1) {
@@ -260,7 +300,7 @@ public class ScepServiceImpl implements ScepService {
                 return getResponseEntity(encoded, "application/x-x509-ca-ra-cert", encoded.length);
             } else {
                 logger.debug("Certificate chain is one, returning CA certificate");
-                encoded = recipient.getEncoded();
+                encoded = context.getCa().getRecipient().getEncoded();
                 return getResponseEntity(encoded, "application/x-x509-ca-cert", encoded.length);
             }
         } catch (CertificateException | CMSException | IOException e) {
@@ -281,7 +321,9 @@ public class ScepServiceImpl implements ScepService {
         return new ResponseEntity<>(body, responseHeaders, HttpStatus.OK);
     }
 
-    private ResponseEntity<Object> pkiOperation(byte[] body) throws ScepException {
+    private ResponseEntity<Object> pkiOperation(ScepRequestContext context, byte[] body) throws ScepException {
+        ScepProfile scepProfile = context.getScepProfile();
+        ScepCaContext ca = context.getCa();
         ScepRequest scepRequest;
         ScepResponse scepResponse;
         IntuneScepServiceClient intuneClient = null;
@@ -290,64 +332,52 @@ public class ScepServiceImpl implements ScepService {
 
         logger.debug("Processing SCEP request: transactionId={}", scepRequest.getTransactionId());
 
-        CryptographicKey key = scepProfile.getCaCertificate().getKey();
-        CryptographicKeyItem item = cryptographicKeyService.getKeyItemFromKey(key, KeyType.PRIVATE_KEY);
-        // Get the private key from the configuration of SCEP Profile
-        CzertainlyPrivateKey czertainlyPrivateKey = new CzertainlyPrivateKey(
-                key.getTokenInstanceReference().getTokenInstanceUuid(),
-                item.getKeyReferenceUuid().toString(),
-                key.getTokenInstanceReference().getConnector().mapToDto(),
-                item.getKeyAlgorithm().getLabel()
-        );
-
-        CzertainlyProvider czertainlyProvider = CzertainlyProvider.getInstance(scepProfile.getName(), true, cryptographicOperationsApiClient);
-
         // decrypt the PKCS#10 request
         try {
             scepRequest.decryptData(
-                    czertainlyPrivateKey,
-                    czertainlyProvider,
-                    cryptographicKeyService.getKeyItemFromKey(scepProfile.getCaCertificate().getKey(), KeyType.PRIVATE_KEY).getKeyAlgorithm(),
+                    ca.getPrivateKey(),
+                    ca.getDecryptionProvider(),
+                    ca.getKeyAlgorithm(),
                     scepProfile.getChallengePassword()
             );
         } catch (CMSException e) {
-            return buildResponse(scepRequest, buildFailedResponse(new ScepException("Unable to decrypt the data. " + e.getMessage(), FailInfo.BAD_REQUEST), scepRequest.getTransactionId()));
+            return buildResponse(context, scepRequest, buildFailedResponse(context, new ScepException("Unable to decrypt the data. " + e.getMessage(), FailInfo.BAD_REQUEST), scepRequest.getTransactionId()));
         }
 
         if (scepProfile.isIntuneEnabled()) {
-            Properties properties = getIntuneConfiguration();
+            Properties properties = getIntuneConfiguration(scepProfile);
             intuneClient = buildIntuneClient(properties);
         }
 
         // validate challenge password, if configured
-        if (!validateScepChallengePassword(scepRequest.getChallengePassword())) {
-            return buildResponse(scepRequest, buildFailedResponse(new ScepException("Challenge password validation failed.", FailInfo.BAD_MESSAGE_CHECK), scepRequest.getTransactionId()));
+        if (!validateScepChallengePassword(scepProfile, scepRequest.getChallengePassword())) {
+            return buildResponse(context, scepRequest, buildFailedResponse(context, new ScepException("Challenge password validation failed.", FailInfo.BAD_MESSAGE_CHECK), scepRequest.getTransactionId()));
         }
 
         // validate the request POP
         try {
-            verifyRequest(scepRequest);
+            verifyRequest(scepProfile, scepRequest);
         } catch (ScepException e) {
-            return buildResponse(scepRequest, buildFailedResponse(e, scepRequest.getTransactionId()));
+            return buildResponse(context, scepRequest, buildFailedResponse(context, e, scepRequest.getTransactionId()));
         }
 
         if (scepTransactionRepository.existsByTransactionIdAndScepProfile(scepRequest.getTransactionId(), scepProfile)) {
             try {
-                scepResponse = getExistingTransaction(scepRequest.getTransactionId());
+                scepResponse = getExistingTransaction(scepProfile, scepRequest.getTransactionId());
             } catch (CertificateException e) {
-                scepResponse = buildFailedResponse(new ScepException("Error while formatting certificate", FailInfo.BAD_REQUEST), scepRequest.getTransactionId());
+                scepResponse = buildFailedResponse(context, new ScepException("Error while formatting certificate", FailInfo.BAD_REQUEST), scepRequest.getTransactionId());
             }
         } else if (scepRequest.getMessageType().equals(MessageType.PKCS_REQ)) {
             try {
                 // Manual approval for the SCEP clients are configured in the SCEP Profile.
                 // If the SCEP Profile has the manual approval set to true, only the CSR will be generated
                 if (scepProfile.getRequireManualApproval() != null && !scepProfile.getRequireManualApproval()) {
-                    scepResponse = issueCertificate(scepRequest, intuneClient);
+                    scepResponse = issueCertificate(context, scepRequest, intuneClient);
                 } else {
-                    scepResponse = generateCsr(scepRequest, intuneClient);
+                    scepResponse = generateCsr(context, scepRequest, intuneClient);
                 }
             } catch (ScepException e) {
-                scepResponse = buildFailedResponse(e, scepRequest.getTransactionId());
+                scepResponse = buildFailedResponse(context, e, scepRequest.getTransactionId());
                 // 32-bit error code formulated using the instructions specified in https://msdn.microsoft.com/en-us/library/cc231198.aspx
                 // this is a vendor specific error code
                 final long errorCode = 0x20000000L + e.getFailInfo().getValue();
@@ -361,14 +391,14 @@ public class ScepServiceImpl implements ScepService {
                 }
             }
         } else if (scepRequest.getMessageType().equals(MessageType.CERT_POLL)) {
-            scepResponse = pollCertificate(scepRequest, intuneClient);
+            scepResponse = pollCertificate(context, scepRequest, intuneClient);
         } else {
-            scepResponse = buildFailedResponse(new ScepException("Unsupported Operation. The requested operation is not supported", FailInfo.BAD_REQUEST), scepRequest.getTransactionId());
+            scepResponse = buildFailedResponse(context, new ScepException("Unsupported Operation. The requested operation is not supported", FailInfo.BAD_REQUEST), scepRequest.getTransactionId());
         }
-        return buildResponse(scepRequest, scepResponse);
+        return buildResponse(context, scepRequest, scepResponse);
     }
 
-    private ScepResponse buildFailedResponse(ScepException scepException, String transactionId) {
+    private ScepResponse buildFailedResponse(ScepRequestContext context, ScepException scepException, String transactionId) {
         ScepResponse scepResponse = new ScepResponse();
         scepResponse.setPkiStatus(PkiStatus.FAILURE);
         scepResponse.setFailInfo(scepException.getFailInfo());
@@ -382,35 +412,21 @@ public class ScepServiceImpl implements ScepService {
                 scepException.getFailInfo(),
                 scepException.getCause() != null ? scepException.getCause().getMessage() : null,
                 transactionId,
-                this.scepProfile.getName(),
-                this.raProfileBased ? this.raProfile.getName() : null
+                context.getScepProfile().getName(),
+                context.isRaProfileBased() ? context.getRaProfile().getName() : null
         );
 
         return scepResponse;
     }
 
-    private ResponseEntity<Object> buildResponse(ScepRequest scepRequest, ScepResponse scepResponse) throws ScepException {
-        prepareMessage(scepRequest, scepResponse);
-        CzertainlyProvider czertainlyProvider = CzertainlyProvider.getInstance(scepProfile.getName(), true, cryptographicOperationsApiClient);
-        CryptographicKey key = scepProfile.getCaCertificate().getKey();
-        CryptographicKeyItem item = cryptographicKeyService.getKeyItemFromKey(key, KeyType.PRIVATE_KEY);
-        // Get the private key from the configuration of SCEP Profile
-        CzertainlyPrivateKey czertainlyPrivateKey = new CzertainlyPrivateKey(
-                key.getTokenInstanceReference().getTokenInstanceUuid(),
-                item.getKeyReferenceUuid().toString(),
-                key.getTokenInstanceReference().getConnector().mapToDto(),
-                item.getKeyAlgorithm().getLabel()
+    private ResponseEntity<Object> buildResponse(ScepRequestContext context, ScepRequest scepRequest, ScepResponse scepResponse) throws ScepException {
+        ScepCaContext ca = context.getCa();
+        prepareMessage(ca, scepRequest, scepResponse);
+        scepResponse.setSigningAttributes(
+                ca.getRecipient(),
+                ca.getPrivateKey(),
+                ca.getSigningProvider()
         );
-        try {
-            scepResponse.setSigningAttributes(
-                    CertificateUtil.getX509Certificate(scepProfile.getCaCertificate().getCertificateContent().getContent()),
-                    czertainlyPrivateKey,
-                    czertainlyProvider
-
-            );
-        } catch (CertificateException e) {
-            throw new ScepException("Unable to set certificate for signing SCEP response", e, FailInfo.BAD_REQUEST);
-        }
         scepResponse.generate();
         byte[] responseBody;
         try {
@@ -421,7 +437,9 @@ public class ScepServiceImpl implements ScepService {
         return getResponseEntity(responseBody, "application/x-pki-message", responseBody.length);
     }
 
-    private ScepResponse issueCertificate(ScepRequest scepRequest, IntuneScepServiceClient intuneClient) throws ScepException {
+    private ScepResponse issueCertificate(ScepRequestContext context, ScepRequest scepRequest, IntuneScepServiceClient intuneClient) throws ScepException {
+        ScepProfile scepProfile = context.getScepProfile();
+        RaProfile raProfile = context.getRaProfile();
         if (scepProfile.isIntuneEnabled()) {
             validateIntuneRequest(
                     intuneClient,
@@ -433,7 +451,7 @@ public class ScepServiceImpl implements ScepService {
 
         try {
             requestDto.setPkcs10(new String(Base64.getEncoder().encode(scepRequest.getPkcs10Request().getEncoded())));
-            requestDto.setAttributes(issueAttributes);
+            requestDto.setAttributes(context.getIssueAttributes());
         } catch (IOException e) {
             throw new ScepException("Unable to decode PKCS#10 request", e, FailInfo.BAD_REQUEST);
         }
@@ -463,9 +481,9 @@ public class ScepServiceImpl implements ScepService {
         } catch (NotFoundException e) {
             throw new ScepException(String.format("Issued certificate not found in inventory: uuid=%s", response.getUuid()), FailInfo.BAD_REQUEST);
         }
-        scepResponse.setCertificateChain(getIssuedCertificateChain(certificateEntity));
+        scepResponse.setCertificateChain(getIssuedCertificateChain(scepProfile, certificateEntity));
 
-        addTransactionEntity(scepRequest.getTransactionId(), response.getUuid());
+        addTransactionEntity(scepProfile, scepRequest.getTransactionId(), response.getUuid());
 
         scepResponse.setPkiStatus(PkiStatus.SUCCESS);
         if (scepProfile.isIntuneEnabled()) sendIntuneSuccessNotification(
@@ -477,7 +495,8 @@ public class ScepServiceImpl implements ScepService {
     }
 
 
-    private ScepResponse generateCsr(ScepRequest scepRequest, IntuneScepServiceClient intuneClient) throws ScepException {
+    private ScepResponse generateCsr(ScepRequestContext context, ScepRequest scepRequest, IntuneScepServiceClient intuneClient) throws ScepException {
+        ScepProfile scepProfile = context.getScepProfile();
         if (scepProfile.isIntuneEnabled()) {
             validateIntuneRequest(
                     intuneClient,
@@ -499,33 +518,33 @@ public class ScepServiceImpl implements ScepService {
             throw new ScepException("Unable to create CSR", e, FailInfo.BAD_REQUEST);
         }
         CertificateUpdateObjectsDto updateObjectsRequest = new CertificateUpdateObjectsDto();
-        updateObjectsRequest.setRaProfileUuid(raProfile.getUuid().toString());
+        updateObjectsRequest.setRaProfileUuid(context.getRaProfile().getUuid().toString());
         try {
             certificateService.updateCertificateObjects(SecuredUUID.fromString(response.getUuid()), updateObjectsRequest);
         } catch (NotFoundException e) {
             throw new ScepException("Cannot update Certificate " + response.getUuid(), e, FailInfo.BAD_REQUEST);
         }
-        addTransactionEntity(scepRequest.getTransactionId(), response.getUuid());
+        addTransactionEntity(scepProfile, scepRequest.getTransactionId(), response.getUuid());
         scepResponse.setPkiStatus(PkiStatus.PENDING);
 
         return scepResponse;
     }
 
-    private ScepResponse getExistingTransaction(String transactionId) throws CertificateException, ScepException {
+    private ScepResponse getExistingTransaction(ScepProfile scepProfile, String transactionId) throws CertificateException, ScepException {
         ScepTransaction scepTransaction = scepTransactionRepository.findByTransactionIdAndScepProfile(transactionId, scepProfile).orElse(null);
         assert scepTransaction != null;
         Certificate certificate = scepTransaction.getCertificate();
         ScepResponse scepResponse = new ScepResponse();
         if (certificate.getStatus() != CertificateStatus.NEW) {
             scepResponse.setPkiStatus(PkiStatus.SUCCESS);
-            scepResponse.setCertificateChain(getIssuedCertificateChain(certificate));
+            scepResponse.setCertificateChain(getIssuedCertificateChain(scepProfile, certificate));
         } else {
             scepResponse.setPkiStatus(PkiStatus.PENDING);
         }
         return scepResponse;
     }
 
-    private void addTransactionEntity(String transactionId, String certificateUuid) {
+    private void addTransactionEntity(ScepProfile scepProfile, String transactionId, String certificateUuid) {
         ScepTransaction scepTransaction = new ScepTransaction();
         scepTransaction.setTransactionId(transactionId);
         scepTransaction.setCertificateUuid(UUID.fromString(certificateUuid));
@@ -533,14 +552,14 @@ public class ScepServiceImpl implements ScepService {
         scepTransactionRepository.save(scepTransaction);
     }
 
-    private ScepResponse pollCertificate(ScepRequest scepRequest, IntuneScepServiceClient intuneClient) {
+    private ScepResponse pollCertificate(ScepRequestContext context, ScepRequest scepRequest, IntuneScepServiceClient intuneClient) {
         ScepResponse scepResponse = new ScepResponse();
         try {
             ScepTransaction transaction = getTransaction(scepRequest.getTransactionId());
             if (transaction != null
                     && !transaction.getCertificate().getStatus().equals(CertificateStatus.NEW)) {
-                X509Certificate certificate = CertificateUtil.parseCertificate(transaction.getCertificate().getCertificateContent().getContent());
-                scepResponse.setCertificateChain(getIssuedCertificateChain(transaction.getCertificate()));
+                X509Certificate certificate = parsedCertificateCache.getX509Certificate(transaction.getCertificate().getCertificateContent());
+                scepResponse.setCertificateChain(getIssuedCertificateChain(context.getScepProfile(), transaction.getCertificate()));
                 scepResponse.setPkiStatus(PkiStatus.SUCCESS);
                 sendIntuneSuccessNotification(
                         intuneClient,
@@ -550,7 +569,7 @@ public class ScepServiceImpl implements ScepService {
             } else {
                 scepResponse.setPkiStatus(PkiStatus.PENDING);
             }
-            prepareMessage(scepRequest, scepResponse);
+            prepareMessage(context.getCa(), scepRequest, scepResponse);
 
         } catch (Exception e) {
             logger.error(e.getMessage());
@@ -570,7 +589,7 @@ public class ScepServiceImpl implements ScepService {
                         FailInfo.BAD_REQUEST);
             }
             try {
-                certificateChain.add(CertificateUtil.parseCertificate(certificate.getCertificateContent().getContent()));
+                certificateChain.add(parsedCertificateCache.getX509Certificate(certificate.getCertificateContent()));
             } catch (CertificateException e) {
                 // This should not happen
                 throw new IllegalArgumentException("Failed to parse certificate content: " +
@@ -581,10 +600,10 @@ public class ScepServiceImpl implements ScepService {
         return certificateChain;
     }
 
-    private List<X509Certificate> getIssuedCertificateChain(Certificate certificate) throws ScepException {
-        if(!this.scepProfile.isIncludeCaCertificateChain() && !this.scepProfile.isIncludeCaCertificate()) {
+    private List<X509Certificate> getIssuedCertificateChain(ScepProfile scepProfile, Certificate certificate) throws ScepException {
+        if(!scepProfile.isIncludeCaCertificateChain() && !scepProfile.isIncludeCaCertificate()) {
             try {
-                return List.of(CertificateUtil.parseCertificate(certificate.getCertificateContent().getContent()));
+                return List.of(parsedCertificateCache.getX509Certificate(certificate.getCertificateContent()));
             } catch (CertificateException e) {
                 // This should not happen
                 throw new IllegalArgumentException("Failed to parse certificate content: " +
@@ -594,11 +613,11 @@ public class ScepServiceImpl implements ScepService {
 
         logger.debug("Building the certificate chain for the response message");
         var certificateChain = loadCertificateChain(certificate);
-        if (this.scepProfile.isIncludeCaCertificateChain()) return certificateChain;
+        if (scepProfile.isIncludeCaCertificateChain()) return certificateChain;
         else return certificateChain.subList(0, Math.min(2, certificateChain.size()));
     }
 
-    private void prepareMessage(ScepRequest scepRequest, ScepResponse scepResponse) {
+    private void prepareMessage(ScepCaContext ca, ScepRequest scepRequest, ScepResponse scepResponse) {
         if (scepRequest == null) {
             return;
         }
@@ -606,7 +625,7 @@ public class ScepServiceImpl implements ScepService {
         // are handled when generating the attributes for the CMS signed data for the response
         scepResponse.setRecipientNonce(scepRequest.getSenderNonce());
         scepResponse.setTransactionId(scepRequest.getTransactionId());
-        scepResponse.setCaCertificate(recipient);
+        scepResponse.setCaCertificate(ca.getRecipient());
         scepResponse.setRecipientKeyInfo(scepRequest.getRequestKeyInfo());
         scepResponse.setDigestAlgorithmOid(scepRequest.getDigestAlgorithmOid());
         scepResponse.setSenderNonce(RandomUtil.generateRandomNonceBase64(16));
@@ -617,14 +636,14 @@ public class ScepServiceImpl implements ScepService {
         return scepTransactionRepository.findByTransactionId(transactionId).orElse(null);
     }
 
-    private boolean validateScepChallengePassword(String challengePassword) {
+    private boolean validateScepChallengePassword(ScepProfile scepProfile, String challengePassword) {
         if (scepProfile.getChallengePassword() == null || scepProfile.getChallengePassword().isEmpty()) {
             return true;
         }
         return challengePassword.equals(scepProfile.getChallengePassword());
     }
 
-    public void verifyRequest(ScepRequest scepRequest) throws ScepException {
+    public void verifyRequest(ScepProfile scepProfile, ScepRequest scepRequest) throws ScepException {
 
         // Throw exception if the request type is not renewal or issuing a new certificate
         if (!scepRequest.getMessageType().equals(MessageType.RENEWAL_REQ) && !scepRequest.getMessageType().equals(MessageType.PKCS_REQ)) {
@@ -636,7 +655,7 @@ public class ScepServiceImpl implements ScepService {
             // (https://datatracker.ietf.org/doc/id/draft-nourse-scep-23.txt), RENEWAL_REQ is not part of the message type
             // Commonly used SCEP clients like JSCEP and SSCEP uses this version of RFC and
             // may use PKCS_REQ for renewal
-            renewalValidation(scepRequest);
+            renewalValidation(scepProfile, scepRequest);
             try {
                 if (!scepRequest.verifyRequest()) {
                     throw new ScepException("Failed to verify PKCS#10 request POP, invalid signature", FailInfo.BAD_REQUEST);
@@ -645,11 +664,11 @@ public class ScepServiceImpl implements ScepService {
                 throw new ScepException("Failed to verify PKCS#10 request POP", FailInfo.BAD_REQUEST);
             }
         } else if (scepRequest.getMessageType().equals(MessageType.RENEWAL_REQ)) {
-            renewalValidation(scepRequest);
+            renewalValidation(scepProfile, scepRequest);
         }
     }
 
-    private void renewalValidation(ScepRequest scepRequest) throws ScepException {
+    private void renewalValidation(ScepProfile scepProfile, ScepRequest scepRequest) throws ScepException {
         JcaPKCS10CertificationRequest pkcs10Request = scepRequest.getPkcs10Request();
         Certificate extCertificate;
         try {
@@ -671,10 +690,10 @@ public class ScepServiceImpl implements ScepService {
             throw new ScepException("Exception when verifying signature." + e.getMessage());
         }
         // No need to verify the same key pair used in request since it is already handled by the rekey method in client operations
-        checkRenewalTimeframe(extCertificate);
+        checkRenewalTimeframe(scepProfile, extCertificate);
     }
 
-    private void checkRenewalTimeframe(Certificate certificate) throws ScepException {
+    private void checkRenewalTimeframe(ScepProfile scepProfile, Certificate certificate) throws ScepException {
         // Empty renewal threshold or the value 0 will be considered as null value and the half life of the certificate will be assumed
         if (scepProfile.getRenewalThreshold() == null || scepProfile.getRenewalThreshold() == 0) {
             // If the renewal timeframe is not given, we consider that renewal is possible only after the certificate
@@ -691,7 +710,7 @@ public class ScepServiceImpl implements ScepService {
         }
     }
 
-    private Properties getIntuneConfiguration() {
+    private Properties getIntuneConfiguration(ScepProfile scepProfile) {
         // Create the properties based on the SCEP profile Intune properties
         Properties configProperties = new Properties();
         configProperties.put("AAD_APP_ID", scepProfile.getIntuneApplicationId());
@@ -0,0 +1,86 @@
+package com.czertainly.core.tasks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Refreshes the materialized certificate statistics read by the dashboard. Statistics are recomputed by the database
+ * on schedule, so certificate writes do not contend for the few statistics rows. Readers see the previous statistics
+ * until the refresh is committed, concurrent refreshes from other instances wait for the table lock.
+ */
+@Component
+@ConditionalOnProperty(value = "statistics.certificate.materialized", havingValue = "true")
+public class CertificateStatisticsRefreshTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateStatisticsRefreshTask.class);
+
+    // null values are stored as empty string, type and basic constraints are counted only for certificates that are not new
+    private static final String AGGREGATE_SQL = """
+            SELECT 'GROUP', coalesce(group_uuid::text, ''), count(*) FROM %1$s GROUP BY group_uuid
+            UNION ALL
+            SELECT 'RA_PROFILE', coalesce(ra_profile_uuid::text, ''), count(*) FROM %1$s GROUP BY ra_profile_uuid
+            UNION ALL
+            SELECT 'STATUS', coalesce(status, ''), count(*) FROM %1$s GROUP BY status
+            UNION ALL
+            SELECT 'KEY_SIZE', coalesce(key_size::text, ''), count(*) FROM %1$s GROUP BY key_size
+            UNION ALL
+            SELECT 'COMPLIANCE_STATUS', coalesce(compliance_status, ''), count(*) FROM %1$s GROUP BY compliance_status
+            UNION ALL
+            SELECT 'TYPE', coalesce(certificate_type, ''), count(*) FROM %1$s WHERE status <> 'NEW' GROUP BY certificate_type
+            UNION ALL
+            SELECT 'BASIC_CONSTRAINTS', coalesce(basic_constraints, ''), count(*) FROM %1$s WHERE status <> 'NEW' GROUP BY basic_constraints
+            """;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.certificate.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("Unable to refresh certificate statistics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the statistics of all certificates in single transaction, the current transaction is joined if any.
+     * Transaction is started by the template, not by the proxy, so that the refresh is transactional also when it is
+     * called from the scheduled refresh of this bean.
+     */
+    public void refresh() {
+        String statisticsTable = schema.isBlank() ? "certificate_statistics" : schema + ".certificate_statistics";
+        String certificateTable = schema.isBlank() ? "certificate" : schema + ".certificate";
+
+        long start = System.currentTimeMillis();
+        int rows = new TransactionTemplate(transactionManager).execute(status -> {
+            // exclusive lock still allows reading of the statistics, readers see the previous statistics until commit
+            jdbcTemplate.execute("LOCK TABLE " + statisticsTable + " IN EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM " + statisticsTable);
+            return jdbcTemplate.update("INSERT INTO " + statisticsTable + " (dimension, value, count) " + AGGREGATE_SQL.formatted(certificateTable));
+        });
+        logger.debug("Refreshed {} certificate statistics in {} ms", rows, System.currentTimeMillis() - start);
+    }
+}
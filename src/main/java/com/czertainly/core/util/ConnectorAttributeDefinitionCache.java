@@ -0,0 +1,103 @@
+package com.czertainly.core.util;
+
+import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.model.common.attribute.v2.BaseAttribute;
+import com.czertainly.api.model.core.connector.FunctionGroupCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of attribute definitions fetched from the connectors keyed by the connector, function group and kind, so that
+ * create and edit requests do not fetch the same definitions from the connector before every validation. Definitions
+ * are cached serialized and every caller gets its own copy it can modify. Entries of the connector are dropped when the
+ * connector change is committed, definitions loaded concurrently with the invalidation are not used afterwards
+ * because they are stored under the previous version of the connector.
+ */
+@Component
+public class ConnectorAttributeDefinitionCache {
+
+    @FunctionalInterface
+    public interface DefinitionsLoader {
+        List<BaseAttribute> load() throws ConnectorException;
+    }
+
+    private final ExpiringCache<DefinitionsKey, String> definitions;
+    private final Map<UUID, Long> connectorVersions = new ConcurrentHashMap<>();
+
+    public ConnectorAttributeDefinitionCache(@Value("${connector.attributes.cache.max-size:1000}") int maxSize,
+                                             @Value("${connector.attributes.cache.max-age:5m}") Duration maxAge) {
+        this.definitions = new ExpiringCache<>(maxSize, maxAge);
+    }
+
+    /**
+     * Get attribute definitions from the cache or load them from the connector and cache them
+     * @param connectorUuid UUID of the connector
+     * @param functionGroup function group of the definitions
+     * @param kind kind of the definitions
+     * @param loader loads the definitions from the connector
+     * @return copy of the attribute definitions
+     * @throws ConnectorException when the definitions cannot be loaded
+     */
+    public List<BaseAttribute> getAttributeDefinitions(UUID connectorUuid, FunctionGroupCode functionGroup, String kind, DefinitionsLoader loader) throws ConnectorException {
+        if (connectorUuid == null || !definitions.isEnabled()) {
+            return loader.load();
+        }
+        DefinitionsKey key = new DefinitionsKey(connectorUuid, connectorVersions.getOrDefault(connectorUuid, 0L), functionGroup, kind);
+        String serialized = definitions.get(key);
+        if (serialized != null) {
+            return AttributeDefinitionUtils.deserialize(serialized, BaseAttribute.class);
+        }
+        List<BaseAttribute> loaded = loader.load();
+        if (loaded != null) {
+            definitions.put(key, AttributeDefinitionUtils.serialize(loaded));
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop all cached attribute definitions of the connector
+     * @param connectorUuid UUID of the connector
+     */
+    public void invalidate(UUID connectorUuid) {
+        connectorVersions.merge(connectorUuid, 1L, Long::sum);
+        definitions.invalidateIf((key, value) -> key.connectorUuid().equals(connectorUuid));
+    }
+
+    /**
+     * Drop all cached attribute definitions of the connector once the current transaction commits, so definitions
+     * loaded concurrently from the previous state of the connector are not cached after the change. Definitions are
+     * dropped immediately when there is no transaction.
+     * @param connectorUuid UUID of the connector
+     */
+    public void invalidateAfterCommit(UUID connectorUuid) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(connectorUuid);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(connectorUuid);
+            }
+        });
+    }
+
+    public long getHitCount() {
+        return definitions.getHitCount();
+    }
+
+    public long getMissCount() {
+        return definitions.getMissCount();
+    }
+
+    private record DefinitionsKey(UUID connectorUuid, long connectorVersion, FunctionGroupCode functionGroup, String kind) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.czertainly.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of CRLs downloaded from CRL distribution points. Every downloaded CRL is parsed into an index of revoked
+ * serial numbers, which is kept until the next update of the CRL or the configured maximum age, whichever comes
+ * first. Concurrent requests for the same CRL URL wait for the single download in progress. Failed download is
+ * remembered for the configured back-off, so unreachable distribution point is not contacted on every check.
+ */
+@Component
+public class CrlCache {
+    private static final Logger logger = LoggerFactory.getLogger(CrlCache.class);
+
+    private final ExpiringCache<String, RevokedCertificates> crls;
+
+    private final ExpiringCache<String, Exception> failures;
+
+    private final Map<String, CompletableFuture<RevokedCertificates>> downloadsInProgress = new ConcurrentHashMap<>();
+
+    public CrlCache(@Value("${validation.crl.cache.max-size:100}") int maxSize,
+                    @Value("${validation.crl.cache.max-age:1h}") Duration maxAge,
+                    @Value("${validation.crl.cache.failure-backoff:1m}") Duration failureBackoff) {
+        this.crls = new ExpiringCache<>(maxSize, maxAge);
+        this.failures = new ExpiringCache<>(maxSize, failureBackoff);
+    }
+
+    /**
+     * Check if the certificate is revoked according to the CRL from the given URL
+     * @param certificate certificate to be checked
+     * @param crlUrl URL of the CRL
+     * @return empty string when the certificate is not revoked, revocation info in format reason=date otherwise
+     * @throws IOException when the CRL cannot be downloaded
+     * @throws GeneralSecurityException when the CRL cannot be parsed
+     */
+    public String checkCertificateRevocationList(X509Certificate certificate, String crlUrl) throws IOException, GeneralSecurityException {
+        logger.debug("Initiating CRL check for {}", certificate.getSubjectX500Principal());
+        logger.debug("CRL URL is {}", crlUrl);
+        RevokedCertificates revokedCertificates = getRevokedCertificates(crlUrl);
+        logger.debug("Completed CRL check for {}", certificate.getSubjectX500Principal());
+        return revokedCertificates.getRevocationInfo(certificate.getSerialNumber());
+    }
+
+    public void invalidate(String crlUrl) {
+        crls.invalidate(crlUrl);
+        failures.invalidate(crlUrl);
+    }
+
+    public long getHitCount() {
+        return crls.getHitCount();
+    }
+
+    public long getMissCount() {
+        return crls.getMissCount();
+    }
+
+    private RevokedCertificates getRevokedCertificates(String crlUrl) throws IOException, GeneralSecurityException {
+        RevokedCertificates revokedCertificates = crls.get(crlUrl);
+        if (revokedCertificates != null) {
+            return revokedCertificates;
+        }
+        Exception failure = failures.get(crlUrl);
+        if (failure != null) {
+            logger.debug("Skipping download of CRL from {} that failed recently: {}", crlUrl, failure.getMessage());
+            throw rethrow(failure);
+        }
+
+        CompletableFuture<RevokedCertificates> download = new CompletableFuture<>();
+        CompletableFuture<RevokedCertificates> downloadInProgress = downloadsInProgress.putIfAbsent(crlUrl, download);
+        if (downloadInProgress != null) {
+            logger.debug("Waiting for CRL download in progress from {}", crlUrl);
+            return awaitDownload(downloadInProgress);
+        }
+
+        try {
+            // another thread may have finished the download meanwhile
+            revokedCertificates = crls.get(crlUrl);
+            if (revokedCertificates == null) {
+                X509CRL crl = CrlUtil.downloadCrl(crlUrl);
+                revokedCertificates = new RevokedCertificates(crl);
+                long expiresAt = crl.getNextUpdate() != null ? crl.getNextUpdate().getTime() : Long.MAX_VALUE;
+                crls.put(crlUrl, revokedCertificates, expiresAt);
+                logger.debug("Downloaded CRL from {} with {} revoked certificates", crlUrl, revokedCertificates.size());
+            }
+            download.complete(revokedCertificates);
+            return revokedCertificates;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            failures.put(crlUrl, e);
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloadsInProgress.remove(crlUrl, download);
+        }
+    }
+
+    private RevokedCertificates awaitDownload(CompletableFuture<RevokedCertificates> download) throws IOException, GeneralSecurityException {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for CRL download", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) throws GeneralSecurityException {
+        if (cause instanceof IOException) return (IOException) cause;
+        if (cause instanceof GeneralSecurityException) throw (GeneralSecurityException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        return new IOException("Failed to download CRL", cause);
+    }
+
+    /**
+     * Parsed index of revoked certificates of single CRL
+     */
+    private static class RevokedCertificates {
+        private final Map<BigInteger, String> revocationInfos;
+
+        RevokedCertificates(X509CRL crl) {
+            Set<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+            if (entries == null) {
+                revocationInfos = Collections.emptyMap();
+            } else {
+                revocationInfos = new HashMap<>(entries.size() * 2);
+                for (X509CRLEntry entry : entries) {
+                    revocationInfos.put(entry.getSerialNumber(), CrlUtil.getRevocationInfo(entry));
+                }
+            }
+        }
+
+        String getRevocationInfo(BigInteger serialNumber) {
+            return revocationInfos.getOrDefault(serialNumber, "");
+        }
+
+        int size() {
+            return revocationInfos.size();
+        }
+    }
+}
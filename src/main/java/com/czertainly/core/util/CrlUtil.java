@@ -27,12 +27,14 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
 
 public class CrlUtil {
     private static final Logger logger = LoggerFactory.getLogger(CrlUtil.class);
     //CRL Timeout setting when initiating URL Connection. If the connection takes more than 30 seconds, it is determined as not reachable
     private static final Integer CRL_CONNECTION_TIMEOUT = 30; //seconds
+    //CRL Timeout setting when reading the CRL content. If the download takes more than 60 seconds without any data received, it is aborted
+    private static final Integer CRL_READ_TIMEOUT = 60; //seconds
 
     private CrlUtil() {
     }
@@ -78,29 +80,36 @@ public class CrlUtil {
         return crlUrls;
     }
 
-    public static String checkCertificateRevocationList(X509Certificate certificate, String crlUrl) throws IOException, GeneralSecurityException, TimeoutException {
-        logger.debug("Initiating CRL check for {}", certificate.getSubjectDN());
-        logger.debug("CRL URL is {}", crlUrl);
-        X509CRL crl;
+    /**
+     * Download and parse the CRL from the given URL
+     * @param crlUrl URL of the CRL
+     * @return parsed CRL
+     * @throws IOException when the CRL cannot be downloaded, including connection and read timeouts
+     * @throws GeneralSecurityException when the downloaded content cannot be parsed as CRL
+     */
+    public static X509CRL downloadCrl(String crlUrl) throws IOException, GeneralSecurityException {
         URL url = new URL(crlUrl);
         URLConnection connection = url.openConnection();
-        connection.setConnectTimeout(CRL_CONNECTION_TIMEOUT);
+        connection.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(CRL_CONNECTION_TIMEOUT));
+        connection.setReadTimeout((int) TimeUnit.SECONDS.toMillis(CRL_READ_TIMEOUT));
         CertificateFactory cf = CertificateFactory.getInstance("X509");
         try (DataInputStream inStream = new DataInputStream(connection.getInputStream())) {
-            crl = (X509CRL) cf.generateCRL(inStream);
+            return (X509CRL) cf.generateCRL(inStream);
         }
-        logger.debug("Completed CRL check for {}", certificate.getSubjectDN());
-        X509CRLEntry crlCertificate = crl.getRevokedCertificate(certificate.getSerialNumber());
-        if (crlCertificate == null) {
-            return "";
+    }
+
+    /**
+     * Get the revocation reason and date of the revoked certificate entry in format reason=date
+     * @param crlCertificate revoked certificate entry of CRL
+     * @return revocation info
+     */
+    public static String getRevocationInfo(X509CRLEntry crlCertificate) {
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-mm-dd hh:mm:ss");
+        String strDate = dateFormat.format(crlCertificate.getRevocationDate());
+        if (crlCertificate.getRevocationReason() != null) {
+            return crlCertificate.getRevocationReason().toString() + "=" + strDate;
         } else {
-            DateFormat dateFormat = new SimpleDateFormat("yyyy-mm-dd hh:mm:ss");
-            String strDate = dateFormat.format(crlCertificate.getRevocationDate());
-            if (crlCertificate.getRevocationReason() != null) {
-                return crlCertificate.getRevocationReason().toString() + "=" + strDate;
-            } else {
-                return "Unspecified=" + strDate;
-            }
+            return "Unspecified=" + strDate;
         }
     }
 }
@@ -53,7 +53,8 @@ public class DatabaseMigration {
         V202211141030__AttributeV2TablesAndMigration(-1479676999),
         V202301311500__PublicKeyMigration(-761670493),
         V202303211718__Scep_Roles(-285333526),
-        V202303230830__AttributeContentJsonMigration(1077049851);
+        V202303230830__AttributeContentJsonMigration(1077049851),
+        V202308021000__CertificateJsonResults(-1579016607);
 
         private final int checksum;
 
@@ -0,0 +1,178 @@
+package com.czertainly.core.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Simple thread-safe in-memory cache bounded by the number of entries and optionally by the total weight of the
+ * entries, evicting the least recently used entries when a limit is reached. Every entry expires after the configured
+ * time to live, or earlier when an explicit expiration is provided when the entry is stored.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the cached value
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+
+    private long weight;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this(maxSize, Long.MAX_VALUE, ttl, value -> 0);
+    }
+
+    /**
+     * Create cache bounded also by the total weight of its entries, e.g. their size in bytes
+     *
+     * @param maxSize   maximum number of entries
+     * @param maxWeight maximum total weight of the entries
+     * @param ttl       time to live of the entries
+     * @param weigher   function computing the weight of the value when it is stored
+     */
+    public ExpiringCache(int maxSize, long maxWeight, Duration ttl, ToLongFunction<V> weigher) {
+        if (maxSize < 0 || maxWeight < 0) {
+            throw new IllegalArgumentException("Maximum size of the cache cannot be negative");
+        }
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cache is considered disabled when it cannot hold any entry
+     *
+     * @return true if values are cached
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && maxWeight > 0 && ttlMillis > 0;
+    }
+
+    /**
+     * Get the value stored for the key when it is present and not expired
+     *
+     * @param key key of the entry
+     * @return cached value or null when there is no valid entry
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key);
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Store the value in the cache. The entry will expire at the given time or after the configured time to live,
+     * whichever comes first.
+     *
+     * @param key       key of the entry
+     * @param value     value to be cached
+     * @param expiresAt time in milliseconds since epoch when the value is no longer valid
+     */
+    public synchronized void put(K key, V value, long expiresAt) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiration = Math.min(expiresAt, now + ttlMillis);
+        if (expiration <= now) {
+            return;
+        }
+        CacheEntry<V> entry = new CacheEntry<>(value, expiration, weigher.applyAsLong(value));
+        CacheEntry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+
+        Iterator<CacheEntry<V>> eldest = entries.values().iterator();
+        while ((entries.size() > maxSize || weight > maxWeight) && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        remove(key);
+    }
+
+    public synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return total weight of the cached entries
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void remove(K key) {
+        CacheEntry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+        private final long weight;
+
+        private CacheEntry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
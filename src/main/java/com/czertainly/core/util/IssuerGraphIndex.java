@@ -0,0 +1,286 @@
+package com.czertainly.core.util;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of certificates by subject key identifier and subject DN used to find candidate issuers of
+ * certificates without querying and parsing certificates on every hop of the chain. Issuers are matched by the
+ * authority key identifier first and by the issuer DN when the certificate has no authority key identifier or no
+ * certificate with matching subject key identifier and issuer DN is known. The index is built after the application
+ * is started and updated when certificates are inserted or deleted by this instance, until it is built the callers
+ * fall back to the database. Certificates inserted by other instances or by bulk statements are not indexed, so when
+ * the index has no existing candidate, issuers are looked up by DN in the database and added to the index.
+ * Certificates removed by bulk deletes can remain in the index, callers ignore candidates that no longer exist.
+ */
+@Component
+public class IssuerGraphIndex {
+    private static final Logger logger = LoggerFactory.getLogger(IssuerGraphIndex.class);
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final Map<UUID, Node> nodes = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> bySubjectKeyIdentifier = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> bySubjectDn = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    private CertificateRepository certificateRepository;
+
+    @Lazy
+    @Autowired
+    public void setCertificateRepository(CertificateRepository certificateRepository) {
+        this.certificateRepository = certificateRepository;
+    }
+
+    /**
+     * Build the index from all certificates in the inventory
+     */
+    @Async("threadPoolTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        logger.info("Building index of certificate issuers");
+        UUID lastUuid = new UUID(0, 0);
+        int count = 0;
+        List<Object[]> batch;
+        do {
+            batch = certificateRepository.findUuidAndContentAfter(lastUuid, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastUuid = (UUID) row[0];
+                add(lastUuid, (String) row[1]);
+            }
+            count += batch.size();
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        ready = true;
+        logger.info("Index of certificate issuers built from {} certificates", count);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(Certificate certificate) {
+        if (certificate.getUuid() == null || certificate.getCertificateContent() == null) {
+            return;
+        }
+        add(certificate.getUuid(), certificate.getCertificateContent().getContent());
+    }
+
+    public void add(UUID uuid, X509Certificate certificate) {
+        Node node = new Node(
+                certificate.getSubjectX500Principal().getName(X500Principal.CANONICAL),
+                certificate.getIssuerX500Principal().getName(X500Principal.CANONICAL),
+                getSubjectKeyIdentifier(certificate),
+                getAuthorityKeyIdentifier(certificate));
+        Node previous = nodes.put(uuid, node);
+        if (previous != null) {
+            removeReferences(uuid, previous);
+        }
+        bySubjectDn.computeIfAbsent(node.subjectDn, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        if (node.subjectKeyIdentifier != null) {
+            bySubjectKeyIdentifier.computeIfAbsent(node.subjectKeyIdentifier, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    public void remove(UUID uuid) {
+        Node node = nodes.remove(uuid);
+        if (node != null) {
+            removeReferences(uuid, node);
+        }
+    }
+
+    /**
+     * Find candidate issuers of the certificate. Self-signed certificates have no issuer candidates.
+     * @param uuid UUID of the certificate
+     * @return UUIDs of candidate issuers, certificates matching by key identifier are preferred over the ones matching
+     * only by DN and self-signed candidates are ordered first. Empty when the certificate is not indexed.
+     */
+    public List<UUID> findIssuers(UUID uuid) {
+        Node node = nodes.get(uuid);
+        if (node == null || node.isSelfSigned()) {
+            return List.of();
+        }
+        List<UUID> issuers = new ArrayList<>();
+        if (node.authorityKeyIdentifier != null) {
+            addCandidates(issuers, uuid, node, bySubjectKeyIdentifier.get(node.authorityKeyIdentifier));
+        }
+        // certificates matching by DN are fallback when the key identifier matches no certificate with the issuer DN
+        if (issuers.isEmpty()) {
+            addCandidates(issuers, uuid, node, bySubjectDn.get(node.issuerDn));
+        }
+        return issuers;
+    }
+
+    /**
+     * Load candidate issuers of the certificate in the order of {@link #findIssuers(UUID)}. Certificate that is not
+     * indexed yet, e.g. because it is not flushed to the database, is added to the index first. When none of the
+     * indexed candidates exists, candidates are loaded from the database by the issuer DN and indexed.
+     * @param certificate certificate to find issuers for
+     * @return existing certificates that are candidate issuers of the certificate
+     */
+    public List<Certificate> findIssuerCertificates(Certificate certificate) {
+        if (certificate.getUuid() == null) {
+            return List.of();
+        }
+        if (!nodes.containsKey(certificate.getUuid())) {
+            add(certificate);
+        }
+        List<UUID> candidates = findIssuers(certificate.getUuid());
+        List<Certificate> issuers = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            Map<UUID, Certificate> certificates = new HashMap<>();
+            for (Certificate candidate : certificateRepository.findByUuidIn(candidates)) {
+                certificates.put(candidate.getUuid(), candidate);
+            }
+            for (UUID candidate : candidates) {
+                Certificate issuer = certificates.get(candidate);
+                if (issuer != null) {
+                    issuers.add(issuer);
+                }
+            }
+        }
+        if (issuers.isEmpty() && certificate.getIssuerDn() != null) {
+            for (Certificate issuer : certificateRepository.findBySubjectDn(certificate.getIssuerDn())) {
+                if (!issuer.getUuid().equals(certificate.getUuid())) {
+                    add(issuer);
+                    issuers.add(issuer);
+                }
+            }
+        }
+        return issuers;
+    }
+
+    private void addCandidates(List<UUID> issuers, UUID uuid, Node node, Set<UUID> candidates) {
+        if (candidates == null) {
+            return;
+        }
+        int selfSignedIndex = issuers.size();
+        for (UUID candidate : candidates) {
+            Node candidateNode = nodes.get(candidate);
+            if (candidate.equals(uuid) || issuers.contains(candidate) || candidateNode == null || !candidateNode.subjectDn.equals(node.issuerDn)) {
+                continue;
+            }
+            if (candidateNode.isSelfSigned()) {
+                issuers.add(selfSignedIndex++, candidate);
+            } else {
+                issuers.add(candidate);
+            }
+        }
+    }
+
+    private void add(UUID uuid, String content) {
+        try {
+            add(uuid, CertificateUtil.parseCertificate(content));
+        } catch (CertificateException | RuntimeException e) {
+            logger.debug("Unable to add certificate {} to index of issuers: {}", uuid, e.getMessage());
+        }
+    }
+
+    private void removeReferences(UUID uuid, Node node) {
+        removeReference(bySubjectDn, node.subjectDn, uuid);
+        if (node.subjectKeyIdentifier != null) {
+            removeReference(bySubjectKeyIdentifier, node.subjectKeyIdentifier, uuid);
+        }
+    }
+
+    private static void removeReference(Map<String, Set<UUID>> index, String key, UUID uuid) {
+        index.computeIfPresent(key, (k, uuids) -> {
+            uuids.remove(uuid);
+            return uuids.isEmpty() ? null : uuids;
+        });
+    }
+
+    private static String getSubjectKeyIdentifier(X509Certificate certificate) {
+        byte[] extension = certificate.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+        if (extension == null) {
+            return null;
+        }
+        try {
+            return Hex.toHexString(SubjectKeyIdentifier.getInstance(JcaX509ExtensionUtils.parseExtensionValue(extension)).getKeyIdentifier());
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String getAuthorityKeyIdentifier(X509Certificate certificate) {
+        byte[] extension = certificate.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+        if (extension == null) {
+            return null;
+        }
+        try {
+            byte[] keyIdentifier = AuthorityKeyIdentifier.getInstance(JcaX509ExtensionUtils.parseExtensionValue(extension)).getKeyIdentifier();
+            return keyIdentifier != null ? Hex.toHexString(keyIdentifier) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class Node {
+        private final String subjectDn;
+        private final String issuerDn;
+        private final String subjectKeyIdentifier;
+        private final String authorityKeyIdentifier;
+
+        private Node(String subjectDn, String issuerDn, String subjectKeyIdentifier, String authorityKeyIdentifier) {
+            this.subjectDn = subjectDn;
+            this.issuerDn = issuerDn;
+            this.subjectKeyIdentifier = subjectKeyIdentifier;
+            this.authorityKeyIdentifier = authorityKeyIdentifier;
+        }
+
+        private boolean isSelfSigned() {
+            return subjectDn.equals(issuerDn)
+                    && (authorityKeyIdentifier == null || authorityKeyIdentifier.equals(subjectKeyIdentifier));
+        }
+    }
+
+    /**
+     * Entity listener keeping the index updated when certificates are inserted or deleted
+     */
+    public static class CertificateListener {
+
+        private IssuerGraphIndex issuerGraphIndex;
+
+        @Autowired
+        public void setIssuerGraphIndex(IssuerGraphIndex issuerGraphIndex) {
+            this.issuerGraphIndex = issuerGraphIndex;
+        }
+
+        @PostPersist
+        public void certificatePersisted(Certificate certificate) {
+            if (issuerGraphIndex != null) {
+                issuerGraphIndex.add(certificate);
+            }
+        }
+
+        @PostRemove
+        public void certificateRemoved(Certificate certificate) {
+            if (issuerGraphIndex != null) {
+                issuerGraphIndex.remove(certificate.getUuid());
+            }
+        }
+    }
+}
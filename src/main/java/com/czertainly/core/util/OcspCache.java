@@ -0,0 +1,80 @@
+package com.czertainly.core.util;
+
+import jakarta.xml.bind.DatatypeConverter;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+
+/**
+ * Cache of OCSP responses used for certificate validation. Responses are cached by the issuer key hash,
+ * certificate serial number and responder URL until the next update of the response or the configured
+ * maximum age, whichever comes first. Responses with unknown status and responses without next update, which
+ * indicates that newer status is always available at the responder, are never cached.
+ */
+@Component
+public class OcspCache {
+    private static final Logger logger = LoggerFactory.getLogger(OcspCache.class);
+
+    private static final String OCSP_STATUS_UNKNOWN = "Unknown";
+
+    private final ExpiringCache<String, String> responses;
+
+    private final boolean nonceEnabled;
+
+    public OcspCache(@Value("${validation.ocsp.cache.max-size:10000}") int maxSize,
+                     @Value("${validation.ocsp.cache.max-age:1h}") Duration maxAge,
+                     @Value("${validation.ocsp.nonce-enabled:true}") boolean nonceEnabled) {
+        this.responses = new ExpiringCache<>(maxSize, maxAge);
+        this.nonceEnabled = nonceEnabled;
+    }
+
+    /**
+     * Check status of the certificate using OCSP responder
+     * @param certificate certificate to be checked
+     * @param issuer issuer of the certificate
+     * @param serviceUrl URL of the OCSP responder
+     * @return Success when the certificate is valid, Failed when revoked and Unknown otherwise
+     * @throws Exception when the OCSP request cannot be built or sent
+     */
+    public String checkOcsp(X509Certificate certificate, X509Certificate issuer, String serviceUrl) throws Exception {
+        String key = getKey(certificate, issuer, serviceUrl);
+        String status = responses.get(key);
+        if (status != null) {
+            logger.debug("Using cached OCSP status of certificate {} from {}", certificate.getSerialNumber(), serviceUrl);
+            return status;
+        }
+
+        SingleResp response = OcspUtil.getOcspSingleResponse(certificate, issuer, serviceUrl, nonceEnabled);
+        status = OcspUtil.getOcspStatus(response);
+        if (!OCSP_STATUS_UNKNOWN.equals(status) && response.getNextUpdate() != null) {
+            responses.put(key, status, response.getNextUpdate().getTime());
+        }
+        return status;
+    }
+
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return responses.getHitCount();
+    }
+
+    public long getMissCount() {
+        return responses.getMissCount();
+    }
+
+    private String getKey(X509Certificate certificate, X509Certificate issuer, String serviceUrl) throws NoSuchAlgorithmException {
+        byte[] issuerKey = SubjectPublicKeyInfo.getInstance(issuer.getPublicKey().getEncoded()).getPublicKeyData().getBytes();
+        String issuerKeyHash = DatatypeConverter.printHexBinary(MessageDigest.getInstance("SHA-1").digest(issuerKey));
+        return issuerKeyHash + "|" + certificate.getSerialNumber().toString(16) + "|" + serviceUrl;
+    }
+}
@@ -33,9 +33,13 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class OcspUtil {
 	private static final Logger logger = LoggerFactory.getLogger(OcspUtil.class);
+	//OCSP Timeout settings when initiating URL Connection and reading the response
+	private static final Integer OCSP_CONNECTION_TIMEOUT = 30; //seconds
+	private static final Integer OCSP_READ_TIMEOUT = 30; //seconds
 	
 	private OcspUtil() {}
 
@@ -110,46 +114,64 @@ public class OcspUtil {
 		return ocspUrls;
 	}
 	
-	public static String checkOcsp(X509Certificate certificate, X509Certificate issuer, String serviceUrl) throws Exception {
-			logger.debug("OCSP Check URL is {}",serviceUrl);
-			OCSPReq request = generateOCSPRequest(issuer, certificate.getSerialNumber());
-			OCSPResp ocspResponse = getOCSPResponse(serviceUrl, request);
-			if (OCSPResponseStatus.SUCCESSFUL == ocspResponse.getStatus())
-				logger.debug("OCSP Server responded with status");
-
-			BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
-			SingleResp[] responses = (basicResponse == null) ? null : basicResponse.getResponses();
-
-			if (responses != null && responses.length == 1) {
-				SingleResp resp = responses[0];
-				Object status = resp.getCertStatus();
-				if (status == org.bouncycastle.cert.ocsp.CertificateStatus.GOOD) {
-					logger.debug("OCSP Check Success. Certificate is valid");
-					return "Success";
-				} else if (status instanceof RevokedStatus) {
-					logger.debug("OCSP Check Failed. Certificate is revoked");
-					return "Failed";
-				} else if (status instanceof UnknownStatus) {
-					logger.debug("OCSP Check Unknown");
-					return "Unknown";
-				}
+	/**
+	 * Send OCSP request for the certificate and get the single response with its status
+	 * @param certificate certificate to be checked
+	 * @param issuer issuer of the certificate
+	 * @param serviceUrl URL of the OCSP responder
+	 * @param useNonce include nonce extension in the request. Nonce prevents replay of the responses,
+	 *                 but it also forces the responder to sign fresh response for every request
+	 * @return single response from the responder, or null if the response does not contain exactly one status
+	 * @throws Exception when the OCSP request cannot be built or sent
+	 */
+	public static SingleResp getOcspSingleResponse(X509Certificate certificate, X509Certificate issuer, String serviceUrl, boolean useNonce) throws Exception {
+		logger.debug("OCSP Check URL is {}",serviceUrl);
+		OCSPReq request = generateOCSPRequest(issuer, certificate.getSerialNumber(), useNonce);
+		OCSPResp ocspResponse = getOCSPResponse(serviceUrl, request);
+		if (OCSPResponseStatus.SUCCESSFUL == ocspResponse.getStatus())
+			logger.debug("OCSP Server responded with status");
+
+		BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
+		SingleResp[] responses = (basicResponse == null) ? null : basicResponse.getResponses();
+
+		if (responses != null && responses.length == 1) {
+			return responses[0];
+		}
+		return null;
+	}
+
+	public static String getOcspStatus(SingleResp resp) {
+		if (resp != null) {
+			Object status = resp.getCertStatus();
+			if (status == org.bouncycastle.cert.ocsp.CertificateStatus.GOOD) {
+				logger.debug("OCSP Check Success. Certificate is valid");
+				return "Success";
+			} else if (status instanceof RevokedStatus) {
+				logger.debug("OCSP Check Failed. Certificate is revoked");
+				return "Failed";
+			} else if (status instanceof UnknownStatus) {
+				logger.debug("OCSP Check Unknown");
+				return "Unknown";
+			}
 		}
 		logger.debug("OCSP Check Unknown.");
 		return "Unknown";
 	}
-	
-	private static OCSPReq generateOCSPRequest(X509Certificate issuerCert, BigInteger serialNumber)
+
+	private static OCSPReq generateOCSPRequest(X509Certificate issuerCert, BigInteger serialNumber, boolean useNonce)
 			throws OCSPException, IOException, OperatorException, CertificateEncodingException {
 		JcaDigestCalculatorProviderBuilder digestCalculatorProviderBuilder = new JcaDigestCalculatorProviderBuilder();
 		DigestCalculatorProvider digestCalculatorProvider = digestCalculatorProviderBuilder.build();
 		DigestCalculator digestCalculator = digestCalculatorProvider.get(CertificateID.HASH_SHA1);
 		CertificateID id = new CertificateID(digestCalculator, new JcaX509CertificateHolder(issuerCert), serialNumber);
-		BigInteger nonce = BigInteger.valueOf(System.currentTimeMillis());
 		OCSPReqBuilder gen = new OCSPReqBuilder();
 		gen.addRequest(id);
-		Extension ext = new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
-				new DEROctetString(nonce.toByteArray()));
-		gen.setRequestExtensions(new Extensions(new Extension[] { ext }));
+		if (useNonce) {
+			BigInteger nonce = BigInteger.valueOf(System.currentTimeMillis());
+			Extension ext = new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
+					new DEROctetString(nonce.toByteArray()));
+			gen.setRequestExtensions(new Extensions(new Extension[] { ext }));
+		}
 
 		return gen.build();
 	}
@@ -161,6 +183,8 @@ public class OcspUtil {
 			if (serviceUrl.startsWith("http")) {
 				URL url = new URL(serviceUrl);
 				HttpURLConnection con = (HttpURLConnection) url.openConnection();
+				con.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(OCSP_CONNECTION_TIMEOUT));
+				con.setReadTimeout((int) TimeUnit.SECONDS.toMillis(OCSP_READ_TIMEOUT));
 				con.setRequestProperty("Content-Type", "application/ocsp-request");
 				con.setRequestProperty("Accept", "application/ocsp-response");
 				con.setDoOutput(true);
@@ -0,0 +1,109 @@
+package com.czertainly.core.util;
+
+import com.czertainly.core.dao.entity.CertificateContent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+
+/**
+ * Cache of decoded X.509 certificates keyed by the fingerprint of their content, so that certificates repeatedly
+ * loaded from the inventory, e.g. issuers when building and validating chains, are not parsed over and over again.
+ * The cache is bounded by the number of certificates and by their total size approximated by the size of their DER
+ * encoding. Decoded certificates are shared between callers and must not be modified.
+ */
+@Component
+public class ParsedCertificateCache implements MeterBinder {
+
+    private final ExpiringCache<String, X509Certificate> certificates;
+
+    public ParsedCertificateCache(@Value("${certificate.parsed.cache.max-size:10000}") int maxSize,
+                                  @Value("${certificate.parsed.cache.max-bytes:50MB}") DataSize maxBytes,
+                                  @Value("${certificate.parsed.cache.max-age:1h}") Duration maxAge) {
+        this.certificates = new ExpiringCache<>(maxSize, maxBytes.toBytes(), maxAge, ParsedCertificateCache::getEncodedSize);
+    }
+
+    /**
+     * Get decoded certificate of the certificate content
+     * @param certificateContent certificate content from the inventory
+     * @return decoded certificate
+     * @throws CertificateException when the content cannot be parsed
+     */
+    public X509Certificate getX509Certificate(CertificateContent certificateContent) throws CertificateException {
+        return getX509Certificate(certificateContent.getFingerprint(), certificateContent.getContent());
+    }
+
+    /**
+     * Get decoded certificate from the cache or parse it and cache it under the fingerprint
+     * @param fingerprint fingerprint of the certificate, certificate without fingerprint is parsed and not cached
+     * @param content Base64 or PEM encoded certificate
+     * @return decoded certificate
+     * @throws CertificateException when the content cannot be parsed
+     */
+    public X509Certificate getX509Certificate(String fingerprint, String content) throws CertificateException {
+        if (fingerprint == null || !certificates.isEnabled()) {
+            return CertificateUtil.parseCertificate(content);
+        }
+        X509Certificate certificate = certificates.get(fingerprint);
+        if (certificate == null) {
+            certificate = CertificateUtil.parseCertificate(content);
+            certificates.put(fingerprint, certificate);
+        }
+        return certificate;
+    }
+
+    public void invalidate(String fingerprint) {
+        certificates.invalidate(fingerprint);
+    }
+
+    public long getHitCount() {
+        return certificates.getHitCount();
+    }
+
+    public long getMissCount() {
+        return certificates.getMissCount();
+    }
+
+    public int getSize() {
+        return certificates.size();
+    }
+
+    public long getSizeInBytes() {
+        return certificates.getWeight();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("certificate.parsed.cache.requests", this, ParsedCertificateCache::getHitCount)
+                .tag("result", "hit")
+                .description("Number of decoded certificates served from the cache")
+                .register(registry);
+        FunctionCounter.builder("certificate.parsed.cache.requests", this, ParsedCertificateCache::getMissCount)
+                .tag("result", "miss")
+                .description("Number of certificates that had to be parsed")
+                .register(registry);
+        Gauge.builder("certificate.parsed.cache.size", this, ParsedCertificateCache::getSize)
+                .description("Number of cached decoded certificates")
+                .register(registry);
+        Gauge.builder("certificate.parsed.cache.bytes", this, ParsedCertificateCache::getSizeInBytes)
+                .description("Encoded size of cached decoded certificates")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static long getEncodedSize(X509Certificate certificate) {
+        try {
+            return certificate.getEncoded().length;
+        } catch (CertificateEncodingException e) {
+            return 0;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.czertainly.core.util;
 
 public enum SecretEncodingVersion {
-    V1("v1");
+    V1("v1"),
+    V2("v2");
 
     private String version;
 
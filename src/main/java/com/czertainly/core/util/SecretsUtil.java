@@ -7,14 +7,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.HexFormat;
 
 @Component
 public class SecretsUtil {
@@ -23,16 +29,39 @@ public class SecretsUtil {
 
     private static String encryptionKey;
 
+    // identifies the encryption key in the cache of derived keys without keeping the key itself in the cache key
+    private static String encryptionKeyId;
+
+    // salt of the keys derived for V2 encryption, it is generated once per encryption key so that the derived key
+    // can be reused for all encrypted secrets while every secret still gets its own random IV
+    private static byte[] encryptionSaltV2;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    // keys derived by PBKDF are cached by the encryption key id, algorithm, salt and iteration count
+    private static final ExpiringCache<DerivedKeyId, SecretKey> derivedKeys = new ExpiringCache<>(1000, Duration.ofHours(1));
+
     @Value("${secrets.encryption.key}")
     public void setEncryptionKeyStatic(String key){
         SecretsUtil.encryptionKey = key;
+        SecretsUtil.encryptionKeyId = computeEncryptionKeyId(key);
+        SecretsUtil.encryptionSaltV2 = generateRandomSalt();
+        derivedKeys.invalidateAll();
     }
 
     private static final String algorithm = "PBEWithSHA256And256BitAES-CBC-BC";
     private static final int iterations = 1000;
 
+    private static final String keyDerivationAlgorithmV2 = "PBKDF2WithHmacSHA256";
+    private static final int iterationsV2 = 600000;
+    private static final String cipherIdV2 = "aes256gcm";
+    private static final String cipherAlgorithmV2 = "AES/GCM/NoPadding";
+    private static final int ivLengthV2 = 12;
+    private static final int tagLengthV2 = 128;
+
     /**
-     * Encrypts and encodes the given secret using the PBEWithSHA256And256BitAES-CBC-BC algorithm.
+     * Encrypts and encodes the given secret. V1 uses the PBEWithSHA256And256BitAES-CBC-BC algorithm, V2 uses AES-256-GCM
+     * with the key derived by PBKDF2WithHmacSHA256.
      * @param secret the secret to encrypt and encode
      * @param secretVersion the version of the encoding
      * @return the encrypted and encoded secret
@@ -42,15 +71,56 @@ public class SecretsUtil {
             return null;
         }
 
-        byte[] salt = generateRandomSalt();
+        if (secretVersion == SecretEncodingVersion.V1) {
+            return encryptAndEncodeSecretStringV1(secret);
+        } else if (secretVersion == SecretEncodingVersion.V2) {
+            return encryptAndEncodeSecretStringV2(secret);
+        } else {
+            throw new IllegalArgumentException("Secret version not supported");
+        }
+    }
+
+    /**
+     * Decodes and decrypts the given secret, the version of the encoding is read from the encoded secret
+     * @param secret the encoded secret
+     * @return the decrypted secret
+     */
+    public static String decodeAndDecryptSecretString(String secret) {
+        return decodeAndDecryptSecretString(secret, getSecretEncodingVersion(secret));
+    }
+
+    public static String decodeAndDecryptSecretString(String secret, SecretEncodingVersion secretVersion) {
+        if (secretVersion == SecretEncodingVersion.V1) {
+            return decodeAndDecryptSecretStringV1(secret);
+        } else if (secretVersion == SecretEncodingVersion.V2) {
+            return decodeAndDecryptSecretStringV2(secret);
+        } else {
+            throw new IllegalArgumentException("Secret version not supported");
+        }
+    }
 
-        PBEKeySpec keySpec = new PBEKeySpec(encryptionKey.toCharArray(), salt, iterations);
+    /**
+     * Get version of the encoding of the secret string
+     * @param secret the encoded secret
+     * @return version of the encoding
+     */
+    public static SecretEncodingVersion getSecretEncodingVersion(String secret) {
+        String version = secret.substring(0, Math.max(secret.indexOf('|'), 0));
+        for (SecretEncodingVersion secretVersion : SecretEncodingVersion.values()) {
+            if (secretVersion.getVersion().equals(version)) {
+                return secretVersion;
+            }
+        }
+        throw new IllegalArgumentException("Secret string is not in the correct format");
+    }
+
+    private static String encryptAndEncodeSecretStringV1(String secret) {
+        byte[] salt = generateRandomSalt();
         byte[] encryptedSecret;
 
         try {
             Cipher c = Cipher.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
-            SecretKeyFactory fact = SecretKeyFactory.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
-            c.init(Cipher.ENCRYPT_MODE, fact.generateSecret(keySpec));
+            c.init(Cipher.ENCRYPT_MODE, getDerivedKey(algorithm, salt, iterations));
             encryptedSecret = c.doFinal(secret.getBytes(StandardCharsets.UTF_8));
         } catch (NoSuchPaddingException e) {
             throw new IllegalStateException("Padding for " + algorithm + " not found.", e);
@@ -68,32 +138,17 @@ public class SecretsUtil {
             throw new IllegalStateException("Invalid key provided for " + algorithm, e);
         }
 
-        if (secretVersion == SecretEncodingVersion.V1) {
-            return encodeSecretStringV1(encryptedSecret, salt, iterations);
-        } else {
-            throw new IllegalArgumentException("Secret version not supported");
-        }
-
+        return encodeSecretStringV1(encryptedSecret, salt, iterations);
     }
 
-    public static String decodeAndDecryptSecretString(String secret, SecretEncodingVersion secretVersion) {
-        byte[] salt;
-        int iterations;
-        byte[] encryptedSecret;
-        if (secretVersion == SecretEncodingVersion.V1) {
-            salt = decodeSaltFromSecretStringV1(secret);
-            iterations = getIterationsFromSecretStringV1(secret);
-            encryptedSecret = decodeEncryptedSecretFromSecretStringV1(secret);
-        } else {
-            throw new IllegalArgumentException("Secret version not supported");
-        }
-
-        PBEKeySpec keySpec = new PBEKeySpec(encryptionKey.toCharArray(), salt, iterations);
+    private static String decodeAndDecryptSecretStringV1(String secret) {
+        byte[] salt = decodeSaltFromSecretStringV1(secret);
+        int iterations = getIterationsFromSecretStringV1(secret);
+        byte[] encryptedSecret = decodeEncryptedSecretFromSecretStringV1(secret);
 
         try {
             Cipher c = Cipher.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
-            SecretKeyFactory fact = SecretKeyFactory.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
-            c.init(Cipher.DECRYPT_MODE, fact.generateSecret(keySpec));
+            c.init(Cipher.DECRYPT_MODE, getDerivedKey(algorithm, salt, iterations));
             byte[] decryptedSecret = c.doFinal(encryptedSecret);
             return new String(decryptedSecret);
         } catch (NoSuchPaddingException e) {
@@ -113,6 +168,69 @@ public class SecretsUtil {
         }
     }
 
+    private static String encryptAndEncodeSecretStringV2(String secret) {
+        byte[] salt = encryptionSaltV2;
+        byte[] iv = new byte[ivLengthV2];
+        random.nextBytes(iv);
+
+        try {
+            Cipher c = Cipher.getInstance(cipherAlgorithmV2);
+            c.init(Cipher.ENCRYPT_MODE, getDerivedKey(keyDerivationAlgorithmV2, salt, iterationsV2), new GCMParameterSpec(tagLengthV2, iv));
+            byte[] encryptedSecret = c.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+            return encodeSecretStringV2(cipherIdV2, iterationsV2, salt, iv, encryptedSecret);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt secret with " + cipherAlgorithmV2, e);
+        }
+    }
+
+    private static String decodeAndDecryptSecretStringV2(String secret) {
+        String[] parts = splitSecretStringV2(secret);
+        if (!parts[1].equals(cipherIdV2)) {
+            throw new IllegalArgumentException("Cipher " + parts[1] + " of the secret string is not supported");
+        }
+        int iterations = Integer.parseInt(parts[2]);
+        byte[] salt = Base64.getDecoder().decode(parts[3]);
+        byte[] iv = Base64.getDecoder().decode(parts[4]);
+        byte[] encryptedSecret = Base64.getDecoder().decode(parts[5]);
+
+        try {
+            Cipher c = Cipher.getInstance(cipherAlgorithmV2);
+            c.init(Cipher.DECRYPT_MODE, getDerivedKey(keyDerivationAlgorithmV2, salt, iterations), new GCMParameterSpec(tagLengthV2, iv));
+            return new String(c.doFinal(encryptedSecret), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt secret with " + cipherAlgorithmV2, e);
+        }
+    }
+
+    /**
+     * Get key derived from the encryption key, the key is derived only when it is not cached yet
+     * @param keyAlgorithm algorithm of the key derivation
+     * @param salt salt of the derivation
+     * @param count number of iterations
+     * @return derived key
+     */
+    private static SecretKey getDerivedKey(String keyAlgorithm, byte[] salt, int count) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException {
+        DerivedKeyId derivedKeyId = new DerivedKeyId(encryptionKeyId, keyAlgorithm, Base64.getEncoder().encodeToString(salt), count);
+        SecretKey derivedKey = derivedKeys.get(derivedKeyId);
+        if (derivedKey != null) {
+            return derivedKey;
+        }
+
+        if (keyAlgorithm.equals(keyDerivationAlgorithmV2)) {
+            PBEKeySpec keySpec = new PBEKeySpec(encryptionKey.toCharArray(), salt, count, 256);
+            SecretKeyFactory fact = SecretKeyFactory.getInstance(keyAlgorithm);
+            derivedKey = new SecretKeySpec(fact.generateSecret(keySpec).getEncoded(), "AES");
+            keySpec.clearPassword();
+        } else {
+            PBEKeySpec keySpec = new PBEKeySpec(encryptionKey.toCharArray(), salt, count);
+            SecretKeyFactory fact = SecretKeyFactory.getInstance(keyAlgorithm, BouncyCastleProvider.PROVIDER_NAME);
+            derivedKey = fact.generateSecret(keySpec);
+            keySpec.clearPassword();
+        }
+        derivedKeys.put(derivedKeyId, derivedKey);
+        return derivedKey;
+    }
+
     /**
      * Encoded the secret value into string
      * V1|secret|salt|count
@@ -138,6 +256,41 @@ public class SecretsUtil {
         return encoded.toString();
     }
 
+    /**
+     * Encoded the secret value into string, cipher and number of iterations are part of the encoded string so that
+     * they can be changed without breaking already encoded secrets
+     * V2|cipher|count|salt|iv|secret
+     * @param cipherId identifier of the cipher
+     * @param count number of iterations of the key derivation
+     * @param salt salt of the key derivation
+     * @param iv initialization vector of the cipher
+     * @param secret value to be encoded
+     * @return encoded string
+     */
+    private static String encodeSecretStringV2(String cipherId, int count, byte[] salt, byte[] iv, byte[] secret) {
+        String encoded = String.join("|",
+                SecretEncodingVersion.V2.getVersion(),
+                cipherId,
+                String.valueOf(count),
+                Base64.getEncoder().encodeToString(salt),
+                Base64.getEncoder().encodeToString(iv),
+                Base64.getEncoder().encodeToString(secret));
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Encoded data: " + encoded);
+        }
+
+        return encoded;
+    }
+
+    private static String[] splitSecretStringV2(String secret) {
+        String[] parts = secret.split("\\|");
+        if (parts.length != 6 || !parts[0].equals(SecretEncodingVersion.V2.getVersion())) {
+            throw new IllegalArgumentException("Secret string is not in the correct format");
+        }
+        return parts;
+    }
+
     private static byte[] decodeSaltFromSecretStringV1(String secret) {
         if (isSecretStringV1(secret)) {
             String[] parts = secret.split("\\|");
@@ -173,15 +326,34 @@ public class SecretsUtil {
         return parts[0].equals("v1");
     }
 
+    private static String computeEncryptionKeyId(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algorithm SHA-256 not found", e);
+        }
+    }
+
+    static long getDerivedKeyCacheHitCount() {
+        return derivedKeys.getHitCount();
+    }
+
+    static long getDerivedKeyCacheMissCount() {
+        return derivedKeys.getMissCount();
+    }
+
     /**
      * Generate random salt for encryption
      * @return salt
      */
     private static byte[] generateRandomSalt() {
-        final SecureRandom random = new SecureRandom();
         byte[] bytes = new byte[32];
         random.nextBytes(bytes);
         return bytes;
     }
 
+    private record DerivedKeyId(String encryptionKeyId, String algorithm, String salt, int iterations) {
+    }
+
 }
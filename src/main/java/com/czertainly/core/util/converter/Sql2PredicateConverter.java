@@ -12,42 +12,65 @@ import com.czertainly.api.model.core.search.SearchableFields;
 import com.czertainly.core.dao.entity.*;
 import com.czertainly.core.enums.SearchFieldNameEnum;
 import com.czertainly.core.enums.SearchFieldTypeEnum;
+import com.czertainly.core.config.JsonbFunctionContributor;
 import com.czertainly.core.model.SearchFieldObject;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.criteria.*;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class Sql2PredicateConverter {
 
-    private static final String OCSP_VERIFICATION = "%\"OCSP Verification\":{\"status\":\"%STATUS%\"%";
-    private static final String SIGNATURE_VERIFICATION = "%\"Signature Verification\":{\"status\":\"%STATUS%\"%";
-    private static final String CRL_VERIFICATION = "%\"CRL Verification\":{\"status\":\"%STATUS%\"%";
+    private static final String OCSP_VERIFICATION = "OCSP Verification";
+    private static final String SIGNATURE_VERIFICATION = "Signature Verification";
+    private static final String CRL_VERIFICATION = "CRL Verification";
 
-    public static Predicate mapSearchFilter2Predicates(final List<SearchFilterRequestDto> dtos, final CriteriaBuilder criteriaBuilder, final Root root, final List<UUID> objectUUIDsToBeFiltered) {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static Predicate mapSearchFilter2Predicates(final List<SearchFilterRequestDto> dtos, final CriteriaBuilder criteriaBuilder, final Root root) {
         final List<Predicate> predicates = new ArrayList<>();
-        boolean hasFilteredAttributes = false;
         for (final SearchFilterRequestDto dto : dtos) {
             if (dto.getSearchGroup() == SearchGroup.PROPERTY) {
                 predicates.add(mapSearchFilter2Predicate(dto, criteriaBuilder, root));
-            } else {
-                hasFilteredAttributes = true;
             }
         }
-        final Predicate propertyPredicates = criteriaBuilder.and(predicates.toArray(new Predicate[]{}));
-        if (objectUUIDsToBeFiltered != null && !dtos.isEmpty() && hasFilteredAttributes) {
-            Predicate uuidOrPredicate = root.get("uuid").in(objectUUIDsToBeFiltered);
-            if (root.getJavaType().equals(CryptographicKeyItem.class)) {
-                uuidOrPredicate = criteriaBuilder.or(
-                        uuidOrPredicate,
-                        prepareExpression(root, "cryptographicKey.uuid").in(objectUUIDsToBeFiltered));
-            }
-            return criteriaBuilder.and(propertyPredicates, uuidOrPredicate);
-        }
-        return propertyPredicates;
+        return criteriaBuilder.and(predicates.toArray(new Predicate[]{}));
     }
 
-    public static Predicate mapSearchFilter2Predicates(final List<SearchFilterRequestDto> dtos, final CriteriaBuilder criteriaBuilder, final Root root) {
-        return mapSearchFilter2Predicates(dtos, criteriaBuilder, root, null);
+    /**
+     * Map search filters to predicates of the query. Filters of the attributes of the objects are mapped to correlated
+     * EXISTS subqueries into the attribute contents of the objects, so that the query is evaluated in single round trip.
+     *
+     * @param dtos             search filters
+     * @param criteriaBuilder  criteria builder
+     * @param root             root of the searched objects
+     * @param query            query of the searched objects, used to create subqueries
+     * @param searchableFields searchable attributes of the objects
+     * @param resource         resource of the searched objects
+     * @return predicate of all filters
+     */
+    public static Predicate mapSearchFilter2Predicates(final List<SearchFilterRequestDto> dtos, final CriteriaBuilder criteriaBuilder, final Root root, final CommonAbstractCriteria query, final List<SearchFieldObject> searchableFields, final Resource resource) {
+        final List<Predicate> predicates = new ArrayList<>();
+        for (final SearchFilterRequestDto dto : dtos) {
+            if (dto.getSearchGroup() == SearchGroup.PROPERTY) {
+                predicates.add(mapSearchFilter2Predicate(dto, criteriaBuilder, root));
+            } else if (dto.getSearchGroup() == SearchGroup.CUSTOM || dto.getSearchGroup() == SearchGroup.META) {
+                final Subquery<UUID> subquery = prepareSubqueryToSearchIntoAttributes(query, searchableFields, dto, criteriaBuilder, resource, subRoot -> {
+                    final Expression<UUID> objectUuid = subRoot.get("objectUuid");
+                    if (root.getJavaType().equals(CryptographicKeyItem.class)) {
+                        return criteriaBuilder.or(
+                                criteriaBuilder.equal(objectUuid, root.get("uuid")),
+                                criteriaBuilder.equal(objectUuid, root.get("cryptographicKeyUuid")));
+                    }
+                    return criteriaBuilder.equal(objectUuid, root.get("uuid"));
+                });
+                // attribute not present on any object of the resource cannot match
+                predicates.add(subquery != null ? criteriaBuilder.exists(subquery) : criteriaBuilder.disjunction());
+            }
+        }
+        return criteriaBuilder.and(predicates.toArray(new Predicate[]{}));
     }
 
     public static Predicate mapSearchFilter2Predicate(final SearchFilterRequestDto dto, final CriteriaBuilder criteriaBuilder, final Root root) {
@@ -269,19 +292,22 @@ public class Sql2PredicateConverter {
 
     private static Predicate checkCertificateValidationResult(final Root root, final CriteriaBuilder criteriaBuilder, final SearchFilterRequestDto dto, final Object valueObject, final SearchableFields searchableFields) {
         if (List.of(SearchableFields.OCSP_VALIDATION, SearchableFields.CRL_VALIDATION, SearchableFields.SIGNATURE_VALIDATION).contains(searchableFields)) {
-            String textToBeFormatted = null;
+            String validationName = null;
             switch (searchableFields) {
-                case OCSP_VALIDATION -> textToBeFormatted = OCSP_VERIFICATION;
-                case SIGNATURE_VALIDATION -> textToBeFormatted = SIGNATURE_VERIFICATION;
-                case CRL_VALIDATION -> textToBeFormatted = CRL_VERIFICATION;
+                case OCSP_VALIDATION -> validationName = OCSP_VERIFICATION;
+                case SIGNATURE_VALIDATION -> validationName = SIGNATURE_VERIFICATION;
+                case CRL_VALIDATION -> validationName = CRL_VERIFICATION;
             }
-            if (textToBeFormatted != null) {
+            if (validationName != null) {
+                // jsonb containment can use the GIN index of the validation result column
+                final Predicate containsStatus = criteriaBuilder.isTrue(criteriaBuilder.function(JsonbFunctionContributor.JSONB_CONTAINS, Boolean.class,
+                        root.get("certificateValidationResult"), criteriaBuilder.literal(formatCertificateVerificationResultByStatus(validationName, valueObject.toString()))));
                 switch (dto.getCondition()) {
                     case EQUALS -> {
-                        return criteriaBuilder.like(root.get("certificateValidationResult"), formatCertificateVerificationResultByStatus(textToBeFormatted, valueObject.toString()));
+                        return containsStatus;
                     }
                     case NOT_EQUALS -> {
-                        return criteriaBuilder.notLike(root.get("certificateValidationResult"), formatCertificateVerificationResultByStatus(textToBeFormatted, valueObject.toString()));
+                        return criteriaBuilder.not(containsStatus);
                     }
                 }
             }
@@ -289,119 +315,68 @@ public class Sql2PredicateConverter {
         return null;
     }
 
-    private static String formatCertificateVerificationResultByStatus(final String textToBeFormatted, final String statusCode) {
-        return textToBeFormatted.replace("%STATUS%", statusCode);
+    private static String formatCertificateVerificationResultByStatus(final String validationName, final String statusCode) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(Map.of(validationName, Map.of("status", statusCode)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    public static CriteriaQueryDataObject prepareQueryToSearchIntoAttributes(final List<SearchFieldObject> searchableFields, final List<SearchFilterRequestDto> dtos, final CriteriaBuilder criteriaBuilder, final Resource resource) {
-
-        final CriteriaQuery<UUID> criteriaQuery = criteriaBuilder.createQuery(UUID.class);
-        final Root<AttributeContent2Object> root = criteriaQuery.from(AttributeContent2Object.class);
-
-        criteriaQuery.distinct(true).select(root.get("objectUuid"));
-
-        final List<Predicate> rootPredicates = new ArrayList<>();
-
-        for (final SearchFilterRequestDto dto : dtos) {
-            final SearchGroup searchGroup = dto.getSearchGroup();
-            if (searchGroup == SearchGroup.CUSTOM || searchGroup == SearchGroup.META) {
-
-                // --- SUB QUERY ---
-                final Subquery<UUID> subquery = criteriaQuery.subquery(UUID.class);
-                final Root<AttributeContent2Object> subRoot = subquery.from(AttributeContent2Object.class);
-                final Join<AttributeContent2Object, AttributeContent> joinAttributeContent = subRoot.join("attributeContent");
-                final Join<AttributeContent, AttributeContentItem> joinAttributeContentItem = joinAttributeContent.join("attributeContentItems");
-
-                subquery.select(subRoot.get("objectUuid"));
-
-                final List<Predicate> subPredicates = new ArrayList<>();
-                subPredicates.add(criteriaBuilder.equal(subRoot.get("objectType"), resource));
+    private static Subquery<UUID> prepareSubqueryToSearchIntoAttributes(final CommonAbstractCriteria query, final List<SearchFieldObject> searchableFields, final SearchFilterRequestDto dto, final CriteriaBuilder criteriaBuilder, final Resource resource, final Function<Root<AttributeContent2Object>, Predicate> correlation) {
+        final SearchGroup searchGroup = dto.getSearchGroup();
+        final String identifier = dto.getFieldIdentifier();
+        final String[] fieldIdentifier = identifier.split("\\|");
+        final AttributeContentType fieldAttributeContentType = AttributeContentType.valueOf(fieldIdentifier[1]);
+        final String fieldIdentifierName = fieldIdentifier[0];
+        final Optional<SearchFieldObject> searchFieldObject =
+                searchableFields.stream().filter(attr ->
+                        attr.getAttributeType().equals(searchGroup.getAttributeType())
+                                && attr.getAttributeName().equals(fieldIdentifierName)
+                                && attr.getAttributeContentType().equals(fieldAttributeContentType)).findFirst();
+        if (searchFieldObject.isEmpty()) {
+            return null;
+        }
 
-                final String identifier = dto.getFieldIdentifier();
-                final String[] fieldIdentifier = identifier.split("\\|");
-                final AttributeContentType fieldAttributeContentType = AttributeContentType.valueOf(fieldIdentifier[1]);
-                final String fieldIdentifierName = fieldIdentifier[0];
-                final Optional<SearchFieldObject> searchFieldObject =
-                        searchableFields.stream().filter(attr ->
-                                attr.getAttributeType().equals(searchGroup.getAttributeType())
-                                        && attr.getAttributeName().equals(fieldIdentifierName)
-                                        && attr.getAttributeContentType().equals(fieldAttributeContentType)).findFirst();
+        // --- SUB QUERY ---
+        final Subquery<UUID> subquery = query.subquery(UUID.class);
+        final Root<AttributeContent2Object> subRoot = subquery.from(AttributeContent2Object.class);
+        final Join<AttributeContent2Object, AttributeContent> joinAttributeContent = subRoot.join("attributeContent");
+        final Join<AttributeContent, AttributeContentItem> joinAttributeContentItem = joinAttributeContent.join("attributeContentItems");
 
-                if (searchFieldObject.isPresent()) {
+        subquery.select(subRoot.get("objectUuid"));
 
-                    final SearchFieldObject searchField = searchFieldObject.get();
+        final List<Predicate> subPredicates = new ArrayList<>();
+        subPredicates.add(criteriaBuilder.equal(subRoot.get("objectType"), resource));
+        subPredicates.add(correlation.apply(subRoot));
 
-                    final Subquery<String> jsonValueQuery = subquery.subquery(String.class);
-                    final Root subACIRoot = jsonValueQuery.from(AttributeContentItem.class);
+        final SearchFieldObject searchField = searchFieldObject.get();
 
-                    final Expression expressionFunctionToGetJsonValue = criteriaBuilder.function("jsonb_extract_path_text", String.class, subACIRoot.get("json"),
-                            criteriaBuilder.literal(searchField.getAttributeContentType().isFilterByData() ? "data" : "reference"));
+        final Subquery<String> jsonValueQuery = subquery.subquery(String.class);
+        final Root subACIRoot = jsonValueQuery.from(AttributeContentItem.class);
 
-                    final Predicate predicateForContentType = criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.contentType"), searchField.getAttributeContentType());
-                    final Predicate predicateToKeepRelationWithUpperQuery = criteriaBuilder.equal(subACIRoot.get("uuid"), joinAttributeContentItem.get("uuid"));
-                    final Predicate predicateGroup = criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.type"), searchField.getAttributeType());
-                    final Predicate predicateAttributeName =
-                            criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.attributeName"), fieldIdentifierName);
+        final Expression expressionFunctionToGetJsonValue = criteriaBuilder.function("jsonb_extract_path_text", String.class, subACIRoot.get("json"),
+                criteriaBuilder.literal(searchField.getAttributeContentType().isFilterByData() ? "data" : "reference"));
 
-                    jsonValueQuery.select(expressionFunctionToGetJsonValue);
-                    jsonValueQuery.where(predicateForContentType, predicateToKeepRelationWithUpperQuery, predicateAttributeName, predicateGroup);
+        final Predicate predicateForContentType = criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.contentType"), searchField.getAttributeContentType());
+        final Predicate predicateToKeepRelationWithUpperQuery = criteriaBuilder.equal(subACIRoot.get("uuid"), joinAttributeContentItem.get("uuid"));
+        final Predicate predicateGroup = criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.type"), searchField.getAttributeType());
+        final Predicate predicateAttributeName =
+                criteriaBuilder.equal(prepareExpression(subACIRoot, "attributeContent.attributeDefinition.attributeName"), fieldIdentifierName);
 
-                    final Predicate predicateOfTheExpression =
-                            buildPredicateByCondition(criteriaBuilder, dto.getCondition(), jsonValueQuery, null, null, null, searchField.isDateTimeFormat(), searchField.isBooleanFormat(), dto, searchField);
+        jsonValueQuery.select(expressionFunctionToGetJsonValue);
+        jsonValueQuery.where(predicateForContentType, predicateToKeepRelationWithUpperQuery, predicateAttributeName, predicateGroup);
 
-                    subPredicates.add(predicateOfTheExpression);
-                    subquery.where(subPredicates.toArray(new Predicate[]{}));
-                    rootPredicates.add(criteriaBuilder.in(root.get("objectUuid")).value(subquery));
-                }
-            }
-        }
+        final Predicate predicateOfTheExpression =
+                buildPredicateByCondition(criteriaBuilder, dto.getCondition(), jsonValueQuery, null, null, null, searchField.isDateTimeFormat(), searchField.isBooleanFormat(), dto, searchField);
 
-        final CriteriaQueryDataObject cqdo = new CriteriaQueryDataObject();
-        cqdo.setCriteriaQuery(criteriaQuery);
-        cqdo.setPredicate(criteriaBuilder.and(rootPredicates.toArray(new Predicate[]{})));
-        return cqdo;
+        subPredicates.add(predicateOfTheExpression);
+        subquery.where(subPredicates.toArray(new Predicate[]{}));
+        return subquery;
     }
 
     public static Predicate constructFilterForJobHistory(final CriteriaBuilder cb, final Root<ScheduledJobHistory> root, final UUID scheduledJobUuid) {
         final Expression<?> expressionPath = prepareExpression(root, "scheduledJobUuid");
         return cb.equal(expressionPath, scheduledJobUuid);
     }
-
-
-    public static class CriteriaQueryDataObject {
-
-        private CriteriaQuery criteriaQuery;
-
-        private Root root;
-
-        private Predicate predicate;
-
-        public CriteriaQuery getCriteriaQuery() {
-            return criteriaQuery;
-        }
-
-        public void setCriteriaQuery(CriteriaQuery criteriaQuery) {
-            this.criteriaQuery = criteriaQuery;
-        }
-
-        public Predicate getPredicate() {
-            return predicate;
-        }
-
-        public void setPredicate(Predicate predicate) {
-            this.predicate = predicate;
-        }
-
-        public Root getRoot() {
-            return root;
-        }
-
-        public void setRoot(Root root) {
-            this.root = root;
-        }
-    }
-
-
 }
-
-
@@ -0,0 +1,108 @@
+package db.migration;
+
+import com.czertainly.core.util.DatabaseMigration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Migration of certificate validation and compliance results from text to jsonb columns. Results are converted in
+ * batches ordered by certificate UUID, values that are empty or not valid JSON are not converted.
+ */
+public class V202308021000__CertificateJsonResults extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V202308021000__CertificateJsonResults.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String SELECT_BATCH_SCRIPT =
+            "SELECT uuid, certificate_validation_result, compliance_result FROM certificate " +
+                    "WHERE uuid > ? ORDER BY uuid LIMIT " + BATCH_SIZE;
+
+    private static final String UPDATE_SCRIPT =
+            "UPDATE certificate SET certificate_validation_result_json = CAST(? AS jsonb), compliance_result_json = CAST(? AS jsonb) " +
+                    "WHERE uuid = ?";
+
+    @Override
+    public Integer getChecksum() {
+        return DatabaseMigration.JavaMigrationChecksums.V202308021000__CertificateJsonResults.getChecksum();
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE certificate ADD COLUMN certificate_validation_result_json jsonb, ADD COLUMN compliance_result_json jsonb");
+        }
+
+        int converted = convertResults(connection);
+        logger.info("Converted validation and compliance results of {} certificates to jsonb", converted);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE certificate DROP COLUMN certificate_validation_result, DROP COLUMN compliance_result");
+            statement.execute("ALTER TABLE certificate RENAME COLUMN certificate_validation_result_json TO certificate_validation_result");
+            statement.execute("ALTER TABLE certificate RENAME COLUMN compliance_result_json TO compliance_result");
+        }
+    }
+
+    private int convertResults(Connection connection) throws SQLException {
+        int converted = 0;
+        UUID lastUuid = new UUID(0, 0);
+        try (PreparedStatement select = connection.prepareStatement(SELECT_BATCH_SCRIPT);
+             PreparedStatement update = connection.prepareStatement(UPDATE_SCRIPT)) {
+            int rowCount;
+            do {
+                rowCount = 0;
+                int updateCount = 0;
+                select.setObject(1, lastUuid);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        ++rowCount;
+                        lastUuid = rows.getObject("uuid", UUID.class);
+                        String validationResult = toJson(lastUuid, rows.getString("certificate_validation_result"));
+                        String complianceResult = toJson(lastUuid, rows.getString("compliance_result"));
+                        if (validationResult == null && complianceResult == null) {
+                            continue;
+                        }
+                        update.setObject(1, validationResult, Types.VARCHAR);
+                        update.setObject(2, complianceResult, Types.VARCHAR);
+                        update.setObject(3, lastUuid);
+                        update.addBatch();
+                        ++updateCount;
+                    }
+                }
+                if (updateCount > 0) {
+                    update.executeBatch();
+                    converted += updateCount;
+                }
+            } while (rowCount == BATCH_SIZE);
+        }
+        return converted;
+    }
+
+    private static String toJson(UUID certificateUuid, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            OBJECT_MAPPER.readTree(value);
+            return value;
+        } catch (JsonProcessingException e) {
+            logger.warn("Result of certificate {} is not valid JSON and is not migrated: {}", certificateUuid, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- counts of certificates per dimension value, refreshed on schedule when the materialized statistics are enabled
+create table if not exists certificate_statistics (
+    dimension varchar not null,
+    value varchar not null,
+    count bigint not null default 0,
+    primary key (dimension, value)
+);
@@ -0,0 +1,31 @@
+-- plain column indexes are also declared on the entity, so they can exist already in generated schemas
+-- fingerprint index is not unique, existing installations can contain duplicate certificates, new certificates
+-- are checked by their fingerprint before they are created
+create index if not exists certificate_fingerprint_index
+    on certificate (fingerprint);
+
+-- derived queries with IgnoreCase compare upper-cased values
+create index if not exists certificate_serial_number_upper_index
+    on certificate (upper(serial_number));
+
+-- distinguished names are long and looked up only by equality
+create index if not exists certificate_issuer_dn_hash_index
+    on certificate using hash (issuer_dn);
+
+create index if not exists certificate_subject_dn_hash_index
+    on certificate using hash (subject_dn);
+
+create index if not exists certificate_status_index
+    on certificate (status);
+
+create index if not exists certificate_not_after_index
+    on certificate (not_after);
+
+create index if not exists certificate_status_validation_timestamp_index
+    on certificate (status_validation_timestamp asc nulls first);
+
+create index if not exists certificate_public_key_fingerprint_index
+    on certificate (public_key_fingerprint);
+
+create index if not exists certificate_key_uuid_index
+    on certificate (key_uuid);
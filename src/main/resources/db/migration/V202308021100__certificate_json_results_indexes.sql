@@ -0,0 +1,6 @@
+-- jsonb_path_ops indexes support containment (@>) queries of search and compliance rule updates
+create index if not exists certificate_validation_result_gin_index
+    on certificate using gin (certificate_validation_result jsonb_path_ops);
+
+create index if not exists certificate_compliance_result_gin_index
+    on certificate using gin (compliance_result jsonb_path_ops);
@@ -0,0 +1,3 @@
+-- audit logs are purged and listed by the time they were created
+create index if not exists audit_log_i_cre_index
+    on audit_log (i_cre);
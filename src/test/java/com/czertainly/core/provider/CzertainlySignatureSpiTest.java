@@ -0,0 +1,122 @@
+package com.czertainly.core.provider;
+
+import com.czertainly.api.clients.cryptography.CryptographicOperationsApiClient;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataResponseDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.core.attribute.RsaSignatureAttributes;
+import com.czertainly.core.provider.key.CzertainlyPrivateKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Provider;
+import java.security.Signature;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CzertainlySignatureSpiTest {
+
+    private static final Provider BC = new BouncyCastleProvider();
+
+    private static final int DATA_SIZE = 8 * 1024 * 1024;
+
+    private final AtomicReference<SignDataRequestDto> lastRequest = new AtomicReference<>();
+
+    private CryptographicOperationsApiClient apiClient;
+    private byte[] data;
+
+    // key and algorithm the stub connector signs the received data with
+    private KeyPair keyPair;
+    private String connectorAlgorithm;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        data = new byte[DATA_SIZE];
+        new Random(42).nextBytes(data);
+
+        SignDataResponseDto response = Mockito.mock(SignDataResponseDto.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(response.getSignatures().get(0).getData()).thenAnswer(invocation -> {
+            Signature connectorSignature = Signature.getInstance(connectorAlgorithm, BC);
+            connectorSignature.initSign(keyPair.getPrivate());
+            connectorSignature.update(getSignedData());
+            return connectorSignature.sign();
+        });
+
+        apiClient = Mockito.mock(CryptographicOperationsApiClient.class);
+        Mockito.when(apiClient.signData(Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenAnswer(invocation -> {
+            lastRequest.set(invocation.getArgument(3));
+            return response;
+        });
+    }
+
+    @Test
+    public void testHashThenSignRsa() throws Exception {
+        keyPair = generateKeyPair("RSA", 2048);
+        Provider provider = CzertainlyProvider.getInstance("SpiTestRsa", false, apiClient, true);
+
+        byte[] signature = sign(provider, "SHA256withRSA", "NONEwithRSA");
+
+        // DigestInfo with SHA-256 hash is sent to the connector instead of the data
+        Assertions.assertEquals(51, getSignedData().length);
+        Assertions.assertTrue(lastRequest.get().getSignatureAttributes().stream()
+                .noneMatch(attribute -> RsaSignatureAttributes.ATTRIBUTE_DATA_SIG_DIGEST.equals(attribute.getName())));
+        Assertions.assertTrue(verify("SHA256withRSA", signature));
+    }
+
+    @Test
+    public void testHashThenSignEcdsa() throws Exception {
+        keyPair = generateKeyPair("EC", 256);
+        Provider provider = CzertainlyProvider.getInstance("SpiTestEcdsa", false, apiClient, true);
+
+        byte[] signature = sign(provider, "SHA256withECDSA", "NONEwithECDSA");
+
+        Assertions.assertEquals(32, getSignedData().length);
+        Assertions.assertTrue(verify("SHA256withECDSA", signature));
+    }
+
+    @Test
+    public void testSignDataOnConnector() throws Exception {
+        keyPair = generateKeyPair("RSA", 2048);
+        Provider provider = CzertainlyProvider.getInstance("SpiTestData", false, apiClient);
+
+        byte[] signature = sign(provider, "SHA256withRSA", "SHA256withRSA");
+
+        Assertions.assertEquals(DATA_SIZE, getSignedData().length);
+        Assertions.assertTrue(lastRequest.get().getSignatureAttributes().stream()
+                .anyMatch(attribute -> RsaSignatureAttributes.ATTRIBUTE_DATA_SIG_DIGEST.equals(attribute.getName())));
+        Assertions.assertTrue(verify("SHA256withRSA", signature));
+    }
+
+    private byte[] sign(Provider provider, String algorithm, String connectorAlgorithm) throws Exception {
+        this.connectorAlgorithm = connectorAlgorithm;
+        Signature signature = Signature.getInstance(algorithm, provider);
+        signature.initSign(new CzertainlyPrivateKey("tokenInstanceUuid", "keyUuid", new ConnectorDto(), keyPair.getPrivate().getAlgorithm()));
+        for (int offset = 0; offset < data.length; offset += 64 * 1024) {
+            signature.update(data, offset, Math.min(64 * 1024, data.length - offset));
+        }
+
+        return signature.sign();
+    }
+
+    private boolean verify(String algorithm, byte[] signatureValue) throws Exception {
+        Signature signature = Signature.getInstance(algorithm, BC);
+        signature.initVerify(keyPair.getPublic());
+        signature.update(data);
+        return signature.verify(signatureValue);
+    }
+
+    private byte[] getSignedData() {
+        return lastRequest.get().getData().get(0).getData();
+    }
+
+    private static KeyPair generateKeyPair(String algorithm, int keySize) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm, BC);
+        generator.initialize(keySize);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,239 @@
+package com.czertainly.core.provider;
+
+import com.czertainly.api.exception.ConnectorCommunicationException;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataResponseDto;
+import com.czertainly.api.model.connector.cryptography.operations.data.SignatureRequestData;
+import com.czertainly.api.model.core.connector.AuthType;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.core.provider.key.CzertainlyPrivateKey;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Integration benchmark of the cryptographic operations client against a stub token connector, which returns SHA-256
+ * hash of every data entry as its signature after a fixed latency.
+ */
+public class PooledCryptographicOperationsApiClientTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledCryptographicOperationsApiClientTest.class);
+
+    private static final int THREADS = 32;
+    private static final int REQUESTS = 640;
+    private static final long CONNECTOR_LATENCY_MILLIS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger connectorCalls = new AtomicInteger();
+    private final AtomicInteger signedEntries = new AtomicInteger();
+    private final Map<String, String> signedDataPaths = new ConcurrentHashMap<>();
+
+    private MockWebServer tokenConnector;
+    private ConnectorDto connector;
+    private ConnectionProvider connectionProvider;
+    private ExecutorService executor;
+    private volatile long connectorLatencyMillis = CONNECTOR_LATENCY_MILLIS;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tokenConnector = new MockWebServer();
+        tokenConnector.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                connectorCalls.incrementAndGet();
+                Thread.sleep(connectorLatencyMillis);
+                try {
+                    return new MockResponse()
+                            .setResponseCode(200)
+                            .setHeader("content-type", "application/json")
+                            .setBody(sign(request.getPath(), request.getBody().readUtf8()));
+                } catch (Exception e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+        tokenConnector.start();
+
+        connector = new ConnectorDto();
+        connector.setName("stubTokenConnector");
+        connector.setUrl(tokenConnector.url("").toString().replaceAll("/$", ""));
+        connector.setAuthType(AuthType.NONE);
+
+        connectionProvider = ConnectionProvider.builder("test-cryptographic-operations").maxConnections(THREADS).build();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        connectionProvider.dispose();
+        tokenConnector.shutdown();
+    }
+
+    @Test
+    public void testSignWithoutBatching() throws Exception {
+        PooledCryptographicOperationsApiClient client = createClient(THREADS, Duration.ofSeconds(10), 1);
+
+        long throughput = runSignBenchmark(client, "keyUuid");
+
+        Assertions.assertEquals(REQUESTS, connectorCalls.get());
+        Assertions.assertEquals(REQUESTS, signedEntries.get());
+        logger.info("Signatures per second without batching: {}", throughput);
+    }
+
+    @Test
+    public void testSignWithBatching() throws Exception {
+        PooledCryptographicOperationsApiClient client = createClient(THREADS, Duration.ofSeconds(10), 16);
+
+        long throughput = runSignBenchmark(client, "keyUuid");
+
+        // every request received its own signature, concurrent requests shared the connector calls
+        Assertions.assertEquals(REQUESTS, signedEntries.get());
+        Assertions.assertTrue(connectorCalls.get() < REQUESTS / 2, "Sign requests were not coalesced: " + connectorCalls.get());
+        logger.info("Signatures per second with batching: {}, connector calls: {}", throughput, connectorCalls.get());
+    }
+
+    @Test
+    public void testSignRequestsForDifferentKeysAreNotCoalesced() throws Exception {
+        PooledCryptographicOperationsApiClient client = createClient(THREADS, Duration.ofSeconds(10), 16);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String keyUuid = "key-" + (i % 2);
+            byte[] data = ("data-" + i).getBytes(StandardCharsets.UTF_8);
+            futures.add(executor.submit(() -> {
+                SignDataResponseDto response = client.signData(connector, "tokenInstanceUuid", keyUuid, createRequest(data));
+                Assertions.assertArrayEquals(expectedSignature(data), response.getSignatures().get(0).getData());
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(THREADS, signedEntries.get());
+        for (int i = 0; i < THREADS; i++) {
+            Assertions.assertTrue(signedDataPaths.get("data-" + i).contains("key-" + (i % 2)));
+        }
+    }
+
+    @Test
+    public void testSignRequestsWithEqualAttributesAreCoalesced() throws Exception {
+        // batch is sent when full, requests that are not coalesced would wait for the whole delay
+        PooledCryptographicOperationsApiClient client = createClient(THREADS, Duration.ofSeconds(10), 2, Duration.ofSeconds(20));
+        CzertainlyPrivateKey privateKey = new CzertainlyPrivateKey("tokenInstanceUuid", "keyUuid", connector, "RSA");
+
+        // every signature service creates its own list of signature attributes
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            CzertainlySignatureService signatureService = new CzertainlySignatureService(client, "SHA256withRSA");
+            byte[] data = ("data-" + i).getBytes(StandardCharsets.UTF_8);
+            futures.add(executor.submit(() -> {
+                Assertions.assertArrayEquals(expectedSignature(data), signatureService.sign(privateKey, data));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(1, connectorCalls.get());
+        Assertions.assertEquals(2, signedEntries.get());
+    }
+
+    @Test
+    public void testBulkheadRejectsExcessOperations() throws Exception {
+        connectorLatencyMillis = 1000;
+        PooledCryptographicOperationsApiClient client = createClient(1, Duration.ofMillis(100), 1);
+
+        Future<SignDataResponseDto> first = executor.submit(() -> client.signData(connector, "tokenInstanceUuid", "keyUuid", createRequest(new byte[]{1})));
+        Thread.sleep(200);
+        Future<SignDataResponseDto> second = executor.submit(() -> client.signData(connector, "tokenInstanceUuid", "keyUuid", createRequest(new byte[]{2})));
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> second.get(30, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(ConnectorCommunicationException.class, exception.getCause());
+        Assertions.assertNotNull(first.get(30, TimeUnit.SECONDS).getSignatures().get(0).getData());
+        Assertions.assertEquals(1, connectorCalls.get());
+    }
+
+    private PooledCryptographicOperationsApiClient createClient(int maxConcurrentRequests, Duration bulkheadTimeout, int batchSize) {
+        return createClient(maxConcurrentRequests, bulkheadTimeout, batchSize, Duration.ofMillis(5));
+    }
+
+    private PooledCryptographicOperationsApiClient createClient(int maxConcurrentRequests, Duration bulkheadTimeout, int batchSize, Duration batchDelay) {
+        return new PooledCryptographicOperationsApiClient(
+                PooledCryptographicOperationsApiClient.createWebClient(connectionProvider, Duration.ofSeconds(5), Duration.ofSeconds(30), false),
+                null, maxConcurrentRequests, bulkheadTimeout, batchSize, batchDelay);
+    }
+
+    private long runSignBenchmark(PooledCryptographicOperationsApiClient client, String keyUuid) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            byte[] data = ("data-" + i).getBytes(StandardCharsets.UTF_8);
+            futures.add(executor.submit(() -> {
+                SignDataResponseDto response = client.signData(connector, "tokenInstanceUuid", keyUuid, createRequest(data));
+                Assertions.assertEquals(1, response.getSignatures().size());
+                Assertions.assertArrayEquals(expectedSignature(data), response.getSignatures().get(0).getData());
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return REQUESTS * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    private static SignDataRequestDto createRequest(byte[] data) {
+        SignatureRequestData requestData = new SignatureRequestData();
+        requestData.setData(data);
+        SignDataRequestDto request = new SignDataRequestDto();
+        request.setSignatureAttributes(List.of());
+        request.setData(List.of(requestData));
+        return request;
+    }
+
+    private String sign(String path, String requestBody) throws Exception {
+        JsonNode request = objectMapper.readTree(requestBody);
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode signatures = response.putArray("signatures");
+        for (JsonNode entry : request.get("data")) {
+            byte[] data = entry.get("data").binaryValue();
+            signedDataPaths.put(new String(data, StandardCharsets.UTF_8), path);
+            signatures.addObject().put("data", expectedSignature(data));
+            signedEntries.incrementAndGet();
+        }
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private static byte[] expectedSignature(byte[] data) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+}
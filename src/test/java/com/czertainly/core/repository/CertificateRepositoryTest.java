@@ -0,0 +1,236 @@
+package com.czertainly.core.repository;
+
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
+import com.czertainly.api.model.core.certificate.CertificateComplianceStorageDto;
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.api.model.core.certificate.CertificateValidationDto;
+import com.czertainly.api.model.core.certificate.CertificateValidationStatus;
+import com.czertainly.api.model.core.search.SearchCondition;
+import com.czertainly.api.model.core.search.SearchGroup;
+import com.czertainly.api.model.core.search.SearchableFields;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.model.KeysetCursor;
+import com.czertainly.core.security.authz.SecurityFilter;
+import com.czertainly.core.util.BaseSpringBootTest;
+import com.czertainly.core.util.MetaDefinitions;
+import com.czertainly.core.util.SqlCapturingInspector;
+import com.czertainly.core.util.converter.Sql2PredicateConverter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.czertainly.core.util.SqlCapturingInspector")
+public class CertificateRepositoryTest extends BaseSpringBootTest {
+
+    private static final int CERTIFICATES_COUNT = 7;
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < CERTIFICATES_COUNT; i++) {
+            CertificateContent certificateContent = new CertificateContent();
+            certificateContent.setContent("content" + i);
+            certificateContent = certificateContentRepository.save(certificateContent);
+
+            Certificate certificate = new Certificate();
+            certificate.setSubjectDn("CN=keyset" + i);
+            certificate.setIssuerDn("CN=keyset");
+            certificate.setSerialNumber("10" + i);
+            certificate.setStatus(CertificateStatus.VALID);
+            certificate.setCertificateContent(certificateContent);
+            certificate.setCertificateContentId(certificateContent.getId());
+            certificateRepository.save(certificate);
+        }
+        certificateRepository.flush();
+    }
+
+    @Test
+    public void testKeysetPaginationReturnsAllCertificates() {
+        Set<UUID> listed = new HashSet<>();
+        List<Certificate> page = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), null, null, PAGE_SIZE);
+        while (!page.isEmpty()) {
+            for (Certificate certificate : page) {
+                Assertions.assertTrue(listed.add(certificate.getUuid()), "Certificate listed twice");
+            }
+            KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(page.get(page.size() - 1)).encode());
+            page = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), null, cursor, PAGE_SIZE);
+        }
+
+        Assertions.assertEquals(certificateRepository.count(), listed.size());
+    }
+
+    @Test
+    public void testKeysetPageIssuesNoOffset() {
+        List<Certificate> firstPage = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), null, null, PAGE_SIZE);
+        List<Certificate> secondPage = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), null, KeysetCursor.of(firstPage.get(PAGE_SIZE - 1)), PAGE_SIZE);
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        List<Certificate> thirdPage = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), null, KeysetCursor.of(secondPage.get(PAGE_SIZE - 1)), PAGE_SIZE);
+
+        Assertions.assertEquals(PAGE_SIZE, thirdPage.size());
+        List<String> statements = new ArrayList<>(SqlCapturingInspector.STATEMENTS);
+        Assertions.assertFalse(statements.isEmpty());
+        for (String statement : statements) {
+            Assertions.assertFalse(statement.toLowerCase().contains("offset"), "Keyset page query uses offset: " + statement);
+        }
+
+        // offset pagination of the same page for comparison
+        SqlCapturingInspector.STATEMENTS.clear();
+        certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), PageRequest.of(2, PAGE_SIZE), (root, cb) -> cb.desc(root.get("created")));
+        Assertions.assertTrue(SqlCapturingInspector.STATEMENTS.stream().anyMatch(statement -> statement.toLowerCase().contains("offset")));
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        Assertions.assertNull(KeysetCursor.decode(""));
+        Assertions.assertThrows(ValidationException.class, () -> KeysetCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    public void testLookupQueriesUseIndexes() throws IOException {
+        // test schema is generated from the entities, indexes on expressions come only from the migration
+        jdbcTemplate.execute(StreamUtils.copyToString(new ClassPathResource("db/migration/V202307311000__certificate_lookup_indexes.sql").getInputStream(), StandardCharsets.UTF_8));
+        // test table is tiny and would be always scanned sequentially, check only that the index is applicable
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+        assertIndexUsed("certificate_fingerprint_index", "SELECT * FROM certificate WHERE fingerprint = 'abcd'");
+        assertIndexUsed("certificate_serial_number_upper_index", "SELECT * FROM certificate WHERE upper(serial_number) = upper('10ab')");
+        assertIndexUsed("certificate_issuer_dn_hash_index", "SELECT * FROM certificate WHERE issuer_dn = 'CN=keyset' AND serial_number = '101'");
+        assertIndexUsed("certificate_subject_dn_hash_index", "SELECT * FROM certificate WHERE subject_dn = 'CN=keyset1'");
+        assertIndexUsed("certificate_status_index", "SELECT * FROM certificate WHERE status = 'VALID'");
+        assertIndexUsed("certificate_not_after_index", "SELECT * FROM certificate WHERE not_after < now()");
+        assertIndexUsed("certificate_public_key_fingerprint_index", "SELECT * FROM certificate WHERE public_key_fingerprint = 'abcd'");
+        assertIndexUsed("certificate_key_uuid_index", "SELECT * FROM certificate WHERE key_uuid = '" + UUID.randomUUID() + "'");
+
+        jdbcTemplate.execute("SET LOCAL enable_sort = off");
+        assertIndexUsed("certificate_status_validation_timestamp_index", "SELECT * FROM certificate WHERE status NOT IN ('NEW', 'REVOKED') " +
+                "AND (status_validation_timestamp IS NULL OR status_validation_timestamp <= now()) " +
+                "ORDER BY status_validation_timestamp ASC NULLS FIRST LIMIT 100");
+    }
+
+    @Test
+    public void testComplianceResultContainingRule() {
+        String ruleUuid = UUID.randomUUID().toString();
+        List<Certificate> certificates = certificateRepository.findAll();
+        CertificateComplianceStorageDto nokResult = new CertificateComplianceStorageDto();
+        nokResult.setNok(List.of(ruleUuid));
+        certificates.get(0).setComplianceResult(nokResult);
+        CertificateComplianceStorageDto naResult = new CertificateComplianceStorageDto();
+        naResult.setOk(List.of(UUID.randomUUID().toString()));
+        naResult.setNa(List.of(ruleUuid));
+        certificates.get(1).setComplianceResult(naResult);
+        CertificateComplianceStorageDto otherResult = new CertificateComplianceStorageDto();
+        otherResult.setOk(List.of(UUID.randomUUID().toString()));
+        certificates.get(2).setComplianceResult(otherResult);
+        certificateRepository.flush();
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        List<Certificate> found = certificateRepository.findByComplianceResultContaining(ruleUuid);
+        Assertions.assertEquals(Set.of(certificates.get(0).getUuid(), certificates.get(1).getUuid()),
+                found.stream().map(Certificate::getUuid).collect(Collectors.toSet()));
+        Assertions.assertEquals(1, SqlCapturingInspector.STATEMENTS.size());
+        Assertions.assertTrue(SqlCapturingInspector.STATEMENTS.get(0).contains("@>"), SqlCapturingInspector.STATEMENTS.get(0));
+    }
+
+    @Test
+    public void testValidationResultSearch() {
+        List<Certificate> certificates = certificateRepository.findAll();
+        Map<String, CertificateValidationDto> validationOutput = new LinkedHashMap<>();
+        validationOutput.put("Signature Verification", new CertificateValidationDto(CertificateValidationStatus.SUCCESS, ""));
+        validationOutput.put("OCSP Verification", new CertificateValidationDto(CertificateValidationStatus.FAILED, "Revoked"));
+        certificates.get(0).setCertificateValidationResult(MetaDefinitions.serializeValidation(validationOutput));
+        validationOutput.put("OCSP Verification", new CertificateValidationDto(CertificateValidationStatus.SUCCESS, ""));
+        certificates.get(1).setCertificateValidationResult(MetaDefinitions.serializeValidation(validationOutput));
+        certificateRepository.flush();
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        List<Certificate> found = findByValidationStatus(SearchCondition.EQUALS, CertificateValidationStatus.FAILED);
+        Assertions.assertEquals(List.of(certificates.get(0).getUuid()), found.stream().map(Certificate::getUuid).toList());
+        Assertions.assertEquals(1, SqlCapturingInspector.STATEMENTS.size());
+        Assertions.assertTrue(SqlCapturingInspector.STATEMENTS.get(0).contains("@>"), SqlCapturingInspector.STATEMENTS.get(0));
+
+        // certificates without validation result do not match any status
+        found = findByValidationStatus(SearchCondition.NOT_EQUALS, CertificateValidationStatus.FAILED);
+        Assertions.assertEquals(List.of(certificates.get(1).getUuid()), found.stream().map(Certificate::getUuid).toList());
+    }
+
+    @Test
+    public void testJsonResultQueriesUseIndexes() throws IOException {
+        jdbcTemplate.execute(StreamUtils.copyToString(new ClassPathResource("db/migration/V202308021100__certificate_json_results_indexes.sql").getInputStream(), StandardCharsets.UTF_8));
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        assertIndexUsed("certificate_validation_result_gin_index", "SELECT * FROM certificate WHERE certificate_validation_result @> '{\"OCSP Verification\":{\"status\":\"failed\"}}'");
+        assertIndexUsed("certificate_compliance_result_gin_index", "SELECT * FROM certificate WHERE compliance_result @> '{\"nok\":[\"" + UUID.randomUUID() + "\"]}' " +
+                "OR compliance_result @> '{\"na\":[\"" + UUID.randomUUID() + "\"]}'");
+    }
+
+    private List<Certificate> findByValidationStatus(SearchCondition condition, CertificateValidationStatus status) {
+        SearchFilterRequestDto filter = new SearchFilterRequestDto() {
+            @Override
+            public String getFieldIdentifier() {
+                return SearchableFields.OCSP_VALIDATION.name();
+            }
+
+            @Override
+            public SearchGroup getSearchGroup() {
+                return SearchGroup.PROPERTY;
+            }
+
+            @Override
+            public SearchCondition getCondition() {
+                return condition;
+            }
+
+            @Override
+            public Serializable getValue() {
+                return status.getCode();
+            }
+        };
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Certificate> criteriaQuery = criteriaBuilder.createQuery(Certificate.class);
+        Root<Certificate> root = criteriaQuery.from(Certificate.class);
+        criteriaQuery.where(Sql2PredicateConverter.mapSearchFilter2Predicate(filter, criteriaBuilder, root));
+        return entityManager.createQuery(criteriaQuery).getResultList();
+    }
+
+    private void assertIndexUsed(String indexName, String query) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+        Assertions.assertTrue(plan.contains(indexName), "Index " + indexName + " not used by query plan:\n" + plan);
+    }
+}
@@ -0,0 +1,128 @@
+package com.czertainly.core.security.authn;
+
+import com.czertainly.core.security.authn.client.CzertainlyAuthenticationClient;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CzertainlyAuthenticationProviderTest {
+
+    private static final String CERTIFICATE_HEADER_NAME = "X-APP-CERTIFICATE";
+    private static final String TOKEN_HEADER_NAME = "X-USERINFO";
+    private static final String USER_UUID = "b0a2f2f4-4b5d-4f05-8c3d-1c1e0e6f4a11";
+
+    // @formatter:off
+    private static final String RAW_DATA = "{" +
+            "\"authenticated\": true," +
+            "\"data\": {" +
+                "\"user\": {" +
+                    "\"uuid\": \"" + USER_UUID + "\"," +
+                    "\"username\": \"FrantisekJednicka\"," +
+                    "\"enabled\": true" +
+                "}," +
+                "\"roles\": [" +
+                    "{\"uuid\":\"32281955-eed2-4520-9f42-15b82c96f928\",\"name\":\"ROLE_ADMINISTRATOR\"}" +
+                "]" +
+            "}" +
+        "}";
+    // @formatter:on
+
+    private MockWebServer authServiceMock;
+
+    private AuthenticationCache authenticationCache;
+
+    private CzertainlyAuthenticationProvider authenticationProvider;
+
+    @BeforeEach
+    void setup() throws IOException {
+        authServiceMock = new MockWebServer();
+        authServiceMock.start();
+
+        String authServiceBaseUrl = String.format("http://%s:%d", authServiceMock.getHostName(), authServiceMock.getPort());
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        CzertainlyAuthenticationClient authClient = new CzertainlyAuthenticationClient(objectMapper, authServiceBaseUrl);
+
+        authenticationCache = new AuthenticationCache(CERTIFICATE_HEADER_NAME, TOKEN_HEADER_NAME, 100, Duration.ofMinutes(1));
+        authenticationProvider = new CzertainlyAuthenticationProvider(authClient, authenticationCache);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        authServiceMock.shutdown();
+    }
+
+    @Test
+    void identicalRequestsAreAuthenticatedOnlyOnce() {
+        // given
+        setUpSuccessfulAuthenticationResponse();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            Authentication authentication = authenticationProvider.authenticate(getAuthenticationRequest("token-1"));
+            assertTrue(authentication instanceof CzertainlyAuthenticationToken);
+            assertEquals("FrantisekJednicka", ((CzertainlyAuthenticationToken) authentication).getPrincipal().getUsername());
+        }
+
+        // then
+        assertEquals(1, authServiceMock.getRequestCount());
+        assertEquals(9, authenticationCache.getHitCount());
+    }
+
+    @Test
+    void differentCredentialsAreAuthenticatedSeparately() {
+        // given
+        setUpSuccessfulAuthenticationResponse();
+        setUpSuccessfulAuthenticationResponse();
+
+        // when
+        authenticationProvider.authenticate(getAuthenticationRequest("token-1"));
+        authenticationProvider.authenticate(getAuthenticationRequest("token-2"));
+        authenticationProvider.authenticate(getAuthenticationRequest("token-1"));
+
+        // then
+        assertEquals(2, authServiceMock.getRequestCount());
+    }
+
+    @Test
+    void invalidatedUserIsAuthenticatedAgain() {
+        // given
+        setUpSuccessfulAuthenticationResponse();
+        setUpSuccessfulAuthenticationResponse();
+
+        // when
+        authenticationProvider.authenticate(getAuthenticationRequest("token-1"));
+        authenticationCache.invalidateUser(USER_UUID);
+        authenticationProvider.authenticate(getAuthenticationRequest("token-1"));
+
+        // then
+        assertEquals(2, authServiceMock.getRequestCount());
+    }
+
+    private CzertainlyAuthenticationRequest getAuthenticationRequest(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(TOKEN_HEADER_NAME, token);
+        return new CzertainlyAuthenticationRequest(headers, null);
+    }
+
+    private void setUpSuccessfulAuthenticationResponse() {
+        authServiceMock.enqueue(
+                new MockResponse()
+                        .setResponseCode(200)
+                        .setHeader("content-type", "application/json")
+                        .setBody(RAW_DATA)
+        );
+    }
+}
@@ -0,0 +1,171 @@
+package com.czertainly.core.security.authz.opa;
+
+import com.czertainly.core.security.authz.OpaPolicy;
+import com.czertainly.core.security.authz.opa.dto.OpaObjectAccessResult;
+import com.czertainly.core.security.authz.opa.dto.OpaRequestedResource;
+import com.czertainly.core.security.authz.opa.dto.OpaResourceAccessResult;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpaDecisionCacheTest {
+
+    private MockWebServer opaMock;
+
+    private OpaClient opaClient;
+
+    private OpaDecisionCache decisionCache;
+
+    @BeforeEach
+    void setup() throws IOException {
+        opaMock = new MockWebServer();
+        opaMock.start();
+
+        String opaBaseUrl = String.format("http://%s:%d", opaMock.getHostName(), opaMock.getPort());
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        opaClient = new OpaClient(objectMapper, opaBaseUrl);
+        decisionCache = new OpaDecisionCache(100, Duration.ofMinutes(1));
+        opaClient.setDecisionCache(decisionCache);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        opaMock.shutdown();
+    }
+
+    @Test
+    void sameRequestIsSentToOpaOnlyOnce() {
+        // given
+        setUpSuccessfulResourceAccessResponse();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            OpaResourceAccessResult result = opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+            assertTrue(result.isAuthorized());
+        }
+
+        // then
+        assertEquals(1, opaMock.getRequestCount());
+        assertEquals(4, decisionCache.getHitCount());
+        assertEquals(1, decisionCache.getMissCount());
+    }
+
+    @Test
+    void differentRequestsAreSentToOpa() {
+        // given
+        setUpSuccessfulResourceAccessResponse();
+        setUpSuccessfulResourceAccessResponse();
+        setUpSuccessfulObjectAccessResponse();
+
+        // when
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("UPDATE"), getPrincipal(), null);
+        OpaObjectAccessResult objectResult = opaClient.checkObjectAccess(OpaPolicy.OBJECTS.policyName, getResource("DETAIL"), getPrincipal(), null);
+
+        // then
+        assertEquals(3, opaMock.getRequestCount());
+        assertEquals(List.of("f258cdda-17b5-11ed-861d-0242ac120002"), objectResult.getAllowedObjects());
+    }
+
+    @Test
+    void invalidatedDecisionIsRequestedAgain() {
+        // given
+        setUpSuccessfulResourceAccessResponse();
+        setUpSuccessfulResourceAccessResponse();
+
+        // when
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+        decisionCache.invalidateAll();
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+
+        // then
+        assertEquals(2, opaMock.getRequestCount());
+    }
+
+    @Test
+    void failedRequestIsNotCached() {
+        // given
+        opaMock.enqueue(new MockResponse().setResponseCode(500));
+        setUpSuccessfulResourceAccessResponse();
+
+        // when
+        assertThrows(AccessDeniedException.class, () -> opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null));
+        OpaResourceAccessResult result = opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+
+        // then
+        assertTrue(result.isAuthorized());
+        assertEquals(2, opaMock.getRequestCount());
+    }
+
+    @Test
+    void disabledCacheSendsEveryRequest() {
+        // given
+        opaClient.setDecisionCache(new OpaDecisionCache(0, Duration.ofMinutes(1)));
+        setUpSuccessfulResourceAccessResponse();
+        setUpSuccessfulResourceAccessResponse();
+
+        // when
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+        opaClient.checkResourceAccess(OpaPolicy.METHOD.policyName, getResource("DETAIL"), getPrincipal(), null);
+
+        // then
+        assertEquals(2, opaMock.getRequestCount());
+    }
+
+    OpaRequestedResource getResource(String action) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("name", "GROUPS");
+        properties.put("action", action);
+
+        OpaRequestedResource resource = new OpaRequestedResource(properties);
+        resource.setObjectUUIDs(List.of("f258cb3c-17b5-11ed-861d-0242ac120002"));
+
+        return resource;
+    }
+
+    String getPrincipal() {
+        return "{\"user\":{\"username\":\"FrantisekJednicka\",\"enabled\":true},\"roles\":[\"ROLE_ADMINISTRATOR\"]}";
+    }
+
+    void setUpSuccessfulResourceAccessResponse() {
+        opaMock.enqueue(
+                new MockResponse()
+                        .setResponseCode(200)
+                        .setHeader("content-type", "application/json")
+                        .setBody("{\"result\": {\"allow\": [\"SomeOpaRule\"], \"authorized\": true}}")
+        );
+    }
+
+    void setUpSuccessfulObjectAccessResponse() {
+        opaMock.enqueue(
+                new MockResponse()
+                        .setResponseCode(200)
+                        .setHeader("content-type", "application/json")
+                        //@formatter:off
+                        .setBody("{" +
+                                    "\"result\": {" +
+                                        "\"forbiddenObjects\": []," +
+                                        "\"allowedObjects\": [\"f258cdda-17b5-11ed-861d-0242ac120002\"]," +
+                                        "\"actionAllowedForGroupOfObjects\": true" +
+                                    "}" +
+                                "}")
+                        //@formatter:on
+        );
+    }
+}
@@ -0,0 +1,194 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.exception.AcmeProblemDocumentException;
+import com.czertainly.api.model.core.acme.AccountStatus;
+import com.czertainly.api.model.core.acme.Order;
+import com.czertainly.api.model.core.acme.OrderStatus;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.entity.acme.AcmeAccount;
+import com.czertainly.core.dao.entity.acme.AcmeProfile;
+import com.czertainly.core.dao.repository.AcmeProfileRepository;
+import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.dao.repository.acme.AcmeAccountRepository;
+import com.czertainly.core.service.acme.AcmeService;
+import com.czertainly.core.util.AcmePublicKeyProcessor;
+import com.czertainly.core.util.BaseSpringBootTest;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AcmeConcurrencyTest extends BaseSpringBootTest {
+
+    private static final String ACME_PROFILE_NAME = "concurrentAcmeProfile";
+    private static final String BASE_URL = "http://localhost/v1/protocols/acme/" + ACME_PROFILE_NAME;
+    private static final int ACCOUNTS_COUNT = 200;
+
+    @Autowired
+    private AcmeService acmeService;
+    @Autowired
+    private RaProfileRepository raProfileRepository;
+    @Autowired
+    private AcmeProfileRepository acmeProfileRepository;
+    @Autowired
+    private AcmeAccountRepository acmeAccountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private UUID raProfileUuid;
+    private UUID acmeProfileUuid;
+    private final List<KeyPair> keyPairs = new ArrayList<>();
+    private final List<String> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        for (int i = 0; i < ACCOUNTS_COUNT; i++) {
+            keyPairs.add(generator.generateKeyPair());
+            accountIds.add("concurrent" + i);
+        }
+
+        // requests are processed in their own transactions, so the data has to be committed
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> {
+            RaProfile raProfile = new RaProfile();
+            raProfile.setName("concurrentRaProfile");
+            raProfileRepository.save(raProfile);
+            raProfileUuid = raProfile.getUuid();
+
+            AcmeProfile acmeProfile = new AcmeProfile();
+            acmeProfile.setName(ACME_PROFILE_NAME);
+            acmeProfile.setRaProfile(raProfile);
+            acmeProfile.setValidity(30);
+            acmeProfile.setRetryInterval(30);
+            acmeProfileRepository.save(acmeProfile);
+            acmeProfileUuid = acmeProfile.getUuid();
+
+            for (int i = 0; i < ACCOUNTS_COUNT; i++) {
+                AcmeAccount account = new AcmeAccount();
+                account.setAccountId(accountIds.get(i));
+                account.setStatus(AccountStatus.VALID);
+                account.setEnabled(true);
+                account.setTermsOfServiceAgreed(true);
+                account.setAcmeProfile(acmeProfile);
+                account.setRaProfile(raProfile);
+                account.setPublicKey(AcmePublicKeyProcessor.publicKeyPemStringFromObject(keyPairs.get(i).getPublic()));
+                acmeAccountRepository.save(account);
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            String orders = "SELECT o.uuid FROM acme_order o JOIN acme_account a ON o.account_uuid = a.uuid WHERE a.acme_profile_uuid = ?";
+            jdbcTemplate.update("DELETE FROM acme_challenge WHERE authorization_uuid IN (SELECT uuid FROM acme_authorization WHERE order_uuid IN (" + orders + "))", acmeProfileUuid);
+            jdbcTemplate.update("DELETE FROM acme_authorization WHERE order_uuid IN (" + orders + ")", acmeProfileUuid);
+            jdbcTemplate.update("DELETE FROM acme_order WHERE uuid IN (" + orders + ")", acmeProfileUuid);
+            jdbcTemplate.update("DELETE FROM acme_account WHERE acme_profile_uuid = ?", acmeProfileUuid);
+            jdbcTemplate.update("DELETE FROM acme_profile WHERE uuid = ?", acmeProfileUuid);
+            jdbcTemplate.update("DELETE FROM ra_profile WHERE uuid = ?", raProfileUuid);
+        });
+    }
+
+    @Test
+    public void testConcurrentNewOrders() throws Exception {
+        List<Callable<Void>> requests = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < ACCOUNTS_COUNT; i++) {
+            int account = i;
+            // every fourth request is signed by the key of another account and has to be rejected
+            boolean forged = i % 4 == 3;
+            KeyPair signingKey = keyPairs.get(forged ? (i + 1) % ACCOUNTS_COUNT : i);
+            String domain = "host" + i + ".concurrent.local";
+            String requestJson = signNewOrder(accountIds.get(account), signingKey, domain);
+
+            requests.add(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/protocols/acme/" + ACME_PROFILE_NAME + "/new-order");
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+                try {
+                    start.await();
+                    if (forged) {
+                        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> acmeService.newOrder(ACME_PROFILE_NAME, requestJson),
+                                "Order of account " + account + " signed by another key was created");
+                    } else {
+                        ResponseEntity<Order> response = acmeService.newOrder(ACME_PROFILE_NAME, requestJson);
+                        Assertions.assertNotNull(response, "Order of account " + account + " was not created");
+                        Assertions.assertEquals(HttpStatus.CREATED, response.getStatusCode());
+                        Assertions.assertEquals(OrderStatus.PENDING, response.getBody().getStatus());
+                        Assertions.assertEquals(domain, response.getBody().getIdentifiers().get(0).getValue());
+                    }
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> request : requests) {
+                results.add(executor.submit(request));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // each created order belongs to the account whose key signed the request
+        List<String> ordersPerAccount = jdbcTemplate.queryForList("SELECT a.account_id FROM acme_order o JOIN acme_account a ON o.account_uuid = a.uuid " +
+                "WHERE a.acme_profile_uuid = ? AND o.identifiers LIKE '%host' || substring(a.account_id FROM 11) || '.concurrent.local%'", String.class, acmeProfileUuid);
+        Assertions.assertEquals(ACCOUNTS_COUNT - ACCOUNTS_COUNT / 4, ordersPerAccount.size());
+    }
+
+    private static String signNewOrder(String accountId, KeyPair keyPair, String domain) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .keyID(BASE_URL + "/acct/" + accountId)
+                .customParam("nonce", UUID.randomUUID().toString())
+                .customParam("url", BASE_URL + "/new-order")
+                .build();
+        JWSObject jwsObject = new JWSObject(header, new Payload("{\"identifiers\":[{\"type\":\"dns\",\"value\":\"" + domain + "\"}]}"));
+        jwsObject.sign(new ECDSASigner((ECPrivateKey) keyPair.getPrivate()));
+        return "{\"protected\":\"" + jwsObject.getHeader().toBase64URL() + "\"," +
+                "\"payload\":\"" + jwsObject.getPayload().toBase64URL() + "\"," +
+                "\"signature\":\"" + jwsObject.getSignature() + "\"}";
+    }
+}
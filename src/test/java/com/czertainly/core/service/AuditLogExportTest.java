@@ -1,35 +1,106 @@
 package com.czertainly.core.service;
 
+import com.czertainly.api.interfaces.core.web.AuditLogController;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
-import com.czertainly.api.model.core.audit.ExportResultDto;
+import com.czertainly.core.model.ExportFile;
 import com.czertainly.core.util.BaseSpringBootTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipInputStream;
 
 @SpringBootTest
 public class AuditLogExportTest extends BaseSpringBootTest {
 
+    private static final int EXPORTED_COUNT = 1_000_000;
+
     @Autowired
     private AuditLogService auditLogService;
 
+    @Autowired
+    private AuditLogController auditLogController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Test
     public void testExportAuditLog() throws IOException {
         auditLogService.listAuditLogs(new AuditLogFilter(), Pageable.ofSize(10));
-        ExportResultDto result = auditLogService.exportAuditLogs(new AuditLogFilter(), Sort.by("id"));
+        ExportFile result = auditLogService.exportAuditLogs(new AuditLogFilter(), Sort.by("id"));
 
-        try (FileOutputStream fos = new FileOutputStream(File.createTempFile(result.getFileName(), ""))) {
-            fos.write(result.getFileContent());
+        try (FileOutputStream fos = new FileOutputStream(File.createTempFile(result.getFileName(), ""));
+             InputStream is = result.toResource().getInputStream()) {
+            is.transferTo(fos);
             fos.flush();
         }
+        Assertions.assertFalse(Files.exists(result.getFile()));
+    }
+
+    @Test
+    public void testExportFileDeletedWhenNotDownloaded() {
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest("GET", "/v1/auditLogs/export"));
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        ResponseEntity<Resource> response;
+        try {
+            response = auditLogController.exportAuditLogs(new AuditLogFilter(), Pageable.unpaged());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        Assertions.assertNotNull(response.getBody());
+        Assertions.assertTrue(response.getBody().exists());
+
+        // download aborted before the body was read
+        requestAttributes.requestCompleted();
+        Assertions.assertFalse(response.getBody().exists());
+    }
+
+    @Test
+    public void testExportAuditLogStreamed() throws IOException {
+        jdbcTemplate.update("INSERT INTO audit_log (id, uuid, i_author, i_cre, i_upd, origination, affected, operation, operation_status, additional_data) " +
+                "SELECT nextval('audit_log_id_seq'), md5(g::text), 'username', now(), now(), 'FE', 'AUDIT_LOG', 'REQUEST', 'SUCCESS', '{\"method\":\"exportAuditLogs\"}' " +
+                "FROM generate_series(1, ?) g", EXPORTED_COUNT);
+
+        ExportFile result = auditLogService.exportAuditLogs(new AuditLogFilter(), Sort.by("id"));
+
+        // exported audit logs are not kept in the persistence context
+        Assertions.assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        Assertions.assertEquals(Files.size(result.getFile()), result.getSize());
+
+        long lines = 0;
+        try (ZipInputStream zis = new ZipInputStream(result.toResource().getInputStream())) {
+            Assertions.assertNotNull(zis.getNextEntry());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(zis, StandardCharsets.UTF_8));
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        // header and exported audit logs
+        Assertions.assertEquals(EXPORTED_COUNT + 1, lines);
     }
 
     @Test
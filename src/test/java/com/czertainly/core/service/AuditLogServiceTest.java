@@ -0,0 +1,54 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.core.audit.AuditLogFilter;
+import com.czertainly.core.util.BaseSpringBootTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+@SpringBootTest
+@TestPropertySource(properties = "auditlog.purge.chunk-size=1000")
+public class AuditLogServiceTest extends BaseSpringBootTest {
+
+    private static final int PURGED_COUNT = 25_000;
+    private static final int KEPT_COUNT = 5_000;
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testPurgeAuditLogsInChunks() {
+        // purge runs in its own transactions, audit logs have to be committed
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO audit_log (id, uuid, i_author, i_cre, i_upd, origination, affected, operation, operation_status) " +
+                "SELECT nextval('audit_log_id_seq'), md5('purge' || g), 'purgeTest', now() - CASE WHEN g <= ? THEN interval '10 days' ELSE interval '0 days' END, now(), 'FE', 'AUDIT_LOG', 'REQUEST', 'SUCCESS' " +
+                "FROM generate_series(1, ?) g", PURGED_COUNT, PURGED_COUNT + KEPT_COUNT));
+
+        try {
+            AuditLogFilter filter = new AuditLogFilter();
+            filter.setAuthor("purgeTest");
+            filter.setCreatedTo(LocalDate.now().minusDays(5));
+            auditLogService.purgeAuditLogs(filter, Sort.unsorted());
+
+            Assertions.assertEquals(KEPT_COUNT, jdbcTemplate.queryForObject("SELECT count(*) FROM audit_log WHERE i_author = 'purgeTest'", Long.class));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("DELETE FROM audit_log WHERE i_author = 'purgeTest'"));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.core.audit.ObjectType;
+import com.czertainly.api.model.core.audit.OperationStatusEnum;
+import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.dao.entity.AuditLog;
+import com.czertainly.core.service.impl.AuditLogWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class AuditLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private ConcurrentLinkedQueue<String> insertedUuids;
+    private volatile boolean failInserts;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        insertedUuids = new ConcurrentLinkedQueue<>();
+        failInserts = false;
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.doAnswer(invocation -> insertedUuids.add(invocation.getArgument(1)))
+                .when(ps).setString(Mockito.eq(1), Mockito.anyString());
+
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            if (failInserts) {
+                throw new DataAccessResourceFailureException("Database is not available");
+            }
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            return new int[setter.getBatchSize()];
+        });
+    }
+
+    @Test
+    public void testNoAuditLogsLostOnContextClose() throws Exception {
+        List<String> uuids = new ArrayList<>();
+        try (AnnotationConfigApplicationContext context = createContext("BLOCK", 10000)) {
+            AuditLogWriter writer = context.getBean(AuditLogWriter.class);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                List<AuditLog> auditLogs = new ArrayList<>();
+                for (int i = 0; i < 1234; i++) {
+                    AuditLog auditLog = createAuditLog();
+                    auditLogs.add(auditLog);
+                    uuids.add(auditLog.getUuid());
+                }
+                Thread thread = new Thread(() -> auditLogs.forEach(writer::write));
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // batches are flushed when full, the rest is written on close
+        Assertions.assertEquals(uuids.size(), insertedUuids.size());
+        Assertions.assertEquals(new HashSet<>(uuids), new HashSet<>(insertedUuids));
+        Mockito.verify(jdbcTemplate, Mockito.atMost(uuids.size() / 100 + 10)).batchUpdate(Mockito.anyString(), Mockito.any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    public void testFullBufferSpilledAndLoadedOnStart() {
+        Set<String> uuids = new HashSet<>();
+        try (AnnotationConfigApplicationContext context = createContext("SPILL", 10)) {
+            AuditLogWriter writer = context.getBean(AuditLogWriter.class);
+            for (int i = 0; i < 50; i++) {
+                AuditLog auditLog = createAuditLog();
+                uuids.add(auditLog.getUuid());
+                writer.write(auditLog);
+            }
+            Assertions.assertTrue(Files.exists(tempDir.resolve("audit-log.spill")));
+        }
+        Assertions.assertEquals(10, insertedUuids.size());
+
+        try (AnnotationConfigApplicationContext ignored = createContext("SPILL", 10)) {
+            Assertions.assertEquals(uuids, new HashSet<>(insertedUuids));
+            Assertions.assertFalse(Files.exists(tempDir.resolve("audit-log.spill")));
+        }
+    }
+
+    @Test
+    public void testFailedBatchWrittenAfterDatabaseRecovery() {
+        Set<String> uuids = new HashSet<>();
+        try (AnnotationConfigApplicationContext context = createContext("BLOCK", 10000)) {
+            AuditLogWriter writer = context.getBean(AuditLogWriter.class);
+
+            failInserts = true;
+            for (int i = 0; i < 50; i++) {
+                AuditLog auditLog = createAuditLog();
+                uuids.add(auditLog.getUuid());
+                writer.write(auditLog);
+            }
+            writer.flush();
+            Assertions.assertTrue(insertedUuids.isEmpty());
+            Assertions.assertTrue(Files.exists(tempDir.resolve("audit-log.spill")));
+
+            // failed batch is written with the next successful batch
+            failInserts = false;
+            AuditLog auditLog = createAuditLog();
+            uuids.add(auditLog.getUuid());
+            writer.write(auditLog);
+            writer.flush();
+            Assertions.assertEquals(uuids, new HashSet<>(insertedUuids));
+            Assertions.assertEquals(uuids.size(), insertedUuids.size());
+            Assertions.assertFalse(Files.exists(tempDir.resolve("audit-log.spill")));
+        }
+    }
+
+    private AnnotationConfigApplicationContext createContext(String overflowPolicy, int bufferSize) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("auditlog.writer.buffer-size", bufferSize);
+        properties.put("auditlog.writer.batch-size", 100);
+        properties.put("auditlog.writer.flush-interval", "1h");
+        properties.put("auditlog.writer.overflow-policy", overflowPolicy);
+        properties.put("auditlog.writer.spill-file", tempDir.resolve("audit-log.spill").toString());
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("auditLogWriter", properties));
+        context.registerBean(JdbcTemplate.class, () -> jdbcTemplate);
+        context.register(AuditLogWriter.class);
+        context.refresh();
+        return context;
+    }
+
+    private static AuditLog createAuditLog() {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setOrigination(ObjectType.FE);
+        auditLog.setAffected(ObjectType.CERTIFICATE);
+        auditLog.setOperation(OperationType.REQUEST);
+        auditLog.setOperationStatus(OperationStatusEnum.SUCCESS);
+        auditLog.setAuthor("username");
+        auditLog.setCreated(LocalDateTime.now());
+        auditLog.setUpdated(auditLog.getCreated());
+        return auditLog;
+    }
+}
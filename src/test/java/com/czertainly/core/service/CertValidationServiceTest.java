@@ -7,26 +7,38 @@ import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.repository.CertificateContentRepository;
 import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.util.BaseSpringBootTest;
+import com.czertainly.core.util.IssuerGraphIndex;
 import com.czertainly.core.util.MetaDefinitions;
 import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @SpringBootTest
 @Transactional
@@ -40,6 +52,10 @@ public class CertValidationServiceTest extends BaseSpringBootTest {
     private CertificateRepository certificateRepository;
     @Autowired
     private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private IssuerGraphIndex issuerGraphIndex;
+
+    private long serialNumber = System.currentTimeMillis();
 
     private Certificate certificate;
     private CertificateContent certificateContent;
@@ -98,4 +114,60 @@ public class CertValidationServiceTest extends BaseSpringBootTest {
         Assertions.assertTrue(signatureVerification instanceof Map);
         Assertions.assertEquals("failed", ((Map) signatureVerification).get("status"));
     }
+
+    @Test
+    public void testGetCertificateChain_sameNameCas() throws Exception {
+        KeyPair renewedCaKey = generateKeyPair();
+        KeyPair otherCaKey = generateKeyPair();
+        Certificate renewedCa = saveCertificate(createCertificate("CN=Chain Root", renewedCaKey.getPublic(), "CN=Chain Root", renewedCaKey));
+        saveCertificate(createCertificate("CN=Chain Root", otherCaKey.getPublic(), "CN=Chain Root", otherCaKey));
+        saveCertificate(createCertificate("CN=Chain Root", generateKeyPair().getPublic(), "CN=Chain Root", generateKeyPair()));
+
+        Certificate leaf = saveCertificate(createCertificate("CN=Chain Leaf", generateKeyPair().getPublic(), "CN=Chain Root", renewedCaKey));
+        Certificate unknownIssuerLeaf = saveCertificate(createCertificate("CN=Chain Leaf 2", generateKeyPair().getPublic(), "CN=Chain Root", generateKeyPair()));
+        certificateRepository.flush();
+        AopTestUtils.<IssuerGraphIndex>getTargetObject(issuerGraphIndex).build();
+
+        // only the CA that signed the certificate is in the chain, not the CAs that only share its name
+        Assertions.assertEquals(List.of(leaf.getUuid(), renewedCa.getUuid()),
+                certValidationService.getCertificateChain(leaf).stream().map(Certificate::getUuid).toList());
+        Assertions.assertEquals(List.of(unknownIssuerLeaf.getUuid()),
+                certValidationService.getCertificateChain(unknownIssuerLeaf).stream().map(Certificate::getUuid).toList());
+    }
+
+    private Certificate saveCertificate(X509Certificate x509Certificate) throws CertificateEncodingException {
+        CertificateContent content = new CertificateContent();
+        content.setContent(Base64.getEncoder().encodeToString(x509Certificate.getEncoded()));
+        content = certificateContentRepository.save(content);
+
+        Certificate newCertificate = new Certificate();
+        newCertificate.setSubjectDn(x509Certificate.getSubjectX500Principal().getName());
+        newCertificate.setIssuerDn(x509Certificate.getIssuerX500Principal().getName());
+        newCertificate.setSerialNumber(x509Certificate.getSerialNumber().toString(16));
+        newCertificate.setStatus(CertificateStatus.VALID);
+        newCertificate.setNotBefore(x509Certificate.getNotBefore());
+        newCertificate.setNotAfter(x509Certificate.getNotAfter());
+        newCertificate.setCertificateContent(content);
+        return certificateRepository.save(newCertificate);
+    }
+
+    private X509Certificate createCertificate(String subject, PublicKey publicKey, String issuer, KeyPair issuerKey) throws Exception {
+        Date notBefore = new Date();
+        // certificates without key identifiers, issuer candidates are found by name only
+        JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                new X500Name(issuer),
+                BigInteger.valueOf(serialNumber++),
+                notBefore,
+                new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(365)),
+                new X500Name(subject),
+                publicKey);
+        return new JcaX509CertificateConverter().getCertificate(
+                certificateBuilder.build(new JcaContentSignerBuilder("SHA256WithRSA").build(issuerKey.getPrivate())));
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(1024);
+        return keyPairGenerator.generateKeyPair();
+    }
 }
@@ -0,0 +1,122 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.util.BaseSpringBootTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Scheduled status update claims certificates in separate transactions, so the certificates are committed by the test
+ * and the context with the database is discarded after the test.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+@TestPropertySource(properties = {
+        "certificate.status-update.parallelism=3",
+        "certificate.status-update.batch-size=2"
+})
+public class CertificateStatusUpdateTest extends BaseSpringBootTest {
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testUpdateCertificatesStatusScheduled_skipLocked() {
+        List<UUID> certificateUuids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            CertificateContent certificateContent = new CertificateContent();
+            certificateContent.setContent("statusUpdate" + i);
+            certificateContent = certificateContentRepository.save(certificateContent);
+
+            Certificate certificate = new Certificate();
+            certificate.setSubjectDn("CN=statusUpdate" + i);
+            certificate.setIssuerDn("CN=statusUpdateIssuer" + i % 3);
+            certificate.setSerialNumber("30" + i);
+            certificate.setCertificateContent(certificateContent);
+            certificate.setCertificateContentId(certificateContent.getId());
+            certificate.setStatus(CertificateStatus.VALID);
+            certificateUuids.add(certificateRepository.save(certificate).getUuid());
+        }
+        List<UUID> lockedUuids = certificateUuids.subList(0, 4);
+
+        // certificates locked by another instance are skipped by the workers
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (UUID uuid : lockedUuids) {
+                jdbcTemplate.queryForList("SELECT uuid FROM certificate WHERE uuid = ? FOR UPDATE", uuid);
+            }
+            certificateService.updateCertificatesStatusScheduled();
+        });
+
+        for (UUID uuid : certificateUuids) {
+            Certificate certificate = certificateRepository.findByUuid(uuid).orElseThrow();
+            if (lockedUuids.contains(uuid)) {
+                Assertions.assertNull(certificate.getStatusValidationTimestamp());
+            } else {
+                Assertions.assertNotNull(certificate.getStatusValidationTimestamp());
+            }
+        }
+    }
+
+    @Test
+    public void testClaimCertificateToCheckStatus_eligibility() {
+        LocalDateTime before = LocalDateTime.now().minusDays(1);
+        List<CertificateStatus> skipStatuses = List.of(CertificateStatus.NEW, CertificateStatus.REVOKED, CertificateStatus.EXPIRED);
+        UUID notValidated = createCertificate("claimNotValidated", CertificateStatus.VALID, null);
+        UUID validatedLongAgo = createCertificate("claimValidatedLongAgo", CertificateStatus.VALID, before.minusHours(1));
+        UUID validatedRecently = createCertificate("claimValidatedRecently", CertificateStatus.VALID, LocalDateTime.now());
+        UUID revoked = createCertificate("claimRevoked", CertificateStatus.REVOKED, null);
+
+        // single certificate is claimed only when the batch claim would select it
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Assertions.assertTrue(certificateRepository.claimCertificateToCheckStatus(notValidated, before, skipStatuses).isPresent());
+            Assertions.assertTrue(certificateRepository.claimCertificateToCheckStatus(validatedLongAgo, before, skipStatuses).isPresent());
+            Assertions.assertTrue(certificateRepository.claimCertificateToCheckStatus(validatedRecently, before, skipStatuses).isEmpty());
+            Assertions.assertTrue(certificateRepository.claimCertificateToCheckStatus(revoked, before, skipStatuses).isEmpty());
+        });
+    }
+
+    private UUID createCertificate(String name, CertificateStatus status, LocalDateTime statusValidationTimestamp) {
+        CertificateContent certificateContent = new CertificateContent();
+        certificateContent.setContent(name);
+        certificateContent = certificateContentRepository.save(certificateContent);
+
+        Certificate certificate = new Certificate();
+        certificate.setSubjectDn("CN=" + name);
+        certificate.setIssuerDn("CN=" + name + "Issuer");
+        certificate.setSerialNumber(Long.toHexString(System.nanoTime()));
+        certificate.setCertificateContent(certificateContent);
+        certificate.setCertificateContentId(certificateContent.getId());
+        certificate.setStatus(status);
+        certificate.setStatusValidationTimestamp(statusValidationTimestamp);
+        return certificateRepository.save(certificate).getUuid();
+    }
+}
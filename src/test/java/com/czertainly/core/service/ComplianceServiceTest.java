@@ -3,10 +3,12 @@ package com.czertainly.core.service;
 import com.czertainly.api.exception.ConnectorException;
 import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.certificate.CertificateType;
+import com.czertainly.api.model.core.compliance.ComplianceStatus;
 import com.czertainly.api.model.core.connector.ConnectorStatus;
 import com.czertainly.core.dao.entity.*;
 import com.czertainly.core.dao.repository.*;
 import com.czertainly.core.security.authz.SecuredUUID;
+import com.czertainly.core.service.impl.ComplianceServiceImpl;
 import com.czertainly.core.util.BaseSpringBootTest;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
@@ -15,6 +17,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 public class ComplianceServiceTest extends BaseSpringBootTest {
 
@@ -40,6 +50,10 @@ public class ComplianceServiceTest extends BaseSpringBootTest {
     private ComplianceGroupRepository complianceGroupRepository;
     @Autowired
     private ComplianceRuleRepository complianceRuleRepository;
+    @Autowired
+    private ComplianceProfileRepository complianceProfileRepository;
+    @Autowired
+    private ComplianceProfileRuleRepository complianceProfileRuleRepository;
 
 
     private RaProfile raProfile;
@@ -136,6 +150,69 @@ public class ComplianceServiceTest extends BaseSpringBootTest {
         Assertions.assertDoesNotThrow(() -> complianceService.complianceCheckForRaProfile(SecuredUUID.fromString(raProfile.getUuid().toString())));
     }
 
+    @Test
+    public void testComplianceCheck_RaProfileInBatches() throws ConnectorException {
+        mockServer.stubFor(WireMock
+                .any(WireMock.urlPathMatching("/v1/complianceProvider/[^/]+/compliance"))
+                .willReturn(WireMock.okJson("{\"status\":\"nok\",\"rules\":[{\"uuid\":\"" + complianceRule.getUuid() + "\",\"name\":\"Rule1\",\"status\":\"nok\"}]}")));
+
+        complianceRule.setConnector(connector);
+        ComplianceProfile complianceProfile = new ComplianceProfile();
+        complianceProfile.setName("testComplianceProfile");
+        complianceProfile.setDescription("Sample description");
+        complianceProfileRepository.save(complianceProfile);
+
+        ComplianceProfileRule complianceProfileRule = new ComplianceProfileRule();
+        complianceProfileRule.setComplianceProfile(complianceProfile);
+        complianceProfileRule.setComplianceProfileUuid(complianceProfile.getUuid());
+        complianceProfileRule.setComplianceRule(complianceRule);
+        complianceProfileRule.setComplianceRuleUuid(complianceRule.getUuid());
+        complianceProfileRule = complianceProfileRuleRepository.save(complianceProfileRule);
+        complianceProfile.getComplianceRules().add(complianceProfileRule);
+
+        raProfile.setComplianceProfiles(new HashSet<>(Set.of(complianceProfile)));
+        raProfileRepository.save(raProfile);
+
+        int certificatesCount = 25;
+        List<UUID> certificateUuids = new ArrayList<>();
+        for (int i = 0; i < certificatesCount; i++) {
+            CertificateContent content = new CertificateContent();
+            content.setContent("certificateContent" + i);
+            certificateContentRepository.save(content);
+
+            Certificate raProfileCertificate = new Certificate();
+            raProfileCertificate.setCertificateContent(content);
+            raProfileCertificate.setSerialNumber("serial" + i);
+            raProfileCertificate.setStatus(CertificateStatus.VALID);
+            raProfileCertificate.setRaProfile(raProfile);
+            certificateUuids.add(certificateRepository.save(raProfileCertificate).getUuid());
+        }
+        Certificate newCertificate = new Certificate();
+        newCertificate.setCertificateContent(certificateContent);
+        newCertificate.setSerialNumber("serialNew");
+        newCertificate.setStatus(CertificateStatus.NEW);
+        newCertificate.setRaProfile(raProfile);
+        UUID newCertificateUuid = certificateRepository.save(newCertificate).getUuid();
+
+        // call the service directly instead of asynchronously and check the certificates in several batches
+        ComplianceServiceImpl complianceServiceImpl = AopTestUtils.getTargetObject(complianceService);
+        Object batchSize = ReflectionTestUtils.getField(complianceServiceImpl, "complianceCheckBatchSize");
+        ReflectionTestUtils.setField(complianceServiceImpl, "complianceCheckBatchSize", 10);
+        try {
+            complianceServiceImpl.complianceCheckForRaProfile(raProfile.getSecuredUuid());
+        } finally {
+            ReflectionTestUtils.setField(complianceServiceImpl, "complianceCheckBatchSize", batchSize);
+        }
+
+        mockServer.verify(certificatesCount, WireMock.anyRequestedFor(WireMock.urlPathMatching("/v1/complianceProvider/[^/]+/compliance")));
+        for (UUID certificateUuid : certificateUuids) {
+            Certificate checkedCertificate = certificateRepository.findByUuid(certificateUuid).orElseThrow();
+            Assertions.assertEquals(ComplianceStatus.NOK, checkedCertificate.getComplianceStatus());
+            Assertions.assertEquals(List.of(complianceProfileRule.getUuid().toString()), checkedCertificate.getComplianceResult().getNok());
+        }
+        Assertions.assertNull(certificateRepository.findByUuid(newCertificateUuid).orElseThrow().getComplianceStatus());
+    }
+
     @Test
     public void checkRuleExistsTest(){
         Boolean isExists = complianceService.complianceRuleExists(SecuredUUID.fromString(complianceRule.getUuid().toString()), connector, "default");
@@ -30,6 +30,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -165,6 +166,44 @@ public class ConnectorServiceTest extends BaseSpringBootTest {
         Assertions.assertNotNull(result.get(FunctionGroupCode.CREDENTIAL_PROVIDER));
     }
 
+    @Test
+    public void testAttributeDefinitionsAreCached() throws ConnectorException {
+        mockServer.stubFor(WireMock
+                .get(WireMock.urlPathMatching("/v1/credentialProvider/[^/]+/attributes"))
+                .willReturn(WireMock.okJson("[]")));
+
+        connectorService.getAttributes(connector.getSecuredUuid(), FunctionGroupCode.CREDENTIAL_PROVIDER, "ApiKey");
+        connectorService.getAttributes(connector.getSecuredUuid(), FunctionGroupCode.CREDENTIAL_PROVIDER, "ApiKey");
+        connectorService.getAllAttributesOfConnector(connector.getSecuredUuid());
+
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching("/v1/credentialProvider/[^/]+/attributes")));
+    }
+
+    @Test
+    public void testAttributeDefinitionsAreRefetchedAfterConnectorUpdate() throws ConnectorException {
+        mockServer.stubFor(WireMock
+                .get(WireMock.urlPathMatching("/v1/credentialProvider/[^/]+/attributes"))
+                .willReturn(WireMock.okJson("[]")));
+        mockServer.stubFor(WireMock
+                .get("/v1")
+                .willReturn(WireMock.okJson("[{\"functionGroupCode\":\"credentialProvider\",\"kinds\":[\"ApiKey\"],\"endPoints\":[]}]")));
+
+        connectorService.getAttributes(connector.getSecuredUuid(), FunctionGroupCode.CREDENTIAL_PROVIDER, "ApiKey");
+
+        ConnectorUpdateRequestDto request = new ConnectorUpdateRequestDto();
+        request.setUrl("http://localhost:3665");
+        connectorService.editConnector(connector.getSecuredUuid(), request);
+
+        // definitions are invalidated only when the update is committed
+        connectorService.getAttributes(connector.getSecuredUuid(), FunctionGroupCode.CREDENTIAL_PROVIDER, "ApiKey");
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching("/v1/credentialProvider/[^/]+/attributes")));
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        connectorService.getAttributes(connector.getSecuredUuid(), FunctionGroupCode.CREDENTIAL_PROVIDER, "ApiKey");
+
+        mockServer.verify(2, WireMock.getRequestedFor(WireMock.urlPathMatching("/v1/credentialProvider/[^/]+/attributes")));
+    }
+
     @Test
     public void testGetAllAttributesOfConnector_notFund() {
         Assertions.assertThrows(NotFoundException.class, () -> connectorService.getAllAttributesOfConnector(SecuredUUID.fromString("abfbc322-29e1-11ed-a261-0242ac120002")));
@@ -0,0 +1,217 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.common.attribute.v2.AttributeType;
+import com.czertainly.api.model.common.attribute.v2.MetadataAttribute;
+import com.czertainly.api.model.common.attribute.v2.content.AttributeContentType;
+import com.czertainly.api.model.common.attribute.v2.content.StringAttributeContent;
+import com.czertainly.api.model.common.attribute.v2.properties.MetadataAttributeProperties;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderCertificateDataDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorStatus;
+import com.czertainly.api.model.core.connector.FunctionGroupCode;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.Connector;
+import com.czertainly.core.dao.entity.Connector2FunctionGroup;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.entity.FunctionGroup;
+import com.czertainly.core.dao.repository.*;
+import com.czertainly.core.util.BaseSpringBootTest;
+import com.czertainly.core.util.MetaDefinitions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Measures the throughput of the discovery ingestion against a stub discovery provider connector. Discovery is running
+ * outside of transaction and commits its data, so the context with the database is discarded after the test.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+public class DiscoveryServiceBenchmarkTest extends BaseSpringBootTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryServiceBenchmarkTest.class);
+
+    private static final int CERTIFICATES_COUNT = 1000;
+    private static final int PAGE_SIZE = 100;
+
+    @Autowired
+    private DiscoveryService discoveryService;
+
+    @Autowired
+    private DiscoveryRepository discoveryRepository;
+    @Autowired
+    private DiscoveryCertificateRepository discoveryCertificateRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private AttributeContent2ObjectRepository attributeContent2ObjectRepository;
+    @Autowired
+    private ConnectorRepository connectorRepository;
+    @Autowired
+    private FunctionGroupRepository functionGroupRepository;
+    @Autowired
+    private Connector2FunctionGroupRepository connector2FunctionGroupRepository;
+
+    private Connector connector;
+
+    private WireMockServer mockServer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mockServer = new WireMockServer(3665);
+        mockServer.start();
+
+        WireMock.configureFor("localhost", mockServer.port());
+
+        connector = new Connector();
+        connector.setName("discoveryBenchmarkConnector");
+        connector.setUrl("http://localhost:3665");
+        connector.setStatus(ConnectorStatus.CONNECTED);
+        connector = connectorRepository.save(connector);
+
+        FunctionGroup functionGroup = new FunctionGroup();
+        functionGroup.setCode(FunctionGroupCode.DISCOVERY_PROVIDER);
+        functionGroup.setName(FunctionGroupCode.DISCOVERY_PROVIDER.getCode());
+        functionGroupRepository.save(functionGroup);
+
+        Connector2FunctionGroup c2fg = new Connector2FunctionGroup();
+        c2fg.setConnector(connector);
+        c2fg.setFunctionGroup(functionGroup);
+        c2fg.setKinds(MetaDefinitions.serializeArrayString(List.of("IpAndPort")));
+        connector2FunctionGroupRepository.save(c2fg);
+
+        stubDiscoveryProvider(generateCertificates());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    public void testDiscoveryThroughput() {
+        DiscoveryHistory discovery = runDiscovery("benchmarkDiscovery1");
+        Assertions.assertEquals(CERTIFICATES_COUNT, certificateRepository.count());
+        Assertions.assertEquals(CERTIFICATES_COUNT, discoveryCertificateRepository.countByDiscovery(discovery));
+        Assertions.assertEquals(CERTIFICATES_COUNT, discoveryCertificateRepository.countByDiscoveryAndNewlyDiscovered(discovery, true));
+        Assertions.assertEquals(CERTIFICATES_COUNT, attributeContent2ObjectRepository.count());
+
+        // second discovery of the same certificates only links the existing ones
+        DiscoveryHistory rediscovery = runDiscovery("benchmarkDiscovery2");
+        Assertions.assertEquals(CERTIFICATES_COUNT, certificateRepository.count());
+        Assertions.assertEquals(CERTIFICATES_COUNT, discoveryCertificateRepository.countByDiscovery(rediscovery));
+        Assertions.assertEquals(0, discoveryCertificateRepository.countByDiscoveryAndNewlyDiscovered(rediscovery, true));
+        Assertions.assertEquals(2L * CERTIFICATES_COUNT, attributeContent2ObjectRepository.count());
+    }
+
+    private DiscoveryHistory runDiscovery(String name) {
+        DiscoveryHistory discovery = new DiscoveryHistory();
+        discovery.setName(name);
+        discovery.setConnectorUuid(connector.getUuid());
+        discovery.setConnectorName(connector.getName());
+        discovery.setKind("IpAndPort");
+        discovery.setAttributes("[]");
+        discovery.setStartTime(new Date());
+        discovery.setStatus(DiscoveryStatus.IN_PROGRESS);
+        discovery = discoveryRepository.save(discovery);
+
+        Instant start = Instant.now();
+        discoveryService.createDiscovery(discovery);
+        Duration duration = Duration.between(start, Instant.now());
+
+        DiscoveryHistory result = discoveryRepository.findByUuid(discovery.getUuid()).orElseThrow();
+        Assertions.assertEquals(DiscoveryStatus.COMPLETED, result.getStatus(), result.getMessage());
+        logger.info("Discovery {} processed {} certificates in {} ms: {} certificates/second", name, CERTIFICATES_COUNT,
+                duration.toMillis(), String.format("%.1f", CERTIFICATES_COUNT * 1000.0 / Math.max(1, duration.toMillis())));
+        return result;
+    }
+
+    private List<String> generateCertificates() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate());
+
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + Duration.ofDays(365).toMillis());
+        List<String> certificates = new ArrayList<>();
+        for (int i = 0; i < CERTIFICATES_COUNT; i++) {
+            JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                    new X500Name("CN=Benchmark CA"),
+                    BigInteger.valueOf(10000L + i),
+                    notBefore,
+                    notAfter,
+                    new X500Name("CN=benchmark" + i),
+                    keyPair.getPublic());
+            certificates.add(Base64.getEncoder().encodeToString(
+                    new JcaX509CertificateConverter().getCertificate(certificateBuilder.build(signer)).getEncoded()));
+        }
+        return certificates;
+    }
+
+    private void stubDiscoveryProvider(List<String> certificates) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        DiscoveryProviderDto discoveryResponse = new DiscoveryProviderDto();
+        discoveryResponse.setUuid(UUID.randomUUID().toString());
+        discoveryResponse.setName("benchmark");
+        discoveryResponse.setStatus(DiscoveryStatus.COMPLETED);
+        discoveryResponse.setTotalCertificatesDiscovered(certificates.size());
+        discoveryResponse.setCertificateData(List.of());
+        discoveryResponse.setMeta(List.of());
+        mockServer.stubFor(WireMock
+                .post(WireMock.urlPathMatching("/v1/discoveryProvider/.*"))
+                .atPriority(10)
+                .willReturn(WireMock.okJson(objectMapper.writeValueAsString(discoveryResponse))));
+
+        MetadataAttributeProperties properties = new MetadataAttributeProperties();
+        properties.setLabel("Discovery Source");
+        properties.setVisible(true);
+        MetadataAttribute metadataAttribute = new MetadataAttribute();
+        metadataAttribute.setUuid("4c6a5c4e-5a1d-4f0e-9c55-2c9f5a3b7e10");
+        metadataAttribute.setName("discoverySource");
+        metadataAttribute.setType(AttributeType.META);
+        metadataAttribute.setContentType(AttributeContentType.STRING);
+        metadataAttribute.setProperties(properties);
+        metadataAttribute.setContent(List.of(new StringAttributeContent("benchmark")));
+
+        for (int page = 1; (page - 1) * PAGE_SIZE < certificates.size(); page++) {
+            List<DiscoveryProviderCertificateDataDto> certificateData = new ArrayList<>();
+            for (String certificate : certificates.subList((page - 1) * PAGE_SIZE, Math.min(page * PAGE_SIZE, certificates.size()))) {
+                DiscoveryProviderCertificateDataDto data = new DiscoveryProviderCertificateDataDto();
+                data.setUuid(UUID.randomUUID().toString());
+                data.setBase64Content(certificate);
+                data.setMeta(List.of(metadataAttribute));
+                certificateData.add(data);
+            }
+            discoveryResponse.setCertificateData(certificateData);
+            mockServer.stubFor(WireMock
+                    .post(WireMock.urlPathMatching("/v1/discoveryProvider/.*"))
+                    .withRequestBody(WireMock.matchingJsonPath("$.pageNumber", WireMock.equalTo(String.valueOf(page))))
+                    .atPriority(1)
+                    .willReturn(WireMock.okJson(objectMapper.writeValueAsString(discoveryResponse))));
+        }
+    }
+}
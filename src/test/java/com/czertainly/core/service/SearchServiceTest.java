@@ -0,0 +1,353 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
+import com.czertainly.api.model.core.auth.Resource;
+import com.czertainly.api.model.core.certificate.CertificateEvent;
+import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
+import com.czertainly.api.model.core.certificate.CertificateEventStatus;
+import com.czertainly.api.model.core.search.SearchCondition;
+import com.czertainly.api.model.core.search.SearchGroup;
+import com.czertainly.api.model.core.search.SearchableFields;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.Group;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.GroupRepository;
+import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.dao.repository.SubqueryWhereClause;
+import com.czertainly.core.security.authz.SecurityFilter;
+import com.czertainly.core.util.BaseSpringBootTest;
+import com.czertainly.core.util.SqlCapturingInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.czertainly.core.util.SqlCapturingInspector")
+public class SearchServiceTest extends BaseSpringBootTest {
+
+    private static final int FILTERS_COUNT = 1000;
+    private static final int MATCHING_OBJECTS_COUNT = 50_000;
+    private static final String METACHARACTERS_VALUE = "O'Brien\"; DROP TABLE certificate; -- %_\\";
+
+    private static final List<SearchableFields> FIELDS = List.of(SearchableFields.COMMON_NAME, SearchableFields.SERIAL_NUMBER);
+    private static final List<SearchCondition> CONDITIONS = List.of(SearchCondition.EQUALS, SearchCondition.CONTAINS, SearchCondition.STARTS_WITH);
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateEventHistoryService certificateEventHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RaProfileRepository raProfileRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Test
+    public void testSearchFiltersAreBoundAsParameters() {
+        Random random = new Random(1);
+        List<String> values = new ArrayList<>();
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        for (int i = 0; i < FILTERS_COUNT; i++) {
+            String value = "value" + UUID.randomUUID().toString().replace("-", "");
+            values.add(value);
+            List<SearchFilterRequestDto> filters = List.of(new PropertySearchFilter(
+                    FIELDS.get(random.nextInt(FIELDS.size())),
+                    CONDITIONS.get(random.nextInt(CONDITIONS.size())),
+                    value));
+
+            List<Certificate> certificates = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(),
+                    searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE),
+                    PageRequest.of(0, 10), (root, cb) -> cb.desc(root.get("created")));
+            Assertions.assertTrue(certificates.isEmpty());
+        }
+
+        List<String> statements = new ArrayList<>(SqlCapturingInspector.STATEMENTS);
+        Set<String> distinctStatements = new HashSet<>(statements);
+        double hitRatio = 1.0 - (double) distinctStatements.size() / statements.size();
+
+        Assertions.assertTrue(statements.size() >= FILTERS_COUNT);
+        Assertions.assertTrue(distinctStatements.size() <= FIELDS.size() * CONDITIONS.size(), "Distinct statements: " + distinctStatements.size());
+        Assertions.assertTrue(hitRatio > 0.99, "Statement hit ratio: " + hitRatio);
+        for (String statement : distinctStatements) {
+            for (String value : values) {
+                Assertions.assertFalse(statement.contains(value), "Filter value inlined in SQL: " + statement);
+            }
+        }
+    }
+
+    @Test
+    public void testAttributeSearchIsSingleQuery() {
+        createCertificatesWithMetaAttribute("searchMeta", MATCHING_OBJECTS_COUNT, 10);
+
+        List<SearchFilterRequestDto> filters = List.of(new AttributeSearchFilter("searchMeta|STRING", SearchGroup.META, SearchCondition.EQUALS, "match"));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        List<Certificate> certificates = certificateRepository.findUsingSecurityFilter(SecurityFilter.create(), whereClause,
+                PageRequest.of(0, 10), (root, cb) -> cb.desc(root.get("created")));
+        List<String> statements = new ArrayList<>(SqlCapturingInspector.STATEMENTS);
+
+        // attribute filter is a correlated subquery of the searched objects, no list of matching UUIDs is loaded
+        Assertions.assertEquals(10, certificates.size());
+        Assertions.assertEquals(1, statements.size(), "Statements: " + statements);
+        Assertions.assertTrue(statements.get(0).toLowerCase().contains("exists"));
+        Assertions.assertTrue(statements.get(0).chars().filter(c -> c == '?').count() < 50);
+        Assertions.assertEquals(MATCHING_OBJECTS_COUNT, certificateRepository.countUsingSecurityFilter(SecurityFilter.create(), whereClause).longValue());
+    }
+
+    @Test
+    public void testBulkUpdateByAttributeFilter() {
+        createCertificatesWithMetaAttribute("updateMeta", 20, 5);
+
+        List<SearchFilterRequestDto> filters = List.of(new AttributeSearchFilter("updateMeta|STRING", SearchGroup.META, SearchCondition.EQUALS, "match"));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        int updated = certificateRepository.updateUsingSecurityFilter(SecurityFilter.create(), whereClause, Map.of("owner", "bulkOwner"));
+        List<String> statements = new ArrayList<>(SqlCapturingInspector.STATEMENTS);
+
+        // attribute filter is a correlated subquery of the bulk update
+        Assertions.assertEquals(20, updated);
+        Assertions.assertEquals(1, statements.size(), "Statements: " + statements);
+        Assertions.assertTrue(statements.get(0).toLowerCase().startsWith("update"));
+        Assertions.assertTrue(statements.get(0).toLowerCase().contains("exists"));
+        Assertions.assertEquals(20, jdbcTemplate.queryForObject("SELECT count(*) FROM certificate WHERE common_name LIKE 'updateMeta%' AND owner = 'bulkOwner'", Long.class));
+        Assertions.assertEquals(5, jdbcTemplate.queryForObject("SELECT count(*) FROM certificate WHERE common_name LIKE 'updateMeta%' AND owner IS NULL", Long.class));
+    }
+
+    @Test
+    public void testBulkUpdateByRaProfileFilter() {
+        RaProfile raProfile = createRaProfile("bulkRaProfile");
+        RaProfile otherRaProfile = createRaProfile("otherBulkRaProfile");
+        RaProfile newRaProfile = createRaProfile("newBulkRaProfile");
+        List<UUID> matching = createCertificates("bulkRaProfileCertificate", 3, "ra_profile_uuid", raProfile.getUuid());
+        List<UUID> others = createCertificates("bulkRaProfileCertificate", 2, "ra_profile_uuid", otherRaProfile.getUuid());
+        List<UUID> withoutRaProfile = createCertificates("bulkRaProfileCertificate", 2);
+
+        List<SearchFilterRequestDto> filters = List.of(new PropertySearchFilter(SearchableFields.RA_PROFILE_NAME, SearchCondition.EQUALS, "bulkRaProfile"));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        // filter joins the RA profile, the bulk update is restricted by subquery
+        int updated = certificateRepository.updateUsingSecurityFilter(SecurityFilter.create(), whereClause, Map.of("raProfileUuid", newRaProfile.getUuid()));
+        Assertions.assertEquals(matching.size(), updated);
+        assertColumnValue(matching, "ra_profile_uuid", newRaProfile.getUuid());
+        assertColumnValue(others, "ra_profile_uuid", otherRaProfile.getUuid());
+        assertColumnValue(withoutRaProfile, "ra_profile_uuid", null);
+    }
+
+    @Test
+    public void testBulkUpdateByGroupFilter() {
+        Group group = createGroup("bulkGroup");
+        Group otherGroup = createGroup("otherBulkGroup");
+        List<UUID> matching = createCertificates("bulkGroupCertificate", 3, "group_uuid", group.getUuid());
+        List<UUID> others = createCertificates("bulkGroupCertificate", 2, "group_uuid", otherGroup.getUuid());
+
+        List<SearchFilterRequestDto> filters = List.of(new PropertySearchFilter(SearchableFields.GROUP_NAME, SearchCondition.EQUALS, "bulkGroup"));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        int updated = certificateRepository.updateUsingSecurityFilter(SecurityFilter.create(), whereClause, Map.of("owner", "bulkGroupOwner"));
+        Assertions.assertEquals(matching.size(), updated);
+        assertColumnValue(matching, "owner", "bulkGroupOwner");
+        for (UUID uuid : others) {
+            Assertions.assertNotEquals("bulkGroupOwner", jdbcTemplate.queryForObject("SELECT owner FROM certificate WHERE uuid = ?", String.class, uuid));
+        }
+    }
+
+    @Test
+    public void testBulkUpdateWithSqlMetacharactersInValues() {
+        List<UUID> matching = createCertificates(METACHARACTERS_VALUE, 3);
+        List<UUID> others = createCertificates(METACHARACTERS_VALUE + "x", 2);
+
+        List<SearchFilterRequestDto> filters = List.of(new PropertySearchFilter(SearchableFields.COMMON_NAME, SearchCondition.EQUALS, METACHARACTERS_VALUE));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        SqlCapturingInspector.STATEMENTS.clear();
+        UUID ownerUuid = UUID.randomUUID();
+        int updated = certificateRepository.updateUsingSecurityFilter(SecurityFilter.create(), whereClause, Map.of("owner", METACHARACTERS_VALUE, "ownerUuid", ownerUuid));
+        List<String> statements = new ArrayList<>(SqlCapturingInspector.STATEMENTS);
+
+        // filter and new values are bound as parameters and matched literally
+        Assertions.assertEquals(matching.size(), updated);
+        for (String statement : statements) {
+            Assertions.assertFalse(statement.contains("DROP"), "Value inlined in SQL: " + statement);
+        }
+        for (UUID uuid : matching) {
+            Assertions.assertEquals(METACHARACTERS_VALUE, jdbcTemplate.queryForObject("SELECT owner FROM certificate WHERE uuid = ?", String.class, uuid));
+            Assertions.assertEquals(ownerUuid, jdbcTemplate.queryForObject("SELECT owner_uuid FROM certificate WHERE uuid = ?", UUID.class, uuid));
+        }
+        for (UUID uuid : others) {
+            Assertions.assertNull(jdbcTemplate.queryForObject("SELECT owner FROM certificate WHERE uuid = ?", String.class, uuid));
+        }
+    }
+
+    @Test
+    public void testEventHistoryForRequestWithSqlMetacharactersInValues() throws NotFoundException {
+        List<UUID> matching = createCertificates(METACHARACTERS_VALUE, 3);
+        List<UUID> others = createCertificates(METACHARACTERS_VALUE + "x", 2);
+
+        List<SearchFilterRequestDto> filters = List.of(new PropertySearchFilter(SearchableFields.COMMON_NAME, SearchCondition.EQUALS, METACHARACTERS_VALUE));
+        SubqueryWhereClause<Certificate> whereClause = searchService.getSearchWhereClause(SecurityFilter.create(), filters, Resource.CERTIFICATE);
+
+        // history is added directly, not by the asynchronous proxy, to check it within the test transaction
+        CertificateEventHistoryService historyService = AopTestUtils.getTargetObject(certificateEventHistoryService);
+        historyService.addEventHistoryForRequest(SecurityFilter.create(), whereClause, CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "Owner: " + METACHARACTERS_VALUE);
+
+        for (UUID uuid : matching) {
+            List<CertificateEventHistoryDto> history = historyService.getCertificateEventHistory(uuid);
+            Assertions.assertEquals(1, history.size());
+            Assertions.assertEquals("Owner: " + METACHARACTERS_VALUE, history.get(0).getMessage());
+        }
+        for (UUID uuid : others) {
+            Assertions.assertTrue(historyService.getCertificateEventHistory(uuid).isEmpty());
+        }
+    }
+
+    private List<UUID> createCertificates(String commonName, int count) {
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID uuid = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO certificate (uuid, i_cre, i_upd, common_name) VALUES (?, now(), now(), ?)", uuid, commonName);
+            uuids.add(uuid);
+        }
+        return uuids;
+    }
+
+    private List<UUID> createCertificates(String commonName, int count, String referenceColumn, UUID referenceUuid) {
+        List<UUID> uuids = createCertificates(commonName, count);
+        for (UUID uuid : uuids) {
+            jdbcTemplate.update("UPDATE certificate SET " + referenceColumn + " = ? WHERE uuid = ?", referenceUuid, uuid);
+        }
+        return uuids;
+    }
+
+    private void assertColumnValue(List<UUID> uuids, String column, Object expected) {
+        for (UUID uuid : uuids) {
+            Assertions.assertEquals(expected, jdbcTemplate.queryForObject("SELECT " + column + " FROM certificate WHERE uuid = ?",
+                    expected == null ? Object.class : expected.getClass(), uuid));
+        }
+    }
+
+    private RaProfile createRaProfile(String name) {
+        RaProfile raProfile = new RaProfile();
+        raProfile.setName(name);
+        return raProfileRepository.saveAndFlush(raProfile);
+    }
+
+    private Group createGroup(String name) {
+        Group group = new Group();
+        group.setName(name);
+        return groupRepository.saveAndFlush(group);
+    }
+
+    /**
+     * Create certificates with META attribute of the given name, value of the attribute is 'match' for the matching
+     * certificates and 'other' for the others
+     */
+    private void createCertificatesWithMetaAttribute(String attributeName, int matchingCount, int otherCount) {
+        UUID definitionUuid = UUID.randomUUID();
+        UUID matchingContentUuid = UUID.randomUUID();
+        UUID otherContentUuid = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO attribute_definition (uuid, i_cre, i_upd, attribute_uuid, attribute_name, attribute_type, attribute_content_type, enabled, global, reference) " +
+                "VALUES (?, now(), now(), ?, ?, 'META', 'STRING', true, false, false)", definitionUuid, UUID.randomUUID(), attributeName);
+        jdbcTemplate.update("INSERT INTO attribute_content (uuid, attribute_definition_uuid) VALUES (?, ?), (?, ?)",
+                matchingContentUuid, definitionUuid, otherContentUuid, definitionUuid);
+        jdbcTemplate.update("INSERT INTO attribute_content_item (uuid, attribute_content_uuid, json) VALUES (?, ?, '{\"data\": \"match\"}'::jsonb), (?, ?, '{\"data\": \"other\"}'::jsonb)",
+                UUID.randomUUID(), matchingContentUuid, UUID.randomUUID(), otherContentUuid);
+        jdbcTemplate.update("INSERT INTO certificate (uuid, i_cre, i_upd, common_name) " +
+                "SELECT md5(? || g)::uuid, now(), now(), ? || g FROM generate_series(1, ?) g", attributeName, attributeName, matchingCount + otherCount);
+        jdbcTemplate.update("INSERT INTO attribute_content_2_object (uuid, attribute_content_uuid, object_type, object_uuid) " +
+                "SELECT md5(? || 'Link' || g)::uuid, CASE WHEN g <= ? THEN ?::uuid ELSE ?::uuid END, 'CERTIFICATE', md5(? || g)::uuid FROM generate_series(1, ?) g",
+                attributeName, matchingCount, matchingContentUuid, otherContentUuid, attributeName, matchingCount + otherCount);
+    }
+
+    private static class AttributeSearchFilter extends SearchFilterRequestDto {
+
+        private final String fieldIdentifier;
+        private final SearchGroup searchGroup;
+        private final SearchCondition condition;
+        private final Serializable value;
+
+        AttributeSearchFilter(String fieldIdentifier, SearchGroup searchGroup, SearchCondition condition, Serializable value) {
+            this.fieldIdentifier = fieldIdentifier;
+            this.searchGroup = searchGroup;
+            this.condition = condition;
+            this.value = value;
+        }
+
+        @Override
+        public String getFieldIdentifier() {
+            return fieldIdentifier;
+        }
+
+        @Override
+        public SearchGroup getSearchGroup() {
+            return searchGroup;
+        }
+
+        @Override
+        public SearchCondition getCondition() {
+            return condition;
+        }
+
+        @Override
+        public Serializable getValue() {
+            return value;
+        }
+    }
+
+    private static class PropertySearchFilter extends SearchFilterRequestDto {
+
+        private final SearchableFields field;
+        private final SearchCondition condition;
+        private final Serializable value;
+
+        PropertySearchFilter(SearchableFields field, SearchCondition condition, Serializable value) {
+            this.field = field;
+            this.condition = condition;
+            this.value = value;
+        }
+
+        @Override
+        public String getFieldIdentifier() {
+            return field.name();
+        }
+
+        @Override
+        public SearchGroup getSearchGroup() {
+            return SearchGroup.PROPERTY;
+        }
+
+        @Override
+        public SearchCondition getCondition() {
+            return condition;
+        }
+
+        @Override
+        public Serializable getValue() {
+            return value;
+        }
+    }
+}
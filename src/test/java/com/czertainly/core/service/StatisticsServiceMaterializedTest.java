@@ -0,0 +1,82 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.client.dashboard.StatisticsDto;
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.tasks.CertificateStatisticsRefreshTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the statistics tests against the certificate statistics table, which is refreshed in the test transaction
+ * before the statistics are read
+ */
+@TestPropertySource(properties = "statistics.certificate.materialized=true")
+public class StatisticsServiceMaterializedTest extends StatisticsServiceTest {
+
+    @Autowired
+    private CertificateStatisticsRefreshTask certificateStatisticsRefreshTask;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testScheduledRefreshOutsideOfTransaction() {
+        // scheduled refresh runs without transaction and has to start its own for the table lock
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Certificate certificate = transactionTemplate.execute(status -> {
+            CertificateContent certificateContent = new CertificateContent();
+            certificateContent.setContent("scheduledStatistics");
+            certificateContent = certificateContentRepository.save(certificateContent);
+
+            Certificate newCertificate = new Certificate();
+            newCertificate.setSubjectDn("CN=scheduledStatistics");
+            newCertificate.setIssuerDn("CN=scheduledStatistics");
+            newCertificate.setSerialNumber("scheduledStatistics");
+            newCertificate.setCertificateContent(certificateContent);
+            newCertificate.setCertificateContentId(certificateContent.getId());
+            newCertificate.setStatus(CertificateStatus.VALID);
+            return certificateRepository.save(newCertificate);
+        });
+
+        try {
+            certificateStatisticsRefreshTask.scheduledRefresh();
+
+            Long certificates = jdbcTemplate.queryForObject("SELECT count(*) FROM certificate", Long.class);
+            Assertions.assertTrue(certificates > 0);
+            Assertions.assertEquals(certificates, jdbcTemplate.queryForObject("SELECT sum(count) FROM certificate_statistics WHERE dimension = 'STATUS'", Long.class));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                certificateRepository.findByUuid(certificate.getUuid()).ifPresent(certificateRepository::delete);
+                certificateContentRepository.deleteById(certificate.getCertificateContentId());
+                jdbcTemplate.update("DELETE FROM certificate_statistics");
+            });
+        }
+    }
+
+    @Override
+    protected StatisticsDto getStatistics() {
+        certificateStatisticsRefreshTask.refresh();
+        return super.getStatistics();
+    }
+}
@@ -1,8 +1,17 @@
 package com.czertainly.core.service;
 
 import com.czertainly.api.model.client.dashboard.StatisticsDto;
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.api.model.core.certificate.CertificateType;
+import com.czertainly.api.model.core.compliance.ComplianceStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.Group;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.GroupRepository;
+import com.czertainly.core.dao.repository.RaProfileRepository;
 import com.czertainly.core.util.BaseSpringBootTest;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -11,6 +20,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 @SpringBootTest
 @Transactional
 @Rollback
@@ -22,9 +37,18 @@ public class StatisticsServiceTest extends BaseSpringBootTest {
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private RaProfileRepository raProfileRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
     @Test
     public void testGetStatistics() {
-        StatisticsDto result = statisticsService.getStatistics();
+        StatisticsDto result = getStatistics();
         Assertions.assertNotNull(result);
         Assertions.assertEquals(0l, result.getTotalCertificates());
         Assertions.assertEquals(0l, result.getTotalGroups());
@@ -34,9 +58,126 @@ public class StatisticsServiceTest extends BaseSpringBootTest {
     public void testGetStatistics_oneGroup() {
         groupRepository.save(new Group());
 
-        StatisticsDto result = statisticsService.getStatistics();
+        StatisticsDto result = getStatistics();
         Assertions.assertNotNull(result);
         Assertions.assertEquals(0l, result.getTotalCertificates());
         Assertions.assertEquals(1l, result.getTotalGroups());
     }
+
+    @Test
+    public void testGetStatistics_certificates() {
+        Group group = new Group();
+        group.setName("TestGroup");
+        group = groupRepository.save(group);
+
+        RaProfile raProfile = new RaProfile();
+        raProfile.setName("TestRaProfile");
+        raProfile = raProfileRepository.save(raProfile);
+
+        List<CertificateStatus> statuses = List.of(CertificateStatus.VALID, CertificateStatus.REVOKED, CertificateStatus.EXPIRED, CertificateStatus.NEW, CertificateStatus.EXPIRING);
+        List<ComplianceStatus> complianceStatuses = List.of(ComplianceStatus.OK, ComplianceStatus.NOK, ComplianceStatus.NA);
+        long[] daysToExpiry = {-5, 5, 15, 25, 45, 75, 400};
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 60; i++) {
+            CertificateContent certificateContent = new CertificateContent();
+            certificateContent.setContent("statistics" + i);
+            certificateContent = certificateContentRepository.save(certificateContent);
+
+            Certificate certificate = new Certificate();
+            certificate.setSubjectDn("CN=statistics" + i);
+            certificate.setIssuerDn("CN=statistics");
+            certificate.setSerialNumber("20" + i);
+            certificate.setCertificateContent(certificateContent);
+            certificate.setCertificateContentId(certificateContent.getId());
+            certificate.setStatus(statuses.get(i % statuses.size()));
+            certificate.setCertificateType(CertificateType.X509);
+            certificate.setKeySize(i % 3 == 0 ? 2048 : 4096);
+            certificate.setBasicConstraints(i % 4 == 0 ? "Subject Type=CA" : "Subject Type=End Entity");
+            certificate.setComplianceStatus(i % 4 == 0 ? null : complianceStatuses.get(i % complianceStatuses.size()));
+            certificate.setNotAfter(new Date(now + TimeUnit.DAYS.toMillis(daysToExpiry[i % daysToExpiry.length])));
+            if (i % 2 == 0) {
+                certificate.setGroup(group);
+            }
+            if (i % 3 == 0) {
+                certificate.setRaProfile(raProfile);
+            }
+            certificateRepository.save(certificate);
+        }
+        certificateRepository.flush();
+
+        StatisticsDto result = getStatistics();
+        StatisticsDto expected = aggregateInMemory(certificateRepository.findAll());
+
+        Assertions.assertEquals(60L, result.getTotalCertificates());
+        Assertions.assertEquals(expected.getGroupStatByCertificateCount(), result.getGroupStatByCertificateCount());
+        Assertions.assertEquals(expected.getRaProfileStatByCertificateCount(), result.getRaProfileStatByCertificateCount());
+        Assertions.assertEquals(expected.getCertificateStatByType(), result.getCertificateStatByType());
+        Assertions.assertEquals(expected.getCertificateStatByKeySize(), result.getCertificateStatByKeySize());
+        Assertions.assertEquals(expected.getCertificateStatByBasicConstraints(), result.getCertificateStatByBasicConstraints());
+        Assertions.assertEquals(expected.getCertificateStatByExpiry(), result.getCertificateStatByExpiry());
+        Assertions.assertEquals(expected.getCertificateStatByStatus(), result.getCertificateStatByStatus());
+        Assertions.assertEquals(expected.getCertificateStatByComplianceStatus(), result.getCertificateStatByComplianceStatus());
+    }
+
+    protected StatisticsDto getStatistics() {
+        return statisticsService.getStatistics();
+    }
+
+    /**
+     * Reference implementation of the statistics aggregating the loaded certificates in memory
+     */
+    private StatisticsDto aggregateInMemory(List<Certificate> certificates) {
+        Map<String, String> complianceMap = Map.of("NA", "Not Checked", "OK", "Compliant", "NOK", "Non Compliant");
+        Map<String, Long> groupStat = new HashMap<>();
+        Map<String, Long> raProfileStat = new HashMap<>();
+        Map<String, Long> typeStat = new HashMap<>();
+        Map<String, Long> keySizeStat = new HashMap<>();
+        Map<String, Long> bcStat = new HashMap<>();
+        Map<String, Long> expiryStat = new HashMap<>();
+        Map<String, Long> statusStat = new HashMap<>();
+        Map<String, Long> complianceStat = new HashMap<>();
+        Date currentTime = new Date();
+        for (Certificate certificate : certificates) {
+            groupStat.merge(certificate.getGroup() != null ? certificate.getGroup().getName() : "Unknown", 1L, Long::sum);
+            raProfileStat.merge(certificate.getRaProfile() != null ? certificate.getRaProfile().getName() : "Unknown", 1L, Long::sum);
+            if (!certificate.getStatus().equals(CertificateStatus.NEW)) {
+                typeStat.merge(certificate.getCertificateType().getCode(), 1L, Long::sum);
+                expiryStat.merge(getExpiryTime(currentTime, certificate.getNotAfter()), 1L, Long::sum);
+                bcStat.merge(certificate.getBasicConstraints(), 1L, Long::sum);
+            }
+            keySizeStat.merge(certificate.getKeySize().toString(), 1L, Long::sum);
+            statusStat.merge(certificate.getStatus().getCode(), 1L, Long::sum);
+            complianceStat.merge(certificate.getComplianceStatus() != null ? complianceMap.get(certificate.getComplianceStatus().getCode().toUpperCase()) : "Not Checked", 1L, Long::sum);
+        }
+
+        StatisticsDto dto = new StatisticsDto();
+        dto.setGroupStatByCertificateCount(groupStat);
+        dto.setRaProfileStatByCertificateCount(raProfileStat);
+        dto.setCertificateStatByType(typeStat);
+        dto.setCertificateStatByKeySize(keySizeStat);
+        dto.setCertificateStatByBasicConstraints(bcStat);
+        dto.setCertificateStatByExpiry(expiryStat);
+        dto.setCertificateStatByStatus(statusStat);
+        dto.setCertificateStatByComplianceStatus(complianceStat);
+        return dto;
+    }
+
+    private String getExpiryTime(Date now, Date expiry) {
+        long diffInMillies = expiry.getTime() - now.getTime();
+        long difference = TimeUnit.DAYS.convert(diffInMillies, TimeUnit.MILLISECONDS);
+        if (diffInMillies <= 0) {
+            return "expired";
+        } else if (difference < 10) {
+            return "10";
+        } else if (difference < 20) {
+            return "20";
+        } else if (difference < 30) {
+            return "30";
+        } else if (difference < 60) {
+            return "60";
+        } else if (difference < 90) {
+            return "90";
+        }
+        return "More";
+    }
 }
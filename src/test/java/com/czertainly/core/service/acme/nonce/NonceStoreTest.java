@@ -0,0 +1,121 @@
+package com.czertainly.core.service.acme.nonce;
+
+import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
+import com.czertainly.core.util.BaseSpringBootTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class NonceStoreTest extends BaseSpringBootTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(NonceStoreTest.class);
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    @Autowired
+    private NonceStore nonceStore;
+
+    @Autowired
+    private AcmeNonceRepository acmeNonceRepository;
+
+    @Test
+    public void testDefaultStoreDatabase() {
+        // nonces are shared by all instances unless the instance local store is configured
+        Assertions.assertInstanceOf(DatabaseNonceStore.class, nonceStore);
+    }
+
+    @Test
+    public void testNonceUsedOnlyOnce() {
+        for (NonceStore store : List.of(new InMemoryNonceStore(Duration.ofHours(1)), new HmacNonceStore(Duration.ofHours(1), SECRET), createDatabaseNonceStore())) {
+            String nonce = store.generateNonce();
+            Assertions.assertTrue(store.consumeNonce(nonce), store.getClass().getSimpleName());
+            Assertions.assertFalse(store.consumeNonce(nonce), store.getClass().getSimpleName());
+            Assertions.assertFalse(store.consumeNonce("unknownNonce"), store.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void testExpiredNoncesRemoved() throws InterruptedException {
+        InMemoryNonceStore store = new InMemoryNonceStore(Duration.ofMillis(100));
+        List<String> nonces = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            nonces.add(store.generateNonce());
+        }
+        Assertions.assertEquals(1000, store.size());
+
+        Thread.sleep(300);
+        // expired nonces are removed when the store is used
+        store.generateNonce();
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertFalse(store.consumeNonce(nonces.get(0)));
+
+        HmacNonceStore hmacStore = new HmacNonceStore(Duration.ofMillis(100), SECRET);
+        String nonce = hmacStore.generateNonce();
+        Thread.sleep(200);
+        Assertions.assertFalse(hmacStore.consumeNonce(nonce));
+    }
+
+    @Test
+    public void testHmacNonceValidatedByAnotherInstance() {
+        HmacNonceStore store = new HmacNonceStore(Duration.ofHours(1), SECRET);
+        String nonce = store.generateNonce();
+
+        HmacNonceStore otherSecretStore = new HmacNonceStore(Duration.ofHours(1), Base64.getEncoder().encodeToString("another secret of the instance...".getBytes()));
+        Assertions.assertFalse(otherSecretStore.consumeNonce(nonce));
+
+        // tampered random part of the nonce
+        char[] tampered = nonce.toCharArray();
+        tampered[20] = tampered[20] == 'A' ? 'B' : 'A';
+        Assertions.assertFalse(store.consumeNonce(new String(tampered)));
+
+        Assertions.assertTrue(new HmacNonceStore(Duration.ofHours(1), SECRET).consumeNonce(nonce));
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        int requests = 2000;
+        double memoryThroughput = measureThroughput(new InMemoryNonceStore(Duration.ofHours(1)), requests);
+        double hmacThroughput = measureThroughput(new HmacNonceStore(Duration.ofHours(1), SECRET), requests);
+        double databaseThroughput = measureThroughput(createDatabaseNonceStore(), requests);
+        // throughput depends on the environment, it is only reported
+        logger.info("ACME nonce throughput (requests/s): memory {} ({}x database), hmac {} ({}x database), database {}",
+                (long) memoryThroughput, String.format("%.1f", memoryThroughput / databaseThroughput),
+                (long) hmacThroughput, String.format("%.1f", hmacThroughput / databaseThroughput), (long) databaseThroughput);
+    }
+
+    private double measureThroughput(NonceStore store, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            long start = System.nanoTime();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                // each ACME request validates the nonce from the previous response and returns a new one
+                results.add(executor.submit(() -> store.consumeNonce(store.generateNonce())));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get());
+            }
+            return requests / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DatabaseNonceStore createDatabaseNonceStore() {
+        DatabaseNonceStore store = new DatabaseNonceStore();
+        store.setAcmeNonceRepository(acmeNonceRepository);
+        ReflectionTestUtils.setField(store, "validity", Duration.ofHours(1));
+        return store;
+    }
+}
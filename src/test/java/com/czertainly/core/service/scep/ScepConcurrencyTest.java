@@ -0,0 +1,383 @@
+package com.czertainly.core.service.scep;
+
+import com.czertainly.api.clients.cryptography.CryptographicOperationsApiClient;
+import com.czertainly.api.model.common.enums.cryptography.KeyAlgorithm;
+import com.czertainly.api.model.common.enums.cryptography.KeyFormat;
+import com.czertainly.api.model.common.enums.cryptography.KeyType;
+import com.czertainly.api.model.common.enums.cryptography.KeyUsage;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataRequestDto;
+import com.czertainly.api.model.connector.cryptography.operations.SignDataResponseDto;
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.api.model.core.connector.ConnectorStatus;
+import com.czertainly.api.model.core.cryptography.key.KeyState;
+import com.czertainly.api.model.core.scep.FailInfo;
+import com.czertainly.api.model.core.scep.MessageType;
+import com.czertainly.api.model.core.scep.PkiStatus;
+import com.czertainly.core.dao.entity.*;
+import com.czertainly.core.dao.entity.scep.ScepProfile;
+import com.czertainly.core.dao.repository.*;
+import com.czertainly.core.dao.repository.scep.ScepProfileRepository;
+import com.czertainly.core.service.scep.impl.ScepCaCache;
+import com.czertainly.core.service.scep.impl.ScepServiceImpl;
+import com.czertainly.core.service.scep.message.ScepConstants;
+import com.czertainly.core.util.BaseSpringBootTest;
+import com.czertainly.core.util.CertificateUtil;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.*;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.cms.jcajce.JceCMSContentEncryptorBuilder;
+import org.bouncycastle.cms.jcajce.JcePasswordRecipientInfoGenerator;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ScepConcurrencyTest extends BaseSpringBootTest {
+
+    private static final int PROFILES_COUNT = 2;
+    private static final int REQUESTS_COUNT = 200;
+    private static final String WRONG_CHALLENGE_PASSWORD = "wrongChallengePassword";
+
+    @Autowired
+    private ScepService scepService;
+    @Autowired
+    private ScepCaCache scepCaCache;
+    @Autowired
+    private ConnectorRepository connectorRepository;
+    @Autowired
+    private TokenInstanceReferenceRepository tokenInstanceReferenceRepository;
+    @Autowired
+    private TokenProfileRepository tokenProfileRepository;
+    @Autowired
+    private CryptographicKeyRepository cryptographicKeyRepository;
+    @Autowired
+    private CryptographicKeyItemRepository cryptographicKeyItemRepository;
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private RaProfileRepository raProfileRepository;
+    @Autowired
+    private ScepProfileRepository scepProfileRepository;
+    @Autowired
+    private CryptographicOperationsApiClient cryptographicOperationsApiClient;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ScepServiceImpl scepServiceImpl;
+    private UUID connectorUuid;
+    private final List<String> profileNames = new ArrayList<>();
+    private final List<X509Certificate> caCertificates = new ArrayList<>();
+    // private keys of the CA certificates held by the stub connector by key reference UUID
+    private final Map<String, PrivateKey> connectorKeys = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        CryptographicOperationsApiClient stubConnector = Mockito.mock(CryptographicOperationsApiClient.class);
+        Mockito.when(stubConnector.signData(Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenAnswer(invocation -> {
+            SignDataRequestDto request = invocation.getArgument(3);
+            Signature signature = Signature.getInstance("SHA256withECDSA", BouncyCastleProvider.PROVIDER_NAME);
+            signature.initSign(connectorKeys.get(invocation.getArgument(2, String.class)));
+            signature.update(request.getData().get(0).getData());
+            byte[] signatureValue = signature.sign();
+
+            SignDataResponseDto response = Mockito.mock(SignDataResponseDto.class, Mockito.RETURNS_DEEP_STUBS);
+            Mockito.when(response.getSignatures().get(0).getData()).thenReturn(signatureValue);
+            return response;
+        });
+        scepServiceImpl = AopTestUtils.getTargetObject(scepService);
+        scepServiceImpl.setCryptographicOperationsApiClient(stubConnector);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+
+        // requests are processed in their own transactions, so the data has to be committed
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> {
+            Connector connector = new Connector();
+            connector.setName("scepConcurrencyConnector");
+            connector.setUrl("http://localhost:3665");
+            connector.setStatus(ConnectorStatus.CONNECTED);
+            connector = connectorRepository.save(connector);
+            connectorUuid = connector.getUuid();
+
+            TokenInstanceReference tokenInstanceReference = new TokenInstanceReference();
+            tokenInstanceReference.setTokenInstanceUuid("1l");
+            tokenInstanceReference.setConnector(connector);
+            tokenInstanceReferenceRepository.save(tokenInstanceReference);
+
+            TokenProfile tokenProfile = new TokenProfile();
+            tokenProfile.setName("scepConcurrencyTokenProfile");
+            tokenProfile.setTokenInstanceReference(tokenInstanceReference);
+            tokenProfile.setEnabled(true);
+            tokenProfileRepository.save(tokenProfile);
+
+            for (int i = 0; i < PROFILES_COUNT; i++) {
+                KeyPair keyPair = generator.generateKeyPair();
+                X509Certificate caCertificate;
+                try {
+                    caCertificate = createSelfSignedCertificate("CN=SCEP Concurrency CA " + i, keyPair);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                caCertificates.add(caCertificate);
+
+                CryptographicKey key = new CryptographicKey();
+                key.setName("scepConcurrencyKey" + i);
+                key.setTokenProfile(tokenProfile);
+                key.setTokenInstanceReference(tokenInstanceReference);
+                cryptographicKeyRepository.save(key);
+
+                CryptographicKeyItem privateKeyItem = createKeyItem(key, KeyType.PRIVATE_KEY, KeyFormat.PRKI, List.of(KeyUsage.SIGN));
+                CryptographicKeyItem publicKeyItem = createKeyItem(key, KeyType.PUBLIC_KEY, KeyFormat.SPKI, List.of(KeyUsage.VERIFY));
+                key.setItems(new HashSet<>(List.of(privateKeyItem, publicKeyItem)));
+                cryptographicKeyRepository.save(key);
+                connectorKeys.put(privateKeyItem.getKeyReferenceUuid().toString(), keyPair.getPrivate());
+
+                Certificate certificate = new Certificate();
+                CertificateContent certificateContent = new CertificateContent();
+                try {
+                    certificateContent.setContent(Base64.getEncoder().encodeToString(caCertificate.getEncoded()));
+                    certificateContent.setFingerprint(CertificateUtil.getThumbprint(caCertificate));
+                    certificate.setFingerprint(certificateContent.getFingerprint());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                certificateContentRepository.save(certificateContent);
+
+                certificate.setSubjectDn(caCertificate.getSubjectX500Principal().getName());
+                certificate.setIssuerDn(caCertificate.getIssuerX500Principal().getName());
+                certificate.setSerialNumber(caCertificate.getSerialNumber().toString(16));
+                certificate.setCertificateContent(certificateContent);
+                certificate.setStatus(CertificateStatus.VALID);
+                certificate.setKey(key);
+                certificate.setKeyUuid(key.getUuid());
+                certificateRepository.save(certificate);
+
+                RaProfile raProfile = new RaProfile();
+                raProfile.setName("scepConcurrencyRaProfile" + i);
+                raProfile.setEnabled(true);
+                raProfileRepository.save(raProfile);
+
+                ScepProfile scepProfile = new ScepProfile();
+                scepProfile.setName("scepConcurrencyProfile" + i);
+                scepProfile.setEnabled(true);
+                scepProfile.setRequireManualApproval(false);
+                scepProfile.setChallengePassword("challengePassword" + i);
+                scepProfile.setRaProfile(raProfile);
+                scepProfile.setCaCertificate(certificate);
+                scepProfileRepository.save(scepProfile);
+                profileNames.add(scepProfile.getName());
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scepServiceImpl.setCryptographicOperationsApiClient(cryptographicOperationsApiClient);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String profileName : profileNames) {
+                jdbcTemplate.update("DELETE FROM scep_profile WHERE name = ?", profileName);
+            }
+            jdbcTemplate.update("DELETE FROM ra_profile WHERE name LIKE 'scepConcurrencyRaProfile%'");
+            String keys = "SELECT k.uuid FROM cryptographic_key k JOIN token_instance_reference t ON k.token_instance_uuid = t.uuid WHERE t.connector_uuid = ?";
+            jdbcTemplate.update("DELETE FROM certificate WHERE key_uuid IN (" + keys + ")", connectorUuid);
+            for (X509Certificate caCertificate : caCertificates) {
+                try {
+                    jdbcTemplate.update("DELETE FROM certificate_content WHERE fingerprint = ?", CertificateUtil.getThumbprint(caCertificate));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            jdbcTemplate.update("DELETE FROM cryptographic_key_item WHERE cryptographic_key_uuid IN (" + keys + ")", connectorUuid);
+            jdbcTemplate.update("DELETE FROM cryptographic_key WHERE uuid IN (" + keys + ")", connectorUuid);
+            jdbcTemplate.update("DELETE FROM token_profile WHERE token_instance_ref_uuid IN (SELECT uuid FROM token_instance_reference WHERE connector_uuid = ?)", connectorUuid);
+            jdbcTemplate.update("DELETE FROM token_instance_reference WHERE connector_uuid = ?", connectorUuid);
+            jdbcTemplate.update("DELETE FROM connector WHERE uuid = ?", connectorUuid);
+        });
+    }
+
+    @Test
+    public void testConcurrentEnrollments() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        long cacheHits = scepCaCache.getHitCount();
+
+        List<Callable<Void>> requests = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < REQUESTS_COUNT; i++) {
+            int profile = i % PROFILES_COUNT;
+            String profileName = profileNames.get(profile);
+            X509Certificate caCertificate = caCertificates.get(profile);
+            boolean getCaCert = i % 5 == 0;
+            String transactionId = "concurrentTransaction" + i;
+            String senderNonce = Base64.getEncoder().encodeToString(UUID.randomUUID().toString().getBytes());
+            byte[] message = getCaCert ? null : createPkiMessage(generator.generateKeyPair(), "challengePassword" + profile, transactionId, senderNonce);
+
+            requests.add(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("POST", ScepServiceImpl.SCEP_URL_PREFIX + "/" + profileName + "/pkiclient.exe");
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+                try {
+                    start.await();
+                    if (getCaCert) {
+                        ResponseEntity<Object> response = scepService.handleGet(profileName, "GetCACert", null);
+                        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+                        Assertions.assertArrayEquals(caCertificate.getEncoded(), (byte[]) response.getBody(), "Wrong CA certificate of " + profileName);
+                    } else {
+                        ResponseEntity<Object> response = scepService.handlePost(profileName, "PKIOperation", message);
+                        assertResponse((byte[]) response.getBody(), caCertificate, transactionId, senderNonce);
+                    }
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> request : requests) {
+                results.add(executor.submit(request));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // CA chain, key and provider are resolved once per profile, not for every request
+        Assertions.assertTrue(scepCaCache.getHitCount() - cacheHits >= REQUESTS_COUNT - 32L * PROFILES_COUNT);
+    }
+
+    /**
+     * Response to the request has to be signed by the CA of the requested profile and carry nonce and transaction
+     * of the request. Challenge password of the request does not match, so the enrollment is rejected, but the
+     * request has to be decrypted by the challenge password of the requested profile before.
+     */
+    private static void assertResponse(byte[] response, X509Certificate caCertificate, String transactionId, String senderNonce) throws Exception {
+        CMSSignedData signedData = new CMSSignedData(response);
+        SignerInformation signer = signedData.getSignerInfos().getSigners().iterator().next();
+        Assertions.assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder().setProvider(BouncyCastleProvider.PROVIDER_NAME).build(caCertificate)),
+                "Response of " + transactionId + " is not signed by the CA of its profile");
+
+        AttributeTable attributes = signer.getSignedAttributes();
+        Assertions.assertEquals(transactionId, getAttributeValue(attributes, ScepConstants.id_transactionId).toString());
+        Assertions.assertEquals(Integer.toString(PkiStatus.FAILURE.getValue()), getAttributeValue(attributes, ScepConstants.id_pkiStatus).toString());
+        Assertions.assertEquals(Integer.toString(FailInfo.BAD_MESSAGE_CHECK.getValue()), getAttributeValue(attributes, ScepConstants.id_failInfo).toString());
+        Assertions.assertEquals(senderNonce, Base64.getEncoder().encodeToString(
+                DEROctetString.getInstance(getAttributeValue(attributes, ScepConstants.id_recipientNonce)).getOctets()));
+    }
+
+    private static Object getAttributeValue(AttributeTable attributes, String oid) {
+        Object value = attributes.get(new ASN1ObjectIdentifier(oid)).getAttrValues().getObjectAt(0);
+        return value instanceof ASN1String string ? string.getString() : value;
+    }
+
+    private static byte[] createPkiMessage(KeyPair keyPair, String profileChallengePassword, String transactionId, String senderNonce) throws Exception {
+        byte[] csr = new JcaPKCS10CertificationRequestBuilder(new X500Name("CN=" + transactionId), keyPair.getPublic())
+                .addAttribute(PKCSObjectIdentifiers.pkcs_9_at_challengePassword, new DERPrintableString(WRONG_CHALLENGE_PASSWORD))
+                .build(new JcaContentSignerBuilder("SHA256withECDSA").setProvider(BouncyCastleProvider.PROVIDER_NAME).build(keyPair.getPrivate()))
+                .getEncoded();
+
+        CMSEnvelopedDataGenerator envelopedDataGenerator = new CMSEnvelopedDataGenerator();
+        envelopedDataGenerator.addRecipientInfoGenerator(new JcePasswordRecipientInfoGenerator(CMSAlgorithm.AES128_CBC, profileChallengePassword.toCharArray()));
+        CMSEnvelopedData envelopedData = envelopedDataGenerator.generate(new CMSProcessableByteArray(csr),
+                new JceCMSContentEncryptorBuilder(CMSAlgorithm.AES256_CBC).setProvider(BouncyCastleProvider.PROVIDER_NAME).build());
+
+        Hashtable<ASN1ObjectIdentifier, Attribute> attributes = new Hashtable<>();
+        addAttribute(attributes, ScepConstants.id_messageType, new DERPrintableString(Integer.toString(MessageType.PKCS_REQ.getValue())));
+        addAttribute(attributes, ScepConstants.id_transactionId, new DERPrintableString(transactionId));
+        addAttribute(attributes, ScepConstants.id_senderNonce, new DEROctetString(Base64.getDecoder().decode(senderNonce)));
+
+        X509Certificate signerCertificate = createSelfSignedCertificate("CN=" + transactionId, keyPair);
+        JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(
+                new JcaDigestCalculatorProviderBuilder().setProvider(BouncyCastleProvider.PROVIDER_NAME).build());
+        signerInfoGeneratorBuilder.setSignedAttributeGenerator(new DefaultSignedAttributeTableGenerator(new AttributeTable(attributes)));
+
+        CMSSignedDataGenerator signedDataGenerator = new CMSSignedDataGenerator();
+        signedDataGenerator.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+                new JcaContentSignerBuilder("SHA256withECDSA").setProvider(BouncyCastleProvider.PROVIDER_NAME).build(keyPair.getPrivate()), signerCertificate));
+        signedDataGenerator.addCertificates(new JcaCertStore(List.of(signerCertificate)));
+        return signedDataGenerator.generate(new CMSProcessableByteArray(envelopedData.getEncoded()), true).getEncoded();
+    }
+
+    private static void addAttribute(Hashtable<ASN1ObjectIdentifier, Attribute> attributes, String oid, org.bouncycastle.asn1.ASN1Encodable value) {
+        Attribute attribute = new Attribute(new ASN1ObjectIdentifier(oid), new DERSet(value));
+        attributes.put(attribute.getAttrType(), attribute);
+    }
+
+    private static X509Certificate createSelfSignedCertificate(String subject, KeyPair keyPair) throws Exception {
+        X500Name name = new X500Name(subject);
+        Date notBefore = new Date(System.currentTimeMillis() - 60_000);
+        Date notAfter = new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000);
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.valueOf(System.nanoTime()), notBefore, notAfter, name, keyPair.getPublic());
+        return new JcaX509CertificateConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME).getCertificate(
+                builder.build(new JcaContentSignerBuilder("SHA256withECDSA").setProvider(BouncyCastleProvider.PROVIDER_NAME).build(keyPair.getPrivate())));
+    }
+
+    private CryptographicKeyItem createKeyItem(CryptographicKey key, KeyType type, KeyFormat format, List<KeyUsage> usage) {
+        CryptographicKeyItem item = new CryptographicKeyItem();
+        item.setLength(256);
+        item.setCryptographicKey(key);
+        item.setCryptographicKeyUuid(key.getUuid());
+        item.setType(type);
+        item.setKeyData("some/encrypted/data");
+        item.setFormat(format);
+        item.setState(KeyState.ACTIVE);
+        item.setEnabled(true);
+        item.setKeyAlgorithm(KeyAlgorithm.ECDSA);
+        item.setUsage(usage);
+        cryptographicKeyItemRepository.save(item);
+        item.setKeyReferenceUuid(item.getUuid());
+        return cryptographicKeyItemRepository.save(item);
+    }
+}
@@ -0,0 +1,203 @@
+package com.czertainly.core.util;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CrlCacheTest {
+
+    private static final BigInteger REVOKED_SERIAL_NUMBER = BigInteger.valueOf(1001);
+    private static final BigInteger VALID_SERIAL_NUMBER = BigInteger.valueOf(1002);
+
+    private MockWebServer crlServer;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+
+    private KeyPair caKeyPair;
+    private String crlUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        caKeyPair = keyPairGenerator.generateKeyPair();
+
+        byte[] crl = createCrl(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+
+        crlServer = new MockWebServer();
+        crlServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                fetchCount.incrementAndGet();
+                return new MockResponse()
+                        .setResponseCode(200)
+                        .setHeader("content-type", "application/pkix-crl")
+                        .setBody(new Buffer().write(crl));
+            }
+        });
+        crlServer.start();
+        crlUrl = crlServer.url("/ca.crl").toString();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        crlServer.shutdown();
+    }
+
+    @Test
+    public void testRevokedCertificateIsDetected() throws Exception {
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMinutes(1));
+
+        String revocationInfo = crlCache.checkCertificateRevocationList(createCertificate(REVOKED_SERIAL_NUMBER), crlUrl);
+        Assertions.assertTrue(revocationInfo.startsWith(java.security.cert.CRLReason.KEY_COMPROMISE + "="));
+        Assertions.assertEquals("", crlCache.checkCertificateRevocationList(createCertificate(VALID_SERIAL_NUMBER), crlUrl));
+    }
+
+    @Test
+    public void testCrlIsDownloadedOnce() throws Exception {
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMinutes(1));
+
+        for (int i = 0; i < 100; i++) {
+            crlCache.checkCertificateRevocationList(createCertificate(BigInteger.valueOf(i + 1)), crlUrl);
+        }
+
+        Assertions.assertEquals(1, fetchCount.get());
+        Assertions.assertEquals(99, crlCache.getHitCount());
+    }
+
+    @Test
+    public void testConcurrentDownloadsAreMerged() throws Exception {
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMinutes(1));
+        X509Certificate certificate = createCertificate(REVOKED_SERIAL_NUMBER);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> crlCache.checkCertificateRevocationList(certificate, crlUrl)));
+            }
+            for (Future<String> result : results) {
+                Assertions.assertFalse(result.get(30, TimeUnit.SECONDS).isEmpty());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testInvalidatedCrlIsDownloadedAgain() throws Exception {
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMinutes(1));
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER);
+
+        crlCache.checkCertificateRevocationList(certificate, crlUrl);
+        crlCache.invalidate(crlUrl);
+        crlCache.checkCertificateRevocationList(certificate, crlUrl);
+
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void testDisabledCacheDownloadsEveryTime() throws Exception {
+        CrlCache crlCache = new CrlCache(0, Duration.ofHours(1), Duration.ofMinutes(1));
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER);
+
+        crlCache.checkCertificateRevocationList(certificate, crlUrl);
+        crlCache.checkCertificateRevocationList(certificate, crlUrl);
+
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void testFailedDownloadIsNotRepeatedDuringBackoff() throws Exception {
+        MockWebServer unreachableServer = new MockWebServer();
+        unreachableServer.start();
+        String unreachableUrl = unreachableServer.url("/ca.crl").toString();
+        unreachableServer.shutdown();
+
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMillis(500));
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER);
+
+        IOException failure = Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, unreachableUrl));
+        // failure is remembered for the back-off, no new connection is attempted
+        Assertions.assertSame(failure, Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, unreachableUrl)));
+        // other URLs are not affected
+        Assertions.assertEquals("", crlCache.checkCertificateRevocationList(certificate, crlUrl));
+
+        Thread.sleep(600);
+        Assertions.assertNotSame(failure, Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, unreachableUrl)));
+    }
+
+    @Test
+    public void testFailedDownloadIsRetriedAfterInvalidation() throws Exception {
+        crlServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                fetchCount.incrementAndGet();
+                return new MockResponse().setResponseCode(503);
+            }
+        });
+        CrlCache crlCache = new CrlCache(10, Duration.ofHours(1), Duration.ofMinutes(1));
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER);
+
+        Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, crlUrl));
+        Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, crlUrl));
+        Assertions.assertEquals(1, fetchCount.get());
+
+        crlCache.invalidate(crlUrl);
+        Assertions.assertThrows(IOException.class, () -> crlCache.checkCertificateRevocationList(certificate, crlUrl));
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    private byte[] createCrl(Date nextUpdate) throws Exception {
+        Date now = new Date();
+        X509v2CRLBuilder crlBuilder = new X509v2CRLBuilder(new X500Name("CN=Test CA"), now);
+        crlBuilder.setNextUpdate(nextUpdate);
+        crlBuilder.addCRLEntry(REVOKED_SERIAL_NUMBER, now, CRLReason.keyCompromise);
+        return crlBuilder.build(getSigner()).getEncoded();
+    }
+
+    private X509Certificate createCertificate(BigInteger serialNumber) throws Exception {
+        Date now = new Date();
+        JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                new X500Name("CN=Test CA"),
+                serialNumber,
+                now,
+                new Date(now.getTime() + TimeUnit.DAYS.toMillis(365)),
+                new X500Name("CN=Test Certificate " + serialNumber),
+                caKeyPair.getPublic());
+        return new JcaX509CertificateConverter().getCertificate(certificateBuilder.build(getSigner()));
+    }
+
+    private ContentSigner getSigner() throws Exception {
+        return new JcaContentSignerBuilder("SHA256WithRSA").build(caKeyPair.getPrivate());
+    }
+}
@@ -0,0 +1,170 @@
+package com.czertainly.core.util;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class IssuerGraphIndexTest {
+
+    private IssuerGraphIndex index;
+
+    private long serialNumber = 1;
+
+    @BeforeEach
+    public void setUp() {
+        index = new IssuerGraphIndex();
+    }
+
+    @Test
+    public void testFindIssuers_renewedCa() throws Exception {
+        KeyPair oldKey = generateKeyPair();
+        KeyPair newKey = generateKeyPair();
+        UUID oldRoot = add(createCertificate("CN=Root", oldKey.getPublic(), "CN=Root", oldKey, true));
+        UUID newRoot = add(createCertificate("CN=Root", newKey.getPublic(), "CN=Root", newKey, true));
+
+        UUID oldLeaf = add(createCertificate("CN=Leaf old", generateKeyPair().getPublic(), "CN=Root", oldKey, true));
+        UUID newLeaf = add(createCertificate("CN=Leaf new", generateKeyPair().getPublic(), "CN=Root", newKey, true));
+
+        // key identifiers distinguish the CA certificates with the same name
+        Assertions.assertEquals(List.of(oldRoot), index.findIssuers(oldLeaf));
+        Assertions.assertEquals(List.of(newRoot), index.findIssuers(newLeaf));
+        Assertions.assertTrue(index.findIssuers(oldRoot).isEmpty());
+        Assertions.assertTrue(index.findIssuers(newRoot).isEmpty());
+
+        // without authority key identifier all certificates with the issuer name are candidates
+        UUID leafWithoutAki = add(createCertificate("CN=Leaf", generateKeyPair().getPublic(), "CN=Root", newKey, false));
+        Assertions.assertEquals(Set.of(oldRoot, newRoot), Set.copyOf(index.findIssuers(leafWithoutAki)));
+    }
+
+    @Test
+    public void testFindIssuers_crossSigned() throws Exception {
+        KeyPair rootXKey = generateKeyPair();
+        KeyPair rootYKey = generateKeyPair();
+        KeyPair intermediateKey = generateKeyPair();
+        UUID rootX = add(createCertificate("CN=Root X", rootXKey.getPublic(), "CN=Root X", rootXKey, true));
+        UUID rootY = add(createCertificate("CN=Root Y", rootYKey.getPublic(), "CN=Root Y", rootYKey, true));
+        UUID rootYCrossSigned = add(createCertificate("CN=Root Y", rootYKey.getPublic(), "CN=Root X", rootXKey, true));
+
+        UUID intermediateX = add(createCertificate("CN=Intermediate", intermediateKey.getPublic(), "CN=Root X", rootXKey, true));
+        UUID intermediateY = add(createCertificate("CN=Intermediate", intermediateKey.getPublic(), "CN=Root Y", rootYKey, true));
+        UUID leaf = add(createCertificate("CN=Leaf", generateKeyPair().getPublic(), "CN=Intermediate", intermediateKey, true));
+
+        // both certificates of the cross-signed intermediate are issuers of the leaf
+        Assertions.assertEquals(Set.of(intermediateX, intermediateY), Set.copyOf(index.findIssuers(leaf)));
+        Assertions.assertEquals(List.of(rootX), index.findIssuers(intermediateX));
+        // self-signed root is preferred over its cross-signed certificate
+        Assertions.assertEquals(List.of(rootY, rootYCrossSigned), index.findIssuers(intermediateY));
+        Assertions.assertEquals(List.of(rootX), index.findIssuers(rootYCrossSigned));
+        Assertions.assertTrue(index.findIssuers(rootY).isEmpty());
+    }
+
+    @Test
+    public void testFindIssuers_keyIdentifierOfOtherName() throws Exception {
+        KeyPair sharedKey = generateKeyPair();
+        add(createCertificate("CN=Other Root", sharedKey.getPublic(), "CN=Other Root", sharedKey, true));
+        UUID root = add(createCertificate("CN=Root", generateKeyPair().getPublic(), "CN=Root", generateKeyPair(), false));
+
+        // certificate matching by key identifier with different name is not an issuer, issuer DN is used instead
+        UUID leaf = add(createCertificate("CN=Leaf", generateKeyPair().getPublic(), "CN=Root", sharedKey, true));
+        Assertions.assertEquals(List.of(root), index.findIssuers(leaf));
+    }
+
+    @Test
+    public void testFindIssuerCertificates_notIndexedIssuer() throws Exception {
+        CertificateRepository certificateRepository = Mockito.mock(CertificateRepository.class);
+        index.setCertificateRepository(certificateRepository);
+
+        KeyPair rootKey = generateKeyPair();
+        X509Certificate rootCertificate = createCertificate("CN=Root", rootKey.getPublic(), "CN=Root", rootKey, true);
+        Certificate root = createEntity(rootCertificate);
+        Certificate leaf = createEntity(createCertificate("CN=Leaf", generateKeyPair().getPublic(), "CN=Root", rootKey, true));
+
+        // issuer inserted by other instance is not indexed and is found in the database by its DN
+        Mockito.when(certificateRepository.findBySubjectDn(leaf.getIssuerDn())).thenReturn(List.of(root));
+        Assertions.assertEquals(List.of(root), index.findIssuerCertificates(leaf));
+        Mockito.verify(certificateRepository, Mockito.never()).findByUuidIn(Mockito.any());
+
+        // issuer found in the database is added to the index
+        Mockito.when(certificateRepository.findByUuidIn(List.of(root.getUuid()))).thenReturn(List.of(root));
+        Assertions.assertEquals(List.of(root.getUuid()), index.findIssuers(leaf.getUuid()));
+        Assertions.assertEquals(List.of(root), index.findIssuerCertificates(leaf));
+        Mockito.verify(certificateRepository).findBySubjectDn(leaf.getIssuerDn());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        KeyPair rootKey = generateKeyPair();
+        UUID root = add(createCertificate("CN=Root", rootKey.getPublic(), "CN=Root", rootKey, true));
+        UUID leaf = add(createCertificate("CN=Leaf", generateKeyPair().getPublic(), "CN=Root", rootKey, true));
+        Assertions.assertEquals(List.of(root), index.findIssuers(leaf));
+
+        index.remove(root);
+        Assertions.assertTrue(index.findIssuers(leaf).isEmpty());
+
+        index.remove(leaf);
+        Assertions.assertTrue(index.findIssuers(leaf).isEmpty());
+    }
+
+    private UUID add(X509Certificate certificate) {
+        UUID uuid = UUID.randomUUID();
+        index.add(uuid, certificate);
+        return uuid;
+    }
+
+    private Certificate createEntity(X509Certificate x509Certificate) throws Exception {
+        CertificateContent certificateContent = new CertificateContent();
+        certificateContent.setContent(Base64.getEncoder().encodeToString(x509Certificate.getEncoded()));
+        Certificate certificate = new Certificate();
+        certificate.setUuid(UUID.randomUUID());
+        certificate.setSubjectDn(x509Certificate.getSubjectX500Principal().getName());
+        certificate.setIssuerDn(x509Certificate.getIssuerX500Principal().getName());
+        certificate.setCertificateContent(certificateContent);
+        return certificate;
+    }
+
+    private X509Certificate createCertificate(String subject, PublicKey publicKey, String issuer, KeyPair issuerKey, boolean withKeyIdentifiers) throws Exception {
+        Date notBefore = new Date();
+        JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                new X500Name(issuer),
+                BigInteger.valueOf(serialNumber++),
+                notBefore,
+                new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(365)),
+                new X500Name(subject),
+                publicKey);
+        if (withKeyIdentifiers) {
+            JcaX509ExtensionUtils extensionUtils = new JcaX509ExtensionUtils();
+            certificateBuilder.addExtension(Extension.subjectKeyIdentifier, false, extensionUtils.createSubjectKeyIdentifier(publicKey));
+            certificateBuilder.addExtension(Extension.authorityKeyIdentifier, false, extensionUtils.createAuthorityKeyIdentifier(issuerKey.getPublic()));
+        }
+        return new JcaX509CertificateConverter().getCertificate(
+                certificateBuilder.build(new JcaContentSignerBuilder("SHA256WithRSA").build(issuerKey.getPrivate())));
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(1024);
+        return keyPairGenerator.generateKeyPair();
+    }
+}
@@ -0,0 +1,194 @@
+package com.czertainly.core.util;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OcspCacheTest {
+
+    private static final BigInteger REVOKED_SERIAL_NUMBER = BigInteger.valueOf(2001);
+    private static final BigInteger VALID_SERIAL_NUMBER = BigInteger.valueOf(2002);
+    private static final BigInteger UNKNOWN_SERIAL_NUMBER = BigInteger.valueOf(2003);
+
+    private MockWebServer ocspResponder;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger nonceCount = new AtomicInteger();
+    private boolean nextUpdateIncluded = true;
+
+    private KeyPair caKeyPair;
+    private X509Certificate caCertificate;
+    private String ocspUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        caKeyPair = keyPairGenerator.generateKeyPair();
+        caCertificate = createCertificate(BigInteger.ONE, "CN=Test CA");
+
+        ocspResponder = new MockWebServer();
+        ocspResponder.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requestCount.incrementAndGet();
+                try {
+                    return new MockResponse()
+                            .setResponseCode(200)
+                            .setHeader("content-type", "application/ocsp-response")
+                            .setBody(new Buffer().write(createOcspResponse(new OCSPReq(request.getBody().readByteArray()))));
+                } catch (Exception e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+        ocspResponder.start();
+        ocspUrl = ocspResponder.url("/ocsp").toString();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ocspResponder.shutdown();
+    }
+
+    @Test
+    public void testOcspStatusIsCached() throws Exception {
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), false);
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER, "CN=Valid");
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("Success", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+        }
+
+        Assertions.assertEquals(1, requestCount.get());
+        Assertions.assertEquals(9, ocspCache.getHitCount());
+        Assertions.assertEquals(0, nonceCount.get());
+    }
+
+    @Test
+    public void testRevokedStatusIsCached() throws Exception {
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), false);
+        X509Certificate certificate = createCertificate(REVOKED_SERIAL_NUMBER, "CN=Revoked");
+
+        Assertions.assertEquals("Failed", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+        Assertions.assertEquals("Failed", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+
+        Assertions.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testUnknownStatusIsNotCached() throws Exception {
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), false);
+        X509Certificate certificate = createCertificate(UNKNOWN_SERIAL_NUMBER, "CN=Unknown");
+
+        Assertions.assertEquals("Unknown", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+        Assertions.assertEquals("Unknown", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+
+        Assertions.assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testStatusWithoutNextUpdateIsNotCached() throws Exception {
+        nextUpdateIncluded = false;
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), false);
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER, "CN=Valid");
+
+        Assertions.assertEquals("Success", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+        Assertions.assertEquals("Success", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+
+        Assertions.assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testDifferentCertificatesAreCheckedSeparately() throws Exception {
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), false);
+
+        Assertions.assertEquals("Success", ocspCache.checkOcsp(createCertificate(VALID_SERIAL_NUMBER, "CN=Valid"), caCertificate, ocspUrl));
+        Assertions.assertEquals("Failed", ocspCache.checkOcsp(createCertificate(REVOKED_SERIAL_NUMBER, "CN=Revoked"), caCertificate, ocspUrl));
+
+        Assertions.assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testNonceIsSentWhenEnabled() throws Exception {
+        OcspCache ocspCache = new OcspCache(100, Duration.ofHours(1), true);
+        X509Certificate certificate = createCertificate(VALID_SERIAL_NUMBER, "CN=Valid");
+
+        Assertions.assertEquals("Success", ocspCache.checkOcsp(certificate, caCertificate, ocspUrl));
+
+        Assertions.assertEquals(1, nonceCount.get());
+    }
+
+    private byte[] createOcspResponse(OCSPReq request) throws Exception {
+        if (request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce) != null) {
+            nonceCount.incrementAndGet();
+        }
+
+        Date now = new Date();
+        Date nextUpdate = nextUpdateIncluded ? new Date(now.getTime() + TimeUnit.HOURS.toMillis(1)) : null;
+        BasicOCSPRespBuilder responseBuilder = new BasicOCSPRespBuilder(new RespID(new X500Name(caCertificate.getSubjectX500Principal().getName())));
+        for (Req singleRequest : request.getRequestList()) {
+            CertificateID certificateId = singleRequest.getCertID();
+            CertificateStatus status;
+            if (certificateId.getSerialNumber().equals(REVOKED_SERIAL_NUMBER)) {
+                status = new RevokedStatus(now, CRLReason.keyCompromise);
+            } else if (certificateId.getSerialNumber().equals(VALID_SERIAL_NUMBER)) {
+                status = CertificateStatus.GOOD;
+            } else {
+                status = new UnknownStatus();
+            }
+            responseBuilder.addResponse(certificateId, status, now, nextUpdate);
+        }
+        BasicOCSPResp basicResponse = responseBuilder.build(getSigner(), new X509CertificateHolder[]{new X509CertificateHolder(caCertificate.getEncoded())}, now);
+        return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+    }
+
+    private X509Certificate createCertificate(BigInteger serialNumber, String subjectDn) throws Exception {
+        Date now = new Date();
+        JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                new X500Name("CN=Test CA"),
+                serialNumber,
+                now,
+                new Date(now.getTime() + TimeUnit.DAYS.toMillis(365)),
+                new X500Name(subjectDn),
+                caKeyPair.getPublic());
+        return new JcaX509CertificateConverter().getCertificate(certificateBuilder.build(getSigner()));
+    }
+
+    private ContentSigner getSigner() throws Exception {
+        return new JcaContentSignerBuilder("SHA256WithRSA").build(caKeyPair.getPrivate());
+    }
+}
@@ -0,0 +1,147 @@
+package com.czertainly.core.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ParsedCertificateCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParsedCertificateCacheTest.class);
+
+    private static final int CERTIFICATES_COUNT = 200;
+    private static final int ROUNDS = 20;
+
+    private static final List<String> certificates = new ArrayList<>();
+    private static final List<String> fingerprints = new ArrayList<>();
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate());
+
+        Date notBefore = new Date();
+        for (int i = 0; i < CERTIFICATES_COUNT; i++) {
+            JcaX509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                    new X500Name("CN=Cache CA"),
+                    BigInteger.valueOf(3000L + i),
+                    notBefore,
+                    new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(365)),
+                    new X500Name("CN=cache" + i),
+                    keyPair.getPublic());
+            byte[] encoded = new JcaX509CertificateConverter().getCertificate(certificateBuilder.build(signer)).getEncoded();
+            certificates.add(Base64.getEncoder().encodeToString(encoded));
+            fingerprints.add(CertificateUtil.getThumbprint(encoded));
+        }
+    }
+
+    @Test
+    public void testGetX509Certificate_cached() throws Exception {
+        ParsedCertificateCache cache = new ParsedCertificateCache(10, DataSize.ofMegabytes(1), Duration.ofHours(1));
+
+        X509Certificate certificate = cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        Assertions.assertSame(certificate, cache.getX509Certificate(fingerprints.get(0), certificates.get(0)));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(certificate.getEncoded().length, cache.getSizeInBytes());
+
+        // certificate without fingerprint is not cached
+        Assertions.assertNotSame(cache.getX509Certificate(null, certificates.get(1)), cache.getX509Certificate(null, certificates.get(1)));
+        Assertions.assertEquals(1, cache.getSize());
+
+        cache.invalidate(fingerprints.get(0));
+        Assertions.assertEquals(0, cache.getSize());
+        Assertions.assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testGetX509Certificate_sizeInBytesLimit() throws Exception {
+        long certificateSize = CertificateUtil.parseCertificate(certificates.get(0)).getEncoded().length;
+        // limit allows roughly three certificates of the same size
+        ParsedCertificateCache cache = new ParsedCertificateCache(100, DataSize.ofBytes(certificateSize * 3 + certificateSize / 2), Duration.ofHours(1));
+
+        for (int i = 0; i < 10; i++) {
+            cache.getX509Certificate(fingerprints.get(i), certificates.get(i));
+            Assertions.assertTrue(cache.getSizeInBytes() <= certificateSize * 3 + certificateSize / 2);
+        }
+        Assertions.assertTrue(cache.getSize() <= 3);
+
+        // least recently used certificates were evicted
+        cache.getX509Certificate(fingerprints.get(9), certificates.get(9));
+        Assertions.assertEquals(1, cache.getHitCount());
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        Assertions.assertEquals(11, cache.getMissCount());
+    }
+
+    @Test
+    public void testGetX509Certificate_disabled() throws Exception {
+        ParsedCertificateCache cache = new ParsedCertificateCache(0, DataSize.ofMegabytes(1), Duration.ofHours(1));
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        Assertions.assertEquals(0, cache.getSize());
+        Assertions.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        ParsedCertificateCache cache = new ParsedCertificateCache(10, DataSize.ofMegabytes(1), Duration.ofHours(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+        cache.getX509Certificate(fingerprints.get(0), certificates.get(0));
+
+        Assertions.assertEquals(2, registry.get("certificate.parsed.cache.requests").tag("result", "hit").functionCounter().count());
+        Assertions.assertEquals(1, registry.get("certificate.parsed.cache.requests").tag("result", "miss").functionCounter().count());
+        Assertions.assertEquals(1, registry.get("certificate.parsed.cache.size").gauge().value());
+        Assertions.assertEquals(cache.getSizeInBytes(), registry.get("certificate.parsed.cache.bytes").gauge().value());
+    }
+
+    @Test
+    public void testColdAndCachedParsing() throws Exception {
+        ParsedCertificateCache cache = new ParsedCertificateCache(CERTIFICATES_COUNT, DataSize.ofMegabytes(10), Duration.ofHours(1));
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String certificate : certificates) {
+                CertificateUtil.parseCertificate(certificate);
+            }
+        }
+        long coldNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < CERTIFICATES_COUNT; i++) {
+                cache.getX509Certificate(fingerprints.get(i), certificates.get(i));
+            }
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        Assertions.assertEquals(CERTIFICATES_COUNT, cache.getMissCount());
+        Assertions.assertEquals((long) (ROUNDS - 1) * CERTIFICATES_COUNT, cache.getHitCount());
+        logger.info("Parsed {} certificates in {} ms without cache and in {} ms with cache", ROUNDS * CERTIFICATES_COUNT,
+                TimeUnit.NANOSECONDS.toMillis(coldNanos), TimeUnit.NANOSECONDS.toMillis(cachedNanos));
+    }
+}
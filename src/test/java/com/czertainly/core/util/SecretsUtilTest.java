@@ -0,0 +1,134 @@
+package com.czertainly.core.util;
+
+import com.czertainly.core.dao.entity.scep.ScepProfile;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+public class SecretsUtilTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecretsUtilTest.class);
+
+    private static final String ENCRYPTION_KEY = "test123";
+    private static final String SECRET = "challenge-password";
+
+    @BeforeAll
+    public static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+        new SecretsUtil().setEncryptionKeyStatic(ENCRYPTION_KEY);
+    }
+
+    @Test
+    public void testEncryptAndDecryptV2() {
+        String encrypted = SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V2);
+
+        Assertions.assertTrue(encrypted.startsWith("v2|aes256gcm|"));
+        Assertions.assertEquals(SecretEncodingVersion.V2, SecretsUtil.getSecretEncodingVersion(encrypted));
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encrypted));
+        // every secret has its own IV even though the derived key is shared
+        Assertions.assertNotEquals(encrypted, SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V2));
+    }
+
+    @Test
+    public void testEncryptAndDecryptV1() {
+        String encrypted = SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V1);
+
+        Assertions.assertEquals(SecretEncodingVersion.V1, SecretsUtil.getSecretEncodingVersion(encrypted));
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encrypted, SecretEncodingVersion.V1));
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encrypted));
+    }
+
+    @Test
+    public void testDecryptLegacyV1Secret() throws Exception {
+        String legacySecret = encryptLegacyV1(SECRET, 1000);
+
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(legacySecret, SecretEncodingVersion.V1));
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(legacySecret));
+        // iteration count of the stored secret is used, not the current one
+        Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encryptLegacyV1(SECRET, 2000)));
+    }
+
+    @Test
+    public void testScepProfileMigratesLegacyChallengePassword() throws Exception {
+        ScepProfile scepProfile = new ScepProfile();
+        ReflectionTestUtils.setField(scepProfile, "challengePassword", encryptLegacyV1(SECRET, 1000));
+        Assertions.assertEquals(SECRET, scepProfile.getChallengePassword());
+
+        // secret is stored in the new format when it is set again
+        scepProfile.setChallengePassword(scepProfile.getChallengePassword());
+        String stored = (String) ReflectionTestUtils.getField(scepProfile, "challengePassword");
+        Assertions.assertEquals(SecretEncodingVersion.V2, SecretsUtil.getSecretEncodingVersion(stored));
+        Assertions.assertEquals(SECRET, scepProfile.getChallengePassword());
+    }
+
+    @Test
+    public void testTamperedV2SecretIsRejected() {
+        String encrypted = SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V2);
+        String[] parts = encrypted.split("\\|");
+        byte[] ciphertext = Base64.getDecoder().decode(parts[5]);
+        ciphertext[0] ^= 1;
+        parts[5] = Base64.getEncoder().encodeToString(ciphertext);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> SecretsUtil.decodeAndDecryptSecretString(String.join("|", parts)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SecretsUtil.decodeAndDecryptSecretString(encrypted.replace("aes256gcm", "unknown")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SecretsUtil.decodeAndDecryptSecretString("v3|secret"));
+    }
+
+    @Test
+    public void testDerivedKeyIsCached() {
+        String encryptedV1 = SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V1);
+        String encryptedV2 = SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V2);
+        SecretsUtil.decodeAndDecryptSecretString(encryptedV1);
+        SecretsUtil.decodeAndDecryptSecretString(encryptedV2);
+
+        int operations = 1000;
+        long misses = SecretsUtil.getDerivedKeyCacheMissCount();
+        long hits = SecretsUtil.getDerivedKeyCacheHitCount();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encryptedV1));
+            Assertions.assertEquals(SECRET, SecretsUtil.decodeAndDecryptSecretString(encryptedV2));
+        }
+        long decryptNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            SecretsUtil.encryptAndEncodeSecretString(SECRET, SecretEncodingVersion.V2);
+        }
+        long encryptNanos = System.nanoTime() - start;
+
+        Assertions.assertEquals(misses, SecretsUtil.getDerivedKeyCacheMissCount());
+        Assertions.assertEquals(hits + 3L * operations, SecretsUtil.getDerivedKeyCacheHitCount());
+        logger.info("Average decryption of V1 and V2 secret: {} us, average V2 encryption: {} us",
+                TimeUnit.NANOSECONDS.toMicros(decryptNanos / operations), TimeUnit.NANOSECONDS.toMicros(encryptNanos / operations));
+    }
+
+    /**
+     * Encrypt the secret the same way as the secrets were encrypted before the derived keys were cached
+     */
+    private static String encryptLegacyV1(String secret, int iterations) throws Exception {
+        byte[] salt = new byte[32];
+        new SecureRandom().nextBytes(salt);
+        String algorithm = "PBEWithSHA256And256BitAES-CBC-BC";
+        PBEKeySpec keySpec = new PBEKeySpec(ENCRYPTION_KEY.toCharArray(), salt, iterations);
+        Cipher c = Cipher.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
+        SecretKeyFactory fact = SecretKeyFactory.getInstance(algorithm, BouncyCastleProvider.PROVIDER_NAME);
+        c.init(Cipher.ENCRYPT_MODE, fact.generateSecret(keySpec));
+        byte[] encrypted = c.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+        return "v1|" + Base64.getEncoder().encodeToString(encrypted) + "|" + Base64.getEncoder().encodeToString(salt) + "|" + iterations;
+    }
+}
@@ -0,0 +1,21 @@
+package com.czertainly.core.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate statement inspector collecting the SQL statements prepared by the tests. Register it using the
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector} property.
+ */
+public class SqlCapturingInspector implements StatementInspector {
+
+    public static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+}
@@ -49,7 +49,7 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
     private final String TEST_VALUE = "test";
     private final String TEST_DATE_VALUE = "2022-01-01";
 
-    private final String TEST_VERIFICATION_TEXT = "{\"status\":\"%STATUS%\"";
+    private final String TEST_VERIFICATION_TEXT = "{\"%VALIDATION%\":{\"status\":\"%STATUS%\"}}";
 
     @BeforeEach
     public void prepare() {
@@ -148,17 +148,17 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
 
     @Test
     public void testOCSPValidation() {
-        testVerifications(SearchableFields.OCSP_VALIDATION, SearchCondition.EQUALS, CertificateValidationStatus.SUCCESS);
+        testVerifications(SearchableFields.OCSP_VALIDATION, "OCSP Verification", SearchCondition.EQUALS, CertificateValidationStatus.SUCCESS);
     }
 
     @Test
     public void testSignatureValidation() {
-        testVerifications(SearchableFields.SIGNATURE_VALIDATION, SearchCondition.NOT_EQUALS, CertificateValidationStatus.FAILED);
+        testVerifications(SearchableFields.SIGNATURE_VALIDATION, "Signature Verification", SearchCondition.NOT_EQUALS, CertificateValidationStatus.FAILED);
     }
 
     @Test
     public void testCRLValidation() {
-        testVerifications(SearchableFields.CRL_VALIDATION, SearchCondition.EQUALS, CertificateValidationStatus.EXPIRED);
+        testVerifications(SearchableFields.CRL_VALIDATION, "CRL Verification", SearchCondition.EQUALS, CertificateValidationStatus.EXPIRED);
     }
 
     @Test
@@ -186,16 +186,13 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.PROPERTY, SearchableFields.NAME, SearchCondition.EQUALS, "test"));
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.META, SearchableFields.NAME, AttributeContentType.STRING, SearchCondition.EQUALS, "test"));
 
-        final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject
-                    = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(testSearchableFieldsList, testFilters,  criteriaBuilder, Resource.CERTIFICATE);
-        Assertions.assertEquals(1, criteriaQueryDataObject.getPredicate().getExpressions().size());
-
+        final Predicate predicate = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters, criteriaBuilder, root, criteriaQuery, testSearchableFieldsList, Resource.CERTIFICATE);
+        Assertions.assertEquals(1, countSubqueries(predicate));
+        Assertions.assertTrue(executeQuery(predicate).isEmpty());
     }
 
-
     @Test
     public void testFilterCustomAttrOnly() {
-
         final List<SearchFieldObject> testSearchableFieldsList = new ArrayList<>();
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NAME.name(), AttributeContentType.STRING, AttributeType.META));
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NOT_AFTER.name(), AttributeContentType.DATE, AttributeType.META));
@@ -207,24 +204,24 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.PROPERTY, SearchableFields.COMMON_NAME, SearchCondition.EQUALS, "test"));
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.CUSTOM, SearchableFields.SERIAL_NUMBER, AttributeContentType.STRING, SearchCondition.EQUALS, "test"));
 
-        final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject
-                = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(testSearchableFieldsList, testFilters,  criteriaBuilder, Resource.CERTIFICATE);
-        Assertions.assertEquals(1, criteriaQueryDataObject.getPredicate().getExpressions().size());
-
+        final Predicate predicate = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters, criteriaBuilder, root, criteriaQuery, testSearchableFieldsList, Resource.CERTIFICATE);
+        Assertions.assertEquals(1, countSubqueries(predicate));
+        Assertions.assertTrue(executeQuery(predicate).isEmpty());
 
         List<SearchFilterRequestDto> testFilters2 = new ArrayList<>();
         testFilters2.add(new SearchFilterRequestDTODummy(SearchGroup.PROPERTY, SearchableFields.NAME, SearchCondition.EQUALS, "test"));
         testFilters2.add(new SearchFilterRequestDTODummy(SearchGroup.CUSTOM, SearchableFields.CKI_LENGTH, AttributeContentType.INTEGER, SearchCondition.EQUALS, 1));
         testFilters2.add(new SearchFilterRequestDTODummy(SearchGroup.CUSTOM, SearchableFields.SERIAL_NUMBER, AttributeContentType.STRING, SearchCondition.EQUALS, "test"));
-        final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject2
-                = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(testSearchableFieldsList, testFilters2,  criteriaBuilder, Resource.CERTIFICATE);
-        Assertions.assertEquals(2, criteriaQueryDataObject2.getPredicate().getExpressions().size());
 
+        final CriteriaQuery<Certificate> criteriaQuery2 = criteriaBuilder.createQuery(Certificate.class);
+        final Root<Certificate> root2 = criteriaQuery2.from(Certificate.class);
+        final Predicate predicate2 = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters2, criteriaBuilder, root2, criteriaQuery2, testSearchableFieldsList, Resource.CERTIFICATE);
+        Assertions.assertEquals(2, countSubqueries(predicate2));
+        Assertions.assertTrue(entityManager.createQuery(criteriaQuery2.select(root2).where(predicate2)).getResultList().isEmpty());
     }
 
     @Test
     public void testFilterNoMetaOrCustomAttr() {
-
         final List<SearchFieldObject> testSearchableFieldsList = new ArrayList<>();
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NAME.name(), AttributeContentType.STRING, AttributeType.META));
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NOT_AFTER.name(), AttributeContentType.DATE, AttributeType.META));
@@ -235,14 +232,12 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.PROPERTY, SearchableFields.NAME, SearchCondition.EQUALS, "test"));
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.PROPERTY, SearchableFields.COMMON_NAME, SearchCondition.EQUALS, "test"));
 
-        final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject
-                = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(testSearchableFieldsList, testFilters,  criteriaBuilder, Resource.CERTIFICATE);
-        Assertions.assertEquals(0, criteriaQueryDataObject.getPredicate().getExpressions().size());
+        final Predicate predicate = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters, criteriaBuilder, root, criteriaQuery, testSearchableFieldsList, Resource.CERTIFICATE);
+        Assertions.assertEquals(0, countSubqueries(predicate));
     }
 
     @Test
     public void testFilterNoMetaOrCustomAttrWithCorrectAttrContentType() {
-
         final List<SearchFieldObject> testSearchableFieldsList = new ArrayList<>();
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NAME.name(), AttributeContentType.STRING, AttributeType.META));
         testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NOT_AFTER.name(), AttributeContentType.DATE, AttributeType.META));
@@ -255,27 +250,56 @@ public class Sql2PredicateConverterTest extends BaseSpringBootTest {
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.META, SearchableFields.CKI_LENGTH, AttributeContentType.STRING, SearchCondition.EQUALS, 1));
         testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.CUSTOM, SearchableFields.SERIAL_NUMBER, AttributeContentType.INTEGER, SearchCondition.EQUALS, "test"));
 
-        final Sql2PredicateConverter.CriteriaQueryDataObject criteriaQueryDataObject
-                = Sql2PredicateConverter.prepareQueryToSearchIntoAttributes(testSearchableFieldsList, testFilters,  criteriaBuilder, Resource.CERTIFICATE);
-        Assertions.assertEquals(0, criteriaQueryDataObject.getPredicate().getExpressions().size());
+        // attributes with different content type are not searchable, so the filters cannot match any object
+        final Predicate predicate = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters, criteriaBuilder, root, criteriaQuery, testSearchableFieldsList, Resource.CERTIFICATE);
+        Assertions.assertEquals(0, countSubqueries(predicate));
+        Assertions.assertTrue(executeQuery(predicate).isEmpty());
+    }
+
+    @Test
+    public void testFilterAttributesOfKeyItems() {
+        final CriteriaQuery<CryptographicKeyItem> keyItemQuery = criteriaBuilder.createQuery(CryptographicKeyItem.class);
+        rootCryptoKeyItem = keyItemQuery.from(CryptographicKeyItem.class);
+
+        final List<SearchFieldObject> testSearchableFieldsList = new ArrayList<>();
+        testSearchableFieldsList.add(new SearchFieldObject(SearchableFields.NAME.name(), AttributeContentType.STRING, AttributeType.CUSTOM));
+        List<SearchFilterRequestDto> testFilters = new ArrayList<>();
+        testFilters.add(new SearchFilterRequestDTODummy(SearchGroup.CUSTOM, SearchableFields.NAME, AttributeContentType.STRING, SearchCondition.EQUALS, "test"));
+
+        // attributes of the key are matched through the parent key of the item
+        final Predicate predicate = Sql2PredicateConverter.mapSearchFilter2Predicates(testFilters, criteriaBuilder, rootCryptoKeyItem, keyItemQuery, testSearchableFieldsList, Resource.CRYPTOGRAPHIC_KEY);
+        Assertions.assertEquals(1, countSubqueries(predicate));
+        Assertions.assertTrue(((SqmPredicate) predicate).toHqlString().contains("cryptographicKeyUuid"));
+        Assertions.assertTrue(entityManager.createQuery(keyItemQuery.select(rootCryptoKeyItem).where(predicate)).getResultList().isEmpty());
     }
 
+    private int countSubqueries(final Predicate predicate) {
+        final String hqlString = ((SqmPredicate) predicate).toHqlString().toLowerCase();
+        int count = 0;
+        for (int index = hqlString.indexOf("exists"); index >= 0; index = hqlString.indexOf("exists", index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private List<Certificate> executeQuery(final Predicate predicate) {
+        return entityManager.createQuery(criteriaQuery.select(root).where(predicate)).getResultList();
+    }
 
     private void testLikePredicate(final Predicate predicate, final String value) {
         Assertions.assertInstanceOf(SqmLikePredicate.class, predicate);
         Assertions.assertEquals(value, ((SqmLikePredicate) predicate).getPattern().toHqlString());
     }
 
-    private void testVerifications(final SearchableFields fieldTest, final SearchCondition condition, final CertificateValidationStatus certificateValidationStatus) {
+    private void testVerifications(final SearchableFields fieldTest, final String validationName, final SearchCondition condition, final CertificateValidationStatus certificateValidationStatus) {
         final SearchFilterRequestDTODummy searchFilterRequestDTODummy
                 = new SearchFilterRequestDTODummy(fieldTest, condition, certificateValidationStatus.getCode());
         final Predicate predicateTest = Sql2PredicateConverter.mapSearchFilter2Predicate(searchFilterRequestDTODummy, criteriaBuilder, root);
-        Assertions.assertInstanceOf(SqmLikePredicate.class, predicateTest);
+        Assertions.assertInstanceOf(SqmPredicate.class, predicateTest);
 
-        final String hqlString = ((SqmLikePredicate) predicateTest).getPattern().toHqlString();
-        Assertions.assertTrue(hqlString.contains(TEST_VERIFICATION_TEXT.replace("%STATUS%", certificateValidationStatus.getCode())));
-        Assertions.assertTrue(hqlString.startsWith("%"));
-        Assertions.assertTrue(hqlString.endsWith("%"));
+        final String hqlString = ((SqmPredicate) predicateTest).toHqlString();
+        Assertions.assertTrue(hqlString.contains("jsonb_contains("), hqlString);
+        Assertions.assertTrue(hqlString.contains(TEST_VERIFICATION_TEXT.replace("%VALIDATION%", validationName).replace("%STATUS%", certificateValidationStatus.getCode())), hqlString);
     }
 
 